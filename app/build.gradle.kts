@@ -1,3 +1,5 @@
+import com.asforce.asforcetkf2.build.BundleScriptsTask
+
 plugins {
     alias(libs.plugins.android.application)
     alias(libs.plugins.jetbrains.kotlin.android)
@@ -48,6 +50,22 @@ android {
         abortOnError = false
         baseline = file("lint-baseline.xml")
     }
+
+    // Ölçüm testleri (src/benchmark) normal birim testlerine girmez; yalnızca -Pbenchmarks verilince derlenir:
+    // ./gradlew :app:testDebugUnitTest -Pbenchmarks --tests "*Benchmark"
+    if (providers.gradleProperty("benchmarks").isPresent) {
+        sourceSets.getByName("test").java.srcDir("src/benchmark/java")
+    }
+}
+
+// Sayfa betikleri (src/main/scripts) küçültülüp her varyantta scripts/tkf-bundle.js asset'i olarak paketlenir
+androidComponents {
+    onVariants { variant ->
+        val bundleScripts = tasks.register<BundleScriptsTask>("bundle${variant.name.replaceFirstChar { it.uppercase() }}Scripts") {
+            sourceDir.set(layout.projectDirectory.dir("src/main/scripts"))
+        }
+        variant.sources.assets?.addGeneratedSourceDirectory(bundleScripts, BundleScriptsTask::outputDir)
+    }
 }
 
 dependencies {
@@ -82,6 +100,8 @@ dependencies {
     // ML Kit QR kod tarama
     implementation("com.google.mlkit:barcode-scanning:17.2.0")
     testImplementation(libs.junit)
+    // Birim testlerinde Android stub'ı yerine gerçek org.json (betik sonucu karşılaştırmaları için)
+    testImplementation("org.json:json:20231013")
     androidTestImplementation(libs.androidx.junit)
     androidTestImplementation(libs.androidx.espresso.core)
     implementation("com.android.volley:volley:1.2.1")
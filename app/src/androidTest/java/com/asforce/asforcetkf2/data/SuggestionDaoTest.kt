@@ -0,0 +1,72 @@
+package com.asforce.asforcetkf2.data
+
+import androidx.room.Room
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.platform.app.InstrumentationRegistry
+import kotlinx.coroutines.runBlocking
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * SQL behaviour of SuggestionDao against an in-memory database
+ */
+@RunWith(AndroidJUnit4::class)
+class SuggestionDaoTest {
+    
+    private lateinit var database: BrowserDatabase
+    private lateinit var dao: SuggestionDao
+    
+    @Before
+    fun createDatabase() {
+        val context = InstrumentationRegistry.getInstrumentation().targetContext
+        database = Room.inMemoryDatabaseBuilder(context, BrowserDatabase::class.java).build()
+        dao = database.suggestionDao()
+    }
+    
+    @After
+    fun closeDatabase() {
+        database.close()
+    }
+    
+    @Test
+    fun mergeKeySumsUsageAndDeduplicatesValues() = runBlocking {
+        dao.insertAllIfAbsent(listOf(
+            entity("measuredvalue1", "0.45", 3, 1_000L),
+            entity("measuredvalue1", "1.20", 1, 5_000L),
+            entity("measuredvalue", "0.45", 2, 4_000L),
+            entity("measuredvalue", "2.00", 7, 2_000L)
+        ))
+        
+        dao.mergeKey("measuredvalue1", "measuredvalue")
+        
+        assertTrue(dao.getSuggestions("measuredvalue1").isEmpty())
+        val merged = dao.getSuggestions("measuredvalue").associateBy { it.value }
+        // Her değer tek satır kalır
+        assertEquals(setOf("0.45", "1.20", "2.00"), merged.keys)
+        // Ortak değerin sayıları toplanır, son kullanım en yenisidir
+        assertEquals(5, merged.getValue("0.45").useCount)
+        assertEquals(4_000L, merged.getValue("0.45").lastUsed)
+        // Yalnızca kaynakta olan değer sayısı ve zamanıyla taşınır
+        assertEquals(1, merged.getValue("1.20").useCount)
+        assertEquals(5_000L, merged.getValue("1.20").lastUsed)
+        // Yalnızca hedefte olan değer değişmez
+        assertEquals(7, merged.getValue("2.00").useCount)
+        assertEquals(2_000L, merged.getValue("2.00").lastUsed)
+    }
+    
+    @Test
+    fun mergeKeyIntoItselfKeepsValues() = runBlocking {
+        dao.insertAllIfAbsent(listOf(entity("tagname", "Pano 1", 4, 1_000L)))
+        
+        dao.mergeKey("tagname", "tagname")
+        
+        assertEquals(4, dao.getSuggestions("tagname").single().useCount)
+    }
+    
+    private fun entity(inputKey: String, value: String, useCount: Int, lastUsed: Long) =
+        SuggestionEntity(inputKey, value, value.lowercase(), useCount, lastUsed)
+}
@@ -0,0 +1,82 @@
+package com.asforce.asforcetkf2.data
+
+import androidx.room.Room
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.platform.app.InstrumentationRegistry
+import kotlinx.coroutines.runBlocking
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * SQL behaviour of TabDao against an in-memory database
+ */
+@RunWith(AndroidJUnit4::class)
+class TabDaoTest {
+    
+    private lateinit var database: BrowserDatabase
+    private lateinit var dao: TabDao
+    
+    @Before
+    fun createDatabase() {
+        val context = InstrumentationRegistry.getInstrumentation().targetContext
+        database = Room.inMemoryDatabaseBuilder(context, BrowserDatabase::class.java).build()
+        dao = database.tabDao()
+    }
+    
+    @After
+    fun closeDatabase() {
+        database.close()
+    }
+    
+    @Test
+    fun activateOnlyStampsIncomingAndOutgoingTabs() = runBlocking {
+        dao.insertTab(tab("a", position = 0, isActive = true, lastAccessTime = 1_000L))
+        dao.insertTab(tab("b", position = 1, isActive = false, lastAccessTime = 2_000L, isHibernated = true))
+        dao.insertTab(tab("c", position = 2, isActive = false, lastAccessTime = 3_000L))
+        
+        // "a" 1_000'de açıldı ve 50_000'e kadar kullanıldı, sonra "b"ye geçildi
+        dao.activateOnly("b", 50_000L)
+        
+        val a = dao.getTabById("a")!!
+        val b = dao.getTabById("b")!!
+        val c = dao.getTabById("c")!!
+        assertFalse(a.isActive)
+        assertEquals(50_000L, a.lastAccessTime)
+        assertTrue(b.isActive)
+        assertFalse(b.isHibernated)
+        assertEquals(50_000L, b.lastAccessTime)
+        // İlgisiz sekmeye dokunulmaz
+        assertEquals(3_000L, c.lastAccessTime)
+    }
+    
+    @Test
+    fun insertAndActivateLeavesOneActiveTab() = runBlocking {
+        dao.insertTab(tab("a", position = 0, isActive = true, lastAccessTime = 1_000L))
+        
+        dao.insertAndActivate(tab("b", position = 1, isActive = true, lastAccessTime = 9_000L))
+        
+        assertEquals("b", dao.getActiveTab()?.id)
+        assertFalse(dao.getTabById("a")!!.isActive)
+    }
+    
+    private fun tab(
+        id: String,
+        position: Int,
+        isActive: Boolean,
+        lastAccessTime: Long,
+        isHibernated: Boolean = false
+    ) = TabEntity(
+        id = id,
+        url = "https://example.com/$id",
+        title = id,
+        position = position,
+        isActive = isActive,
+        isHibernated = isHibernated,
+        lastAccessTime = lastAccessTime
+    )
+}
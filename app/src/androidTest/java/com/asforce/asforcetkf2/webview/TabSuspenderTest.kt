@@ -0,0 +1,128 @@
+package com.asforce.asforcetkf2.webview
+
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.platform.app.InstrumentationRegistry
+import com.asforce.asforcetkf2.model.Tab
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Assume.assumeTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+/**
+ * Per-tab suspension against real WebViews sharing one renderer
+ * Her sayfa yüklenirken bir setInterval sayacı başlatır; askıya alınan sekmelerin sayacı durmalı,
+ * ön plandaki sekmeninki çalışmaya devam etmelidir.
+ */
+@RunWith(AndroidJUnit4::class)
+class TabSuspenderTest {
+
+    private val instrumentation = InstrumentationRegistry.getInstrumentation()
+    private val webViews = mutableListOf<TabWebView>()
+
+    @Before
+    fun requireDocumentStartScripts() {
+        // Yükleme sırasında başlatılan zamanlayıcılar yalnızca belge başı kurulumla yakalanır
+        assumeTrue(DocumentStartScriptRegistry.isDocumentStartSupported)
+    }
+
+    @After
+    fun destroyWebViews() {
+        instrumentation.runOnMainSync {
+            webViews.forEach {
+                it.cleanup()
+                it.destroy()
+            }
+        }
+        webViews.clear()
+    }
+
+    @Test
+    fun foregroundTimersKeepRunningWhileBackgroundTabsAreSuspended() {
+        for (n in listOf(1, 4)) {
+            val tabs = loadTabs(n + 1)
+            val foreground = tabs.first()
+            val background = tabs.drop(1)
+
+            instrumentation.runOnMainSync { background.forEach { it.hibernate() } }
+            val before = tabs.map { ticks(it) }
+            Thread.sleep(MEASURE_MS)
+            val after = tabs.map { ticks(it) }
+
+            assertTrue("foreground ticks with $n suspended tabs", after[0] > before[0])
+            background.indices.forEach { i ->
+                assertEquals("background tab $i with $n suspended tabs", before[i + 1], after[i + 1])
+                assertTrue(background[i].isSuspended)
+            }
+            destroyWebViews()
+        }
+    }
+
+    @Test
+    fun resumingOneTabLeavesOthersSuspended() {
+        val (a, b, c) = loadTabs(3)
+        instrumentation.runOnMainSync { listOf(a, b, c).forEach { it.hibernate() } }
+        Thread.sleep(MEASURE_MS)
+
+        instrumentation.runOnMainSync { b.wakeUp() }
+        val before = listOf(a, b, c).map { ticks(it) }
+        Thread.sleep(MEASURE_MS)
+        val after = listOf(a, b, c).map { ticks(it) }
+
+        assertTrue(after[1] > before[1])
+        assertEquals(before[0], after[0])
+        assertEquals(before[2], after[2])
+        assertTrue(a.isSuspended && c.isSuspended)
+    }
+
+    private fun loadTabs(count: Int): List<TabWebView> {
+        val loaded = CountDownLatch(count)
+        val tabs = mutableListOf<TabWebView>()
+        instrumentation.runOnMainSync {
+            repeat(count) { i ->
+                val webView = TabWebView(instrumentation.targetContext)
+                webView.onPageFinished = { _, url, _ -> if (url.startsWith(BASE_URL)) loaded.countDown() }
+                // Boş adresli sekme ağdan yükleme yapmaz; sayfa aşağıda verilir
+                webView.initialize(Tab(id = "suspend-$i", url = ""))
+                webView.loadDataWithBaseURL(BASE_URL, TIMER_PAGE, "text/html", "utf-8", null)
+                tabs += webView
+            }
+        }
+        webViews += tabs
+        assertTrue("pages did not finish loading", loaded.await(LOAD_TIMEOUT_S, TimeUnit.SECONDS))
+        // Sayaçların ilk tiklerini atmasını bekle
+        Thread.sleep(MEASURE_MS)
+        return tabs
+    }
+
+    private fun ticks(webView: TabWebView): Int {
+        val latch = CountDownLatch(1)
+        var value = -1
+        instrumentation.runOnMainSync {
+            webView.evaluateJavascript("window.ticks") { result ->
+                value = result?.toIntOrNull() ?: -1
+                latch.countDown()
+            }
+        }
+        assertTrue("page did not answer", latch.await(LOAD_TIMEOUT_S, TimeUnit.SECONDS))
+        return value
+    }
+
+    companion object {
+        private const val BASE_URL = "https://suspend.test/"
+        private const val LOAD_TIMEOUT_S = 10L
+        private const val MEASURE_MS = 1_500L
+
+        // Sayaç sayfa yüklenirken, onPageFinished'dan önce başlar
+        private const val TIMER_PAGE = """
+            <html><head><script>
+                window.ticks = 0;
+                setInterval(function() { window.ticks++; }, 50);
+            </script></head><body>timer</body></html>
+        """
+    }
+}
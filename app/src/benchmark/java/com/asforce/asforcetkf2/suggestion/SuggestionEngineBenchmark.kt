@@ -0,0 +1,110 @@
+package com.asforce.asforcetkf2.suggestion
+
+import kotlinx.coroutines.runBlocking
+import org.junit.Test
+import kotlin.random.Random
+
+/**
+ * JVM benchmark suite for the suggestion hot path: load, filter, rank and save
+ *
+ * SuggestionEngine bellek içi bir depo ile çalıştırılır, böylece ölçülen süre yalnızca çekirdeğe aittir.
+ * Her boyut (100, 1k, 10k, 100k) için Türkçe değerler üretilir ve her işlem ısınma turlarından sonra ölçülür.
+ *
+ * Birim testlerine dahil değildir, istenince çalıştırılır:
+ * ./gradlew :app:testDebugUnitTest -Pbenchmarks --tests "*SuggestionEngineBenchmark"
+ * Sonuçlar standart çıktıya yazılır; süreler makineye bağlı olduğundan eşik kontrolü yapılmaz.
+ * Davranış kontrolleri SuggestionEngineTest'tedir.
+ */
+class SuggestionEngineBenchmark {
+    
+    private val sizes = listOf(100, 1_000, 10_000, 100_000)
+    
+    // Bir kullanıcının "şalt pano" yazarken ürettiği sorgular ve birkaç tipik sorgu
+    private val typingQueries = "Şalt pano".indices.map { "Şalt pano".substring(0, it + 1) } +
+        listOf("İŞLETME", "ışık", "ölçüm", "kat 3", "tkf-4", "zzz")
+    
+    private val limit = 50
+    
+    @Test
+    fun benchmarkSuggestionPath() = runBlocking {
+        val results = StringBuilder("\nsize      load(ms)  filter(µs)  rank(µs)  save(µs)\n")
+        
+        for (size in sizes) {
+            val store = InMemorySuggestionStore()
+            store.fill("field", generateRecords(size))
+            
+            // Yükleme: önbellek boşken depodan okuyup indeksi kurma
+            val loadMs = measure(warmup = if (size >= 100_000) 1 else 3, runs = if (size >= 100_000) 1 else 10) {
+                val engine = SuggestionEngine(store)
+                engine.query("field", "", limit)
+            } / 1_000_000.0
+            
+            val engine = SuggestionEngine(store)
+            engine.query("field", "", limit)
+            
+            // Filtreleme: yazma sırasındaki her tuş için bir sorgu
+            val filterUs = measure(warmup = 20, runs = 50) {
+                for (query in typingQueries) engine.query("field", query, limit)
+            } / typingQueries.size / 1_000.0
+            
+            // Sıralama: boş sorguda kullanım puanına göre ilk N
+            val rankUs = measure(warmup = 20, runs = 50) {
+                engine.query("field", "", limit)
+            } / 1_000.0
+            
+            // Kaydetme: indeks güncellemesi + tampon, ardından toplu yazma
+            val saveValues = generateRecords(200, seed = 7).map { it.value }
+            val saveUs = measure(warmup = 5, runs = 20) {
+                saveValues.forEach { engine.recordUse("field", it) }
+                engine.flush()
+            } / saveValues.size / 1_000.0
+            
+            results.append(String.format("%-9d %-9.2f %-11.1f %-9.1f %-9.2f\n", size, loadMs, filterUs, rankUs, saveUs))
+        }
+        
+        println(results)
+    }
+    
+    private suspend fun measure(warmup: Int, runs: Int, block: suspend () -> Unit): Double {
+        repeat(warmup) { block() }
+        val samples = LongArray(runs)
+        for (i in 0 until runs) {
+            val start = System.nanoTime()
+            block()
+            samples[i] = System.nanoTime() - start
+        }
+        // Medyan - GC duraklamalarından etkilenmez
+        samples.sort()
+        return samples[runs / 2].toDouble()
+    }
+    
+    private fun generateRecords(count: Int, seed: Int = 42): List<SuggestionRecord> {
+        val random = Random(seed)
+        val now = 1_700_000_000_000L
+        val day = 24L * 60 * 60 * 1000
+        val seen = HashSet<String>(count * 2)
+        val records = ArrayList<SuggestionRecord>(count)
+        while (records.size < count) {
+            val value = when (random.nextInt(4)) {
+                0 -> "TKF-${random.nextInt(100_000, 999_999)}"
+                1 -> "${WORDS.random(random)} ${WORDS.random(random)} ${random.nextInt(1, 40)}"
+                2 -> "${PLACES.random(random)} Kat ${random.nextInt(-2, 12)}"
+                else -> "${WORDS.random(random)} ${PLACES.random(random)} ${random.nextInt(1000)}"
+            }
+            if (seen.add(value)) {
+                records.add(SuggestionRecord(value, 1 + random.nextInt(50), now - random.nextLong(365 * day)))
+            }
+        }
+        return records
+    }
+    
+    companion object {
+        private val WORDS = listOf(
+            "Şalt", "Pano", "Işık", "İşletme", "Ölçüm", "Topraklama", "Kaçak", "Akım", "Rölesi",
+            "Güç", "Çıkış", "Sigorta", "Jeneratör", "Aydınlatma", "Sayaç", "Kablo", "Ünite", "Değer"
+        )
+        private val PLACES = listOf(
+            "Kazan dairesi", "Üretim holü", "Depo", "Şantiye", "Ofis", "Çatı", "Bodrum", "Giriş", "Yükleme rampası"
+        )
+    }
+}
@@ -0,0 +1,74 @@
+package com.asforce.asforcetkf2.suggestion
+
+import com.asforce.asforcetkf2.suggestion.SuggestionIndexTest.Companion.generateValues
+import com.asforce.asforcetkf2.suggestion.SuggestionIndexTest.Companion.linearFilter
+import org.junit.Test
+import kotlin.random.Random
+
+/**
+ * JVM microbenchmark comparing SuggestionIndex with the linear filter it replaced
+ *
+ * Birim testlerine dahil değildir, istenince çalıştırılır:
+ * ./gradlew :app:testDebugUnitTest -Pbenchmarks --tests "*SuggestionIndexBenchmark"
+ * Sonuçlar standart çıktıya yazılır. Doğruluk kontrolleri SuggestionIndexTest'tedir.
+ */
+class SuggestionIndexBenchmark {
+    
+    private val entryCount = 10_000
+    private val queries = listOf("", "t", "tk", "tkf", "tkf-4", "pano", "ışık", "ölçüm", "12", "zzz")
+    
+    @Test
+    fun benchmarkAgainstLinearFilter() {
+        val values = generateValues(entryCount)
+        val index = buildIndexWithUsage(values)
+        val limit = 50
+        
+        // Isınma - JIT derlemesinin ölçüme karışmaması için
+        repeat(WARMUP_ROUNDS) {
+            for (query in queries) {
+                linearFilter(values, query).take(limit)
+                index.query(query, limit)
+            }
+        }
+        
+        val linearNanos = measure { query -> linearFilter(values, query).take(limit).size }
+        val indexNanos = measure { query -> index.query(query, limit).size }
+        
+        println("SuggestionIndex benchmark ($entryCount entries, ${queries.size} queries x $MEASURE_ROUNDS rounds)")
+        println("  linear filter : %.1f us/query".format(linearNanos / 1_000.0))
+        println("  index query   : %.1f us/query".format(indexNanos / 1_000.0))
+        println("  speedup       : %.1fx".format(linearNanos.toDouble() / indexNanos))
+    }
+    
+    private inline fun measure(block: (String) -> Int): Long {
+        var sink = 0
+        val start = System.nanoTime()
+        repeat(MEASURE_ROUNDS) {
+            for (query in queries) {
+                sink += block(query)
+            }
+        }
+        val elapsed = System.nanoTime() - start
+        // Sonucun kullanılması, JIT'in ölçülen çağrıları atmasını önler
+        if (sink < 0) println(sink)
+        return elapsed / (MEASURE_ROUNDS * queries.size)
+    }
+    
+    // Gerçekçi kullanım dağılımı: çoğu değer birkaç kez, bazıları çok sık; son 90 gün içinde
+    private fun buildIndexWithUsage(values: List<String>): SuggestionIndex {
+        val random = Random(7)
+        val now = System.currentTimeMillis()
+        val day = 24L * 60 * 60 * 1000
+        return SuggestionIndex().apply {
+            values.forEach { value ->
+                val useCount = if (random.nextInt(20) == 0) random.nextInt(50, 300) else random.nextInt(1, 5)
+                add(value, useCount, now - random.nextLong(90 * day))
+            }
+        }
+    }
+    
+    companion object {
+        private const val WARMUP_ROUNDS = 5
+        private const val MEASURE_ROUNDS = 20
+    }
+}
@@ -0,0 +1,70 @@
+package com.asforce.asforcetkf2.webview
+
+import com.asforce.asforcetkf2.webview.JsResultReaderTest.Companion.deviceListResult
+import com.asforce.asforcetkf2.webview.JsResultReaderTest.Companion.previousDecode
+import com.asforce.asforcetkf2.webview.JsResultReaderTest.Companion.readerDecode
+import org.junit.Test
+import java.lang.management.ManagementFactory
+
+/**
+ * JVM microbenchmark comparing JsResultReader with the replace + org.json decoding it replaced
+ *
+ * Birim testlerine dahil değildir, istenince çalıştırılır:
+ * ./gradlew :app:testDebugUnitTest -Pbenchmarks --tests "*ScriptResultDecoderBenchmark"
+ * Süre ve (HotSpot'ta) thread başına ayrılan bellek standart çıktıya yazılır.
+ * İki yöntemin aynı sonucu verdiği JsResultReaderTest'te doğrulanır.
+ */
+class ScriptResultDecoderBenchmark {
+
+    private val sizes = listOf(10, 500, 2_000)
+
+    @Test
+    fun benchmarkAgainstPreviousDecoding() {
+        println("Device list decoding (replace chain + org.json vs JsResultReader)")
+        for (size in sizes) {
+            val result = deviceListResult(size)
+            val rounds = (MEASURE_ITEMS / size).coerceAtLeast(20)
+
+            // Isınma - JIT derlemesinin ölçüme karışmaması için
+            repeat(rounds) {
+                previousDecode(result)
+                readerDecode(result)
+            }
+
+            val previous = measure(rounds) { previousDecode(result).size }
+            val reader = measure(rounds) { readerDecode(result).size }
+
+            println("  $size devices (${result.length} chars, $rounds rounds)")
+            println("    previous : %.1f us/result, %s".format(previous.first / 1_000.0, formatBytes(previous.second)))
+            println("    reader   : %.1f us/result, %s".format(reader.first / 1_000.0, formatBytes(reader.second)))
+            println("    speedup  : %.1fx".format(previous.first.toDouble() / reader.first))
+        }
+    }
+
+    private inline fun measure(rounds: Int, block: () -> Int): Pair<Long, Long> {
+        var sink = 0
+        val allocatedBefore = allocatedBytes()
+        val start = System.nanoTime()
+        repeat(rounds) { sink += block() }
+        val elapsed = System.nanoTime() - start
+        val allocated = allocatedBytes()?.let { after -> allocatedBefore?.let { (after - it) / rounds } }
+        // Sonucun kullanılması, JIT'in ölçülen çağrıları atmasını önler
+        if (sink < 0) println(sink)
+        return elapsed / rounds to (allocated ?: -1L)
+    }
+
+    // HotSpot dışında desteklenmeyebilir
+    private fun allocatedBytes(): Long? = try {
+        val bean = ManagementFactory.getThreadMXBean() as com.sun.management.ThreadMXBean
+        bean.getThreadAllocatedBytes(Thread.currentThread().id).takeIf { it >= 0 }
+    } catch (e: Throwable) {
+        null
+    }
+
+    private fun formatBytes(bytes: Long): String =
+        if (bytes < 0) "allocation n/a" else "%.1f KB allocated/result".format(bytes / 1024.0)
+
+    companion object {
+        private const val MEASURE_ITEMS = 200_000
+    }
+}
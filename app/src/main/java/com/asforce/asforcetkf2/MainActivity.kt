@@ -4,6 +4,7 @@ import android.app.Activity
 import android.app.AlertDialog
 import android.content.ClipData
 import android.content.ClipboardManager
+import android.content.ComponentCallbacks2
 import android.content.Context
 import android.content.Intent
 import android.content.pm.PackageManager
@@ -47,16 +48,27 @@ import com.asforce.asforcetkf2.databinding.ActivityMainBinding
 import com.asforce.asforcetkf2.model.Tab
 import com.asforce.asforcetkf2.qrscanner.QRScannerFragment
 import com.asforce.asforcetkf2.util.DataHolder
+import com.asforce.asforcetkf2.util.TKFPerformanceManager
+import com.asforce.asforcetkf2.util.TabHibernationScheduler
 import com.asforce.asforcetkf2.util.TabResourceMonitor
 import com.asforce.asforcetkf2.viewmodel.TabViewModel
+import com.asforce.asforcetkf2.webview.PageChannel
+import com.asforce.asforcetkf2.webview.ScriptResultDecoder
+import com.asforce.asforcetkf2.webview.ScriptTimeoutException
+import com.asforce.asforcetkf2.webview.TabSnapshotStore
 import com.asforce.asforcetkf2.webview.TabWebView
+import com.asforce.asforcetkf2.webview.WebViewPool
+import com.asforce.asforcetkf2.webview.callScript
+import com.asforce.asforcetkf2.webview.callScriptDecoded
 import com.google.android.material.dialog.MaterialAlertDialogBuilder
 import com.google.android.material.snackbar.Snackbar
 import com.google.android.material.textfield.TextInputEditText
+import kotlinx.coroutines.delay
 import kotlinx.coroutines.flow.collect
 import kotlinx.coroutines.launch
 import android.os.Handler
 import android.os.Looper
+import android.os.SystemClock
 import timber.log.Timber
 
 class MainActivity : AppCompatActivity() {
@@ -116,9 +128,80 @@ class MainActivity : AppCompatActivity() {
         currentPhotoUri = null
     }
 
+    // Öneri sözlüğü dışa/içe aktarma dosya seçicileri
+    private val suggestionExportLauncher = registerForActivityResult(
+        ActivityResultContracts.CreateDocument("application/octet-stream")
+    ) { uri ->
+        uri?.let { suggestionManager.exportSuggestions(it) }
+    }
+
+    private val suggestionImportLauncher = registerForActivityResult(
+        ActivityResultContracts.OpenDocument()
+    ) { uri ->
+        uri?.let { suggestionManager.importSuggestions(it) }
+    }
+
+    private val SUGGESTION_EXPORT_FILE_NAME = "oneriler.tkfs"
+
     private val resourceMonitor by lazy { TabResourceMonitor() }
     private val activeWebViews = mutableMapOf<String, TabWebView>()
 
+    // Sekme WebView durumlarının disk deposu - soğuk başlangıçta ağdan yeniden yüklemeyi önler
+    private val tabSnapshotStore by lazy { TabSnapshotStore(this) }
+
+    // Uygulama genelindeki WebView havuzu - yeni sekme açılışında WebView inşa maliyetini gizler
+    private val webViewPool by lazy { WebViewPool.getInstance(this) }
+
+    // LRU sekme uyku zamanlayıcısı - canlı WebView bütçesini ve bellek baskısını yönetir
+    private val hibernationScheduler by lazy {
+        TabHibernationScheduler(
+            host = object : TabHibernationScheduler.Host {
+                override fun snapshotTabs(): List<TabHibernationScheduler.TabState> {
+                    val activeTabId = viewModel.activeTab.value?.id
+                    return (viewModel.allTabs.value ?: emptyList()).map { tab ->
+                        TabHibernationScheduler.TabState(
+                            id = tab.id,
+                            lastAccessTime = tab.lastAccessTime,
+                            isActive = tab.id == activeTabId,
+                            isHibernated = tab.isHibernated,
+                            hasLiveWebView = activeWebViews.containsKey(tab.id)
+                        )
+                    }
+                }
+
+                override fun hibernateTab(tabId: String) {
+                    val tab = viewModel.allTabs.value?.find { it.id == tabId } ?: return
+                    activeWebViews[tabId]?.hibernate()
+                    viewModel.hibernateTab(tab)
+                }
+
+                override fun discardTab(tabId: String) {
+                    // Durumu kaydet ve WebView'i bırak - sekme seçildiğinde anlık görüntüden geri yüklenir
+                    activeWebViews[tabId]?.persistSnapshot()
+                    releaseWebView(tabId)
+                    viewModel.allTabs.value?.find { it.id == tabId }?.let { tab ->
+                        if (!tab.isHibernated) {
+                            viewModel.hibernateTab(tab)
+                        }
+                    }
+                }
+            },
+            scope = lifecycleScope
+        )
+    }
+
+    // Sekme başına son renderer çökme zamanları - çökme döngüsü koruması için
+    private val rendererCrashTimes = HashMap<String, ArrayDeque<Long>>()
+    private val RENDERER_CRASH_WINDOW_MS = 60_000L
+    private val MAX_RENDERER_CRASHES_IN_WINDOW = 2
+
+    // Şu anda görünür olan WebView'in sekme kimliği - aktif sekme değişiminde yalnızca iki WebView'e dokunulur
+    private var visibleTabId: String? = null
+
+    // Son WebView dokunuşunun zamanı (uptime) - klavye yalnızca dokunuşla gelen odakta açılır
+    private var lastWebViewTouchTime = 0L
+    private val TOUCH_FOCUS_WINDOW_MS = 1_000L
+
     // Suggestion manager
     private lateinit var suggestionManager: SuggestionManager
 
@@ -278,10 +361,10 @@ class MainActivity : AppCompatActivity() {
                 
                 if (webView != null) {
                     // Direk WebView'a önerileri göstermeyi dene
-                    suggestionManager.showSuggestions(webView, "url_input", "")
+                    suggestionManager.showSuggestions(webView, "url_input", "", refresh = true)
                 } else {
                     // WebView yoksa UrlInput'a göster
-                    suggestionManager.showSuggestions(binding.urlInput, "url_input", "")
+                    suggestionManager.showSuggestions(binding.urlInput, "url_input", "", refresh = true)
                 }
                 
                 android.widget.Toast.makeText(
@@ -497,11 +580,23 @@ class MainActivity : AppCompatActivity() {
 
     private fun observeViewModel() {
         // Observe tabs
-        viewModel.allTabs.observe(this) { tabs ->
-            tabsAdapter.updateTabs(tabs)
+        viewModel.tabChanges.observe(this) { changes ->
+            tabsAdapter.applyChanges(changes)
+
+            // İlk yüklemede artık var olmayan sekmelerin anlık görüntülerini temizle
+            if (changes.isInitial) {
+                tabSnapshotStore.retainOnly(changes.tabs.mapTo(HashSet()) { it.id })
+            }
+
+            // Başka bir yoldan silinen sekmelerin WebView'lerini bırak
+            for (tabId in changes.removed) {
+                if (activeWebViews.containsKey(tabId)) {
+                    releaseWebView(tabId)
+                }
+            }
 
             // If no tabs, add a new one
-            if (tabs.isEmpty()) {
+            if (changes.tabs.isEmpty()) {
                 addNewTab()
             }
         }
@@ -530,33 +625,77 @@ class MainActivity : AppCompatActivity() {
     }
 
     private fun closeTab(tab: Tab) {
-        // Clean up the WebView - güvenlik kontrolleri ekle
-        activeWebViews[tab.id]?.let { webView ->
-            try {
-                // WebView'in hala geçerli olup olmadığını kontrol et
-                if (webView.isAttachedToWindow) {
-                    webView.cleanup()
-                    // Temizlikten sonra kısa bir bekleme süresi ekle
-                    Handler(Looper.getMainLooper()).postDelayed({
-                        try {
-                            if (webView.parent === binding.webviewContainer) {
-                                binding.webviewContainer.removeView(webView)
-                            }
-                        } catch (e: Exception) {
-                            // View kaldırma hatası
-                        }
-                    }, 50) // 50ms gecikme
+        releaseWebView(tab.id)
+        tabSnapshotStore.delete(tab.id)
+
+        // Tab'i viewModel'den kapat
+        viewModel.closeTab(tab)
+    }
+
+    /**
+     * Bir sekmenin WebView'ini temizler ve koleksiyondan çıkarır
+     */
+    private fun releaseWebView(tabId: String) {
+        val webView = activeWebViews.remove(tabId)
+        if (visibleTabId == tabId) {
+            visibleTabId = null
+        }
+        try {
+            if (webView != null && webView.parent === binding.webviewContainer) {
+                binding.webviewContainer.removeView(webView)
+            }
+        } catch (e: Exception) {
+            // View kaldırma hatası
+        }
+        // Havuza iade et - sıfırlanıp bir sonraki sekmede yeniden kullanılır; bekleyen alım varsa iptal edilir
+        if (!webViewPool.releaseForTab(tabId)) {
+            webView?.let { webViewPool.release(it) }
+        }
+    }
+
+    /**
+     * Renderer çöktüğünde veya sistem tarafından geri alındığında sekmeyi kurtar
+     * Ölü WebView havuza iade edilmez, yok edilir; görünür sekme son anlık görüntüsünden hemen
+     * yeniden kurulur, arka plan sekmeleri seçildiklerinde yeniden kurulur
+     */
+    private fun onTabRendererGone(tabId: String, didCrash: Boolean) {
+        TKFPerformanceManager.getInstance(this).recordRendererGone(didCrash)
+        Timber.w("Renderer gone for tab $tabId (crash=$didCrash)")
+
+        val wasVisible = visibleTabId == tabId
+        val deadWebView = activeWebViews.remove(tabId)
+        if (wasVisible) {
+            visibleTabId = null
+        }
+        deadWebView?.let { webViewPool.discard(it) }
+
+        val tab = viewModel.allTabs.value?.find { it.id == tabId } ?: return
+
+        // Çökme döngüsü koruması - kısa sürede tekrar tekrar çöken sayfa otomatik yeniden yüklenmez
+        if (didCrash) {
+            val now = System.currentTimeMillis()
+            val crashes = rendererCrashTimes.getOrPut(tabId) { ArrayDeque() }
+            crashes.addLast(now)
+            while (crashes.isNotEmpty() && now - crashes.first() > RENDERER_CRASH_WINDOW_MS) {
+                crashes.removeFirst()
+            }
+            if (crashes.size > MAX_RENDERER_CRASHES_IN_WINDOW) {
+                crashes.clear()
+                if (!tab.isHibernated) {
+                    viewModel.hibernateTab(tab)
                 }
-            } catch (e: Exception) {
-                // WebView temizleme hatası
-            } finally {
-                // Her durumda koleksiyondan çıkar
-                activeWebViews.remove(tab.id)
+                Toast.makeText(this, "Sayfa tekrar tekrar çöktü, yeniden yüklemek için sekmeyi seçin", Toast.LENGTH_LONG).show()
+                return
             }
         }
 
-        // Tab'i viewModel'den kapat
-        viewModel.closeTab(tab)
+        if (wasVisible) {
+            // Görünür sekmeyi hemen yeniden kur - kayıtlı anlık görüntü varsa geçmiş ve kaydırma geri gelir
+            visibleTabId = tabId
+            createWebViewForTab(tab)
+        } else if (!tab.isHibernated) {
+            viewModel.hibernateTab(tab)
+        }
     }
 
     private fun selectTab(tab: Tab) {
@@ -576,27 +715,39 @@ class MainActivity : AppCompatActivity() {
         // Aktif tab değiştiğinde, URL'deki sayısal kod varsa DataHolder'a kaydet
         extractDigitsFromUrl(tab.url)
 
-        // Show active tab's WebView, hide others
-        for ((tabId, webView) in activeWebViews.entries.toList()) { // Concurrent modification için toList()
+        // Yalnızca önceki görünür WebView gizlenir, tüm WebView'ler dolaşılmaz
+        val previousTabId = visibleTabId
+        if (previousTabId != null && previousTabId != tab.id) {
+            activeWebViews[previousTabId]?.let { previous ->
+                if (previous.isAttachedToWindow) {
+                    previous.persistSnapshot()
+                    previous.visibility = View.GONE
+                    previous.setForeground(false)
+                } else {
+                    activeWebViews.remove(previousTabId)
+                }
+            }
+        }
+
+        activeWebViews[tab.id]?.let { webView ->
             try {
                 // WebView'in geçerli olup olmadığını kontrol et
                 if (!webView.isAttachedToWindow) {
                     // WebView geçersiz, koleksiyondan çıkar
-                    activeWebViews.remove(tabId)
-                    continue
+                    activeWebViews.remove(tab.id)
+                    return@let
                 }
 
-                webView.visibility = if (tabId == tab.id) View.VISIBLE else View.GONE
+                webView.visibility = View.VISIBLE
+                webView.setForeground(true)
 
-                // Update WebView state based on hibernation
-                if (tabId != tab.id && tab.isHibernated) {
-                    webView.hibernate()
-                } else if (tabId == tab.id && tab.isHibernated) {
+                // Hibernate edilmiş sekme aktif olduğunda uyandır
+                if (tab.isHibernated) {
                     webView.wakeUp()
                 }
 
                 // Tab aktif olduğunda, manuel arama aktif değilse ve URL szutest.com.tr içeriyorsa QR kodu kontrol et
-                if (tabId == tab.id && tab.url.contains("szutest.com.tr", ignoreCase = true) && !isManualSearchActive) {
+                if (previousTabId != tab.id && tab.url.contains("szutest.com.tr", ignoreCase = true) && !isManualSearchActive) {
                     // Kısa bir gecikme ile QR kodunu kontrol et (sayfanın tamamen yüklenmesi için)
                     Handler(Looper.getMainLooper()).postDelayed({
                         checkForQrCodeOnPage(webView)
@@ -604,26 +755,62 @@ class MainActivity : AppCompatActivity() {
                 }
             } catch (e: Exception) {
                 // WebView işleme hatası, bu sekmenin WebView'ini koleksiyondan çıkar
-                activeWebViews.remove(tabId)
+                activeWebViews.remove(tab.id)
             }
         }
+        visibleTabId = tab.id
 
         // Create WebView for the tab if it doesn't exist yet
         if (!activeWebViews.containsKey(tab.id)) {
             createWebViewForTab(tab)
         }
+
+        // Aktif sekme değişti - canlı WebView bütçesini yeniden değerlendir
+        if (previousTabId != tab.id) {
+            hibernationScheduler.requestRun()
+        }
     }
 
     private fun createWebViewForTab(tab: Tab) {
-        val webView = TabWebView(this)
+        // Askıya alan alım - yedek hazırlanırken ana thread bloklanmaz,
+        // aynı sekme için eşzamanlı çağrılar havuzdaki rezervasyon sayesinde tek WebView'de birleşir
+        lifecycleScope.launch {
+            val webView = webViewPool.acquireForTab(tab.id, this@MainActivity) ?: return@launch
+            if (activeWebViews[tab.id] === webView) return@launch
+
+            attachWebViewForTab(webView, tab)
+
+            // Alım beklenirken başka bir sekme seçildiyse görünmez kalsın
+            val foreground = visibleTabId == tab.id
+            if (!foreground) {
+                webView.visibility = View.GONE
+            }
+            webView.setForeground(foreground)
+        }
+    }
+
+    private fun attachWebViewForTab(webView: TabWebView, tab: Tab) {
 
         // Set up WebView events
         setupWebViewEvents(webView)
+        webView.onRenderProcessGone = { tabId, didCrash -> onTabRendererGone(tabId, didCrash) }
+        webView.onPageEvent = { event ->
+            when (event) {
+                is PageChannel.PageEvent.DownloadRequested -> webViewDownloadHelper.handleDownloadUrl(webView, event.url)
+                is PageChannel.PageEvent.InputFocused -> {
+                    // Sayfanın kendi odaklamaları (autofocus vb.) klavye açmaz
+                    val touched = SystemClock.uptimeMillis() - lastWebViewTouchTime < TOUCH_FOCUS_WINDOW_MS
+                    if (event.editable && touched) showKeyboardForInput(webView, event.isNumeric)
+                }
+                else -> Unit
+            }
+        }
 
         // Add to container
         binding.webviewContainer.addView(webView)
 
-        // Initialize with tab and load URL
+        // Initialize with tab - kayıtlı durum varsa geri yüklenir, yoksa URL yüklenir
+        webView.snapshotStore = tabSnapshotStore
         webView.initialize(tab)
 
         // WebView için özel dokunma dinleyicisi ekle
@@ -640,113 +827,8 @@ class MainActivity : AppCompatActivity() {
                     v.requestFocus()
                 }
 
-                MotionEvent.ACTION_UP -> {
-                    // Dokunma sonrası tıklanan elementi ve tipini belirle
-                    val script = """
-                    (function() {
-                        try {
-                            // Get the element at the touch point
-                            var element = document.elementFromPoint(${event.x}, ${event.y});
-                            if (!element) return "NO_ELEMENT";
-                            
-                            // Element touched
-                            
-                            // Check if touched element is an input field
-                            var isInput = element.tagName === 'INPUT' || element.tagName === 'TEXTAREA';
-                            var inputType = isInput ? (element.type || 'text').toLowerCase() : '';
-                            
-                            // If it's an input field, handle with enhanced focus logic
-                            if (isInput) {
-                                // Touch detected on input field
-                                
-                                // Ensure element is not disabled or readonly
-                                if (element.disabled || element.readOnly) {
-                                    return "INPUT_DISABLED";
-                                }
-                                
-                                // Get or create key
-                                var key = element.getAttribute('data-tkf-key');
-                                if (!key) {
-                                    key = (element.name || element.id || element.placeholder || 'input_' + Math.random().toString(36).substr(2, 9));
-                                    key = key.replace(/[^a-zA-Z0-9_]/g, '_');
-                                    element.setAttribute('data-tkf-key', key);
-                                }
-                                
-                                // Make sure the element is visible in viewport
-                                if (element.scrollIntoViewIfNeeded) {
-                                    element.scrollIntoViewIfNeeded();
-                                } else if (element.scrollIntoView) {
-                                    element.scrollIntoView();
-                                }
-                                
-                                // Odakla - buraya blur/focus döngüsü koymuyoruz, imleç sorununu önlemek için
-                                element.focus();
-                                
-                                // ÖNEMLI: Odaklama ve klavye işlemlerini daha iyi yönetmek için element bilgilerini döndür
-                                return JSON.stringify({
-                                    tagName: element.tagName,
-                                    id: element.id || '',
-                                    type: inputType,
-                                    isNumeric: (inputType === 'number' || inputType === 'tel'),
-                                    value: element.value || '',
-                                    key: key
-                                });
-                            }
-                            
-                            return "NOT_INPUT";
-                        } catch(e) {
-                            // Error in touch handling
-                            return "ERROR: " + e.message;
-                        }
-                    })();
-                    """
-
-                    webView.evaluateJavascript(script) { result ->
-                        try {
-                            // Tırnak işaretlerini ve kaçış karakterlerini temizle
-                            val cleanResult = result.trim().removeSurrounding("\"").replace("\\\"", "\"").replace("\\\\", "\\")
-
-                            // Input alanı ise özel işlem yap
-                            if (cleanResult.startsWith("{")) {
-                                try {
-                                    // JSON'u ayrıştır
-                                    val jsonResult = org.json.JSONObject(cleanResult)
-                                    val isNumeric = jsonResult.optBoolean("isNumeric", false)
-                                    val inputType = jsonResult.optString("type", "text")
-                                    val inputKey = jsonResult.optString("key", "")
-
-                                    // Öneri sistemini aktifleştir
-                                    if (inputKey.isNotEmpty()) {
-                                        webView.evaluateJavascript("""
-                                            (function() {
-                                                if (window.SuggestionHandler) {
-                                                    window.SuggestionHandler.onInputFocused('$inputKey');
-                                                    return true;
-                                                }
-                                                return false;
-                                            })();
-                                        """.trimIndent(), null)
-                                    }
-
-                                    // Sayısal klavye için özel klavye tipi ayarla
-                                    if (isNumeric) {
-                                        // Sayısal klavye durumunda klavyeyi dikkatli şekilde göster
-                                        // InputMethodManager'ı doğrudan kullan, showKeyboard'u bypass et
-                                        val imm = this@MainActivity.getSystemService(Context.INPUT_METHOD_SERVICE) as InputMethodManager
-                                        imm.showSoftInput(v, InputMethodManager.SHOW_IMPLICIT)
-                                    } else {
-                                        // Text input için normal klavye göster
-                                        showKeyboard(v)
-                                    }
-                                } catch (e: Exception) {
-                                        // Hata durumunda normal klavyeyi göster
-                                    showKeyboard(v)
-                                }
-                            }
-                        } catch (e: Exception) {
-                        }
-                    }
-                }
+                // ACTION_UP'ta betik çalıştırılmaz - klavye, sayfanın focusin olayıyla açılır (onPageEvent)
+                MotionEvent.ACTION_UP -> lastWebViewTouchTime = event.eventTime
             }
 
             // WebView'in normal tıklama işlemesine izin ver
@@ -781,6 +863,8 @@ class MainActivity : AppCompatActivity() {
         
         // Initialize WebView download helper
         webViewDownloadHelper = WebViewDownloadHelper(this)
+        // İndirme butonu betiği DocumentStartScriptRegistry üzerinden enjekte edilir
+        webViewDownloadHelper.setExternalScriptInjection(true)
     }
     
     /**
@@ -984,6 +1068,8 @@ class MainActivity : AppCompatActivity() {
             "Geçmiş",
             "İndirilenler",
             "Öneri Önbelleğini Temizle",
+            "Önerileri Dışa Aktar",
+            "Önerileri İçe Aktar",
             "Ayarlar",
             "Profil Bilgileri",
             "Çıkış Yap"
@@ -1010,9 +1096,11 @@ class MainActivity : AppCompatActivity() {
                 2 -> Toast.makeText(this, "Geçmiş henüz uygulanmadı", Toast.LENGTH_SHORT).show()
                 3 -> downloadManager.showDownloadsManager(this) // İndirilenler klasörünü aç
                 4 -> clearSuggestionCache()
-                5 -> showMenu() // Standart ayarlar menüsünü göster
-                6 -> showProfileInfo(username) // Profil bilgilerini göster
-                7 -> performLogout() // Çıkış yap
+                5 -> suggestionExportLauncher.launch(SUGGESTION_EXPORT_FILE_NAME) // Öneri sözlüğünü dosyaya yaz
+                6 -> suggestionImportLauncher.launch(arrayOf("application/octet-stream", "*/*")) // Hazır sözlük yükle
+                7 -> showMenu() // Standart ayarlar menüsünü göster
+                8 -> showProfileInfo(username) // Profil bilgilerini göster
+                9 -> performLogout() // Çıkış yap
             }
             true
         }
@@ -1559,7 +1647,7 @@ class MainActivity : AppCompatActivity() {
                 viewModel.resourceMonitoringEnabled.collect { enabled ->
                     if (enabled) {
                         // Her sekme için ayrı bir coroutine başlat
-                        activeWebViews.forEach { (tabId, webView) ->
+                        activeWebViews.keys.forEach { tabId ->
                             // Yeni bir job olarak sekme kaynakları izleme
                             launch {
                                 try {
@@ -1571,15 +1659,8 @@ class MainActivity : AppCompatActivity() {
                                                 metrics.memoryUsage
                                             )
 
-                                            // Auto-hibernate if resource usage is too high
-                                            val tab = viewModel.allTabs.value?.find { it.id == tabId }
-                                            if (tab != null && !tab.isActive && !tab.isHibernated &&
-                                                (metrics.cpuUsage > 30f || metrics.memoryUsage > 100 * 1024 * 1024)
-                                            ) {
-                                                viewModel.hibernateTab(tab)
-                                                webView.hibernate()
-
-                                            }
+                                            // Uyku kararları TabHibernationScheduler'da - bu ölçümler süreç
+                                            // genelidir ve tek bir sekmeye atfedilemez
                                         }
                                 } catch (e: Exception) {
                                 }
@@ -1628,6 +1709,19 @@ class MainActivity : AppCompatActivity() {
         }
     }
 
+    /**
+     * Show the keyboard for an input focused in the page - öneriler TabWebView tarafından açılır
+     */
+    private fun showKeyboardForInput(webView: View, isNumeric: Boolean) {
+        if (isNumeric) {
+            // Sayısal klavye durumunda showKeyboard'un zorlamalı denemesi atlanır
+            val imm = getSystemService(Context.INPUT_METHOD_SERVICE) as InputMethodManager
+            imm.showSoftInput(webView, InputMethodManager.SHOW_IMPLICIT)
+        } else {
+            showKeyboard(webView)
+        }
+    }
+
     /**
      * Klavyeyi görünür hale getirir
      * Geliştirilmiş klavye gösterimi - imleç sorununu çözmek için
@@ -1666,12 +1760,10 @@ class MainActivity : AppCompatActivity() {
     }
 
     override fun onDestroy() {
-        // WebView'leri temizlerken güvenlik kontrolü ekle
-        activeWebViews.values.forEach { webView ->
+        // WebView'leri havuza iade et - havuz dolduğunda fazlası yok edilir
+        activeWebViews.keys.toList().forEach { tabId ->
             try {
-                if (webView.isAttachedToWindow && !isFinishing) {
-                    webView.cleanup()
-                }
+                releaseWebView(tabId)
             } catch (e: Exception) {
                 // WebView temizleme hatası
             }
@@ -2483,7 +2575,7 @@ class MainActivity : AppCompatActivity() {
 
             if (webView != null) {
                 // DeviceManager örneği oluştur ve cihaz listesini çek
-                deviceManager = DeviceManager(this, webView)
+                deviceManager = DeviceManager(this, webView, lifecycleScope)
                 deviceManager.fetchDeviceList()
             } else {
                 Toast.makeText(this, "Aktif sekme bulunamadı", Toast.LENGTH_SHORT).show()
@@ -2748,19 +2840,11 @@ class MainActivity : AppCompatActivity() {
 
         webView.evaluateJavascript(checkResultScript) { result ->
             try {
-                // Clean up the result string
-                val cleanResult = result.trim().removeSurrounding("\"").replace("\\\"", "\"").replace("\\\\", "\\")
+                // "NO_RESULTS" ve "ERROR" sonuçları boş liste döner - sessizce çık
+                val results = ScriptResultDecoder.decode(result) { ScriptResultDecoder.readStringList(it) }
 
-                if (cleanResult == "NO_RESULTS" || cleanResult.startsWith("ERROR")) {
-                    // Herhangi bir hata veya sonuç bulunamazsa sessizce çık
-                    return@evaluateJavascript
-                }
-
-                // Parse JSON result
-                val jsonArray = org.json.JSONArray(cleanResult)
-
-                if (jsonArray.length() > 0) {
-                    val foundQrCode = jsonArray.getString(0)
+                if (results.isNotEmpty()) {
+                    val foundQrCode = results[0]
 
                     // Bulunan değer şu anki değerden farklıysa güncelle
                     val currentQrText = binding.qrNo.text.toString().trim()
@@ -2991,7 +3075,7 @@ class MainActivity : AppCompatActivity() {
         snackbar.show()
 
         // Create and use ComboboxSearchHelper
-        val searchHelper = com.asforce.asforcetkf2.webview.ComboboxSearchHelper(webView)
+        val searchHelper = com.asforce.asforcetkf2.webview.ComboboxSearchHelper(webView, lifecycleScope)
         searchHelper.searchComboboxes(
             searchText = searchText,
             onItemFound = { comboboxName, itemText ->
@@ -3097,98 +3181,33 @@ class MainActivity : AppCompatActivity() {
     }
 
     private fun executeSerialNumberSearch(webView: TabWebView, serialText: String) {
-        // JavaScript to fill in the serial number input field and click search button
-        val searchScript = """
-            (function() {
-                try {
-                    // Find the serial number input field
-                    var serialInput = document.querySelector('input#filter_serialnumber');
-                    if (!serialInput) {
-                        return "Serial number input field not found";
-                    }
-                    
-                    // Set the serial number value
-                    serialInput.value = "$serialText";
-                    
-                    // Find and click the search button
-                    var searchButton = document.querySelector('i.fa.fa-search[title="Filtrele"]');
-                    if (!searchButton) {
-                        return "Search button not found";
-                    }
-                    
-                    // Click the search button
-                    searchButton.click();
-                    
-                    return "Search executed";
-                } catch(e) {
-                    return "Error: " + e.message;
-                }
-            })();
-        """.trimIndent()
-
-        webView.evaluateJavascript(searchScript) { result ->
-            // Wait briefly for the search to complete and then check the result
-            Handler(Looper.getMainLooper()).postDelayed({
-                checkSerialNumberSearchResult(webView, serialText)
-            }, 1500)
+        lifecycleScope.launch {
+            try {
+                // Seri numarası betiğe JSON argümanı olarak gider, betik metnine eklenmez
+                webView.callScript("equipment.searchSerial", serialText)
+                // Wait briefly for the search to complete and then check the result
+                delay(1500)
+                checkSerialNumberSearchResult(webView)
+            } catch (e: ScriptTimeoutException) {
+                // Sayfa yanıt vermedi - sessizce devam et
+                Timber.w(e, "Serial number search timed out")
+            }
         }
     }
 
-    private fun checkSerialNumberSearchResult(webView: TabWebView, serialText: String) {
-        val checkResultScript = """
-            (function() {
-                try {
-                    // Find the result value in the specified format
-                    var resultElements = document.querySelectorAll('div.col-sm-8 p.form-control-static');
-                    var results = [];
-                    
-                    for (var i = 0; i < resultElements.length; i++) {
-                        var text = resultElements[i].textContent.trim();
-                        if (text) {
-                            results.push(text);
-                        }
-                    }
-                    
-                    if (results.length > 0) {
-                        return JSON.stringify(results);
-                    } else {
-                        return "NO_RESULTS";
-                    }
-                } catch(e) {
-                    return "ERROR: " + e.message;
-                }
-            })();
-        """.trimIndent()
-
-        webView.evaluateJavascript(checkResultScript) { result ->
-            try {
-                // Clean up the result string
-                val cleanResult = result.trim().removeSurrounding("\"").replace("\\\"", "\"").replace("\\\\", "\\")
-
-                if (cleanResult == "NO_RESULTS") {
-                    // Sessizce devam et - bilgi mesajı gösterme
-                    return@evaluateJavascript
-                }
-
-                if (cleanResult.startsWith("ERROR")) {
-                    // Sessizce devam et - hata mesajı gösterme
-                    return@evaluateJavascript
-                }
-
-                // Parse JSON result
-                val jsonArray = org.json.JSONArray(cleanResult)
-
-                if (jsonArray.length() > 0) {
-                    val foundSerialNumber = jsonArray.getString(0)
+    private suspend fun checkSerialNumberSearchResult(webView: TabWebView) {
+        try {
+            // Sonuç yoksa veya hata döndüyse boş liste gelir - sessizce devam et
+            val results = webView.callScriptDecoded("equipment.readSearchResults") {
+                ScriptResultDecoder.readStringList(it)
+            }
 
-                    runOnUiThread {
-                        // Update the srNo EditText with the found value
-                        binding.srNo.setText(foundSerialNumber)
-                    }
-                }
-            } catch (e: Exception) {
-                // Hata durumunda sessizce devam et
+            if (results.isNotEmpty()) {
+                // Update the srNo EditText with the found value
+                binding.srNo.setText(results[0])
             }
+        } catch (e: IllegalStateException) {
+            // Bozuk sonuç - sessizce devam et
         }
     }
 
@@ -3438,19 +3457,9 @@ class MainActivity : AppCompatActivity() {
         // Öneri önbelleğini temizle
         suggestionManager.onLowMemory()
 
-        // İhtiyaç duyulmayan webview'ları uykuya al
+        // Aktif olmayan sekmelerin WebView'lerini bırak - durumları diske kaydedilir
         val currentTab = viewModel.activeTab.value
-        activeWebViews.forEach { (tabId, webView) ->
-            if (currentTab?.id != tabId) {
-                webView.hibernate()
-                // Sekmeyi veritabanında da uyku moduna al
-                viewModel.allTabs.value?.find { it.id == tabId }?.let { tab ->
-                    if (!tab.isHibernated) {
-                        viewModel.hibernateTab(tab)
-                    }
-                }
-            }
-        }
+        hibernationScheduler.onMemoryPressure(TabHibernationScheduler.Pressure.CRITICAL)
 
         // Web önbelleğini temizle (current tab hariç)
         activeWebViews.values.forEach { webView ->
@@ -3469,9 +3478,50 @@ class MainActivity : AppCompatActivity() {
         Toast.makeText(this, "Düşük bellek: Önbellek temizleniyor", Toast.LENGTH_SHORT).show()
     }
 
+    override fun onTrimMemory(level: Int) {
+        super.onTrimMemory(level)
+
+        // Öneri önbelleğini bellek baskısına göre küçült
+        suggestionManager.onTrimMemory(level)
+
+        // En az kullanılan sekmeleri bellek baskısına göre uyut veya bırak
+        hibernationScheduler.onMemoryPressure(
+            when {
+                level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE ||
+                    level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL -> TabHibernationScheduler.Pressure.CRITICAL
+                level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND ||
+                    level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW -> TabHibernationScheduler.Pressure.LOW
+                level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN ||
+                    level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE -> TabHibernationScheduler.Pressure.MODERATE
+                else -> TabHibernationScheduler.Pressure.NONE
+            }
+        )
+    }
+
     // Activity yaşam döngüsü yönetimi
+    override fun onPause() {
+        super.onPause()
+
+        // Biriken öneri kayıtlarını diske yaz - uygulama arka planda öldürülse bile kaybolmasın
+        suggestionManager.flushPendingSaves()
+
+        // Bekleyen kaynak ölçümlerini yaz
+        viewModel.flushResourceSamples()
+
+        hibernationScheduler.stop()
+
+        // Açık sekmelerin WebView durumlarını diske kaydet (yazma IO thread'inde)
+        activeWebViews.values.forEach { it.persistSnapshot() }
+    }
+
     override fun onResume() {
         super.onResume()
+
+        // Periyodik LRU uyku değerlendirmesi
+        hibernationScheduler.start()
+
+        // Bellek baskısı sonrası havuz kapasitesini geri yükle ve yedek WebView hazırla
+        webViewPool.restoreCapacity()
         
         // Update download manager context
         downloadManager.updateContext(this)
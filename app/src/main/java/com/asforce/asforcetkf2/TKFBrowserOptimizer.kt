@@ -8,6 +8,7 @@ import android.webkit.WebView
 import com.asforce.asforcetkf2.model.Tab
 import com.asforce.asforcetkf2.util.TKFImageOptimizer
 import com.asforce.asforcetkf2.util.TKFPerformanceManager
+import com.asforce.asforcetkf2.webview.ScriptLatencyStats
 import com.asforce.asforcetkf2.webview.TKFFormManager
 import com.asforce.asforcetkf2.webview.TKFSessionManager
 import com.asforce.asforcetkf2.webview.TKFWebViewOptimizer
@@ -26,7 +27,7 @@ import java.lang.ref.WeakReference
 class TKFBrowserOptimizer(private val context: Context) {
     
     // WebView havuzu - daha verimli bellek kullanımı ve otomatik temizleme
-    private val webViewPool = WebViewPool(context)
+    private val webViewPool = WebViewPool.getInstance(context)
     
     // Performans yöneticisi - singleton instance
     private val performanceManager = TKFPerformanceManager.getInstance(context)
@@ -853,6 +854,9 @@ class TKFBrowserOptimizer(private val context: Context) {
         // Aktif sekme sayısı
         stats["active_tabs"] = webViewOptimizers.size
         
+        // evaluateJavascript gidiş-dönüş süreleri (betik adına göre)
+        stats["script_latency"] = ScriptLatencyStats.shared.snapshot()
+        
         return stats
     }
 }
\ No newline at end of file
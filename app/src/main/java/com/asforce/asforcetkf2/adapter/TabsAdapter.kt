@@ -8,6 +8,7 @@ import android.view.ViewGroup
 import androidx.core.content.ContextCompat
 import androidx.recyclerview.widget.RecyclerView
 import com.asforce.asforcetkf2.R
+import com.asforce.asforcetkf2.data.TabChangeSet
 import com.asforce.asforcetkf2.databinding.ItemTabBinding
 import com.asforce.asforcetkf2.model.Tab
 import java.util.Collections
@@ -52,6 +53,58 @@ class TabsAdapter(
         notifyDataSetChanged()
     }
     
+    /**
+     * Apply a TabChangeSet - yalnızca değişen satırlar bildirilir, tam liste yeniden bağlanmaz
+     */
+    @SuppressLint("NotifyDataSetChanged")
+    fun applyChanges(changes: TabChangeSet) {
+        if (changes.isInitial || tabs.isEmpty()) {
+            updateTabs(changes.tabs)
+            return
+        }
+        
+        // 1. Silinenler
+        for (tabId in changes.removed) {
+            val index = indexOfTab(tabId, 0)
+            if (index >= 0) {
+                tabs.removeAt(index)
+                notifyItemRemoved(index)
+            }
+        }
+        
+        // 2. Hedef sıraya göre ekleme ve taşıma, ardından içerik güncellemeleri
+        changes.tabs.forEachIndexed { target, tab ->
+            val current = indexOfTab(tab.id, target)
+            when {
+                current < 0 -> {
+                    tabs.add(target, tab)
+                    notifyItemInserted(target)
+                }
+                current != target -> {
+                    tabs.removeAt(current)
+                    tabs.add(target, tab)
+                    notifyItemMoved(current, target)
+                }
+                else -> tabs[target] = tab
+            }
+            if (tab.id in changes.updated) {
+                notifyItemChanged(target)
+            }
+        }
+        
+        // Beklenmeyen fazlalık (ör. sürükleme sırasında kaybolan satır) - güvenli geri dönüş
+        if (tabs.size != changes.tabs.size) {
+            updateTabs(changes.tabs)
+        }
+    }
+    
+    private fun indexOfTab(tabId: String, fromIndex: Int): Int {
+        for (i in fromIndex until tabs.size) {
+            if (tabs[i].id == tabId) return i
+        }
+        return -1
+    }
+    
     fun moveTab(fromPosition: Int, toPosition: Int) {
         // Verify positions are valid
         if (fromPosition < 0 || fromPosition >= tabs.size ||
@@ -4,19 +4,64 @@ import android.content.Context
 import androidx.room.Database
 import androidx.room.Room
 import androidx.room.RoomDatabase
+import androidx.room.migration.Migration
+import androidx.sqlite.db.SupportSQLiteDatabase
 
 /**
  * Room database that manages the persistent data for the browser
  */
-@Database(entities = [TabEntity::class], version = 2, exportSchema = false)
+@Database(
+    entities = [TabEntity::class, SuggestionEntity::class, ResourceSampleEntity::class],
+    version = 4,
+    exportSchema = false
+)
 abstract class BrowserDatabase : RoomDatabase() {
     
     abstract fun tabDao(): TabDao
     
+    abstract fun suggestionDao(): SuggestionDao
+    
+    abstract fun resourceSampleDao(): ResourceSampleDao
+    
     companion object {
         @Volatile
         private var INSTANCE: BrowserDatabase? = null
         
+        // Öneri tablosu eklendi - mevcut sekmeler silinmesin diye yıkıcı geçiş yerine
+        private val MIGRATION_2_3 = object : Migration(2, 3) {
+            override fun migrate(db: SupportSQLiteDatabase) {
+                db.execSQL(
+                    "CREATE TABLE IF NOT EXISTS `suggestions` (" +
+                        "`inputKey` TEXT NOT NULL, `value` TEXT NOT NULL, `normalizedValue` TEXT NOT NULL, " +
+                        "`useCount` INTEGER NOT NULL, `lastUsed` INTEGER NOT NULL, " +
+                        "PRIMARY KEY(`inputKey`, `value`))"
+                )
+                db.execSQL(
+                    "CREATE INDEX IF NOT EXISTS `index_suggestions_inputKey_normalizedValue` " +
+                        "ON `suggestions` (`inputKey`, `normalizedValue`)"
+                )
+            }
+        }
+        
+        // Sekme kaynak ölçümleri için zaman serisi tablosu
+        private val MIGRATION_3_4 = object : Migration(3, 4) {
+            override fun migrate(db: SupportSQLiteDatabase) {
+                db.execSQL(
+                    "CREATE TABLE IF NOT EXISTS `resource_samples` (" +
+                        "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `tabId` TEXT NOT NULL, " +
+                        "`timestamp` INTEGER NOT NULL, `cpuUsage` REAL NOT NULL, `memoryUsage` INTEGER NOT NULL)"
+                )
+                db.execSQL(
+                    "CREATE INDEX IF NOT EXISTS `index_resource_samples_tabId_timestamp` " +
+                        "ON `resource_samples` (`tabId`, `timestamp`)"
+                )
+                db.execSQL(
+                    "CREATE INDEX IF NOT EXISTS `index_resource_samples_timestamp` " +
+                        "ON `resource_samples` (`timestamp`)"
+                )
+            }
+        }
+        
         fun getDatabase(context: Context): BrowserDatabase {
             return INSTANCE ?: synchronized(this) {
                 val instance = Room.databaseBuilder(
@@ -24,6 +69,7 @@ abstract class BrowserDatabase : RoomDatabase() {
                     BrowserDatabase::class.java,
                     "browser_database"
                 )
+                .addMigrations(MIGRATION_2_3, MIGRATION_3_4)
                 .fallbackToDestructiveMigration()
                 .build()
                 
@@ -4,6 +4,9 @@ import com.asforce.asforcetkf2.model.Tab
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.emitAll
+import kotlinx.coroutines.flow.filter
+import kotlinx.coroutines.flow.flow
 import kotlinx.coroutines.flow.map
 import kotlinx.coroutines.launch
 
@@ -14,48 +17,32 @@ class BrowserRepository(private val tabDao: TabDao) {
     
     private val coroutineScope = CoroutineScope(Dispatchers.IO)
     
-    // Get all tabs as a Flow
-    val allTabs: Flow<List<Tab>> = tabDao.getAllTabs().map { entities ->
-        entities.map { entity ->
-            Tab(
-                id = entity.id,
-                url = entity.url,
-                title = entity.title,
-                isActive = entity.isActive,
-                isHibernated = entity.isHibernated,
-                lastAccessTime = entity.lastAccessTime
-            )
-        }
+    // Tab list as incremental change sets - her toplayıcı kendi önceki durumunu tutar
+    val tabChanges: Flow<TabChangeSet> = flow {
+        val tracker = TabChangeTracker()
+        emitAll(
+            tabDao.getAllTabs()
+                .map { entities -> tracker.apply(entities) }
+                .filter { changes -> changes.hasChanges }
+        )
     }
     
+    // Get all tabs as a Flow
+    val allTabs: Flow<List<Tab>> = tabChanges.map { changes -> changes.tabs }
+    
     // Add a new tab
     suspend fun addTab(tab: Tab, position: Int) {
-        tabDao.insertTab(
-            TabEntity(
-                id = tab.id,
-                url = tab.url,
-                title = tab.title,
-                position = position,
-                isActive = tab.isActive,
-                isHibernated = tab.isHibernated,
-                lastAccessTime = tab.lastAccessTime
-            )
-        )
+        tabDao.insertTab(tab.toEntity(position))
+    }
+    
+    // Yeni sekmeyi ekleyip tek aktif sekme yap - tek transaction, sekme listesi bir kez güncellenir
+    suspend fun addActiveTab(tab: Tab, position: Int) {
+        tabDao.insertAndActivate(tab.toEntity(position))
     }
     
     // Update an existing tab
     suspend fun updateTab(tab: Tab, position: Int) {
-        tabDao.updateTab(
-            TabEntity(
-                id = tab.id,
-                url = tab.url,
-                title = tab.title,
-                position = position,
-                isActive = tab.isActive,
-                isHibernated = tab.isHibernated,
-                lastAccessTime = tab.lastAccessTime
-            )
-        )
+        tabDao.updateTab(tab.toEntity(position))
     }
     
     // Delete a tab
@@ -63,15 +50,9 @@ class BrowserRepository(private val tabDao: TabDao) {
         tabDao.deleteTabById(tab.id)
     }
     
-    // Set active tab
-    suspend fun setActiveTab(tabId: String) {
-        tabDao.deactivateAllTabs()
-        tabDao.activateTab(tabId)
-    }
-    
-    // Tüm sekmeleri pasif yap
-    suspend fun deactivateAllTabs() {
-        tabDao.deactivateAllTabs()
+    // Set active tab - tek UPDATE: diğerleri pasif, seçilen aktif ve uyanık
+    suspend fun setActiveTab(tabId: String, accessTime: Long = System.currentTimeMillis()) {
+        tabDao.activateOnly(tabId, accessTime)
     }
     
     // Hibernate a tab
@@ -89,10 +70,25 @@ class BrowserRepository(private val tabDao: TabDao) {
         tabDao.updateTabPosition(tabId, newPosition)
     }
     
+    // Write the whole tab order in one transaction
+    suspend fun updateTabPositions(orderedTabIds: List<String>) {
+        tabDao.updatePositions(orderedTabIds)
+    }
+    
     // Update tab data in the background
     fun updateTabInBackground(tab: Tab, position: Int) {
         coroutineScope.launch {
             updateTab(tab, position)
         }
     }
+    
+    private fun Tab.toEntity(position: Int) = TabEntity(
+        id = id,
+        url = url,
+        title = title,
+        position = position,
+        isActive = isActive,
+        isHibernated = isHibernated,
+        lastAccessTime = lastAccessTime
+    )
 }
\ No newline at end of file
@@ -0,0 +1,64 @@
+package com.asforce.asforcetkf2.data
+
+import androidx.room.Dao
+import androidx.room.Insert
+import androidx.room.Query
+import androidx.room.Transaction
+
+/**
+ * Data Access Object for the resource_samples time series
+ */
+@Dao
+interface ResourceSampleDao {
+    
+    @Insert
+    suspend fun insertAll(samples: List<ResourceSampleEntity>)
+    
+    // Halka tampon: en yeni maxRows satır dışındakiler silinir (id artan sırada)
+    @Query("DELETE FROM resource_samples WHERE id <= (SELECT MAX(id) FROM resource_samples) - :maxRows")
+    suspend fun trimToCapacity(maxRows: Int)
+    
+    @Query("DELETE FROM resource_samples WHERE timestamp < :cutoff")
+    suspend fun deleteOlderThan(cutoff: Long)
+    
+    @Query("DELETE FROM resource_samples WHERE tabId = :tabId")
+    suspend fun deleteForTab(tabId: String)
+    
+    @Query("SELECT COUNT(*) FROM resource_samples")
+    suspend fun count(): Int
+    
+    /**
+     * Insert a batch and trim the ring buffer in one transaction
+     */
+    @Transaction
+    suspend fun appendBatch(samples: List<ResourceSampleEntity>, maxRows: Int, cutoff: Long) {
+        insertAll(samples)
+        trimToCapacity(maxRows)
+        deleteOlderThan(cutoff)
+    }
+    
+    @Query("""
+        SELECT tabId, COUNT(*) AS sampleCount,
+               AVG(cpuUsage) AS avgCpu, MAX(cpuUsage) AS maxCpu,
+               AVG(memoryUsage) AS avgMemory, MAX(memoryUsage) AS maxMemory,
+               MAX(timestamp) AS lastTimestamp
+        FROM resource_samples
+        WHERE timestamp >= :since
+        GROUP BY tabId
+    """)
+    suspend fun getRollups(since: Long): List<ResourceRollup>
+    
+    @Query("""
+        SELECT tabId, COUNT(*) AS sampleCount,
+               AVG(cpuUsage) AS avgCpu, MAX(cpuUsage) AS maxCpu,
+               AVG(memoryUsage) AS avgMemory, MAX(memoryUsage) AS maxMemory,
+               MAX(timestamp) AS lastTimestamp
+        FROM resource_samples
+        WHERE tabId = :tabId AND timestamp >= :since
+        GROUP BY tabId
+    """)
+    suspend fun getRollup(tabId: String, since: Long): ResourceRollup?
+    
+    @Query("SELECT * FROM resource_samples WHERE tabId = :tabId AND timestamp >= :since ORDER BY timestamp")
+    suspend fun getSamples(tabId: String, since: Long): List<ResourceSampleEntity>
+}
@@ -0,0 +1,34 @@
+package com.asforce.asforcetkf2.data
+
+import androidx.room.Entity
+import androidx.room.Index
+import androidx.room.PrimaryKey
+
+/**
+ * Room entity for one resource measurement of a tab (append-only time series)
+ */
+@Entity(
+    tableName = "resource_samples",
+    indices = [Index(value = ["tabId", "timestamp"]), Index(value = ["timestamp"])]
+)
+data class ResourceSampleEntity(
+    @PrimaryKey(autoGenerate = true)
+    val id: Long = 0,
+    val tabId: String,
+    val timestamp: Long,
+    val cpuUsage: Float,
+    val memoryUsage: Long
+)
+
+/**
+ * Aggregated resource usage of a single tab over a time window
+ */
+data class ResourceRollup(
+    val tabId: String,
+    val sampleCount: Int,
+    val avgCpu: Float,
+    val maxCpu: Float,
+    val avgMemory: Long,
+    val maxMemory: Long,
+    val lastTimestamp: Long
+)
@@ -0,0 +1,86 @@
+package com.asforce.asforcetkf2.data
+
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
+import timber.log.Timber
+
+/**
+ * Buffers tab resource samples in memory and appends them to resource_samples in batches
+ * Sekme listesi tablosuna dokunulmaz; örnekler ayrı, halka tamponlu bir tabloda tutulur
+ */
+class ResourceSampleRepository(
+    private val sampleDao: ResourceSampleDao,
+    private val batchSize: Int = DEFAULT_BATCH_SIZE,
+    private val maxRows: Int = DEFAULT_MAX_ROWS,
+    private val retentionMs: Long = DEFAULT_RETENTION_MS,
+    private val clock: () -> Long = System::currentTimeMillis
+) {
+    
+    private val coroutineScope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
+    private val pending = ArrayList<ResourceSampleEntity>()
+    private val flushMutex = Mutex()
+    
+    /**
+     * Queue one sample - tampon dolduğunda arka planda tek transaction ile yazılır
+     */
+    fun record(tabId: String, cpuUsage: Float, memoryUsage: Long, timestamp: Long = clock()) {
+        val shouldFlush = synchronized(pending) {
+            pending.add(ResourceSampleEntity(tabId = tabId, timestamp = timestamp, cpuUsage = cpuUsage, memoryUsage = memoryUsage))
+            pending.size >= batchSize
+        }
+        if (shouldFlush) {
+            coroutineScope.launch { flush() }
+        }
+    }
+    
+    /**
+     * Write all buffered samples now
+     * @return number of samples written
+     */
+    suspend fun flush(): Int = flushMutex.withLock {
+        val batch = synchronized(pending) {
+            if (pending.isEmpty()) return@withLock 0
+            ArrayList(pending).also { pending.clear() }
+        }
+        try {
+            sampleDao.appendBatch(batch, maxRows, clock() - retentionMs)
+            batch.size
+        } catch (e: Exception) {
+            Timber.e(e, "Error writing ${batch.size} resource samples")
+            0
+        }
+    }
+    
+    fun flushInBackground() {
+        coroutineScope.launch { flush() }
+    }
+    
+    // Average/max usage per tab over the last windowMs
+    suspend fun getRollups(windowMs: Long): List<ResourceRollup> {
+        flush()
+        return sampleDao.getRollups(clock() - windowMs)
+    }
+    
+    suspend fun getRollup(tabId: String, windowMs: Long): ResourceRollup? {
+        flush()
+        return sampleDao.getRollup(tabId, clock() - windowMs)
+    }
+    
+    // Kapanan sekmenin örneklerini temizle
+    suspend fun deleteForTab(tabId: String) {
+        synchronized(pending) {
+            pending.removeAll { it.tabId == tabId }
+        }
+        sampleDao.deleteForTab(tabId)
+    }
+    
+    companion object {
+        const val DEFAULT_BATCH_SIZE = 24
+        const val DEFAULT_MAX_ROWS = 5_000
+        const val DEFAULT_RETENTION_MS = 60 * 60 * 1000L // 1 saat
+    }
+}
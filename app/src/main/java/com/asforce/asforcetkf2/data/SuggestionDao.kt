@@ -0,0 +1,102 @@
+package com.asforce.asforcetkf2.data
+
+import androidx.room.Dao
+import androidx.room.Insert
+import androidx.room.OnConflictStrategy
+import androidx.room.Query
+import androidx.room.Transaction
+
+/**
+ * Data Access Object for the suggestions table
+ */
+@Dao
+interface SuggestionDao {
+    @Query("SELECT * FROM suggestions WHERE inputKey = :inputKey")
+    suspend fun getSuggestions(inputKey: String): List<SuggestionEntity>
+    
+    // Önek araması (inputKey, normalizedValue) indeksi üzerinden aralık sorgusu olarak çalışır
+    @Query("""
+        SELECT value FROM suggestions
+        WHERE inputKey = :inputKey AND normalizedValue >= :prefix AND normalizedValue < :prefixEnd
+        ORDER BY normalizedValue ASC
+        LIMIT :limit
+    """)
+    suspend fun getValuesByPrefixRange(inputKey: String, prefix: String, prefixEnd: String, limit: Int): List<String>
+    
+    @Query("SELECT DISTINCT inputKey FROM suggestions")
+    suspend fun getKeys(): List<String>
+    
+    @Query("SELECT inputKey, COUNT(*) AS count FROM suggestions GROUP BY inputKey ORDER BY inputKey ASC")
+    suspend fun getKeyCounts(): List<SuggestionKeyCount>
+    
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    suspend fun insertIfAbsent(suggestion: SuggestionEntity)
+    
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    suspend fun insertAllIfAbsent(suggestions: List<SuggestionEntity>)
+    
+    @Query("UPDATE suggestions SET useCount = useCount + 1, lastUsed = :usedAt WHERE inputKey = :inputKey AND value = :value")
+    suspend fun incrementUse(inputKey: String, value: String, usedAt: Long)
+    
+    /**
+     * Insert the value if it is new, otherwise bump its use count - single transaction
+     */
+    @Transaction
+    suspend fun recordUse(suggestion: SuggestionEntity) {
+        insertIfAbsent(suggestion.copy(useCount = 0))
+        incrementUse(suggestion.inputKey, suggestion.value, suggestion.lastUsed)
+    }
+    
+    @Query("""
+        UPDATE suggestions SET useCount = useCount + :count, lastUsed = MAX(lastUsed, :usedAt)
+        WHERE inputKey = :inputKey AND value = :value
+    """)
+    suspend fun incrementUseBy(inputKey: String, value: String, count: Int, usedAt: Long)
+    
+    /**
+     * Apply a batch of coalesced uses - single transaction, tek bir disk senkronizasyonu
+     * Her eleman için useCount alanı eklenecek kullanım sayısını taşır
+     */
+    @Transaction
+    suspend fun recordUses(uses: List<SuggestionEntity>) {
+        for (use in uses) {
+            insertIfAbsent(use.copy(useCount = 0))
+            incrementUseBy(use.inputKey, use.value, use.useCount, use.lastUsed)
+        }
+    }
+    
+    @Query("""
+        INSERT OR IGNORE INTO suggestions (inputKey, value, normalizedValue, useCount, lastUsed)
+        SELECT :toKey, value, normalizedValue, 0, 0 FROM suggestions WHERE inputKey = :fromKey
+    """)
+    suspend fun copyMissingValues(fromKey: String, toKey: String)
+    
+    // Kaynak anahtardaki kullanım sayıları hedefe eklenir, son kullanım zamanı en yenisi olur
+    @Query("""
+        UPDATE suggestions SET
+            useCount = useCount + (SELECT s.useCount FROM suggestions s WHERE s.inputKey = :fromKey AND s.value = suggestions.value),
+            lastUsed = MAX(lastUsed, (SELECT s.lastUsed FROM suggestions s WHERE s.inputKey = :fromKey AND s.value = suggestions.value))
+        WHERE inputKey = :toKey AND value IN (SELECT value FROM suggestions WHERE inputKey = :fromKey)
+    """)
+    suspend fun addUsageFrom(fromKey: String, toKey: String)
+    
+    /**
+     * Move every value of one key into another, summing use counts of values present in both
+     */
+    @Transaction
+    suspend fun mergeKey(fromKey: String, toKey: String) {
+        if (fromKey == toKey) return
+        copyMissingValues(fromKey, toKey)
+        addUsageFrom(fromKey, toKey)
+        deleteAllForKey(fromKey)
+    }
+    
+    @Query("DELETE FROM suggestions WHERE inputKey = :inputKey AND value = :value")
+    suspend fun deleteSuggestion(inputKey: String, value: String): Int
+    
+    @Query("DELETE FROM suggestions WHERE inputKey = :inputKey")
+    suspend fun deleteAllForKey(inputKey: String)
+    
+    @Query("DELETE FROM suggestions")
+    suspend fun deleteAll()
+}
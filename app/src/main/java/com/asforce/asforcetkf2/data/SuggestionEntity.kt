@@ -0,0 +1,29 @@
+package com.asforce.asforcetkf2.data
+
+import androidx.room.Entity
+import androidx.room.Index
+
+/**
+ * Room entity representing a remembered input value for a suggestion key
+ */
+@Entity(
+    tableName = "suggestions",
+    primaryKeys = ["inputKey", "value"],
+    indices = [Index(value = ["inputKey", "normalizedValue"])]
+)
+data class SuggestionEntity(
+    val inputKey: String,
+    val value: String,
+    // Türkçe kurallarına göre küçük harfe çevrilmiş değer - önek sorguları için
+    val normalizedValue: String,
+    val useCount: Int,
+    val lastUsed: Long
+)
+
+/**
+ * Number of stored suggestions for a single input key
+ */
+data class SuggestionKeyCount(
+    val inputKey: String,
+    val count: Int
+)
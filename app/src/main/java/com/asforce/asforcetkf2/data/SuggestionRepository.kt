@@ -0,0 +1,206 @@
+package com.asforce.asforcetkf2.data
+
+import android.content.Context
+import com.asforce.asforcetkf2.suggestion.SuggestionDictionaryFormat
+import com.asforce.asforcetkf2.suggestion.SuggestionNormalizer
+import com.asforce.asforcetkf2.suggestion.SuggestionRecord
+import com.asforce.asforcetkf2.suggestion.SuggestionStore
+import com.asforce.asforcetkf2.suggestion.SuggestionWriteBuffer
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
+import timber.log.Timber
+import java.io.InputStream
+import java.io.OutputStream
+
+/**
+ * Repository that handles suggestion data operations
+ * Eski SharedPreferences StringSet kayıtlarını ilk kullanımda Room tablosuna taşır
+ */
+class SuggestionRepository(
+    private val context: Context,
+    private val suggestionDao: SuggestionDao
+) : SuggestionStore {
+    
+    private val migrationMutex = Mutex()
+    
+    @Volatile
+    private var migrationChecked = false
+    
+    // Get all stored values for a key together with their usage statistics
+    suspend fun getSuggestions(inputKey: String): List<SuggestionEntity> {
+        ensureMigrated()
+        return suggestionDao.getSuggestions(inputKey)
+    }
+    
+    override suspend fun getSuggestionRecords(inputKey: String): List<SuggestionRecord> {
+        return getSuggestions(inputKey).map { SuggestionRecord(it.value, it.useCount, it.lastUsed) }
+    }
+    
+    // Get values starting with the given prefix using the (inputKey, normalizedValue) index
+    suspend fun getSuggestionsByPrefix(inputKey: String, prefix: String, limit: Int): List<String> {
+        ensureMigrated()
+        val normalizedPrefix = SuggestionNormalizer.normalizeValue(prefix)
+        return suggestionDao.getValuesByPrefixRange(inputKey, normalizedPrefix, normalizedPrefix + '\uFFFF', limit)
+    }
+    
+    // Save a value or bump its use count if it already exists
+    suspend fun recordUse(inputKey: String, value: String) {
+        ensureMigrated()
+        suggestionDao.recordUse(createEntity(inputKey, value, System.currentTimeMillis()))
+    }
+    
+    // Write a batch of buffered uses in one transaction
+    override suspend fun recordUses(uses: List<SuggestionWriteBuffer.PendingUse>) {
+        if (uses.isEmpty()) return
+        ensureMigrated()
+        suggestionDao.recordUses(uses.map { createEntity(it.inputKey, it.value, it.lastUsed, useCount = it.count) })
+    }
+    
+    // Delete a single value, returns true if a row was removed
+    override suspend fun deleteSuggestion(inputKey: String, value: String): Boolean {
+        ensureMigrated()
+        return suggestionDao.deleteSuggestion(inputKey, value) > 0
+    }
+    
+    // Delete every value stored for a key
+    override suspend fun deleteAllForKey(inputKey: String) {
+        ensureMigrated()
+        suggestionDao.deleteAllForKey(inputKey)
+    }
+    
+    // Delete all suggestions
+    override suspend fun deleteAll() {
+        ensureMigrated()
+        suggestionDao.deleteAll()
+    }
+    
+    /**
+     * Write the whole store to the stream in the binary dictionary format, returns the number of values
+     * Anahtarlar tek tek okunur; aynı anda yalnızca bir anahtarın değerleri bellekte tutulur
+     */
+    suspend fun exportTo(output: OutputStream): Int {
+        ensureMigrated()
+        var total = 0
+        val writer = SuggestionDictionaryFormat.Writer(output)
+        for (key in suggestionDao.getKeys().sorted()) {
+            val records = suggestionDao.getSuggestions(key).map {
+                SuggestionRecord(it.value, it.useCount, it.lastUsed)
+            }
+            writer.writeBlock(key, records)
+            total += records.size
+        }
+        writer.finish()
+        return total
+    }
+    
+    /**
+     * Stream a binary dictionary into the store, returns the number of values read
+     * Partiler tek transaction ile eklenir; mevcut değerler korunur, anahtarlar güncel kurallarla birleştirilir
+     */
+    suspend fun importFrom(input: InputStream): Int {
+        ensureMigrated()
+        return SuggestionDictionaryFormat.read(input, IMPORT_BATCH_SIZE) { key, records ->
+            val canonicalKey = SuggestionNormalizer.normalizeKey(key)
+            suggestionDao.insertAllIfAbsent(records.mapNotNull { record ->
+                val value = record.value.trim()
+                if (value.isEmpty()) null
+                else createEntity(canonicalKey, value, record.lastUsed, useCount = record.useCount.coerceAtLeast(1))
+            })
+        }
+    }
+    
+    // Per-key counts for debugging
+    suspend fun getKeyCounts(): List<SuggestionKeyCount> {
+        ensureMigrated()
+        return suggestionDao.getKeyCounts()
+    }
+    
+    /**
+     * One-time migration from the legacy "SuggestionPrefs" StringSet storage
+     */
+    private suspend fun ensureMigrated() {
+        if (migrationChecked) return
+        
+        migrationMutex.withLock {
+            if (migrationChecked) return
+            
+            try {
+                val prefs = context.getSharedPreferences(LEGACY_PREFS_NAME, Context.MODE_PRIVATE)
+                val legacyEntries = prefs.all
+                
+                if (legacyEntries.isNotEmpty()) {
+                    val now = System.currentTimeMillis()
+                    val entities = mutableListOf<SuggestionEntity>()
+                    
+                    for ((key, values) in legacyEntries) {
+                        // Eski sürümde anahtarlar bazen normalize edilmeden kaydediliyordu
+                        val normalizedKey = SuggestionNormalizer.normalizeKey(key)
+                        (values as? Set<*>)?.forEach { value ->
+                            val text = (value as? String)?.trim()
+                            if (!text.isNullOrEmpty()) {
+                                entities.add(createEntity(normalizedKey, text, now, useCount = 1))
+                            }
+                        }
+                    }
+                    
+                    suggestionDao.insertAllIfAbsent(entities)
+                    
+                    // Taşıma başarılı - eski dosyayı boşalt ki tekrar taşınmasın
+                    prefs.edit().clear().commit()
+                    Timber.d("[SUGGESTION] Migrated ${entities.size} suggestions from SharedPreferences")
+                }
+                
+                mergeNonCanonicalKeys()
+                
+                migrationChecked = true
+            } catch (e: Exception) {
+                // Bir sonraki erişimde tekrar denenecek
+                Timber.e(e, "[SUGGESTION] Error migrating legacy suggestions")
+            }
+        }
+    }
+    
+    /**
+     * Merge keys stored before the current key rules into their canonical key
+     * Ör. measuredvalue1, measuredvalue2 ... satırları tek "measuredvalue" sözlüğünde birleşir.
+     * Kurallar değişmedikçe tablo tekrar taranmaz.
+     */
+    private suspend fun mergeNonCanonicalKeys() {
+        val rules = SuggestionNormalizer.keyRules
+        val prefs = context.getSharedPreferences(KEY_RULES_PREFS_NAME, Context.MODE_PRIVATE)
+        if (prefs.getString(PREF_APPLIED_RULES, null) == rules.signature) return
+        
+        var merged = 0
+        for (key in suggestionDao.getKeys()) {
+            val canonicalKey = SuggestionNormalizer.normalizeKey(key)
+            if (canonicalKey != key) {
+                suggestionDao.mergeKey(key, canonicalKey)
+                merged++
+            }
+        }
+        
+        prefs.edit().putString(PREF_APPLIED_RULES, rules.signature).apply()
+        if (merged > 0) {
+            Timber.d("[SUGGESTION] Merged $merged per-row keys into their canonical keys")
+        }
+    }
+    
+    private fun createEntity(inputKey: String, value: String, usedAt: Long, useCount: Int = 1): SuggestionEntity {
+        return SuggestionEntity(
+            inputKey = inputKey,
+            value = value,
+            normalizedValue = SuggestionNormalizer.normalizeValue(value),
+            useCount = useCount,
+            lastUsed = usedAt
+        )
+    }
+    
+    companion object {
+        const val LEGACY_PREFS_NAME = "SuggestionPrefs"
+        const val KEY_RULES_PREFS_NAME = "SuggestionKeyRules"
+        private const val PREF_APPLIED_RULES = "applied_rules_signature"
+        
+        // İçe aktarmada tek transaction'a giren satır sayısı
+        private const val IMPORT_BATCH_SIZE = 2000
+    }
+}
@@ -0,0 +1,124 @@
+package com.asforce.asforcetkf2.data
+
+import com.asforce.asforcetkf2.model.Tab
+
+/**
+ * One emission of the tab list expressed as deltas against the previous emission
+ * Sekme kimlikleri: eklenen, silinen, yer değiştiren ve içeriği güncellenen
+ */
+data class TabChangeSet(
+    val tabs: List<Tab>,
+    val inserted: Set<String> = emptySet(),
+    val removed: Set<String> = emptySet(),
+    val moved: Set<String> = emptySet(),
+    val updated: Set<String> = emptySet(),
+    val activeTabId: String? = null,
+    val previousActiveTabId: String? = null,
+    val isInitial: Boolean = false
+) {
+    val hasChanges: Boolean
+        get() = isInitial || inserted.isNotEmpty() || removed.isNotEmpty() ||
+                moved.isNotEmpty() || updated.isNotEmpty()
+
+    val activeTabChanged: Boolean
+        get() = activeTabId != previousActiveTabId
+}
+
+/**
+ * Turns consecutive TabEntity lists into TabChangeSets
+ * Değişmeyen satırlar için önceki Tab nesnesi yeniden kullanılır; böylece favicon ve yükleme
+ * durumu gibi yalnızca bellekte tutulan alanlar her yayında kaybolmaz
+ */
+class TabChangeTracker {
+
+    private var entities: Map<String, TabEntity> = emptyMap()
+    private var tabs: Map<String, Tab> = emptyMap()
+    private var order: List<String> = emptyList()
+    private var activeTabId: String? = null
+    private var initialized = false
+
+    fun apply(newEntities: List<TabEntity>): TabChangeSet {
+        val newEntityMap = HashMap<String, TabEntity>(newEntities.size * 2)
+        val newTabMap = HashMap<String, Tab>(newEntities.size * 2)
+        val newOrder = ArrayList<String>(newEntities.size)
+        val inserted = LinkedHashSet<String>()
+        val updated = LinkedHashSet<String>()
+        val result = ArrayList<Tab>(newEntities.size)
+
+        for (entity in newEntities) {
+            val previousEntity = entities[entity.id]
+            val previousTab = tabs[entity.id]
+            val tab = when {
+                previousEntity == null || previousTab == null -> {
+                    inserted.add(entity.id)
+                    entity.toTab()
+                }
+                previousEntity == entity -> previousTab
+                previousEntity.copy(position = entity.position) == entity -> {
+                    // Sadece sıra değişti - içerik aynı, nesneyi koru
+                    previousTab.position = entity.position
+                    previousTab
+                }
+                else -> {
+                    updated.add(entity.id)
+                    previousTab.copy(
+                        url = entity.url,
+                        title = entity.title,
+                        isActive = entity.isActive,
+                        isHibernated = entity.isHibernated,
+                        lastAccessTime = entity.lastAccessTime,
+                        position = entity.position
+                    )
+                }
+            }
+            newEntityMap[entity.id] = entity
+            newTabMap[entity.id] = tab
+            newOrder.add(entity.id)
+            result.add(tab)
+        }
+
+        val removed = LinkedHashSet<String>()
+        for (id in order) {
+            if (!newEntityMap.containsKey(id)) removed.add(id)
+        }
+
+        // Yer değiştirme: hem eski hem yeni listede bulunan sekmelerin göreli sırası
+        val moved = LinkedHashSet<String>()
+        val survivingOld = order.filter { newEntityMap.containsKey(it) }
+        val survivingNew = newOrder.filter { entities.containsKey(it) }
+        for (i in survivingNew.indices) {
+            if (survivingOld.getOrNull(i) != survivingNew[i]) moved.add(survivingNew[i])
+        }
+
+        val previousActive = activeTabId
+        val newActive = newEntities.firstOrNull { it.isActive }?.id
+        val isInitial = !initialized
+
+        entities = newEntityMap
+        tabs = newTabMap
+        order = newOrder
+        activeTabId = newActive
+        initialized = true
+
+        return TabChangeSet(
+            tabs = result,
+            inserted = inserted,
+            removed = removed,
+            moved = moved,
+            updated = updated,
+            activeTabId = newActive,
+            previousActiveTabId = previousActive,
+            isInitial = isInitial
+        )
+    }
+
+    private fun TabEntity.toTab(): Tab = Tab(
+        id = id,
+        url = url,
+        title = title,
+        isActive = isActive,
+        isHibernated = isHibernated,
+        lastAccessTime = lastAccessTime,
+        position = position
+    )
+}
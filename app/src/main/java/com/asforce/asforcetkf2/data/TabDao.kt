@@ -5,6 +5,7 @@ import androidx.room.Delete
 import androidx.room.Insert
 import androidx.room.OnConflictStrategy
 import androidx.room.Query
+import androidx.room.Transaction
 import androidx.room.Update
 import kotlinx.coroutines.flow.Flow
 
@@ -48,4 +49,41 @@ interface TabDao {
     
     @Query("UPDATE tabs SET position = :newPosition WHERE id = :tabId")
     suspend fun updateTabPosition(tabId: String, newPosition: Int)
+    
+    /**
+     * Make one tab the only active tab in a single statement
+     * Seçilen sekme uyandırılır; yalnızca durumu değişen satırlara dokunulur. Erişim zamanı hem seçilen
+     * hem de bırakılan sekmede güncellenir: bırakılan sekme bu ana kadar kullanılıyordu, LRU sırası
+     * etkinleştirildiği zamana göre değil son kullanıldığı zamana göre olmalı
+     */
+    @Query("""
+        UPDATE tabs SET
+            isActive = CASE WHEN id = :tabId THEN 1 ELSE 0 END,
+            isHibernated = CASE WHEN id = :tabId THEN 0 ELSE isHibernated END,
+            lastAccessTime = :accessTime
+        WHERE id = :tabId OR isActive = 1
+    """)
+    suspend fun activateOnly(tabId: String, accessTime: Long)
+    
+    /**
+     * Insert a tab and make it the only active tab in one transaction - getAllTabs yalnızca bir kez yayın yapar
+     */
+    @Transaction
+    suspend fun insertAndActivate(tab: TabEntity) {
+        insertTab(tab)
+        activateOnly(tab.id, tab.lastAccessTime)
+    }
+    
+    @Query("UPDATE tabs SET position = :newPosition WHERE id = :tabId AND position != :newPosition")
+    suspend fun moveTabIfChanged(tabId: String, newPosition: Int)
+    
+    /**
+     * Write the order of all tabs in one transaction - getAllTabs yalnızca bir kez yayın yapar
+     */
+    @Transaction
+    suspend fun updatePositions(orderedTabIds: List<String>) {
+        orderedTabIds.forEachIndexed { index, tabId ->
+            moveTabIfChanged(tabId, index)
+        }
+    }
 }
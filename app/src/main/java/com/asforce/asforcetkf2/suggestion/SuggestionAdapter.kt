@@ -5,6 +5,10 @@ import android.view.LayoutInflater
 import android.view.View
 import android.view.ViewGroup
 import androidx.appcompat.app.AlertDialog
+import androidx.recyclerview.widget.AsyncDifferConfig
+import androidx.recyclerview.widget.AsyncListDiffer
+import androidx.recyclerview.widget.DiffUtil
+import androidx.recyclerview.widget.ListUpdateCallback
 import androidx.recyclerview.widget.RecyclerView
 import com.asforce.asforcetkf2.R
 import com.google.android.material.chip.Chip
@@ -13,86 +17,163 @@ import timber.log.Timber
 
 /**
  * Horizontal adapter for suggestions shown as chips
+ *
+ * Liste AsyncListDiffer ile güncellenir: yeni sorgu sonucu eskisiyle arka planda karşılaştırılır ve
+ * yalnızca eklenen/çıkan/yer değiştiren chip'ler yeniden yerleştirilir. Aynı chip için sadece tam eşleşme
+ * durumu değişirse payload ile kısmi bağlama yapılır (yalnızca kenarlık rengi, yeniden ölçüm gerekmez).
  */
 class SuggestionAdapter(
     private val context: Context,
-    private var suggestions: MutableList<String>,
-    private val inputKey: String,
+    var inputKey: String,
     private val onSuggestionSelected: (String) -> Unit,
     private val onSuggestionDeleted: (String, Int) -> Unit
 ) : RecyclerView.Adapter<SuggestionAdapter.SuggestionViewHolder>() {
 
     private val TAG = "SuggestionAdapter"
 
+    /**
+     * A suggestion chip; isExactMatch is true when the value equals the typed text
+     */
+    data class SuggestionItem(
+        val value: String,
+        val isExactMatch: Boolean
+    )
+
     class SuggestionViewHolder(view: View) : RecyclerView.ViewHolder(view) {
         val suggestionChip: Chip = view.findViewById(R.id.suggestion_chip)
     }
 
+    // Liste boşken tek satırlık "öneri yok" mesajı gösterilir
+    private var showingEmptyRow = true
+
+    /**
+     * Forwards diff results to the adapter
+     * Boş liste satırı listede olmayan bir satır olduğundan, boş <-> dolu geçişlerinde konumlar tutmaz;
+     * bu geçişlerde tam yenileme yapılır, diğer tüm durumlarda yalnızca değişen aralıklar bildirilir.
+     */
+    private val updateCallback = object : ListUpdateCallback {
+        override fun onInserted(position: Int, count: Int) {
+            if (!resetIfEmptyStateChanged()) notifyItemRangeInserted(position, count)
+        }
+
+        override fun onRemoved(position: Int, count: Int) {
+            if (!resetIfEmptyStateChanged()) notifyItemRangeRemoved(position, count)
+        }
+
+        override fun onMoved(fromPosition: Int, toPosition: Int) {
+            if (!resetIfEmptyStateChanged()) notifyItemMoved(fromPosition, toPosition)
+        }
+
+        override fun onChanged(position: Int, count: Int, payload: Any?) {
+            if (!resetIfEmptyStateChanged()) notifyItemRangeChanged(position, count, payload)
+        }
+    }
+
+    private val differ = AsyncListDiffer(updateCallback, AsyncDifferConfig.Builder(DIFF_CALLBACK).build())
+
+    // Değer -> kalıcı kimlik; aynı değer sorgular arasında aynı ViewHolder'ı korur
+    private val stableIds = HashMap<String, Long>()
+    private var nextStableId = 1L
+
+    private val suggestions: List<SuggestionItem>
+        get() = differ.currentList
+
+    init {
+        setHasStableIds(true)
+    }
+
     override fun onCreateViewHolder(parent: ViewGroup, viewType: Int): SuggestionViewHolder {
         val view = LayoutInflater.from(context).inflate(R.layout.item_suggestion_chip, parent, false)
         Timber.d("[SUGGESTION] Creating new suggestion view holder")
-        return SuggestionViewHolder(view)
-    }
+        val holder = SuggestionViewHolder(view)
 
-    override fun onBindViewHolder(holder: SuggestionViewHolder, position: Int) {
-        // Eğer öneriler boşsa, "hiçbir öneri yok" mesajını göster
-        if (suggestions.isEmpty()) {
-            Timber.d("[SUGGESTION] Showing no suggestions message")
+        // Görünüm ayarları her bağlamada değil, ViewHolder oluşturulurken bir kez yapılır
+        holder.suggestionChip.setTextColor(android.graphics.Color.WHITE)
+        holder.suggestionChip.setTextSize(android.util.TypedValue.COMPLEX_UNIT_SP, 18f)
+        holder.suggestionChip.elevation = 16f
+        holder.suggestionChip.chipStrokeWidth = 2f
+        holder.suggestionChip.closeIconTint = android.content.res.ColorStateList.valueOf(android.graphics.Color.WHITE)
+
+        if (viewType == VIEW_TYPE_EMPTY) {
             holder.suggestionChip.text = "Henüz öneri yok - İlk kullanımda görünecek"
             holder.suggestionChip.isCloseIconVisible = false
-            holder.suggestionChip.setOnClickListener(null)
-            
             // Boş mesajı OLDUKÇA görünür yap
-            holder.suggestionChip.setChipBackgroundColor(android.content.res.ColorStateList.valueOf(android.graphics.Color.parseColor("#FF5722"))) // Turuncu arka plan
-            holder.suggestionChip.setTextColor(android.graphics.Color.WHITE)
-            holder.suggestionChip.setTextSize(android.util.TypedValue.COMPLEX_UNIT_SP, 18f)
-            holder.suggestionChip.elevation = 16f
-            holder.suggestionChip.chipStrokeWidth = 2f
+            holder.suggestionChip.setChipBackgroundColor(android.content.res.ColorStateList.valueOf(EMPTY_BACKGROUND_COLOR)) // Turuncu arka plan
             holder.suggestionChip.setChipStrokeColorResource(android.R.color.white)
-            
-            return
+            return holder
         }
-        
-        val suggestion = suggestions[position]
-        Timber.d("[SUGGESTION] Binding suggestion at position $position: '$suggestion'")
-        
-        // Set text on chip
-        holder.suggestionChip.text = suggestion
-        
+
         // Chip görünürlüğünü OLDUKÇA artır
-        holder.suggestionChip.setChipBackgroundColor(android.content.res.ColorStateList.valueOf(android.graphics.Color.parseColor("#3366CC"))) // Daha canlı mavi
-        holder.suggestionChip.setTextColor(android.graphics.Color.WHITE)
-        holder.suggestionChip.setTextSize(android.util.TypedValue.COMPLEX_UNIT_SP, 18f) // Daha büyük metin
-        holder.suggestionChip.elevation = 16f // Daha yüksek yükseltme
-        holder.suggestionChip.chipStrokeWidth = 2f // Belirgin kenarlık
-        holder.suggestionChip.setChipStrokeColorResource(android.R.color.white) // Beyaz kenarlık
+        holder.suggestionChip.setChipBackgroundColor(android.content.res.ColorStateList.valueOf(CHIP_BACKGROUND_COLOR)) // Daha canlı mavi
         holder.suggestionChip.isCloseIconVisible = true
-        holder.suggestionChip.closeIconTint = android.content.res.ColorStateList.valueOf(android.graphics.Color.WHITE)
-        
-        // Handle click on chip - select the suggestion
+
+        // Dinleyiciler de bir kez bağlanır, değer tıklama anında güncel listeden okunur
         holder.suggestionChip.setOnClickListener {
-            val pos = holder.adapterPosition
-            if (pos != RecyclerView.NO_POSITION) {
-                Timber.d("[SUGGESTION] Suggestion clicked: ${suggestions[pos]}")
-                onSuggestionSelected(suggestions[pos])
+            val pos = holder.bindingAdapterPosition
+            if (pos != RecyclerView.NO_POSITION && pos < suggestions.size) {
+                Timber.d("[SUGGESTION] Suggestion clicked: ${suggestions[pos].value}")
+                onSuggestionSelected(suggestions[pos].value)
             }
         }
-        
+
         // Handle click on close icon - show delete confirmation dialog
         holder.suggestionChip.setOnCloseIconClickListener {
-            val pos = holder.adapterPosition
-            if (pos != RecyclerView.NO_POSITION) {
-                val suggestionText = suggestions[pos]
+            val pos = holder.bindingAdapterPosition
+            if (pos != RecyclerView.NO_POSITION && pos < suggestions.size) {
+                val suggestionText = suggestions[pos].value
                 Timber.d("[SUGGESTION] Delete icon clicked for suggestion: $suggestionText")
                 showDeleteConfirmationDialog(suggestionText, pos)
             }
         }
+        return holder
+    }
+
+    override fun onBindViewHolder(holder: SuggestionViewHolder, position: Int) {
+        // Boş liste mesajı onCreateViewHolder'da hazırlandı
+        if (getItemViewType(position) == VIEW_TYPE_EMPTY) return
+
+        val item = suggestions[position]
+
+        // Set text on chip
+        holder.suggestionChip.text = item.value
+        bindMatchState(holder, item)
+    }
+
+    override fun onBindViewHolder(holder: SuggestionViewHolder, position: Int, payloads: MutableList<Any>) {
+        if (payloads.isNotEmpty() && payloads.all { it == PAYLOAD_MATCH_STATE } && position < suggestions.size) {
+            // Kısmi bağlama: metin aynı, sadece eşleşme vurgusu değişti
+            bindMatchState(holder, suggestions[position])
+            return
+        }
+        onBindViewHolder(holder, position)
+    }
+
+    private fun bindMatchState(holder: SuggestionViewHolder, item: SuggestionItem) {
+        holder.suggestionChip.chipStrokeColor = android.content.res.ColorStateList.valueOf(
+            if (item.isExactMatch) EXACT_MATCH_STROKE_COLOR else android.graphics.Color.WHITE
+        )
+    }
+
+    private fun resetIfEmptyStateChanged(): Boolean {
+        val empty = suggestions.isEmpty()
+        if (!empty && !showingEmptyRow) return false
+        showingEmptyRow = empty
+        notifyDataSetChanged()
+        return true
     }
 
     override fun getItemCount(): Int {
-        Timber.d("[SUGGESTION] Getting item count: ${suggestions.size}")
         return if (suggestions.isEmpty()) 1 else suggestions.size // Boşsa 1 döndür (mesaj için)
     }
+
+    override fun getItemViewType(position: Int): Int {
+        return if (suggestions.isEmpty()) VIEW_TYPE_EMPTY else VIEW_TYPE_SUGGESTION
+    }
+
+    override fun getItemId(position: Int): Long {
+        if (suggestions.isEmpty()) return EMPTY_ITEM_ID
+        return stableIds.getOrPut(suggestions[position].value) { nextStableId++ }
+    }
     
     /**
      * Silme onayı için dialog gösterir
@@ -141,12 +222,70 @@ class SuggestionAdapter(
 
     /**
      * Update the suggestions list with new items
+     * Fark arka planda hesaplanır; liste boşken (popup yeni açılırken) yeni liste hemen uygulanır
      */
-    fun updateSuggestions(newSuggestions: List<String>) {
-        Timber.d("[SUGGESTION] Updating suggestions list: ${suggestions.size} -> ${newSuggestions.size}")
-        suggestions.clear()
-        suggestions.addAll(newSuggestions)
-        notifyDataSetChanged()
-        Timber.d("[SUGGESTION] Suggestions updated, adapter notified")
+    fun updateSuggestions(newSuggestions: List<String>, filterText: String = "", onCommitted: (() -> Unit)? = null) {
+        val normalizedFilter = SuggestionNormalizer.normalizeValue(filterText)
+        val items = newSuggestions.map { value ->
+            SuggestionItem(value, normalizedFilter.isNotEmpty() && SuggestionNormalizer.normalizeValue(value) == normalizedFilter)
+        }
+        differ.submitList(items) {
+            pruneStableIds()
+            onCommitted?.invoke()
+        }
+    }
+    
+    /**
+     * Drop all items synchronously, the next update is then applied without diffing
+     */
+    fun clear() {
+        differ.submitList(null)
+        stableIds.clear()
+    }
+    
+    /**
+     * Remove a single suggestion without rebinding the whole list
+     */
+    fun removeSuggestion(suggestion: String) {
+        val current = suggestions
+        val position = current.indexOfFirst { it.value == suggestion }
+        if (position == -1) return
+        
+        differ.submitList(current.filterIndexed { index, _ -> index != position })
+    }
+    
+    // Kimlik tablosu yalnızca listede bulunan değerleri tutar, uzun oturumlarda büyümez
+    private fun pruneStableIds() {
+        if (stableIds.size <= suggestions.size * 2 + 16) return
+        val present = suggestions.mapTo(HashSet()) { it.value }
+        stableIds.keys.retainAll(present)
+    }
+    
+    companion object {
+        private const val VIEW_TYPE_SUGGESTION = 0
+        private const val VIEW_TYPE_EMPTY = 1
+        
+        private const val EMPTY_ITEM_ID = 0L
+        
+        private const val PAYLOAD_MATCH_STATE = "match_state"
+        
+        private val CHIP_BACKGROUND_COLOR = android.graphics.Color.parseColor("#3366CC")
+        private val EMPTY_BACKGROUND_COLOR = android.graphics.Color.parseColor("#FF5722")
+        private val EXACT_MATCH_STROKE_COLOR = android.graphics.Color.parseColor("#FFC107")
+        
+        private val DIFF_CALLBACK = object : DiffUtil.ItemCallback<SuggestionItem>() {
+            override fun areItemsTheSame(oldItem: SuggestionItem, newItem: SuggestionItem): Boolean {
+                return oldItem.value == newItem.value
+            }
+            
+            override fun areContentsTheSame(oldItem: SuggestionItem, newItem: SuggestionItem): Boolean {
+                return oldItem == newItem
+            }
+            
+            override fun getChangePayload(oldItem: SuggestionItem, newItem: SuggestionItem): Any? {
+                // Aynı değer için değişebilen tek alan eşleşme durumu
+                return PAYLOAD_MATCH_STATE
+            }
+        }
     }
 }
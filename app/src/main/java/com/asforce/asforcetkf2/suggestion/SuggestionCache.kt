@@ -0,0 +1,156 @@
+package com.asforce.asforcetkf2.suggestion
+
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Size-bounded LRU cache of suggestion indexes with a per-key expiry
+ *
+ * - Erişim sırasına göre tutulan LinkedHashMap; tüm erişimler tek kilit altında (IO ve ana thread güvenli)
+ * - Her anahtarın kendi yüklenme zamanı vardır, süresi dolan anahtar bir sonraki erişimde yeniden yüklenir
+ * - Boyut, indekslerin tahmini bayt büyüklüklerinin toplamıdır; sınır aşılınca en eski kullanılan anahtar atılır
+ */
+class SuggestionCache(
+    private val maxBytes: Long = DEFAULT_MAX_BYTES,
+    private val ttlMs: Long = DEFAULT_TTL_MS,
+    private val clock: () -> Long = { System.currentTimeMillis() }
+) {
+    
+    private class Slot(
+        val index: SuggestionIndex,
+        val loadedAt: Long
+    )
+    
+    // accessOrder = true: get() anahtarı listenin sonuna taşır, baştaki en eski kullanılandır
+    private val slots = LinkedHashMap<String, Slot>(16, 0.75f, true)
+    
+    private val hitCount = AtomicLong()
+    private val missCount = AtomicLong()
+    private val evictionCount = AtomicLong()
+    private val expirationCount = AtomicLong()
+    
+    /**
+     * Return the cached index for the key, or null if it is missing or expired
+     */
+    fun get(key: String): SuggestionIndex? {
+        synchronized(slots) {
+            val slot = slots[key]
+            if (slot == null) {
+                missCount.incrementAndGet()
+                return null
+            }
+            if (clock() - slot.loadedAt >= ttlMs) {
+                slots.remove(key)
+                expirationCount.incrementAndGet()
+                missCount.incrementAndGet()
+                return null
+            }
+            hitCount.incrementAndGet()
+            return slot.index
+        }
+    }
+    
+    /**
+     * Return the cached index without touching LRU order, expiry or counters
+     * Kaydetme/silme sırasında indeksi artımlı güncellemek için kullanılır
+     */
+    fun peek(key: String): SuggestionIndex? {
+        synchronized(slots) {
+            return slots[key]?.index
+        }
+    }
+    
+    fun put(key: String, index: SuggestionIndex) {
+        synchronized(slots) {
+            slots[key] = Slot(index, clock())
+            trimToSizeLocked(maxBytes, keepNewest = true)
+        }
+    }
+    
+    fun remove(key: String) {
+        synchronized(slots) {
+            slots.remove(key)
+        }
+    }
+    
+    /**
+     * Re-check the size bound after an index grew through incremental updates
+     */
+    fun onIndexChanged() {
+        synchronized(slots) {
+            trimToSizeLocked(maxBytes, keepNewest = true)
+        }
+    }
+    
+    /**
+     * Evict least recently used keys until the cache is at most the given fraction of its bound
+     */
+    fun trimToFraction(fraction: Float) {
+        synchronized(slots) {
+            trimToSizeLocked((maxBytes * fraction.coerceIn(0f, 1f)).toLong(), keepNewest = false)
+        }
+    }
+    
+    fun evictAll() {
+        synchronized(slots) {
+            evictionCount.addAndGet(slots.size.toLong())
+            slots.clear()
+        }
+    }
+    
+    val size: Int
+        get() = synchronized(slots) { slots.size }
+    
+    val sizeBytes: Long
+        get() = synchronized(slots) { currentBytesLocked() }
+    
+    /**
+     * Cache istatistiklerini al
+     */
+    fun getStats(): Map<String, Any> {
+        synchronized(slots) {
+            return mapOf(
+                "entries" to slots.size,
+                "bytes" to currentBytesLocked(),
+                "max_bytes" to maxBytes,
+                "hits" to hitCount.get(),
+                "misses" to missCount.get(),
+                "evictions" to evictionCount.get(),
+                "expirations" to expirationCount.get()
+            )
+        }
+    }
+    
+    // Anahtar sayısı az olduğundan (form alanı başına bir tane) toplam her seferinde yeniden hesaplanır;
+    // indeksler artımlı değiştiği için ayrı bir sayaç tutmak tutarsızlığa yol açardı
+    private fun currentBytesLocked(): Long {
+        var total = 0L
+        for (slot in slots.values) {
+            total += slot.index.estimatedBytes
+        }
+        return total
+    }
+    
+    // keepNewest: tek başına sınırı aşan bir anahtar yine de tutulur; aksi halde her sorguda
+    // yeniden yüklenir. Bellek baskısında (trimToFraction) bu istisna uygulanmaz.
+    private fun trimToSizeLocked(targetBytes: Long, keepNewest: Boolean) {
+        var total = currentBytesLocked()
+        val iterator = slots.entries.iterator()
+        val minEntries = if (keepNewest) 1 else 0
+        while (total > targetBytes && slots.size > minEntries && iterator.hasNext()) {
+            val eldest = iterator.next()
+            total -= eldest.value.index.estimatedBytes
+            iterator.remove()
+            evictionCount.incrementAndGet()
+        }
+    }
+    
+    companion object {
+        // Varsayılan sınır: 4 MB (binlerce seri numarası ve etiket için yeterli)
+        const val DEFAULT_MAX_BYTES = 4L * 1024 * 1024
+        
+        // Anahtar başına geçerlilik süresi: 6 saat. Kaydetme ve silme indeksi zaten artımlı günceller,
+        // içe aktarma önbelleği boşaltır; süre yalnızca depoyla sapma ihtimaline karşı bir güvencedir.
+        // Kısa tutulursa büyük anahtarlar sık sık baştan kurulur ve bu maliyet bir tuş vuruşuna denk gelir.
+        const val DEFAULT_TTL_MS = 6L * 60 * 60 * 1000
+    }
+}
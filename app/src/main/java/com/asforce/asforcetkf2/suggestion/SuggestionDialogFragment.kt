@@ -70,7 +70,6 @@ class SuggestionDialogFragment : DialogFragment() {
         // Create adapter with callbacks
         val suggestionAdapter = SuggestionAdapter(
             context = requireContext(),
-            suggestions = suggestions.toMutableList(),
             inputKey = inputKey,
             onSuggestionSelected = { suggestion -> 
                 onSuggestionSelected?.invoke(suggestion)
@@ -85,6 +84,7 @@ class SuggestionDialogFragment : DialogFragment() {
             }
         )
         
+        suggestionAdapter.updateSuggestions(suggestions)
         recyclerView.adapter = suggestionAdapter
         Timber.d("[SUGGESTION_DIALOG] Dialog setup complete with ${suggestions.size} suggestions")
     }
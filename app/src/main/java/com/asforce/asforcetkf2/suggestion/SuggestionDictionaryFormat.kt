@@ -0,0 +1,163 @@
+package com.asforce.asforcetkf2.suggestion
+
+import java.io.BufferedInputStream
+import java.io.BufferedOutputStream
+import java.io.Closeable
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.EOFException
+import java.io.IOException
+import java.io.InputStream
+import java.io.OutputStream
+
+/**
+ * Compact, versioned binary format for exporting and importing the suggestion store
+ *
+ * Dosya yapısı:
+ * ```
+ * "TKFS" (4 bayt) | sürüm (1 bayt)
+ * her anahtar için: BLOCK (1 bayt) | anahtar | değer sayısı (varint)
+ *     her değer için: değer | kullanım sayısı (varint) | son kullanım (varlong, epoch ms)
+ * END (1 bayt)
+ * ```
+ * Metinler uzunluk önekli (varint) UTF-8 olarak yazılır. Dosya baştan sona tek geçişte okunur,
+ * okuyucu kayıtları küçük partiler halinde verdiği için sözlüğün tamamı belleğe alınmaz.
+ */
+object SuggestionDictionaryFormat {
+    
+    const val MAGIC = 0x544B4653 // "TKFS"
+    const val VERSION = 1
+    
+    private const val TAG_BLOCK = 1
+    private const val TAG_END = 0
+    
+    // Bozuk dosyalarda dev bir dizi ayırmamak için üst sınır
+    private const val MAX_STRING_BYTES = 64 * 1024
+    
+    private const val BUFFER_SIZE = 64 * 1024
+    
+    /**
+     * Streaming writer, one block per input key
+     */
+    class Writer(output: OutputStream) : Closeable {
+        
+        private val out = DataOutputStream(BufferedOutputStream(output, BUFFER_SIZE))
+        private var finished = false
+        
+        init {
+            out.writeInt(MAGIC)
+            out.writeByte(VERSION)
+        }
+        
+        fun writeBlock(inputKey: String, records: Collection<SuggestionRecord>) {
+            if (records.isEmpty()) return
+            out.writeByte(TAG_BLOCK)
+            writeString(out, inputKey)
+            writeVarLong(out, records.size.toLong())
+            for (record in records) {
+                writeString(out, record.value)
+                writeVarLong(out, record.useCount.coerceAtLeast(0).toLong())
+                writeVarLong(out, record.lastUsed.coerceAtLeast(0L))
+            }
+        }
+        
+        /**
+         * Write the end marker and flush, the underlying stream stays open until close()
+         */
+        fun finish() {
+            if (finished) return
+            out.writeByte(TAG_END)
+            out.flush()
+            finished = true
+        }
+        
+        override fun close() {
+            finish()
+            out.close()
+        }
+    }
+    
+    /**
+     * Streaming reader, hands records to the consumer in batches of at most [batchSize]
+     * Büyük bir anahtar bloğu birden fazla partiye bölünür; her parti tek bir anahtara aittir.
+     *
+     * @return total number of records read
+     */
+    suspend fun read(
+        input: InputStream,
+        batchSize: Int,
+        consumer: suspend (inputKey: String, records: List<SuggestionRecord>) -> Unit
+    ): Int {
+        val data = DataInputStream(BufferedInputStream(input, BUFFER_SIZE))
+        
+        if (data.readInt() != MAGIC) throw IOException("Not a suggestion dictionary file")
+        val version = data.readUnsignedByte()
+        if (version > VERSION) throw IOException("Unsupported suggestion dictionary version: $version")
+        
+        var total = 0
+        val batch = ArrayList<SuggestionRecord>(batchSize)
+        while (true) {
+            when (val tag = data.read()) {
+                TAG_END -> return total
+                TAG_BLOCK -> {
+                    val inputKey = readString(data)
+                    val count = readVarLong(data)
+                    for (i in 0 until count) {
+                        val value = readString(data)
+                        val useCount = readVarLong(data).coerceAtMost(Int.MAX_VALUE.toLong()).toInt()
+                        val lastUsed = readVarLong(data)
+                        batch.add(SuggestionRecord(value, useCount, lastUsed))
+                        if (batch.size == batchSize) {
+                            consumer(inputKey, ArrayList(batch))
+                            total += batch.size
+                            batch.clear()
+                        }
+                    }
+                    if (batch.isNotEmpty()) {
+                        consumer(inputKey, ArrayList(batch))
+                        total += batch.size
+                        batch.clear()
+                    }
+                }
+                -1 -> throw EOFException("Suggestion dictionary is truncated")
+                else -> throw IOException("Unknown block tag: $tag")
+            }
+        }
+    }
+    
+    private fun writeString(out: DataOutputStream, text: String) {
+        val bytes = text.toByteArray(Charsets.UTF_8)
+        writeVarLong(out, bytes.size.toLong())
+        out.write(bytes)
+    }
+    
+    private fun readString(input: DataInputStream): String {
+        val length = readVarLong(input)
+        if (length > MAX_STRING_BYTES) throw IOException("String too long: $length")
+        val bytes = ByteArray(length.toInt())
+        input.readFully(bytes)
+        return String(bytes, Charsets.UTF_8)
+    }
+    
+    // LEB128: 7 bit veri + devam biti, küçük sayılar tek bayt
+    private fun writeVarLong(out: DataOutputStream, value: Long) {
+        var v = value
+        while (v and 0x7FL.inv() != 0L) {
+            out.writeByte(((v and 0x7F) or 0x80).toInt())
+            v = v ushr 7
+        }
+        out.writeByte(v.toInt())
+    }
+    
+    private fun readVarLong(input: DataInputStream): Long {
+        var result = 0L
+        var shift = 0
+        while (shift < 64) {
+            val b = input.readUnsignedByte()
+            result = result or ((b and 0x7F).toLong() shl shift)
+            if (b and 0x80 == 0) return result
+            shift += 7
+        }
+        throw IOException("Malformed varint")
+    }
+}
@@ -0,0 +1,165 @@
+package com.asforce.asforcetkf2.suggestion
+
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
+
+/**
+ * Platform independent core of the suggestion system
+ *
+ * Depolama, normalleştirme, filtreleme, sıralama ve yazma tamponu burada birleşir; Android'e bağımlı
+ * hiçbir sınıf kullanmaz, bu yüzden JVM üzerinde test edilip ölçülebilir. SuggestionManager yalnızca
+ * arayüz (popup, klavye, WebView) ve zamanlama (thread, gecikmeli yazma) işlerini yapar.
+ */
+class SuggestionEngine(
+    private val store: SuggestionStore,
+    val cache: SuggestionCache = SuggestionCache(),
+    private val clock: () -> Long = { System.currentTimeMillis() }
+) {
+    
+    // Write-behind buffer: kayıtlar kısa bir pencere boyunca biriktirilip tek transaction ile yazılır
+    private val writeBuffer = SuggestionWriteBuffer()
+    
+    // Toplu yazma ile silme/aktarma işlemlerinin birbirinin arasına girmesini önler
+    private val writeMutex = Mutex()
+    
+    // Önbellekte olmayan anahtarın kullanımları yalnızca tampona gider; recordUse ile indeksin önbelleğe
+    // konması bu kilidi paylaşır, böylece tampon indekse aktarıldıktan sonra gelen kayıt kaybolmaz
+    private val indexLock = Any()
+    
+    val hasPendingWrites: Boolean
+        get() = !writeBuffer.isEmpty()
+    
+    /**
+     * Return up to [limit] suggestions for the key, best matches first
+     * Önbellekte yoksa anahtarın tüm değerleri tek sorguyla yüklenip indekslenir
+     */
+    suspend fun query(inputKey: String, filterText: String, limit: Int): List<String> {
+        return getIndex(SuggestionNormalizer.normalizeKey(inputKey)).query(filterText, limit)
+    }
+    
+    /**
+     * Return the cached index for a normalized key, loading it from the store on a miss
+     */
+    suspend fun getIndex(normalizedKey: String): SuggestionIndex {
+        // Süresi dolmuş anahtarlar null döner
+        cache.get(normalizedKey)?.let { return it }
+        
+        // Toplu yazma sürerken depo okunmaz: tampondan alınmış ama henüz yazılmamış kayıtlar ikisinde de görünmezdi
+        return writeMutex.withLock {
+            // Beklerken başka bir sorgu yüklemiş olabilir
+            cache.peek(normalizedKey)?.let { return@withLock it }
+            
+            val index = SuggestionIndex()
+            store.getSuggestionRecords(normalizedKey).forEach { record ->
+                index.add(record.value, record.useCount, record.lastUsed)
+            }
+            
+            synchronized(indexLock) {
+                // Henüz yazılmamış kullanımlar depodan okunan değerlere eklenir
+                writeBuffer.pendingFor(normalizedKey).forEach { use ->
+                    index.recordUse(use.value, use.lastUsed, use.count)
+                }
+                // Gerekirse en eski anahtarlar atılır
+                cache.put(normalizedKey, index)
+            }
+            index
+        }
+    }
+    
+    /**
+     * Record a use in memory, returns true if this opened a new write window and a flush should be scheduled
+     * Önbellekteki indeks hemen güncellenir - kullanım sayısı ve zamanı sıralamayı etkiler
+     */
+    fun recordUse(inputKey: String, value: String, usedAt: Long = clock()): Boolean {
+        val trimmed = value.trim()
+        if (trimmed.isEmpty()) return false
+        
+        val normalizedKey = SuggestionNormalizer.normalizeKey(inputKey)
+        synchronized(indexLock) {
+            cache.peek(normalizedKey)?.let { index ->
+                index.recordUse(trimmed, usedAt)
+                cache.onIndexChanged()
+            }
+            return writeBuffer.add(normalizedKey, trimmed, usedAt)
+        }
+    }
+    
+    /**
+     * Write every buffered use to the store in one batch, returns the number of values written
+     */
+    suspend fun flush(): Int {
+        writeMutex.withLock {
+            val batch = writeBuffer.drain()
+            if (batch.isEmpty()) return 0
+            
+            try {
+                store.recordUses(batch)
+            } catch (e: Exception) {
+                // Yazma başarısız - etkilenen anahtarların önbelleğini geçersiz kıl, depoyla tutarlı kalsın
+                batch.map { it.inputKey }.distinct().forEach { cache.remove(it) }
+                throw e
+            }
+            return batch.size
+        }
+    }
+    
+    /**
+     * Remove a value from memory immediately - index and not yet written uses
+     */
+    fun evictValue(inputKey: String, value: String) {
+        val normalizedKey = SuggestionNormalizer.normalizeKey(inputKey)
+        cache.peek(normalizedKey)?.remove(value)
+        // Henüz yazılmamış kayıtları da at, yoksa toplu yazma değeri geri ekler
+        writeBuffer.remove(normalizedKey, value.trim())
+    }
+    
+    /**
+     * Delete a value from the store, call [evictValue] first for immediate UI feedback
+     */
+    suspend fun deleteValue(inputKey: String, value: String): Boolean {
+        val normalizedKey = SuggestionNormalizer.normalizeKey(inputKey)
+        try {
+            return writeMutex.withLock {
+                val deleted = store.deleteSuggestion(normalizedKey, value)
+                // evictValue ile silme arasında depodan yeniden yüklenen indeks değeri tekrar içerebilir
+                cache.peek(normalizedKey)?.remove(value)
+                deleted
+            }
+        } catch (e: Exception) {
+            // Silme başarısız - önbelleği geçersiz kıl ki bir sonraki yüklemede depodan okunsun
+            cache.remove(normalizedKey)
+            throw e
+        }
+    }
+    
+    fun evictKey(inputKey: String) {
+        val normalizedKey = SuggestionNormalizer.normalizeKey(inputKey)
+        cache.remove(normalizedKey)
+        writeBuffer.removeKey(normalizedKey)
+    }
+    
+    suspend fun deleteKey(inputKey: String) {
+        val normalizedKey = SuggestionNormalizer.normalizeKey(inputKey)
+        writeMutex.withLock {
+            store.deleteAllForKey(normalizedKey)
+            cache.remove(normalizedKey)
+        }
+    }
+    
+    fun evictAll() {
+        cache.evictAll()
+        writeBuffer.clear()
+    }
+    
+    suspend fun deleteAll() {
+        writeMutex.withLock { store.deleteAll() }
+        cache.evictAll()
+    }
+    
+    /**
+     * Run a bulk operation (export, import) without interleaving with buffered writes or deletes
+     */
+    suspend fun <T> withWriteLock(block: suspend () -> T): T {
+        return writeMutex.withLock { block() }
+    }
+}
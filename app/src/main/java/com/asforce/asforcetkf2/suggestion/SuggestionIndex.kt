@@ -0,0 +1,296 @@
+package com.asforce.asforcetkf2.suggestion
+
+import java.util.PriorityQueue
+import java.util.TreeMap
+import kotlin.math.log2
+
+/**
+ * In-memory search index for the suggestions of a single input key
+ *
+ * Her tuşta tüm listeyi tarayıp sıralamak yerine:
+ * - Normalize edilmiş değerler üzerinde karakter sıralı bir trie (tam ve önek eşleşmeleri)
+ * - 1-3 karakterlik n-gram indeksi (içerir eşleşmeleri için aday kümesi)
+ * kullanır. Kaydetme/silme işlemlerinde indeks artımlı olarak güncellenir.
+ *
+ * Sonuçlar önce eşleşme türüne göre (tam, önek, içerir), her grup içinde ise
+ * zamanla azalan kullanım puanına (frecency) göre sıralanır. Eşit puanlarda alfabetik sıra kullanılır.
+ */
+class SuggestionIndex {
+    
+    private class Node {
+        // Çocuklar karakter sırasına göre tutulur
+        val children = TreeMap<Char, Node>()
+        
+        // Bu düğümde biten değerler (aynı normalize hale sahip farklı yazımlar)
+        var values: ArrayList<Entry>? = null
+    }
+    
+    private class Entry(
+        val value: String,
+        val normalized: String,
+        var useCount: Int,
+        var lastUsed: Long
+    ) {
+        // Puanın logaritması (sabit terim hariç) - sıralama sorgu zamanından bağımsızdır
+        var rank = rankOf(useCount, lastUsed)
+            private set
+        
+        fun recordUse(usedAt: Long, count: Int) {
+            useCount += count
+            lastUsed = maxOf(lastUsed, usedAt)
+            rank = rankOf(useCount, lastUsed)
+        }
+    }
+    
+    private val root = Node()
+    
+    // Orijinal değer -> normalize hali ve kullanım istatistikleri
+    private val entries = HashMap<String, Entry>()
+    
+    // n-gram -> bu n-gram'ı içeren değerler
+    private val grams = HashMap<String, HashSet<Entry>>()
+    
+    // Değerlerin ve indeks yapılarının tahmini bellek kullanımı, ekleme/silmede artımlı güncellenir
+    private var bytes = 0L
+    
+    val size: Int
+        @Synchronized get() = entries.size
+    
+    /**
+     * Approximate heap footprint of the index in bytes, used to bound the suggestion cache
+     */
+    val estimatedBytes: Long
+        @Synchronized get() = BASE_BYTES + bytes
+    
+    /**
+     * Add a value with its usage statistics, returns false if it was already present
+     */
+    @Synchronized
+    fun add(value: String, useCount: Int = 1, lastUsed: Long = System.currentTimeMillis()): Boolean {
+        val trimmed = value.trim()
+        if (trimmed.isEmpty() || entries.containsKey(trimmed)) return false
+        
+        val normalized = SuggestionNormalizer.normalizeValue(trimmed)
+        val entry = Entry(trimmed, normalized, useCount, lastUsed)
+        entries[trimmed] = entry
+        
+        // Trie'ye ekle
+        var node = root
+        for (c in normalized) {
+            node = node.children.getOrPut(c) { Node() }
+        }
+        val nodeValues = node.values ?: ArrayList<Entry>(1).also { node.values = it }
+        nodeValues.add(entry)
+        
+        // n-gram indeksine ekle
+        forEachGram(normalized) { gram ->
+            grams.getOrPut(gram) { HashSet() }.add(entry)
+        }
+        bytes += entryBytes(trimmed, normalized)
+        return true
+    }
+    
+    /**
+     * Add all values with default statistics
+     */
+    @Synchronized
+    fun addAll(values: Collection<String>) {
+        values.forEach { add(it) }
+    }
+    
+    /**
+     * Record that a value was used [count] times - adds it if new, otherwise bumps its count and timestamp
+     */
+    @Synchronized
+    fun recordUse(value: String, usedAt: Long = System.currentTimeMillis(), count: Int = 1) {
+        val entry = entries[value.trim()]
+        if (entry == null) {
+            add(value, count, usedAt)
+        } else {
+            entry.recordUse(usedAt, count)
+        }
+    }
+    
+    /**
+     * Remove a value from the index, returns false if it was not present
+     */
+    @Synchronized
+    fun remove(value: String): Boolean {
+        val trimmed = value.trim()
+        val entry = entries.remove(trimmed) ?: return false
+        val normalized = entry.normalized
+        
+        // Trie'den çıkar ve boş kalan dalları buda
+        val path = ArrayList<Node>(normalized.length + 1)
+        var node = root
+        path.add(node)
+        for (c in normalized) {
+            node = node.children[c] ?: break
+            path.add(node)
+        }
+        if (path.size == normalized.length + 1) {
+            node.values?.let {
+                it.remove(entry)
+                if (it.isEmpty()) node.values = null
+            }
+            for (i in normalized.length downTo 1) {
+                val child = path[i]
+                if (child.values != null || child.children.isNotEmpty()) break
+                path[i - 1].children.remove(normalized[i - 1])
+            }
+        }
+        
+        // n-gram indeksinden çıkar
+        forEachGram(normalized) { gram ->
+            grams[gram]?.let {
+                it.remove(entry)
+                if (it.isEmpty()) grams.remove(gram)
+            }
+        }
+        bytes -= entryBytes(trimmed, normalized)
+        return true
+    }
+    
+    @Synchronized
+    fun clear() {
+        root.children.clear()
+        root.values = null
+        entries.clear()
+        grams.clear()
+        bytes = 0L
+    }
+    
+    /**
+     * Return up to [limit] matches for the filter text, best matches first
+     */
+    @Synchronized
+    fun query(filterText: String, limit: Int): List<String> {
+        if (limit <= 0) return emptyList()
+        
+        val query = SuggestionNormalizer.normalizeValue(filterText)
+        
+        // Boş sorgu: en sık ve en yakın zamanda kullanılanlar
+        if (query.isEmpty()) {
+            return selectTop(entries.values, limit, RANK_ORDER).map { it.value }
+        }
+        
+        val result = ArrayList<Entry>(minOf(limit, entries.size))
+        
+        findNode(query)?.let { node ->
+            // 1. Tam eşleşmeler
+            node.values?.let { result.addAll(selectTop(it, limit, RANK_ORDER)) }
+            
+            // 2. Önek eşleşmeleri: sorgu düğümünün alt ağacı
+            if (result.size < limit && node.children.isNotEmpty()) {
+                val prefixMatches = ArrayList<Entry>()
+                node.children.values.forEach { collect(it, prefixMatches) }
+                result.addAll(selectTop(prefixMatches, limit - result.size, RANK_ORDER))
+            }
+        }
+        
+        // 3. İçerir eşleşmeleri: n-gram aday kümesinden, önekle başlayanlar hariç
+        if (result.size < limit) {
+            val containsMatches = containsCandidates(query).filter {
+                !it.normalized.startsWith(query) && it.normalized.contains(query)
+            }
+            result.addAll(selectTop(containsMatches, limit - result.size, RANK_ORDER))
+        }
+        return result.map { it.value }
+    }
+    
+    private fun findNode(normalizedQuery: String): Node? {
+        var node = root
+        for (c in normalizedQuery) {
+            node = node.children[c] ?: return null
+        }
+        return node
+    }
+    
+    private fun collect(node: Node, out: MutableList<Entry>) {
+        node.values?.let { out.addAll(it) }
+        for (child in node.children.values) {
+            collect(child, out)
+        }
+    }
+    
+    private fun containsCandidates(normalizedQuery: String): Collection<Entry> {
+        if (normalizedQuery.length <= MAX_GRAM) {
+            return grams[normalizedQuery] ?: emptySet()
+        }
+        
+        // Uzun sorgular: en seçici üçlü n-gram'ın kümesi aday olarak yeterli, içerme ayrıca doğrulanır
+        var smallest: Set<Entry>? = null
+        for (i in 0..normalizedQuery.length - MAX_GRAM) {
+            val set = grams[normalizedQuery.substring(i, i + MAX_GRAM)] ?: return emptySet()
+            if (smallest == null || set.size < smallest.size) smallest = set
+        }
+        return smallest ?: emptySet()
+    }
+    
+    private inline fun forEachGram(normalized: String, action: (String) -> Unit) {
+        for (length in 1..MAX_GRAM) {
+            for (start in 0..normalized.length - length) {
+                action(normalized.substring(start, start + length))
+            }
+        }
+    }
+    
+    companion object {
+        private const val MAX_GRAM = 3
+        
+        // Kullanım puanı her 14 günde bir yarıya iner
+        private const val HALF_LIFE_MS = 14L * 24 * 60 * 60 * 1000
+        
+        // Boş indeksin sabit maliyeti (kök düğüm ve map başlıkları)
+        private const val BASE_BYTES = 256L
+        
+        /**
+         * Rough per-value cost: both strings (2 bytes/char + header), the Entry, one trie node per
+         * character and one n-gram set slot per gram (gram sayısı karakter sayısının en fazla 3 katı)
+         */
+        private fun entryBytes(value: String, normalized: String): Long {
+            val chars = value.length + normalized.length
+            return 2L * chars + 80L + 64L * normalized.length + 48L * minOf(normalized.length, MAX_GRAM) * normalized.length
+        }
+        
+        // Puanı yüksek olan önce, eşitlikte alfabetik
+        private val RANK_ORDER = Comparator<Entry> { a, b ->
+            val byRank = b.rank.compareTo(a.rank)
+            if (byRank != 0) return@Comparator byRank
+            val byName = a.normalized.compareTo(b.normalized)
+            if (byName != 0) byName else a.value.compareTo(b.value)
+        }
+        
+        /**
+         * Decayed frecency score in log form
+         * Puan = useCount * 0.5^((now - lastUsed) / H); 200 kez kullanılmış bir değer aylar sonra bile
+         * tek seferlik bir yazım hatasının önünde kalır, artık kullanılmayan değerler ise zamanla geriye düşer.
+         * log2(puan) = log2(useCount) + lastUsed / H - now / H ve son terim tüm değerler için aynı olduğundan
+         * saklanan sıralama değeri sorgu zamanına bağlı değildir.
+         */
+        private fun rankOf(useCount: Int, lastUsed: Long): Double {
+            return log2(useCount.coerceAtLeast(1).toDouble()) + lastUsed.toDouble() / HALF_LIFE_MS
+        }
+        
+        /**
+         * Select the best [count] items without sorting the whole collection
+         * k boyutlu bir yığın ile O(n log k) seçim yapar
+         */
+        fun <T> selectTop(items: Collection<T>, count: Int, order: Comparator<T>): List<T> {
+            if (count <= 0 || items.isEmpty()) return emptyList()
+            if (items.size <= count) return items.sortedWith(order)
+            
+            // Yığının başında en kötü eleman durur, daha iyisi gelince çıkarılır
+            val heap = PriorityQueue<T>(count, order.reversed())
+            for (item in items) {
+                if (heap.size < count) {
+                    heap.add(item)
+                } else if (order.compare(item, heap.peek()) < 0) {
+                    heap.poll()
+                    heap.add(item)
+                }
+            }
+            return heap.sortedWith(order)
+        }
+    }
+}
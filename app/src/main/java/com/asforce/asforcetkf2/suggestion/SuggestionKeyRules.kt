@@ -0,0 +1,55 @@
+package com.asforce.asforcetkf2.suggestion
+
+/**
+ * Canonicalization rules for suggestion input keys
+ *
+ * Tablo biçimindeki formlarda her satırın alanı ayrı bir isim taşır (MeasuredValue12, Properties[4].Value).
+ * Bu kurallar satır numaralarını atarak aynı sütundaki tüm satırların tek bir öneri sözlüğünü
+ * paylaşmasını sağlar. Kurallar küçük harfe çevrilmiş anahtara sırayla uygulanır:
+ * - aliases: tam anahtar eşlemesi (ör. "seri_no" -> "serialnumber"), kalıplardan sonra da uygulanır
+ * - patterns: düzenli ifade ve yerine konacak metin
+ */
+class SuggestionKeyRules(
+    private val aliases: Map<String, String> = emptyMap(),
+    private val patterns: List<Pair<Regex, String>> = DEFAULT_PATTERNS
+) {
+    
+    /**
+     * Identifies this rule set; stored keys are re-merged when it changes
+     */
+    val signature: String by lazy {
+        val text = aliases.entries.sortedBy { it.key }.joinToString(";") { "${it.key}=${it.value}" } +
+            "|" + patterns.joinToString(";") { "${it.first.pattern}=${it.second}" }
+        Integer.toHexString(text.hashCode())
+    }
+    
+    /**
+     * Map a lowercased, trimmed key to its canonical form
+     */
+    fun canonicalize(key: String): String {
+        aliases[key]?.let { return it }
+        
+        var result = key
+        for ((regex, replacement) in patterns) {
+            result = regex.replace(result, replacement)
+        }
+        
+        // Anahtarın tamamı silindiyse (ör. sadece rakamlardan oluşuyorsa) orijinali koru
+        if (result.isBlank()) return key
+        return aliases[result] ?: result
+    }
+    
+    companion object {
+        // Yalnızca satır numarası olduğu bilinen biçimler atılır. Genel bir "sondaki rakam" kuralı
+        // adres1/adres2, telefon1/telefon2 gibi gerçekten farklı alanları da birleştirirdi; birleştirme
+        // tablodaki anahtarları kalıcı olarak değiştirdiği için bu geri alınamaz.
+        val DEFAULT_PATTERNS: List<Pair<Regex, String>> = listOf(
+            // Properties[4].Value -> properties.value
+            Regex("\\[\\d+]") to "",
+            // JS tarafında temizlenmiş hali: Properties_4__Value -> properties_value
+            Regex("_\\d+_(?=_)") to "",
+            // Topraklama tablosunun satır numaralı sütunları: TagName12 -> tagname, MeasuredValue3 -> measuredvalue
+            Regex("^(tagname|measuredlocation|measuredvalue)\\d+$") to "$1"
+        )
+    }
+}
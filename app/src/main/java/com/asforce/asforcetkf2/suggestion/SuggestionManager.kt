@@ -1,9 +1,10 @@
 package com.asforce.asforcetkf2.suggestion
 
 import android.app.Activity
+import android.content.ComponentCallbacks2
 import android.content.Context
-import android.content.SharedPreferences
 import android.graphics.Rect
+import android.net.Uri
 import android.os.Handler
 import android.os.Looper
 import android.util.Log
@@ -19,12 +20,28 @@ import androidx.core.widget.doAfterTextChanged
 import androidx.recyclerview.widget.LinearLayoutManager
 import androidx.recyclerview.widget.RecyclerView
 import com.asforce.asforcetkf2.R
+import com.asforce.asforcetkf2.data.BrowserDatabase
+import com.asforce.asforcetkf2.data.SuggestionKeyCount
+import com.asforce.asforcetkf2.data.SuggestionRepository
+import com.asforce.asforcetkf2.webview.ScriptResultDecoder
+import com.asforce.asforcetkf2.webview.callScript
+import com.asforce.asforcetkf2.webview.callScriptDecoded
+import kotlinx.coroutines.CancellationException
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.FlowPreview
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.joinAll
 import kotlinx.coroutines.launch
 import kotlinx.coroutines.withContext
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.debounce
+import kotlinx.coroutines.flow.distinctUntilChanged
+import kotlinx.coroutines.flow.mapLatest
+import kotlinx.coroutines.withTimeoutOrNull
 import timber.log.Timber
-import java.util.concurrent.Executors
 
 /**
  * Manages suggestions for input fields
@@ -60,10 +77,16 @@ import java.util.concurrent.Executors
 class SuggestionManager(private val context: Context) {
     
     private val TAG = "SuggestionManager"
-    private val PREFS_NAME = "SuggestionPrefs"
 
-    // Thread pool for background operations
-    private val executorService = Executors.newFixedThreadPool(1)
+    // Scope for background database operations
+    private val ioJob = SupervisorJob()
+    private val ioScope = CoroutineScope(ioJob + Dispatchers.IO)
+    
+    // Room-backed suggestion store
+    private val repository = SuggestionRepository(
+        context.applicationContext,
+        BrowserDatabase.getDatabase(context).suggestionDao()
+    )
     
     // Root view reference for suggestion overlay
     private var rootViewRef: ViewGroup? = null
@@ -86,11 +109,55 @@ class SuggestionManager(private val context: Context) {
 
     // PopupWindow reference
     private var suggestionPopup: PopupWindow? = null
+    
+    // Popup'taki tek adapter ve popup'ın şu an gösterdiği alanın anahtarı
+    private var suggestionAdapter: SuggestionAdapter? = null
+    private var popupInputKey: String = ""
 
-    // Suggestion cache for faster loading
-    private val suggestionCache = mutableMapOf<String, List<String>>()
-    private var lastCacheRefreshTime = 0L
-    private val CACHE_TTL = 60_000L // Cache valid for 1 minute
+    // Depolama, filtreleme, sıralama ve yazma tamponu - Android'den bağımsız çekirdek
+    // Önbellek: anahtar başına artımlı güncellenen arama indeksi, boyutu sınırlı LRU, anahtar başına 6 saat geçerli
+    // Önbellek sınırı yığın boyutuna göre: tipik cihazlarda 16-32 MB
+    private val engine = SuggestionEngine(
+        repository,
+        SuggestionCache(maxBytes = Runtime.getRuntime().maxMemory() / 16)
+    )
+    
+    // Popup'ta gösterilecek en fazla öneri sayısı
+    private val MAX_VISIBLE_SUGGESTIONS = 50
+    
+    // Kayıtların biriktirileceği süre
+    private val WRITE_BEHIND_WINDOW_MS = 500L
+    
+    // UI scope for the query pipeline - sonuçlar ana thread'de gösterilir
+    private val uiJob = SupervisorJob()
+    private val uiScope = CoroutineScope(uiJob + Dispatchers.Main.immediate)
+    
+    // Latest suggestion request; null means no suggestions should be shown
+    private val suggestionQueries = MutableStateFlow<SuggestionQuery?>(null)
+    private var querySequence = 0L
+    
+    // Aynı alanda yazarken sorgudan önce beklenecek süre
+    private val QUERY_DEBOUNCE_MS = 120L
+    
+    /**
+     * A single suggestion request from a field
+     * seq her isteği benzersiz yapar, böylece StateFlow aynı içerikli yenileme isteklerini yutmaz
+     */
+    private class SuggestionQuery(
+        val anchorView: View,
+        val inputKey: String,
+        val filterText: String,
+        val refresh: Boolean,
+        val seq: Long
+    ) {
+        fun isSameInput(other: SuggestionQuery): Boolean {
+            return anchorView === other.anchorView && inputKey == other.inputKey && filterText == other.filterText
+        }
+    }
+    
+    init {
+        startQueryPipeline()
+    }
 
     /**
      * Initialize suggestion overlay in the root layout
@@ -121,7 +188,7 @@ class SuggestionManager(private val context: Context) {
                 // Show suggestions for this field
                 val text = editText.text.toString()
                 // EditText focused, showing suggestions
-                showSuggestions(editText, inputKey, text)
+                showSuggestions(editText, inputKey, text, refresh = true)
             } else {
                 // Only hide if this is the current field losing focus
                 if (currentEditText == editText) {
@@ -170,33 +237,24 @@ class SuggestionManager(private val context: Context) {
                     
                     // Klavye göründüğünde öneri çubuğunu hemen göster
                     currentEditText?.let { editText ->
-                        showSuggestions(editText, currentInputKey, editText.text.toString())
+                        showSuggestions(editText, currentInputKey, editText.text.toString(), refresh = true)
                     } ?: activeWebView?.let { webView ->
                         if (currentInputKey.isNotEmpty()) {
                             // Aktif input key varsa hemen göster
-                            showSuggestions(webView, currentInputKey, "")
+                            showSuggestions(webView, currentInputKey, "", refresh = true)
                         } else {
-                            // Aktif input alanını bulmak için JavaScript çalıştır
-                            webView.evaluateJavascript("""
-                            (function() {
-                                var activeElement = document.activeElement;
-                                if (activeElement && (activeElement.tagName === 'INPUT' || activeElement.tagName === 'TEXTAREA')) {
-                                    var key = activeElement.getAttribute('data-tkf-key');
-                                    if (!key) {
-                                        key = (activeElement.name || activeElement.id || activeElement.placeholder || 'input_' + Math.random().toString(36).substr(2, 9));
-                                        key = key.replace(/[^a-zA-Z0-9_]/g, '_');
-                                        activeElement.setAttribute('data-tkf-key', key);
+                            // Aktif input alanının anahtarını paketteki betikle al
+                            uiScope.launch {
+                                try {
+                                    val key = ScriptResultDecoder.decodeString(webView.callScript("suggestion.focusedInputKey"))
+                                    if (!key.isNullOrEmpty()) {
+                                        currentInputKey = key
+                                        showSuggestions(webView, key, "", refresh = true)
                                     }
-                                    return key;
-                                }
-                                return "";
-                            })();
-                            """.trimIndent()) { result ->
-                                // Sonucu temizle (tırnak işaretlerini kaldır)
-                                val key = result.trim().removeSurrounding("\"")
-                                if (key.isNotEmpty()) {
-                                    currentInputKey = key
-                                    showSuggestions(webView, key, "")
+                                } catch (e: CancellationException) {
+                                    throw e
+                                } catch (e: Exception) {
+                                    Timber.w(e, "[SUGGESTION] Focused input key could not be read")
                                 }
                             }
                         }
@@ -219,9 +277,11 @@ class SuggestionManager(private val context: Context) {
 
     /**
      * Show suggestions for the given input field
-     * Güçlendirilmiş versiyon - boş metin için bile tüm önerileri gösterir
+     * Sorgu doğrudan çalıştırılmaz, sorgu akışına gönderilir; yalnızca en son sorgu hesaplanıp gösterilir.
+     *
+     * @param refresh Odaklanma ve klavye açılması gibi durumlarda true - bekleme ve tekrar eleme atlanır
      */
-    fun showSuggestions(anchorView: View, inputKey: String, filterText: String) {
+    fun showSuggestions(anchorView: View, inputKey: String, filterText: String, refresh: Boolean = false) {
         // Showing suggestions for key: $inputKey
         
         // Aktif WebView veya EditText'i güncelle
@@ -234,146 +294,88 @@ class SuggestionManager(private val context: Context) {
         // Mevcut input key'i güncelle
         currentInputKey = inputKey
         
-        // Use coroutines for background processing
-        CoroutineScope(Dispatchers.IO).launch {
-            try {
-                // Load and filter suggestions
-                val filteredSuggestions = loadAndFilterSuggestions(inputKey, filterText)
-                
-                withContext(Dispatchers.Main) {
-                    // If no suggestions with filter and filter text is not blank, don't fallback to showing all
-                    if (filteredSuggestions.isEmpty()) {
-                        if (filterText.isNotBlank()) {
-                            // Don't show anything when filtering with no matches
-                            // No matching suggestions with filter, hiding suggestions
-                            hideSuggestions()
-                            return@withContext
-                        }
-                        
-                        // Son bir şans olarak varsayılan önerileri gösterebilmek için gecikmeyi dene
-                        // Trying to load default suggestions for empty input
-                        
-                        // Hala boş - VARS. ÖNERİLER KALDIRILDI
-                        CoroutineScope(Dispatchers.IO).launch {
-                            try {
-                                // Anahtar turuyla ilgili varsayılan öneriler
-                                // NOT: Tüm varsayılan öneriler kaldırıldı
-                                val defaultSuggestions = emptyList<String>()
-                                
-                                if (defaultSuggestions.isNotEmpty()) {
-                                    defaultSuggestions.forEach { saveSuggestion(inputKey, it) }
-                                    withContext(Dispatchers.Main) {
-                                        showSuggestionsInPopup(anchorView, inputKey, defaultSuggestions)
-                                    }
-                                } else {
-                                    withContext(Dispatchers.Main) {
-                                        hideSuggestions()  
-                                    }
-                                }
-                            } catch (e: Exception) {
-                                Timber.e(e, "[SUGGESTION] Error loading default suggestions")
-                                withContext(Dispatchers.Main) {
-                                    hideSuggestions()
-                                }
-                            }
-                        }
-                    } else {
-                        // Found matching suggestions
-                        
-                        // Klavye göründüğünde, öneri çubuğunu göster
-                        if (isKeyboardVisible) {
-                            // Hemen popup göster
-                            showSuggestionsInPopup(anchorView, inputKey, filteredSuggestions)
-                        } else {
-                            // Klavye gizli ise önce önerileri hazırla sonra popup'ı gösterme
-                            // Klavye açılana kadar bekle
-                            // Keyboard not visible yet, waiting
-                        }
+        suggestionQueries.value = SuggestionQuery(anchorView, inputKey, filterText, refresh, ++querySequence)
+    }
+    
+    /**
+     * Build the suggestion query pipeline
+     * Hızlı yazımda her karakter için yükleme + filtreleme + popup yeniden kurulumu yerine:
+     * - debounce: aynı alanda yazarken kısa bir duraklama beklenir
+     * - distinctUntilChanged: aynı alan ve aynı metin için tekrar hesaplama yapılmaz
+     * - mapLatest: yeni sorgu gelince devam eden hesaplama iptal edilir, eski sonuç yenisinin üzerine yazılamaz
+     */
+    @OptIn(FlowPreview::class, ExperimentalCoroutinesApi::class)
+    private fun startQueryPipeline() {
+        uiScope.launch {
+            suggestionQueries
+                .debounce { query ->
+                    if (query == null || query.refresh) 0L else QUERY_DEBOUNCE_MS
+                }
+                .distinctUntilChanged { old, new ->
+                    new != null && !new.refresh && old != null && old.isSameInput(new)
+                }
+                .mapLatest { query ->
+                    if (query == null) return@mapLatest null
+                    val suggestions = try {
+                        loadAndFilterSuggestions(query.inputKey, query.filterText)
+                    } catch (e: CancellationException) {
+                        throw e
+                    } catch (e: Exception) {
+                        Timber.e(e, "[SUGGESTION] Error loading suggestions")
+                        emptyList()
                     }
+                    query to suggestions
                 }
-            } catch (e: Exception) {
-                // Error loading suggestions
-                withContext(Dispatchers.Main) {
-                    hideSuggestions()
+                .collect { result ->
+                    val (query, suggestions) = result ?: return@collect
+                    renderSuggestions(query, suggestions)
                 }
+        }
+    }
+    
+    /**
+     * Render the result of the latest query on the main thread
+     */
+    private fun renderSuggestions(query: SuggestionQuery, suggestions: List<String>) {
+        try {
+            if (suggestions.isEmpty()) {
+                // Eşleşme yok (veya anahtar için hiç öneri kaydedilmemiş) - popup'ı kapat
+                dismissSuggestionViews()
+                return
+            }
+            
+            // Klavye göründüğünde, öneri çubuğunu göster
+            // Klavye gizli ise popup gösterilmez, klavye açıldığında yeniden sorgulanır
+            if (isKeyboardVisible) {
+                showSuggestionsInPopup(query.anchorView, query.inputKey, suggestions, query.filterText)
             }
+        } catch (e: Exception) {
+            Timber.e(e, "[SUGGESTION] Error rendering suggestions")
+            dismissSuggestionViews()
         }
     }
     
     /**
      * Show suggestions in a popup window above keyboard
      */
-    private fun showSuggestionsInPopup(anchorView: View, inputKey: String, suggestions: List<String>) {
+    private fun showSuggestionsInPopup(anchorView: View, inputKey: String, suggestions: List<String>, filterText: String = "") {
         try {
-            // Check if we already have a popup with same suggestions
-            val currentAdapter = suggestionPopup?.contentView?.findViewById<RecyclerView>(R.id.suggestion_recycler_view)?.adapter as? SuggestionAdapter
+            // Tek popup ve tek RecyclerView tüm sorgular ve alanlar için yeniden kullanılır
+            val popup = suggestionPopup ?: createSuggestionPopup()
+            val adapter = suggestionAdapter ?: return
+            popupInputKey = inputKey
+            adapter.inputKey = inputKey
             
-            if (suggestionPopup?.isShowing == true && currentAdapter != null) {
-                // Update existing popup instead of recreating
+            if (popup.isShowing) {
+                // Update existing popup instead of recreating - yalnızca farklar uygulanır
                 Timber.d("[SUGGESTION] Updating existing popup with ${suggestions.size} suggestions")
-                currentAdapter.updateSuggestions(suggestions)
+                adapter.updateSuggestions(suggestions, filterText)
                 return
             }
             
-            // Hide any existing popup first
-            hideSuggestions()
-            
-            // Create layout inflater
-            val inflater = LayoutInflater.from(context)
-            val suggestionView = inflater.inflate(R.layout.layout_suggestion_bar, null)
-            
-            // Add a VERY VISIBLE background to make sure suggestions are visible
-            val backgroundDrawable = android.graphics.drawable.GradientDrawable().apply {
-                setColor(android.graphics.Color.parseColor("#2D3150")) // Daha koyu mavi arka plan
-                cornerRadius = 20f // Daha belirgin yuvarlak köşeler
-                setStroke(4, android.graphics.Color.parseColor("#5C95FF")) // Daha kalın ve parlak mavi kenarlık
-            }
-            suggestionView.background = backgroundDrawable 
-            suggestionView.elevation = 32f // Daha yüksek yükseltme
-            
-            // Set up RecyclerView
-            val recyclerView = suggestionView.findViewById<RecyclerView>(R.id.suggestion_recycler_view)
-            recyclerView.layoutManager = LinearLayoutManager(context, LinearLayoutManager.HORIZONTAL, false)
-            
-            // Create adapter with callbacks
-            val suggestionList = suggestions.toMutableList()
-            val suggestionAdapter = SuggestionAdapter(
-                context = context,
-                suggestions = suggestionList,
-                inputKey = inputKey,
-                onSuggestionSelected = { suggestion -> 
-                    handleSuggestionSelected(suggestion)
-                    // Dismiss popup immediately when selection is made
-                    hideSuggestions()
-                },
-                onSuggestionDeleted = { suggestion, position ->
-                    deleteSuggestion(inputKey, suggestion, position)
-                }
-            )
-            
-            recyclerView.adapter = suggestionAdapter
-            
-            // Create popup window - USING POPUP WINDOW APPROACH like in Menu5Activity
-            val popupHeight = (100 * context.resources.displayMetrics.density).toInt() // Daha yüksek popup yüksekliği için ayarla
-            
-            val popup = PopupWindow(
-                suggestionView,
-                ViewGroup.LayoutParams.MATCH_PARENT,
-                popupHeight,
-                false // NOT focusable - this is important to not steal focus
-            ).apply {
-                isOutsideTouchable = true
-                elevation = 32f // Daha yüksek yükseltme
-                animationStyle = android.R.style.Animation_Dialog // Daha belirgin animasyon
-                setBackgroundDrawable(android.graphics.drawable.ColorDrawable(android.graphics.Color.TRANSPARENT))
-                
-                // Ensure popup does not steal focus from the edittext
-                isTouchable = true
-                isFocusable = false
-                
-                // These flags help with positioning and focus
-                setTouchInterceptor { _, _ -> false }
-            }
+            // Popup kapalıyken liste boştur, yeni liste fark hesaplamadan hemen uygulanır
+            adapter.updateSuggestions(suggestions, filterText)
+            val popupHeight = popup.height
             
             // Get display metrics
             val metrics = context.resources.displayMetrics
@@ -419,18 +421,97 @@ class SuggestionManager(private val context: Context) {
                 Timber.d("[SUGGESTION] Showing popup at bottom of screen")
             }
             
-            // Save reference to popup
-            suggestionPopup = popup
-            
-            // Save reference to view
-            this.suggestionView = suggestionView
-            
             Timber.d("[SUGGESTION] Showing popup with ${suggestions.size} suggestions")
         } catch (e: Exception) {
             Timber.e(e, "[SUGGESTION] Error showing suggestions popup")
         }
     }
     
+    /**
+     * Create the suggestion popup once, it is reused until cleanup or low memory
+     */
+    private fun createSuggestionPopup(): PopupWindow {
+        // Create layout inflater
+        val inflater = LayoutInflater.from(context)
+        val suggestionView = inflater.inflate(R.layout.layout_suggestion_bar, null)
+        
+        // Add a VERY VISIBLE background to make sure suggestions are visible
+        val backgroundDrawable = android.graphics.drawable.GradientDrawable().apply {
+            setColor(android.graphics.Color.parseColor("#2D3150")) // Daha koyu mavi arka plan
+            cornerRadius = 20f // Daha belirgin yuvarlak köşeler
+            setStroke(4, android.graphics.Color.parseColor("#5C95FF")) // Daha kalın ve parlak mavi kenarlık
+        }
+        suggestionView.background = backgroundDrawable 
+        suggestionView.elevation = 32f // Daha yüksek yükseltme
+        
+        // Set up RecyclerView
+        val recyclerView = suggestionView.findViewById<RecyclerView>(R.id.suggestion_recycler_view)
+        recyclerView.layoutManager = LinearLayoutManager(context, LinearLayoutManager.HORIZONTAL, false)
+        // Chip yükseklikleri sabit - liste değişince RecyclerView kendini yeniden ölçmez
+        recyclerView.setHasFixedSize(true)
+        
+        // Create adapter with callbacks - anahtar her gösterimde güncellenir
+        val adapter = SuggestionAdapter(
+            context = context,
+            inputKey = popupInputKey,
+            onSuggestionSelected = { suggestion -> 
+                handleSuggestionSelected(suggestion)
+                // Dismiss popup immediately when selection is made
+                hideSuggestions()
+            },
+            onSuggestionDeleted = { suggestion, position ->
+                deleteSuggestion(popupInputKey, suggestion, position)
+            }
+        )
+        
+        recyclerView.adapter = adapter
+        
+        // Create popup window - USING POPUP WINDOW APPROACH like in Menu5Activity
+        val popupHeight = (100 * context.resources.displayMetrics.density).toInt() // Daha yüksek popup yüksekliği için ayarla
+        
+        val popup = PopupWindow(
+            suggestionView,
+            ViewGroup.LayoutParams.MATCH_PARENT,
+            popupHeight,
+            false // NOT focusable - this is important to not steal focus
+        ).apply {
+            isOutsideTouchable = true
+            elevation = 32f // Daha yüksek yükseltme
+            animationStyle = android.R.style.Animation_Dialog // Daha belirgin animasyon
+            setBackgroundDrawable(android.graphics.drawable.ColorDrawable(android.graphics.Color.TRANSPARENT))
+            
+            // Ensure popup does not steal focus from the edittext
+            isTouchable = true
+            isFocusable = false
+            
+            // These flags help with positioning and focus
+            setTouchInterceptor { _, _ -> false }
+            
+            // Dışarı dokunarak kapatma dahil her kapanışta liste boşaltılır,
+            // böylece bir sonraki açılışta yeni liste eski içerik görünmeden hemen uygulanır
+            setOnDismissListener { adapter.clear() }
+        }
+        
+        suggestionPopup = popup
+        this.suggestionView = suggestionView
+        suggestionAdapter = adapter
+        return popup
+    }
+    
+    /**
+     * Release the reusable popup, a new one is created on the next show
+     */
+    private fun releaseSuggestionPopup() {
+        try {
+            suggestionPopup?.dismiss()
+        } catch (e: Exception) {
+            // Error dismissing popup
+        }
+        suggestionPopup = null
+        suggestionView = null
+        suggestionAdapter = null
+    }
+    
     /**
      * Get current keyboard height
      */
@@ -467,12 +548,9 @@ class SuggestionManager(private val context: Context) {
         // Suggestion selected: '$suggestion'
         
         try {
-            // Save to preferences IMMEDIATELY regardless of insertion success
+            // Kullanımı hemen kaydet - seçim başına tek sayım (frecency puanı için)
             saveSuggestion(currentInputKey, suggestion)
             
-            // Sanitize text for JavaScript injection - prevent JS issues
-            val safeText = suggestion.replace("'", "\\'").replace("\"", "\\\"")
-            
             // Direct approach for WebView - prioritize this since it's our main use case
             activeWebView?.let { webView ->
                 // DO NOT hide suggestions yet - this can cause focus issues
@@ -481,224 +559,36 @@ class SuggestionManager(private val context: Context) {
                 // Set focus to webview first
                 webView.requestFocus()
                 
-                // İleri seviye veri aktarım denemesi - önce WebView simulateKeyboardInput yöntemini kullan
-                val useSimulation = webView is com.asforce.asforcetkf2.webview.TabWebView
-                
                 // Hem simulasyon hem de JS yaklaşımını paralel olarak kullanalım
                 // Bu sayede en az birinin başarılı olması garanti edilir
                 
-                // 1. JavaScript yaklaşımı - Daha hızlı çalışacaktır
-                val enhancedScript = """
-                (function() {
+                // 1. JavaScript yaklaşımı - paketteki suggestion.insertText, metin JSON argümanı olarak gider
+                val inputKey = currentInputKey
+                
+                uiScope.launch {
                     try {
-                        console.log('Enhanced insertion of: $safeText');
-                        
-                        // Değişkenleri tanımla
-                        var activeElement = document.activeElement;
-                        var keyElement = document.querySelector('[data-tkf-key="$currentInputKey"]');
-                        var targetElement = null;
-                        var debugInfo = [];
-                        
-                        // AŞAMA 1: Hedef elementi belirle
-                        if (activeElement && (activeElement.tagName === 'INPUT' || activeElement.tagName === 'TEXTAREA')) {
-                            targetElement = activeElement;
-                            debugInfo.push('Using active element: ' + activeElement.tagName);
-                        } else if (keyElement) {
-                            targetElement = keyElement; 
-                            debugInfo.push('Using element with data-tkf-key: ' + keyElement.tagName);
-                            // Etiketlenmiş elementi aktifleştir
-                            keyElement.focus();
-                            keyElement.select();
-                        } else {
-                            // Görünür inputları ara
-                            debugInfo.push('No active/keyed element, searching for visible inputs');
-                            var inputs = document.querySelectorAll('input, textarea');
-                            for (var i = 0; i < inputs.length; i++) {
-                                var input = inputs[i];
-                                if (input.offsetParent !== null && !input.disabled && !input.readOnly &&
-                                    (input.type === 'text' || input.type === 'search' || 
-                                     input.type === 'email' || input.type === 'number' || 
-                                     input.tagName === 'TEXTAREA')) {
-                                    
-                                    targetElement = input;
-                                    debugInfo.push('Found visible input: ' + input.tagName);
-                                    // Odaklama yap
-                                    input.focus();
-                                    input.select();
-                                    break;
-                                }
-                            }
+                        val status = webView.callScriptDecoded("suggestion.insertText", suggestion, inputKey) { reader ->
+                            ScriptResultDecoder.readFlatObject(reader)["status"] as? String
                         }
-                        
-                        // AŞAMA 2: Hedef element bulunduysa değeri ayarla
-                        if (targetElement) {
-                            // Orijinal değeri kaydet
-                            var origValue = targetElement.value;
-                            debugInfo.push('Original value: ' + origValue);
-                            
-                            // Değeri direkt ayarla
-                            targetElement.value = '$safeText';
-                            
-                            // Değişimi kontrol et
-                            if (targetElement.value !== '$safeText') {
-                                debugInfo.push('Direct value setting failed, trying alternatives');
-                                
-                                // YÖNTEM 2: innerHTML yaklaşımı
-                                if (targetElement.innerHTML !== undefined) {
-                                    targetElement.innerHTML = '$safeText';
-                                    debugInfo.push('Set innerHTML');
-                                }
-                                
-                                // YÖNTEM 3: execCommand yaklaşımı
-                                try {
-                                    targetElement.focus();
-                                    targetElement.select();
-                                    document.execCommand('insertText', false, '$safeText');
-                                    debugInfo.push('Used execCommand');
-                                } catch(e) {
-                                    debugInfo.push('execCommand failed: ' + e.message);
-                                }
-                                
-                                // YÖNTEM 4: Değer ayarlamada daha agresif yöntem kullan
-                                try {
-                                    Object.getOwnPropertyDescriptor(HTMLInputElement.prototype, 'value').set.call(targetElement, '$safeText');
-                                    debugInfo.push('Used property descriptor');
-                                } catch(e) {
-                                    debugInfo.push('Property descriptor failed: ' + e.message);
-                                }
-                                
-                                // YÖNTEM 5: Temizle ve karakter karakter gir
-                                try {
-                                    targetElement.value = '';
-                                    var chars = '$safeText'.split('');
-                                    for (var i = 0; i < chars.length; i++) {
-                                        targetElement.value += chars[i];
-                                    }
-                                    debugInfo.push('Used character-by-character input');
-                                } catch(e) {
-                                    debugInfo.push('Character input failed: ' + e.message);
-                                }
-                            } else {
-                                debugInfo.push('Direct value setting successful');
-                            }
-                            
-                            // AŞAMA 3: Olayları tetikle
-                            // Tüm olayları dene, hata olsa bile devam et
-                            try {
-                                var inputEvent = new Event('input', {bubbles: true});
-                                targetElement.dispatchEvent(inputEvent);
-                                debugInfo.push('Dispatched input event');
-                            } catch(e) {
-                                debugInfo.push('Input event error: ' + e.message);
-                                try {
-                                    var fallbackInputEvent = document.createEvent('HTMLEvents');
-                                    fallbackInputEvent.initEvent('input', true, true);
-                                    targetElement.dispatchEvent(fallbackInputEvent);
-                                    debugInfo.push('Used fallback input event');
-                                } catch(e2) {
-                                    debugInfo.push('Fallback input event error: ' + e2.message);
-                                }
-                            }
-                            
-                            try {
-                                var changeEvent = new Event('change', {bubbles: true});
-                                targetElement.dispatchEvent(changeEvent);
-                                debugInfo.push('Dispatched change event');
-                            } catch(e) {
-                                debugInfo.push('Change event error: ' + e.message);
-                                try {
-                                    var fallbackChangeEvent = document.createEvent('HTMLEvents');
-                                    fallbackChangeEvent.initEvent('change', true, true);
-                                    targetElement.dispatchEvent(fallbackChangeEvent);
-                                    debugInfo.push('Used fallback change event');
-                                } catch(e2) {
-                                    debugInfo.push('Fallback change event error: ' + e2.message);
-                                }
-                            }
-                            
-                            // Son kez odaklama
-                            targetElement.focus();
-                            
-                            // Başarı durumu kontrol et
-                            if (targetElement.value === '$safeText') {
-                                debugInfo.push('FINAL: Value set successfully to "' + targetElement.value + '"');
-                                return JSON.stringify({
-                                    status: 'SUCCESS',
-                                    message: 'Value set successfully',
-                                    value: targetElement.value,
-                                    element: targetElement.tagName,
-                                    debug: debugInfo
-                                });
-                            } else {
-                                debugInfo.push('FINAL: Current value "' + targetElement.value + '" does not match target "$safeText"');
-                                return JSON.stringify({
-                                    status: 'PARTIAL_SUCCESS',
-                                    message: 'Value mismatch',
-                                    current: targetElement.value,
-                                    target: '$safeText',
-                                    element: targetElement.tagName,
-                                    debug: debugInfo
-                                });
-                            }
-                        } else {
-                            return JSON.stringify({
-                                status: 'FAILURE',
-                                message: 'No suitable input element found',
-                                debug: debugInfo
-                            });
+                        if (status != "SUCCESS" && status != "PARTIAL_SUCCESS") {
+                            Timber.w("[SUGGESTION] Script insertion failed: $status")
                         }
-                    } catch(e) {
-                        return JSON.stringify({
-                            status: 'ERROR',
-                            message: e.message,
-                            stack: e.stack
-                        });
-                    }
-                })();
-                """.trimIndent()
-                
-                // Paralel olarak hem JavaScript hem de simulasyon yaklaşımını kullanalım
-                var jsSuccess = false
-                var simulationSuccess = false
-                
-                // Javascript yaklaşımını çalıştır
-                webView.evaluateJavascript(enhancedScript) { result ->
-                    // Sonucu temizle (tırnak işaretlerini ve kaçış karakterlerini kaldır)
-                    val cleanResult = result.trim().removeSurrounding("\"").replace("\\\"", "\"").replace("\\\\", "\\")
-                    // JS insertion result
-                    
-                    try {
-                        val jsonResult = org.json.JSONObject(cleanResult)
-                        val status = jsonResult.optString("status", "")
-                        jsSuccess = (status == "SUCCESS" || status == "PARTIAL_SUCCESS")
-                        // JS insertion result status
+                    } catch (e: CancellationException) {
+                        throw e
                     } catch (e: Exception) {
-                        Timber.e(e, "[SUGGESTION] Error parsing JS result")
-                    }
-                    
-                    // JavaScript yaklaşımı başarılı olduysa kaydet
-                    if (jsSuccess) {
-                        saveSuggestion(currentInputKey, suggestion)
+                        Timber.e(e, "[SUGGESTION] Error inserting suggestion")
                     }
                     
                     // İşlemler bittikten sonra önerileri gizle
-                    Handler(Looper.getMainLooper()).postDelayed({
-                        hideSuggestions()
-                    }, 200)
+                    delay(200)
+                    hideSuggestions()
                 }
                 
-                // Simulasyon yaklaşımını kullan (TabWebView ise)
-                if (useSimulation) {
-                    (webView as com.asforce.asforcetkf2.webview.TabWebView).simulateKeyboardInput(suggestion)
-                    // Using TabWebView.simulateKeyboardInput
-                    simulationSuccess = true
+                // 2. Simulasyon yaklaşımı (TabWebView ise)
+                if (webView is com.asforce.asforcetkf2.webview.TabWebView) {
+                    webView.simulateKeyboardInput(suggestion)
                 }
                 
-                // En az bir tane yaklaşım başarılı olursa, klavyeyi korumak için kısa bir gecikme ver
-                Handler(Looper.getMainLooper()).postDelayed({
-                    // Insertion summary complete
-                }, 500)
-                
                 return@let // Kısa bir çıkış yap
             }
             
@@ -729,121 +619,43 @@ class SuggestionManager(private val context: Context) {
      * Hide suggestion popup
      */
     fun hideSuggestions() {
-        try {
-            // Dismiss popup if showing
-            suggestionPopup?.let { popup ->
+        // Bekleyen veya hesaplanmakta olan sorguyu iptal et - kapatılan popup'ın geç gelen sonuçla yeniden açılmasını önler
+        suggestionQueries.value = null
+        dismissSuggestionViews()
+    }
+    
+    private fun dismissSuggestionViews() {
+        val popup = suggestionPopup ?: return
+        val dismiss = Runnable {
+            try {
+                // Popup yeniden kullanılır - sadece kapatılır
                 if (popup.isShowing) {
-                    Handler(Looper.getMainLooper()).post {
-                        try {
-                            popup.dismiss()
-                            // Dismissed suggestion popup
-                        } catch (e: Exception) {
-                            // Error dismissing popup
-                        }
-                    }
-                }
-                suggestionPopup = null
-            }
-            
-            // Also remove any view from parent (legacy approach)
-            suggestionView?.let { view ->
-                Handler(Looper.getMainLooper()).post {
-                    try {
-                        (view.parent as? ViewGroup)?.removeView(view)
-                        suggestionView = null
-                    } catch (e: Exception) {
-                        // Error removing suggestion view
-                    }
+                    popup.dismiss()
                 }
+            } catch (e: Exception) {
+                // Error dismissing popup
             }
-            
-            // Hidden suggestions
-        } catch (e: Exception) {
-            // Error in hideSuggestions
-            suggestionPopup = null
-            suggestionView = null
         }
-    }
-    
-    /**
-     * Kullanıcı ara yüzü için girdi anahtarını normalleştir
-     * Hem büyük/küçük harf duyarlılığını hem de yazım farklılıklarını düzeltir
-     */
-    private fun normalizeInputKey(inputKey: String): String {
-        // Anahtarı küçük harfe çevir (case-insensitive arama için)
-        return inputKey.trim().lowercase()
-    }
-
-    /**
-     * Load and filter suggestions from preferences
-     */
-    private suspend fun loadAndFilterSuggestions(inputKey: String, filterText: String): List<String> {
-        // Anahtar adını normalleştir
-        val normalizedKey = normalizeInputKey(inputKey)
         
-        return withContext(Dispatchers.IO) {
-            // Önce normalleştirilmiş anahtar için cache'e bak
-            val now = System.currentTimeMillis()
-            val cachedList = suggestionCache[normalizedKey]
-            
-            if (cachedList != null && (now - lastCacheRefreshTime < CACHE_TTL)) {
-                // Using cached suggestions
-                
-                // Apply filter to cached suggestions
-                return@withContext filterSuggestions(cachedList, filterText)
-            }
-            
-            // Orijinal ve normalize edilmiş anahtar adlarını kontrol et
-            val prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE)
-            var allSuggestions = getSuggestionsFromPrefs(prefs, normalizedKey).toMutableSet()
-            
-            // Orijinal anahtar adından da öneri arama
-            if (normalizedKey != inputKey) {
-                val originalKeySuggestions = getSuggestionsFromPrefs(prefs, inputKey)
-                allSuggestions.addAll(originalKeySuggestions)
-            }
-            
-            // Önerileri birleştirerek tek bir liste oluştur ve cache'e kaydet
-            // Loading fresh suggestions
-            
-            // Normalize edilmiş anahtar için cache'i güncelle
-            val suggestionsList = allSuggestions.toList()
-            suggestionCache[normalizedKey] = suggestionsList
-            lastCacheRefreshTime = now
-            
-            // Return filtered list
-            return@withContext filterSuggestions(suggestionsList, filterText)
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            dismiss.run()
+        } else {
+            Handler(Looper.getMainLooper()).post(dismiss)
         }
     }
     
     /**
-     * Filter suggestions based on search text
+     * Load and filter suggestions from the suggestion store
+     * Tam eşleşme, önek, içerir grupları; grup içinde kullanım puanına göre ilk N sonuç
      */
-    private fun filterSuggestions(suggestions: List<String>, filterText: String): List<String> {
-        if (filterText.isEmpty()) {
-            // Boş metin durumlarında tüm önerileri göster
-            // No filter applied, returning all suggestions
-            return suggestions.sortedBy { it.lowercase() } // Sıralı sonuçlar
-        } else {
-            // Filtreleme mantığını güçlendir
-            val filtered = suggestions
-                .filter { it.contains(filterText, ignoreCase = true) }
-                .sortedWith(compareBy(
-                    // Önce tam eşleşmeleri göster
-                    { !it.equals(filterText, ignoreCase = true) },
-                    // Sonra başlangıç eşleşmelerini göster
-                    { !it.startsWith(filterText, ignoreCase = true) },
-                    // Son olarak alfabetik sıralama
-                    { it.lowercase() }
-                ))
-            // Applied filter, found matching suggestions
-            return filtered
+    private suspend fun loadAndFilterSuggestions(inputKey: String, filterText: String): List<String> {
+        return withContext(Dispatchers.IO) {
+            engine.query(inputKey, filterText, MAX_VISIBLE_SUGGESTIONS)
         }
     }
     
     /**
-     * Delete a suggestion from preferences and update UI
-     * Güçlendirilmiş silme yöntemi - daha yüksek başarı oranı için çoklu yöntem kullanıyor
+     * Delete a suggestion from the store and update UI
      */
     private fun deleteSuggestion(inputKey: String, suggestion: String, position: Int) {
         // Özel "tümünü sil" işaretleyicisini kontrol et
@@ -853,129 +665,32 @@ class SuggestionManager(private val context: Context) {
             return
         }
         
-        // Deleting suggestion: '$suggestion'
-        
         try {
             // Hemen bazı işlemleri ana thread'de yap - kritik UI güncellemesi
-            val adapter = suggestionView?.findViewById<RecyclerView>(R.id.suggestion_recycler_view)?.adapter as? SuggestionAdapter
+            val adapter = suggestionAdapter
             
-            // Ana thread'de önbelleği güncelle
-            suggestionCache[inputKey]?.let { cachedList ->
-                if (cachedList.contains(suggestion)) {
-                    val newList = cachedList.toMutableList()
-                    newList.remove(suggestion)
-                    suggestionCache[inputKey] = newList
-                    // Removed from cache: '$suggestion'
-                    
-                    // Adapter'a da bildiriyoruz
-                    adapter?.updateSuggestions(newList)
-                }
-            }
+            // Ana thread'de önbelleği ve bekleyen kayıtları güncelle - indeksten artımlı olarak çıkar
+            engine.evictValue(inputKey, suggestion)
+            
+            // Adapter'a da bildiriyoruz
+            adapter?.removeSuggestion(suggestion)
             
-            // Remove from preferences in background - güçlendirilmiş versiyon
-            executorService.execute {
+            // Remove from the store in background - tek satırlık DELETE
+            ioScope.launch {
                 try {
-                    val prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE)
-                    var suggestions = getSuggestionsFromPrefs(prefs, inputKey).toMutableSet()
-                    val originalSize = suggestions.size
+                    engine.deleteValue(inputKey, suggestion)
                     
-                    // Yöntem 1: Doğrudan kaldır (önerilen ana yöntem)
-                    val removed = suggestions.remove(suggestion)
-                    
-                    if (removed) {
-                        // Yöntem 1: Senkron olarak commit() ile kaydet (ana güvenilir yöntem)
-                        val success = prefs.edit().putStringSet(inputKey, suggestions).commit()
-                        
-                        if (success) {
-                            // Successfully removed suggestion
-                        } else {
-                            // Yöntem 2: Birden fazla silme yöntemi dene
-                            // Yöntem 2a: apply() ile kaydet (asenkron)
-                            prefs.edit().putStringSet(inputKey, suggestions).apply()
-                            
-                            // Yöntem 2b: Geçici olarak tümünü kaldır ve sonra güncelle
-                            val tempSet = suggestions.toSet()
-                            prefs.edit()
-                                .remove(inputKey)
-                                .apply()
-                            
-                            // Kısa beklemeden sonra tekrar kaydet
-                            Thread.sleep(50)
-                            prefs.edit().putStringSet(inputKey, tempSet).apply()
-                        }
-                        
-                        // Önbelleği güncelle - kesinlikle sil
-                        suggestionCache.remove(inputKey)
-                        
-                        // Tutarlılık kontrolü
-                        Thread.sleep(100) // Asenkron işlemin tamamlanmasını bekle
-                        suggestions = getSuggestionsFromPrefs(prefs, inputKey).toMutableSet()
-                        
-                        // Kontrol et: Gerçekten silindi mi?
-                        val actuallyRemoved = !suggestions.contains(suggestion)
-                        // Verification complete
-                        
-                        // Silme işlemi başarılıysa bildirim göster
-                        if (actuallyRemoved) {
-                            // Ana thread'de bildirim göster
-                            CoroutineScope(Dispatchers.Main).launch {
-                                // Bilgi mesajı göster
-                                android.widget.Toast.makeText(
-                                    context, 
-                                    "Öneri silindi", 
-                                    android.widget.Toast.LENGTH_SHORT
-                                ).show()
-                            }
-                        } else {
-                            // Silme başarısız olduysa son çare
-                            // Using last resort deletion method
-                            
-                            // Son çare: Diğerleri haricindekileri ekle
-                            suggestions = getSuggestionsFromPrefs(prefs, inputKey).toMutableSet()
-                            suggestions.remove(suggestion)
-                            
-                            // Geçici bir kelime kullan
-                            val tempKey = inputKey + "_temp"
-                            prefs.edit().putStringSet(tempKey, suggestions).commit()
-                            
-                            // Orijinali sil
-                            prefs.edit().remove(inputKey).commit()
-                            
-                            // Geçici anahtardan geri yükle
-                            val finalSuggestions = prefs.getStringSet(tempKey, setOf<String>()) ?: setOf()
-                            prefs.edit().putStringSet(inputKey, finalSuggestions).commit()
-                            
-                            // Geçici anahtarı temizle
-                            prefs.edit().remove(tempKey).apply()
-                            
-                            // Önbelleği temizle
-                            suggestionCache.clear()
-                            
-                            // Kullanıcıya hata mesajı göster
-                            CoroutineScope(Dispatchers.Main).launch {
-                                android.widget.Toast.makeText(
-                                    context,
-                                    "Öneri silindi",
-                                    android.widget.Toast.LENGTH_SHORT
-                                ).show()
-                            }
-                        }
-                    } else {
-                        // Zaten kaldırılmışsa (belki başka bir yerden)
-                        // Suggestion was already removed from preferences
-                        
-                        // Adapter'a bildir
-                        val updatedList = suggestions.toList()
-                        CoroutineScope(Dispatchers.Main).launch {
-                            adapter?.updateSuggestions(updatedList)
-                        }
+                    withContext(Dispatchers.Main) {
+                        android.widget.Toast.makeText(
+                            context, 
+                            "Öneri silindi", 
+                            android.widget.Toast.LENGTH_SHORT
+                        ).show()
                     }
                 } catch (e: Exception) {
-                    // Error deleting suggestion
+                    Timber.e(e, "[SUGGESTION] Error deleting suggestion")
                     
-                    // Hataya rağmen kullanıcıya mesaj göster - kafa karışıklığını önlemek için
-                    CoroutineScope(Dispatchers.Main).launch {
-                        // Bilgi mesajı göster
+                    withContext(Dispatchers.Main) {
                         android.widget.Toast.makeText(
                             context, 
                             "Öneri silinirken hata oluştu", 
@@ -1000,82 +715,31 @@ class SuggestionManager(private val context: Context) {
     
     /**
      * Belirli bir anahtar için tüm önerileri sil
-     * Güçlendirilmiş versiyon - birden fazla yöntem kullanır ve senkronizasyon ile tutarlılık sağlar
      */
     private fun deleteAllSuggestions(inputKey: String) {
-        // Deleting ALL suggestions for key: '$inputKey'
-        
         try {
-            // Ana thread'de başlat, UYGULAMADAN VE CIHAZDAN TAMAMEN SİL
-            val prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE)
-            
-            // 1. COMMIT ile sil - Senkron
-            val success = prefs.edit().remove(inputKey).commit()
-            // Initial deletion success
-            
-            // 2. Önbelleği tamamen sil
-            suggestionCache.remove(inputKey)
-            lastCacheRefreshTime = 0L
+            // Önbelleği ve bekleyen kayıtları hemen temizle
+            engine.evictKey(inputKey)
 
-            // 3. Adaptörü hemen temizle
-            val emptyList = emptyList<String>()
+            // Popupları kapat - adaptör de kapatılırken boşaltılır
             CoroutineScope(Dispatchers.Main).launch {
-                // Görünümü temizle
-                suggestionView?.let { view ->
-                    val recyclerView = view.findViewById<RecyclerView>(R.id.suggestion_recycler_view)
-                    val adapter = recyclerView?.adapter as? SuggestionAdapter
-                    adapter?.updateSuggestions(emptyList)
-                }
-                
-                // Popupları kapat
                 hideSuggestions()
             }
             
-            // 4. DAHA GÜÇLÜ SİLME DENEMELERİ
-            executorService.execute {
+            ioScope.launch {
                 try {
-                    // 4.1. Dosya sisteminden direkt olarak tercih dosyasını sil
-                    val appContext = context.applicationContext
-                    val xmlFile = java.io.File(appContext.applicationInfo.dataDir, "shared_prefs/${PREFS_NAME}.xml")
-                    if (xmlFile.exists()) {
-                        val deleted = xmlFile.delete()
-                        // Preferences file deleted
-                    }
-                    
-                    // 4.2. Yeni SharedPreferences örneği oluştur ve sil
-                    val newPrefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE)
-                    newPrefs.edit().remove(inputKey).commit()
-                    
-                    // 4.3. Uygulama önbelleğini temizle
-                    try {
-                        val cacheDir = context.cacheDir
-                        if (cacheDir.exists()) {
-                            val files = cacheDir.listFiles()
-                            if (files != null) {
-                                for (file in files) {
-                                    file.delete()
-                                }
-                            }
-                        }
-                    } catch (e: Exception) {
-                        Timber.e(e, "[SUGGESTION] Error clearing cache directory")
-                    }
-                    
-                    // 4.4. Tüm önbelleği temizle
-                    suggestionCache.clear()
+                    engine.deleteKey(inputKey)
                     
-                    // 5. Kullanıcıya bilgi ver
-                    CoroutineScope(Dispatchers.Main).launch {
+                    // Kullanıcıya bilgi ver
+                    withContext(Dispatchers.Main) {
                         android.widget.Toast.makeText(
                             context,
                             "Tüm öneriler silindi",
                             android.widget.Toast.LENGTH_SHORT
                         ).show()
                     }
-                    
-                    // All deletion steps completed
                 } catch (e: Exception) {
-                    // Error in background deletion process
+                    Timber.e(e, "[SUGGESTION] Error deleting all suggestions for key: $inputKey")
                 }
             }
         } catch (e: Exception) {
@@ -1084,97 +748,36 @@ class SuggestionManager(private val context: Context) {
     }
     
     /**
-     * Get suggestions from SharedPreferences
-     * Güçlendirilmiş versiyon - tutarlılık için hata durumlarını kontrol eder
+     * Save a suggestion to the suggestion store
+     * Aynı değer tekrar kaydedilirse kullanım sayısı ve son kullanım zamanı güncellenir
      */
-    private fun getSuggestionsFromPrefs(prefs: SharedPreferences, inputKey: String): Set<String> {
-        try {
-            val suggestions = prefs.getStringSet(inputKey, setOf()) ?: setOf()
-            
-            // Boş sete karşı kontrol
-            if (suggestions.isEmpty() && suggestionCache.containsKey(inputKey)) {
-                // Önbellek hala verileri içeriyorsa - bu bir hata olabilir
-                val cachedSuggestions = suggestionCache[inputKey] ?: emptyList()
-                if (cachedSuggestions.isNotEmpty()) {
-                    // Cached suggestions exist but prefs are empty
-                    
-                    // Hemen yeniden kaydetmeyi dene (veriler daha önce kaydedilememiş olabilir)
-                    val suggestionSet = cachedSuggestions.toSet()
-                    prefs.edit().putStringSet(inputKey, suggestionSet).apply()
-                    
-                    // Cache'i boşalt
-                    suggestionCache.remove(inputKey)
-                    
-                    // Geri dönüş için düzeltilmiş değeri kullan
-                    return suggestionSet
-                }
+    fun saveSuggestion(inputKey: String, suggestion: String) {
+        if (suggestion.isBlank()) return
+        
+        // Önbellek hemen güncellenir; veritabanına hemen yazılmaz, tamponda birleştirilir.
+        // Pencerenin ilk kaydı toplu yazmayı zamanlar
+        if (engine.recordUse(inputKey, suggestion)) {
+            ioScope.launch {
+                delay(WRITE_BEHIND_WINDOW_MS)
+                flushWrites()
             }
-            
-            return suggestions
-        } catch (e: Exception) {
-            // Error getting suggestions from prefs
-            return setOf()
         }
     }
     
     /**
-     * Save a suggestion to SharedPreferences
-     * Güçlendirilmiş versiyon - bozuk veri durumlarını önler ve başarıyı garantiler
+     * Write buffered saves immediately
+     * Should be called from Activity/Fragment onPause so no saves are lost if the process is killed
      */
-    fun saveSuggestion(inputKey: String, suggestion: String) {
-        if (suggestion.isBlank()) return
-        
-        // Anahtar adını normalleştir
-        val normalizedKey = normalizeInputKey(inputKey)
-        
-        // Ana thread'de hemen önbelleği güncelle
-        synchronized(suggestionCache) {
-        val cachedList = suggestionCache[normalizedKey]?.toMutableList() ?: mutableListOf()
-        if (!cachedList.contains(suggestion.trim())) {
-        cachedList.add(suggestion.trim())
-        suggestionCache[normalizedKey] = cachedList.toList()
-        // Updated cache for key
-        }
-        }
-        
-        executorService.execute {
-            try {
-                val prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE)
-                
-                // StringSet özel bir duruma sahiptir - yeni bir kopya oluşturmalıyız
-                // Mevcut değerleri oku
-                val currentSet = prefs.getStringSet(normalizedKey, null)
-                
-                // Yeni bir set oluştur (kopya, referans değil)
-                val newSet = mutableSetOf<String>()
-                
-                // Mevcut değerleri ekle
-                if (currentSet != null) {
-                    newSet.addAll(currentSet)
-                }
-                
-                // Yeni öneriyi ekle
-                newSet.add(suggestion.trim())
-                
-                // SENKRON olarak kaydet - commit kullan (apply yerine)
-                val success = prefs.edit().putStringSet(normalizedKey, newSet).commit()
-                
-                if (success) {
-                    // Successfully saved suggestion to preferences
-                } else {
-                    // Başarısız olduysa ikinci bir yöntem dene
-                    try {
-                        // Önce temizle sonra yeniden ekle
-                        prefs.edit().remove(normalizedKey).commit()
-                        prefs.edit().putStringSet(normalizedKey, newSet).commit()
-                        // Used alternate method to save suggestion
-                    } catch (e: Exception) {
-                        // Error in fallback save method
-                    }
-                }
-            } catch (e: Exception) {
-                // Error saving suggestion
-            }
+    fun flushPendingSaves() {
+        if (!engine.hasPendingWrites) return
+        ioScope.launch { flushWrites() }
+    }
+    
+    private suspend fun flushWrites() {
+        try {
+            engine.flush()
+        } catch (e: Exception) {
+            Timber.e(e, "[SUGGESTION] Error saving buffered suggestions")
         }
     }
     
@@ -1182,12 +785,11 @@ class SuggestionManager(private val context: Context) {
      * Clear suggestion cache for a specific input key
      */
     fun clearSuggestionCache(inputKey: String) {
-        // Clearing suggestion cache for key: $inputKey
-        executorService.execute {
+        engine.evictKey(inputKey)
+        
+        ioScope.launch {
             try {
-                val prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE)
-                prefs.edit().remove(inputKey).apply()
-                // Cache cleared for key: $inputKey
+                engine.deleteKey(inputKey)
             } catch (e: Exception) {
                 // Error clearing cache for key: $inputKey
             }
@@ -1199,15 +801,29 @@ class SuggestionManager(private val context: Context) {
      * Shows a popup with information about the suggestion system state
      */
     fun debugSuggestionState() {
+        ioScope.launch {
+            // Veritabanı sorgusu arka planda, dialog ana thread'de
+            val keyCounts = try {
+                repository.getKeyCounts()
+            } catch (e: Exception) {
+                Timber.e(e, "Error reading suggestion counts")
+                emptyList()
+            }
+            
+            withContext(Dispatchers.Main) {
+                showDebugDialog(keyCounts)
+            }
+        }
+    }
+    
+    private fun showDebugDialog(keyCounts: List<SuggestionKeyCount>) {
         try {
             // Get keyboard state
             val keyboardHeight = getKeyboardHeight()
             val isKeyboardVisible = this.isKeyboardVisible
             
             // Get suggestion data
-            val prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE)
-            val allPrefs = prefs.all
-            val cacheSize = suggestionCache.size
+            val cacheStats = engine.cache.getStats()
             
             // Create debug message
             val debugInfo = StringBuilder()
@@ -1216,17 +832,18 @@ class SuggestionManager(private val context: Context) {
             debugInfo.append("Keyboard visible: $isKeyboardVisible\n")
             debugInfo.append("Keyboard height: $keyboardHeight\n")
             debugInfo.append("Popup showing: ${suggestionPopup?.isShowing}\n")
-            debugInfo.append("Cache entries: $cacheSize\n")
-            debugInfo.append("Saved preferences: ${allPrefs.size}\n")
+            debugInfo.append("Cache entries: ${cacheStats["entries"]} (${cacheStats["bytes"]}/${cacheStats["max_bytes"]} bytes)\n")
+            debugInfo.append("Cache hits/misses: ${cacheStats["hits"]}/${cacheStats["misses"]}\n")
+            debugInfo.append("Cache evictions/expirations: ${cacheStats["evictions"]}/${cacheStats["expirations"]}\n")
+            debugInfo.append("Saved keys: ${keyCounts.size}\n")
             debugInfo.append("Current EditText: ${currentEditText != null}\n")
             debugInfo.append("Current WebView: ${activeWebView != null}\n")
             debugInfo.append("Current input key: $currentInputKey\n")
             debugInfo.append("\nSaved suggestions:\n")
             
             // List first 10 suggestion keys
-            allPrefs.keys.take(10).forEach { key ->
-                val values = prefs.getStringSet(key, emptySet()) ?: emptySet()
-                debugInfo.append("- $key: ${values.size} suggestions\n")
+            keyCounts.take(10).forEach { keyCount ->
+                debugInfo.append("- ${keyCount.inputKey}: ${keyCount.count} suggestions\n")
             }
             
             // Show debug info in a dialog
@@ -1236,9 +853,9 @@ class SuggestionManager(private val context: Context) {
                 .setPositiveButton("Force Show") { _, _ ->
                     // Force show suggestions for current input
                     if (currentEditText != null && currentInputKey.isNotEmpty()) {
-                        showSuggestions(currentEditText!!, currentInputKey, "")
+                        showSuggestions(currentEditText!!, currentInputKey, "", refresh = true)
                     } else if (activeWebView != null && currentInputKey.isNotEmpty()) {
-                        showSuggestions(activeWebView!!, currentInputKey, "")
+                        showSuggestions(activeWebView!!, currentInputKey, "", refresh = true)
                     } else {
                         // No active input, show empty suggestions on root view
                         val contentView = rootViewRef ?: (context as? android.app.Activity)?.findViewById(android.R.id.content) ?: View(context)
@@ -1272,6 +889,58 @@ class SuggestionManager(private val context: Context) {
         }
     }
     
+    /**
+     * Export every saved suggestion to the given document in the binary dictionary format
+     */
+    fun exportSuggestions(uri: Uri) {
+        ioScope.launch {
+            val message = try {
+                // Tampondaki kayıtlar da dosyaya girsin
+                flushWrites()
+                val count = engine.withWriteLock {
+                    context.contentResolver.openOutputStream(uri)?.use { output ->
+                        repository.exportTo(output)
+                    } ?: throw java.io.IOException("Cannot open $uri")
+                }
+                "$count öneri dışa aktarıldı"
+            } catch (e: Exception) {
+                Timber.e(e, "[SUGGESTION] Error exporting suggestions")
+                "Öneriler dışa aktarılırken hata oluştu"
+            }
+            
+            withContext(Dispatchers.Main) {
+                android.widget.Toast.makeText(context, message, android.widget.Toast.LENGTH_SHORT).show()
+            }
+        }
+    }
+    
+    /**
+     * Import a suggestion dictionary file, existing values are kept
+     * Dosya akış halinde okunur ve partiler halinde toplu eklenir
+     */
+    fun importSuggestions(uri: Uri) {
+        ioScope.launch {
+            val message = try {
+                val count = engine.withWriteLock {
+                    context.contentResolver.openInputStream(uri)?.use { input ->
+                        repository.importFrom(input)
+                    } ?: throw java.io.IOException("Cannot open $uri")
+                }
+                
+                // Önbellekteki indeksler yeni değerleri içermiyor
+                engine.cache.evictAll()
+                "$count öneri içe aktarıldı"
+            } catch (e: Exception) {
+                Timber.e(e, "[SUGGESTION] Error importing suggestions")
+                "Öneri dosyası içe aktarılamadı"
+            }
+            
+            withContext(Dispatchers.Main) {
+                android.widget.Toast.makeText(context, message, android.widget.Toast.LENGTH_SHORT).show()
+            }
+        }
+    }
+    
     /**
      * Clear all suggestion caches
      * Güçlendirilmiş versiyon - veri tutarlılığı için tam bir sıfırlama sağlar
@@ -1280,67 +949,21 @@ class SuggestionManager(private val context: Context) {
         // Clearing all suggestion caches
         
         try {
-            // Önbelleği ana thread'de hemen temizle
-            suggestionCache.clear()
-            lastCacheRefreshTime = 0L
+            // Önbelleği ve bekleyen kayıtları ana thread'de hemen temizle
+            engine.evictAll()
             
             // Popup'ları kapat (eğer varsa)
             hideSuggestions()
             
-            // TAMAMEN Yeni bir silme yaklaşımı - dosya sistemi seviyesinde
-            executorService.execute {
+            // Tablodaki tüm kayıtları tek bir DELETE ile sil
+            ioScope.launch {
                 try {
-                    // Önce normal silmeyi dene
-                    val prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE)
-                    prefs.edit().clear().commit()
-                    
-                    // Dosya sistemi seviyesinde silme işlemleri
-                    val appContext = context.applicationContext
-                    
-                    // SharedPreferences XML dosyasını tamamen sil
-                    val xmlFile = java.io.File(appContext.applicationInfo.dataDir, "shared_prefs/${PREFS_NAME}.xml")
-                    if (xmlFile.exists()) {
-                        val deleted = xmlFile.delete()
-                        Timber.d("[SUGGESTION] Deleted preference file directly: $deleted")
-                    }
-                    
-                    // Tüm SharedPreferences dizinini temizle
-                    val prefsDir = java.io.File(appContext.applicationInfo.dataDir, "shared_prefs")
-                    if (prefsDir.exists() && prefsDir.isDirectory) {
-                        val files = prefsDir.listFiles { file -> file.name.contains(PREFS_NAME) }
-                        if (files != null) {
-                            for (file in files) {
-                                val deleted = file.delete()
-                                Timber.d("[SUGGESTION] Deleted prefs file: ${file.name}, success: $deleted")
-                            }
-                        }
-                    }
-                    
-                    // Uygulama önbellek dizinini temizle
-                    val cacheDir = context.cacheDir
-                    if (cacheDir.exists()) {
-                        val files = cacheDir.listFiles()
-                        if (files != null) {
-                            for (file in files) {
-                                if (file.name.contains("suggestion", ignoreCase = true)) {
-                                    val deleted = file.delete()
-                                    Timber.d("[SUGGESTION] Deleted cache file: ${file.name}, success: $deleted")
-                                }
-                            }
-                        }
-                    }
-                    
-                    // Yeni bir SharedPreferences nesnesi oluştur (temiz bir başlangıç garanti etmek için)
-                    val newPrefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE)
-                    val isEmpty = newPrefs.all.isEmpty()
-                    Timber.d("[SUGGESTION] New SharedPreferences is empty: $isEmpty")
+                    engine.deleteAll()
                     
                     // Ana thread'de kullanıcıya bilgi ver
-                    CoroutineScope(Dispatchers.Main).launch {
+                    withContext(Dispatchers.Main) {
                         // Son kez önbelleği temizle
-                        synchronized(suggestionCache) {
-                            suggestionCache.clear()  
-                        }
+                        engine.cache.evictAll()
                         
                         android.widget.Toast.makeText(
                             context,
@@ -1351,28 +974,12 @@ class SuggestionManager(private val context: Context) {
                 } catch (e: Exception) {
                     Timber.e(e, "[SUGGESTION] Error during thorough cache cleaning")
                     
-                    // Son çare - tek tek bilinen anahtarları temizlemeyi dene
-                    try {
-                        val prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE)
-                        val allKeys = prefs.all.keys.toList()
-                        Timber.d("[SUGGESTION] Found ${allKeys.size} keys to delete")
-                        
-                        // Tek tek her anahtarı sil
-                        for (key in allKeys) {
-                            prefs.edit().remove(key).commit()
-                            Timber.d("[SUGGESTION] Removed key: $key")
-                        }
-                        
-                        // Ana thread'de bilgi ver
-                        CoroutineScope(Dispatchers.Main).launch {
-                            android.widget.Toast.makeText(
-                                context,
-                                "Öneri önbelleği temizlendi",
-                                android.widget.Toast.LENGTH_SHORT
-                            ).show()
-                        }
-                    } catch (e2: Exception) {
-                        Timber.e(e2, "[SUGGESTION] Final fallback cleaning failed")
+                    withContext(Dispatchers.Main) {
+                        android.widget.Toast.makeText(
+                            context,
+                            "Öneri önbelleği temizlenirken hata oluştu",
+                            android.widget.Toast.LENGTH_SHORT
+                        ).show()
                     }
                 }
             }
@@ -1395,14 +1002,32 @@ class SuggestionManager(private val context: Context) {
      */
     fun onLowMemory() {
         // Low memory warning received, clearing suggestion cache
-        suggestionCache.clear()
-        lastCacheRefreshTime = 0L
+        engine.cache.evictAll()
         
-        // Also clear popup if showing to free up memory
-        if (suggestionPopup?.isShowing == true) {
-            hideSuggestions()
+        // Also release the popup to free up memory - gerekirse bir sonraki gösterimde yeniden oluşturulur
+        suggestionQueries.value = null
+        releaseSuggestionPopup()
+    }
+    
+    /**
+     * Should be called from Activity/Fragment onTrimMemory
+     * Bellek baskısının seviyesine göre önbelleğin bir kısmını veya tamamını bırakır
+     */
+    fun onTrimMemory(level: Int) {
+        when {
+            level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE ||
+                level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL -> onLowMemory()
+            level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND ||
+                level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW -> engine.cache.trimToFraction(0.25f)
+            level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN ||
+                level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE -> engine.cache.trimToFraction(0.5f)
         }
     }
+    
+    /**
+     * Önbellek istatistiklerini al (isabet, ıska, atılan anahtar sayıları)
+     */
+    fun getCacheStats(): Map<String, Any> = engine.cache.getStats()
 
     /**
      * Cleanup resources
@@ -1411,29 +1036,26 @@ class SuggestionManager(private val context: Context) {
         // Cleaning up suggestion manager resources
         // Immediately hide suggestions to prevent leaks
         try {
-            suggestionPopup?.dismiss()
-            suggestionPopup = null
+            releaseSuggestionPopup()
             
             // Clear view references
-            suggestionView = null
             currentEditText = null
             activeWebView = null
             rootViewRef = null
-            suggestionCache.clear() // Clear the cache as well
+            engine.cache.evictAll() // Clear the cache as well
         } catch (e: Exception) {
             // Error during view cleanup
         }
         
-        // Shutdown executor gracefully
-        try {
-            executorService.shutdown()
-            // Try to terminate within 1 second
-            if (!executorService.awaitTermination(1, java.util.concurrent.TimeUnit.SECONDS)) {
-                executorService.shutdownNow()
-            }
-        } catch (e: Exception) {
-            // Error during executor shutdown
-            executorService.shutdownNow()
+        // Sorgu akışını durdur
+        uiJob.cancel()
+        
+        // Tampondaki kayıtları hemen yaz, bekleyen veritabanı yazmalarının bitmesine 1 saniye izin ver, sonra scope'u kapat
+        flushPendingSaves()
+        val pendingWrites = ioJob.children.toList()
+        CoroutineScope(Dispatchers.IO).launch {
+            withTimeoutOrNull(1000) { pendingWrites.joinAll() }
+            ioJob.cancel()
         }
         
         // Suggestion manager cleanup complete
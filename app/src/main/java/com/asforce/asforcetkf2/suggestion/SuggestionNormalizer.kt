@@ -0,0 +1,35 @@
+package com.asforce.asforcetkf2.suggestion
+
+import java.util.Locale
+
+/**
+ * Normalization rules shared by the suggestion store and the suggestion UI
+ * Türkçe karakterler (İ/ı, I/i) için yerel ayara duyarlı küçük harf dönüşümü yapar
+ */
+object SuggestionNormalizer {
+    
+    private val TURKISH = Locale("tr", "TR")
+    
+    /**
+     * Anahtar kuralları - satır bazlı alanları tek sözlükte birleştirir, uygulama tarafından değiştirilebilir
+     */
+    @Volatile
+    var keyRules = SuggestionKeyRules()
+    
+    /**
+     * Kullanıcı ara yüzü için girdi anahtarını normalleştir
+     * Küçük harfe çevrilir ve satır numaraları gibi farklılıklar kurallarla atılır
+     */
+    fun normalizeKey(inputKey: String): String {
+        return keyRules.canonicalize(inputKey.trim().lowercase())
+    }
+    
+    /**
+     * Normalize a suggestion value for case-insensitive matching
+     * Noktalı/noktasız i harfleri aynı kabul edilir: "TKF-IX1" değeri hem "ıx" hem "ix" ile bulunur,
+     * böylece Türkçe ve Türkçe olmayan klavyelerden yapılan girişler aynı sonucu verir
+     */
+    fun normalizeValue(value: String): String {
+        return value.trim().lowercase(TURKISH).replace('ı', 'i')
+    }
+}
@@ -0,0 +1,28 @@
+package com.asforce.asforcetkf2.suggestion
+
+/**
+ * A stored suggestion value with its usage statistics
+ */
+data class SuggestionRecord(
+    val value: String,
+    val useCount: Int,
+    val lastUsed: Long
+)
+
+/**
+ * Persistent storage used by [SuggestionEngine]
+ * Uygulamada Room tabanlı SuggestionRepository, testlerde ve ölçümlerde bellek içi bir uygulama kullanılır.
+ * Anahtarlar çağrılmadan önce SuggestionNormalizer.normalizeKey ile normalleştirilmiştir.
+ */
+interface SuggestionStore {
+    
+    suspend fun getSuggestionRecords(inputKey: String): List<SuggestionRecord>
+    
+    suspend fun recordUses(uses: List<SuggestionWriteBuffer.PendingUse>)
+    
+    suspend fun deleteSuggestion(inputKey: String, value: String): Boolean
+    
+    suspend fun deleteAllForKey(inputKey: String)
+    
+    suspend fun deleteAll()
+}
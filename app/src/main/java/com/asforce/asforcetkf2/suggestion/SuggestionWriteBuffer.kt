@@ -0,0 +1,91 @@
+package com.asforce.asforcetkf2.suggestion
+
+/**
+ * Write-behind buffer for suggestion saves
+ *
+ * Kısa bir süre içinde yapılan kayıtlar anahtar + değer bazında birleştirilir:
+ * aynı değer 5 kez kaydedilirse tabloya tek bir satır güncellemesi (useCount + 5) gider.
+ * Biriken kayıtlar drain() ile tek seferde alınıp tek bir transaction içinde yazılır.
+ */
+class SuggestionWriteBuffer {
+    
+    /**
+     * Coalesced uses of a single value since the last flush
+     */
+    data class PendingUse(
+        val inputKey: String,
+        val value: String,
+        val count: Int,
+        val lastUsed: Long
+    )
+    
+    // inputKey -> (value -> bekleyen kullanım), ekleme sırası korunur
+    private val pending = LinkedHashMap<String, LinkedHashMap<String, PendingUse>>()
+    
+    private var pendingCount = 0
+    
+    val size: Int
+        @Synchronized get() = pendingCount
+    
+    fun isEmpty(): Boolean = size == 0
+    
+    /**
+     * Record a use, returns true if the buffer was empty before (a flush should be scheduled)
+     */
+    @Synchronized
+    fun add(inputKey: String, value: String, usedAt: Long = System.currentTimeMillis()): Boolean {
+        val wasEmpty = pendingCount == 0
+        val values = pending.getOrPut(inputKey) { LinkedHashMap() }
+        val existing = values[value]
+        if (existing == null) {
+            values[value] = PendingUse(inputKey, value, 1, usedAt)
+            pendingCount++
+        } else {
+            values[value] = existing.copy(count = existing.count + 1, lastUsed = maxOf(existing.lastUsed, usedAt))
+        }
+        return wasEmpty
+    }
+    
+    /**
+     * Drop buffered uses of a value, e.g. when the user deletes it before it was flushed
+     */
+    @Synchronized
+    fun remove(inputKey: String, value: String) {
+        val values = pending[inputKey] ?: return
+        if (values.remove(value) != null) {
+            pendingCount--
+            if (values.isEmpty()) pending.remove(inputKey)
+        }
+    }
+    
+    /**
+     * Buffered uses of one key that are not written yet
+     */
+    @Synchronized
+    fun pendingFor(inputKey: String): List<PendingUse> {
+        return pending[inputKey]?.values?.toList().orEmpty()
+    }
+    
+    @Synchronized
+    fun removeKey(inputKey: String) {
+        pending.remove(inputKey)?.let { pendingCount -= it.size }
+    }
+    
+    @Synchronized
+    fun clear() {
+        pending.clear()
+        pendingCount = 0
+    }
+    
+    /**
+     * Take every buffered use and empty the buffer
+     */
+    @Synchronized
+    fun drain(): List<PendingUse> {
+        if (pendingCount == 0) return emptyList()
+        val result = ArrayList<PendingUse>(pendingCount)
+        pending.values.forEach { result.addAll(it.values) }
+        clear()
+        return result
+    }
+}
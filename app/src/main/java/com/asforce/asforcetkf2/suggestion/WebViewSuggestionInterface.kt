@@ -5,6 +5,8 @@ import android.os.Looper
 import android.view.View
 import android.webkit.JavascriptInterface
 import android.webkit.WebView
+import com.asforce.asforcetkf2.webview.PageChannel
+import com.asforce.asforcetkf2.webview.ScriptResultDecoder
 import timber.log.Timber
 
 /**
@@ -12,7 +14,9 @@ import timber.log.Timber
  */
 class WebViewSuggestionInterface(
     private val suggestionManager: SuggestionManager,
-    private val webView: WebView
+    private val webView: WebView,
+    // Köprüden gelen odak olayları kanal olaylarıyla aynı yoldan işlenir (öneri + klavye) - main thread
+    private val onPageEvent: ((PageChannel.PageEvent) -> Unit)? = null
 ) {
     
     private val mainHandler = Handler(Looper.getMainLooper())
@@ -21,6 +25,7 @@ class WebViewSuggestionInterface(
     
     /**
      * Called when an input field is focused in the WebView
+     * Köprü yolu - sayfa kanalı bağlı değilken kullanılır, güncel değer ayrıca sayfadan okunur
      */
     @JavascriptInterface
     fun onInputFocused(inputKey: String) {
@@ -33,75 +38,27 @@ class WebViewSuggestionInterface(
         mainHandler.post {
             // Check if webView is still active and visible
             if (webView.visibility == View.VISIBLE) {
-                // Görünürlüğü yazdır
-                Timber.d("[SUGGESTION_JS] WebView görünür durumda, önerileri göstermeye çalışıyoruz")
                 // Get active element info to ensure suggestions are relevant
                 webView.evaluateJavascript(
                     """
                     (function() {
                         var activeElement = document.activeElement;
                         if (activeElement && (activeElement.tagName === 'INPUT' || activeElement.tagName === 'TEXTAREA')) {
-                            // Get current value to show filtered suggestions
-                            var value = activeElement.value || '';
-                            
-                            return JSON.stringify({
-                                tagName: activeElement.tagName,
-                                value: value,
-                                id: activeElement.id || '',
-                                name: activeElement.name || ''
-                            });
+                            return activeElement.value || '';
                         }
-                        return '{}';
+                        return '';
                     })();
                     """,
                     { result ->
                         try {
-                            // Clean the result string
-                            val jsonStr = result.trim().removeSurrounding("\"").replace("\\\"", "\"").replace("\\\\", "\\")
-                            val json = org.json.JSONObject(jsonStr)
-                            
-                            Timber.d("[SUGGESTION_JS] Active element info: $jsonStr")
-                            
-                            // Update current value from active element
-                            if (json.has("value")) {
-                                currentInputValue = json.getString("value")
-                                Timber.d("[SUGGESTION_JS] Current input value: $currentInputValue")
-                            }
-                            
-                            // Öneri gösterme stratejisini iyileştir - 5 kez deneme yap
-                            // İlk deneme: Tüm önerileri almak için boş filtreyle göster
-                            Timber.d("[SUGGESTION_JS] Deneme 1/5: Tüm önerileri gösteriyoruz")
-                            suggestionManager.showSuggestions(webView, currentInputKey, "")
-                            
-                            // İkinci deneme: Güncel değere göre filtrele
-                            mainHandler.postDelayed({
-                                Timber.d("[SUGGESTION_JS] Deneme 2/5: Filtrelenmiş önerileri gösteriyoruz")
-                                suggestionManager.showSuggestions(webView, currentInputKey, currentInputValue)
-                                
-                                // Üçüncü deneme: Daha uzun bir gecikmeyle tekrar dene
-                                mainHandler.postDelayed({
-                                    Timber.d("[SUGGESTION_JS] Deneme 3/5: Konum ayarlama için son çağrı")
-                                    suggestionManager.showSuggestions(webView, currentInputKey, currentInputValue)
-                                    
-                                    // Dördüncü deneme: Daha uzun bir gecikmeyle tekrar dene
-                                    mainHandler.postDelayed({
-                                        Timber.d("[SUGGESTION_JS] Deneme 4/5: Ek final çağrı")
-                                        suggestionManager.showSuggestions(webView, currentInputKey, currentInputValue)
-                                        
-                                        // Beşinci ve son deneme: En uzun gecikmeyle
-                                        mainHandler.postDelayed({
-                                            Timber.d("[SUGGESTION_JS] Deneme 5/5: Son şans deneme")
-                                            suggestionManager.saveSuggestion(currentInputKey, "Test Öneri") // Test verisi ekle
-                                            suggestionManager.showSuggestions(webView, currentInputKey, "")
-                                        }, 500)
-                                    }, 300)
-                                }, 200)
-                            }, 100)
+                            // Sonuç JSON dizesi olarak gelir - tek geçişte çözülür
+                            currentInputValue = ScriptResultDecoder.decodeString(result) ?: ""
+                            showSuggestionsWithRetries()
                         } catch (e: Exception) {
                             Timber.e(e, "[SUGGESTION_JS] Error processing element info")
                             
                             // Still show suggestions with empty filter as fallback
-                            suggestionManager.showSuggestions(webView, currentInputKey, "")
+                            suggestionManager.showSuggestions(webView, currentInputKey, "", refresh = true)
                             
                             // Try again after a delay
                             mainHandler.postDelayed({
@@ -116,6 +73,59 @@ class WebViewSuggestionInterface(
         }
     }
     
+    /**
+     * Focus reported by the input tracking script while the page channel is not connected
+     * Sayfa yüklenirken veya WebMessagePort desteklenmeyen sürümlerde kanal yerine bu köprü çağrılır;
+     * olay kanal olayına çevrilir ki klavye de açılsın
+     */
+    @JavascriptInterface
+    fun onInputFocusedInPage(inputKey: String, inputValue: String, tagName: String, inputType: String) {
+        val event = PageChannel.PageEvent.InputFocused(inputKey, inputValue, tagName, inputType.lowercase())
+        mainHandler.post {
+            onPageEvent?.invoke(event) ?: onInputFocusedWithValue(event.key, event.value)
+        }
+    }
+    
+    /**
+     * Focus event pushed over the page channel - değer olayla birlikte gelir, sayfaya geri sorulmaz
+     * Main thread'de çağrılır
+     */
+    fun onInputFocusedWithValue(inputKey: String, inputValue: String) {
+        currentInputKey = sanitizeKey(inputKey)
+        currentInputValue = inputValue
+        if (webView.visibility == View.VISIBLE) {
+            showSuggestionsWithRetries()
+        }
+    }
+    
+    /**
+     * Öneri gösterme stratejisi - popup konumu oturana kadar artan gecikmelerle 5 deneme
+     */
+    private fun showSuggestionsWithRetries() {
+        // İlk deneme: Tüm önerileri almak için boş filtreyle göster
+        suggestionManager.showSuggestions(webView, currentInputKey, "", refresh = true)
+        
+        // İkinci deneme: Güncel değere göre filtrele
+        mainHandler.postDelayed({
+            suggestionManager.showSuggestions(webView, currentInputKey, currentInputValue)
+            
+            // Üçüncü deneme: Daha uzun bir gecikmeyle tekrar dene
+            mainHandler.postDelayed({
+                suggestionManager.showSuggestions(webView, currentInputKey, currentInputValue)
+                
+                // Dördüncü deneme: Daha uzun bir gecikmeyle tekrar dene
+                mainHandler.postDelayed({
+                    suggestionManager.showSuggestions(webView, currentInputKey, currentInputValue)
+                    
+                    // Beşinci ve son deneme: En uzun gecikmeyle
+                    mainHandler.postDelayed({
+                        suggestionManager.showSuggestions(webView, currentInputKey, "")
+                    }, 500)
+                }, 300)
+            }, 200)
+        }, 100)
+    }
+    
     /**
      * Called when input text changes in the WebView
      */
@@ -124,10 +134,10 @@ class WebViewSuggestionInterface(
         currentInputKey = sanitizeKey(inputKey)
         currentInputValue = inputValue
         
-        // Update suggestions immediately on UI thread
+        // Update suggestions on UI thread - sorgu akışı hızlı yazımda araya giren karakterleri birleştirir
         mainHandler.post {
             if (webView.visibility == View.VISIBLE) {
-                // Show updated suggestions without any delay
+                // Debounced, only the latest value is computed and shown
                 suggestionManager.showSuggestions(webView, currentInputKey, currentInputValue)
             }
         }
@@ -28,7 +28,7 @@ import androidx.appcompat.widget.Toolbar
 import com.asforce.asforcetkf2.R
 import com.asforce.asforcetkf2.util.DataHolder
 import com.asforce.asforcetkf2.util.SimpleTextWatcher
-import com.asforce.asforcetkf2.util.WebViewPool
+import com.asforce.asforcetkf2.webview.WebViewPool
 import com.google.android.material.textfield.TextInputEditText
 import com.google.android.material.textfield.TextInputLayout
 import java.util.regex.Matcher
@@ -829,7 +829,7 @@ class LeakageControlActivity : AppCompatActivity() {
                     parent.removeView(view)
                 }
                 
-                // Havuza geri verelim
+                // Havuza bildir - kontrol ekranı WebView'i yeniden kullanılmaz, yok edilir
                 webViewPool.releaseWebView(view)
                 webView = null
             }
@@ -118,4 +118,24 @@ class FormDialogFragment(private val webView: WebView?) : DialogFragment() {
             ViewGroup.LayoutParams.WRAP_CONTENT
         )
     }
-} 
\ No newline at end of file
+
+    companion object {
+        /**
+         * Form values keyed by the input name prefix they fill on the page
+         * Betik paketindeki panel.fillMeasurements'a argüman olarak gönderilir
+         */
+        fun measurementValues(
+            continuity: String,
+            extremeProtection: String,
+            voltage: String,
+            findings: String,
+            cycleImpedance: String
+        ): Map<String, String> = linkedMapOf(
+            "CycleImpedance" to cycleImpedance,
+            "Continuity" to continuity,
+            "ExtremeIncomeProtection" to extremeProtection,
+            "Voltage" to voltage,
+            "Findings" to findings
+        )
+    }
+}
@@ -26,15 +26,20 @@ import android.widget.LinearLayout
 import android.widget.Toast
 import androidx.appcompat.app.AlertDialog
 import androidx.appcompat.app.AppCompatActivity
+import androidx.lifecycle.lifecycleScope
 import com.asforce.asforcetkf2.R
 import com.asforce.asforcetkf2.ui.panel.kotlin.FormDialogFragment
 import com.asforce.asforcetkf2.util.DataHolder
 import com.asforce.asforcetkf2.util.SimpleTextWatcher
-import com.asforce.asforcetkf2.util.WebViewPool
+import com.asforce.asforcetkf2.webview.ScriptResultDecoder
+import com.asforce.asforcetkf2.webview.ScriptTimeoutException
+import com.asforce.asforcetkf2.webview.WebViewPool
+import com.asforce.asforcetkf2.webview.callScriptDecoded
 import com.google.android.material.textfield.TextInputEditText
 import com.google.android.material.textfield.TextInputLayout
 import java.util.HashMap
 import java.util.regex.Pattern
+import kotlinx.coroutines.launch
 
 /**
  * Pano Fonksiyon Kontrolü ekranı
@@ -1034,60 +1039,30 @@ class PanelControlActivity : AppCompatActivity(), FormDialogFragment.FormDialogL
         editor.putString("cycleImpedance", cycleImpedance)
         editor.apply {}
         
-        // JavaScript ile form alanlarını doldur
-        val jsCode = """
-            (function() {
-                // CycleImpedance için
-                var cycleImpedances = document.querySelectorAll('[name^="CycleImpedance"]');
-                cycleImpedances.forEach(function(input) {
-                    input.value = '$cycleImpedance';
-                    input.dispatchEvent(new Event('input', { bubbles: true }));
-                });
-
-                // Continuity için
-                var continuities = document.querySelectorAll('[name^="Continuity"]');
-                continuities.forEach(function(input) {
-                    input.value = '$continuity';
-                    input.dispatchEvent(new Event('input', { bubbles: true }));
-                });
-
-                // ExtremeIncomeProtection için
-                var extremeProtections = document.querySelectorAll('[name^="ExtremeIncomeProtection"]');
-                extremeProtections.forEach(function(input) {
-                    input.value = '$extremeProtection';
-                    input.dispatchEvent(new Event('input', { bubbles: true }));
-                });
-
-                // Voltage için
-                var voltages = document.querySelectorAll('[name^="Voltage"]');
-                voltages.forEach(function(input) {
-                    input.value = '$voltage';
-                    input.dispatchEvent(new Event('input', { bubbles: true }));
-                });
-
-                // Findings için
-                var findings = document.querySelectorAll('[name^="Findings"]');
-                findings.forEach(function(input) {
-                    input.value = '$findings';
-                    input.dispatchEvent(new Event('input', { bubbles: true }));
-                });
-
-                return 'completed';
-            })();
-        """.trimIndent()
-        
         // WebView null kontrolü
-        if (webView == null) {
+        val view = webView
+        if (view == null) {
             Log.e(TAG, "WebView is null in onFormSubmitted")
             Toast.makeText(this, "Form doldurulamadı, lütfen sayfayı yeniden yükleyin", Toast.LENGTH_SHORT).show()
             return
         }
         
-        webView?.evaluateJavascript(jsCode) { result ->
-            if (result.contains("completed")) {
-                Toast.makeText(this, "Form dolduruldu", Toast.LENGTH_SHORT).show()
+        // Form alanlarını betik paketindeki panel.fillMeasurements ile doldur - değerler JSON argümanı olarak gider
+        lifecycleScope.launch {
+            val status = try {
+                view.callScriptDecoded(
+                    "panel.fillMeasurements",
+                    FormDialogFragment.measurementValues(continuity, extremeProtection, voltage, findings, cycleImpedance)
+                ) {
+                    ScriptResultDecoder.readFlatObject(it)["status"]
+                }
+            } catch (e: ScriptTimeoutException) {
+                null
+            }
+            if (status == "completed") {
+                Toast.makeText(this@PanelControlActivity, "Form dolduruldu", Toast.LENGTH_SHORT).show()
             } else {
-                Toast.makeText(this, "Form doldurulurken bir hata oluştu", Toast.LENGTH_SHORT).show()
+                Toast.makeText(this@PanelControlActivity, "Form doldurulurken bir hata oluştu", Toast.LENGTH_SHORT).show()
             }
         }
     }
@@ -1425,7 +1400,7 @@ class PanelControlActivity : AppCompatActivity(), FormDialogFragment.FormDialogL
             // Timer'ı durdur
             stopCopyButtonMonitor()
             
-            // WebView'i havuza geri ver
+            // WebView'i bırak
             val webViewInstance = webView
             if (webViewInstance != null) {
                 // WebView içeriğini temizleyelim
@@ -1440,7 +1415,7 @@ class PanelControlActivity : AppCompatActivity(), FormDialogFragment.FormDialogL
                     parent.removeView(webViewInstance)
                 }
                 
-                // Havuza geri verelim
+                // Havuza bildir - kontrol ekranı WebView'i yeniden kullanılmaz, yok edilir
                 webViewPool.releaseWebView(webViewInstance)
                 webView = null
             }
@@ -27,15 +27,21 @@ import android.widget.TextView
 import android.widget.Toast
 import androidx.appcompat.app.AlertDialog
 import androidx.appcompat.app.AppCompatActivity
+import androidx.lifecycle.lifecycleScope
 import com.asforce.asforcetkf2.R
 import com.asforce.asforcetkf2.ui.panel.kotlin.FormDialogFragment
 import com.asforce.asforcetkf2.util.DataHolder
 import com.asforce.asforcetkf2.util.SimpleTextWatcher
-import com.asforce.asforcetkf2.util.WebViewPool
+import com.asforce.asforcetkf2.webview.DocumentStartScriptRegistry
+import com.asforce.asforcetkf2.webview.PageChannel
+import com.asforce.asforcetkf2.webview.ScriptTimeoutException
+import com.asforce.asforcetkf2.webview.WebViewPool
+import com.asforce.asforcetkf2.webview.callScript
 import com.google.android.material.textfield.TextInputEditText
 import com.google.android.material.textfield.TextInputLayout
 import java.util.HashMap
 import java.util.regex.Pattern
+import kotlinx.coroutines.launch
 
 /**
  * Pano Fonksiyon ekranı
@@ -64,6 +70,7 @@ class PanoFonksiyonActivity : AppCompatActivity(), FormDialogFragment.FormDialog
     // WebView
     private var webView: WebView? = null
     private lateinit var webViewPool: WebViewPool
+    private var pageChannel: PageChannel? = null
     
     // Sütun genişlikleri ve ayarlar
     private val columnWidths = HashMap<String, String>()
@@ -303,6 +310,7 @@ class PanoFonksiyonActivity : AppCompatActivity(), FormDialogFragment.FormDialog
                     
                     try {
                         applyColumnWidths()
+                        pageChannel?.connect(url)
                         
                         // URL'yi kaydet
                         val prefs = getSharedPreferences("PanoFonksiyonPrefs", Context.MODE_PRIVATE)
@@ -346,15 +354,24 @@ class PanoFonksiyonActivity : AppCompatActivity(), FormDialogFragment.FormDialog
                         // Kopyalama butonları için olay dinleyicisi ekle
                         val copyButtonListenerJS = """
                             (function() {
+                                // Genişlik isteği - aynı anda gelen istekler kanalda tek olaya birleşir
+                                function requestColumnWidths() {
+                                    if (window.TKFChannel && window.TKFChannel.connected) {
+                                        window.TKFChannel.emit('reapplyColumnWidths', null, 'reapplyColumnWidths');
+                                    } else {
+                                        window.androidColumnWidthCallback.reapplyColumnWidths();
+                                    }
+                                }
+                                
                                 // Kopyalama butonuna tıklandığında çalışacak fonksiyon
                                 function handleCopyClick() {
                                     console.log('Kopyalama işlemi sonrası genişlik düzenleme planlandı');
                                     // 400ms sonra sütun genişliklerini uygula
                                     setTimeout(function() {
-                                        window.androidColumnWidthCallback.reapplyColumnWidths();
+                                        requestColumnWidths();
                                         // 200ms sonra ikinci kez dene
                                         setTimeout(function() {
-                                            window.androidColumnWidthCallback.reapplyColumnWidths();
+                                            requestColumnWidths();
                                         }, 200);
                                     }, 400);
                                 }
@@ -427,6 +444,9 @@ class PanoFonksiyonActivity : AppCompatActivity(), FormDialogFragment.FormDialog
                 
                 override fun onPageStarted(view: WebView, url: String, favicon: android.graphics.Bitmap?) {
                     super.onPageStarted(view, url, favicon)
+                    // Yeni belge - önceki sayfanın kanalı kapatılır
+                    pageChannel?.onDocumentStarted()
+                    
                     // WebView kontrolü
                     if (webView == null) {
                         Log.w(TAG, "WebView is null in onPageStarted, skipping operations")
@@ -446,6 +466,19 @@ class PanoFonksiyonActivity : AppCompatActivity(), FormDialogFragment.FormDialog
                     handler.post { applyColumnWidths() }
                 }
             }, "androidColumnWidthCallback")
+            
+            // Sayfa olayları mesaj kanalıyla gelir; kanal bağlı değilse yukarıdaki köprü kullanılır
+            pageChannel?.close()
+            if (PageChannel.isSupported) {
+                DocumentStartScriptRegistry.enable(this, DocumentStartScriptRegistry.PAGE_CHANNEL)
+                pageChannel = PageChannel(this).apply {
+                    onEvent = { event ->
+                        if (event is PageChannel.PageEvent.Custom && event.name == "reapplyColumnWidths") {
+                            applyColumnWidths()
+                        }
+                    }
+                }
+            }
         }
     }
 
@@ -610,41 +643,18 @@ class PanoFonksiyonActivity : AppCompatActivity(), FormDialogFragment.FormDialog
         editor.putString("cycleImpedance", cycleImpedance)
         editor.apply()
         
-        // JavaScript ile form alanlarını doldur
-        val jsCode = """
-            var cycleImpedances = document.querySelectorAll('[name^="CycleImpedance"]');
-            cycleImpedances.forEach(function(input) {
-                input.value = '$cycleImpedance';
-                input.dispatchEvent(new Event('input', { bubbles: true }));
-            });
-
-            var continuities = document.querySelectorAll('[name^="Continuity"]');
-            continuities.forEach(function(input) {
-                input.value = '$continuity';
-                input.dispatchEvent(new Event('input', { bubbles: true }));
-            });
-
-            var extremeProtections = document.querySelectorAll('[name^="ExtremeIncomeProtection"]');
-            extremeProtections.forEach(function(input) {
-                input.value = '$extremeProtection';
-                input.dispatchEvent(new Event('input', { bubbles: true }));
-            });
-
-            var voltages = document.querySelectorAll('[name^="Voltage"]');
-            voltages.forEach(function(input) {
-                input.value = '$voltage';
-                input.dispatchEvent(new Event('input', { bubbles: true }));
-            });
-
-            var findings = document.querySelectorAll('[name^="Findings"]');
-            findings.forEach(function(input) {
-                input.value = '$findings';
-                input.dispatchEvent(new Event('input', { bubbles: true }));
-            });
-        """.trimIndent()
-
-        // JavaScript kodunu çalıştır
-        webView?.evaluateJavascript(jsCode, null)
+        // Form alanlarını betik paketindeki panel.fillMeasurements ile doldur - değerler JSON argümanı olarak gider
+        val view = webView ?: return
+        lifecycleScope.launch {
+            try {
+                view.callScript(
+                    "panel.fillMeasurements",
+                    FormDialogFragment.measurementValues(continuity, extremeProtection, voltage, findings, cycleImpedance)
+                )
+            } catch (e: ScriptTimeoutException) {
+                Log.w(TAG, "Form fill did not answer in time", e)
+            }
+        }
     }
 
     private fun applyColumnWidths() {
@@ -864,7 +874,10 @@ class PanoFonksiyonActivity : AppCompatActivity(), FormDialogFragment.FormDialog
     
     override fun onDestroy() {
         try {
-            // WebView'i havuza geri ver
+            pageChannel?.close()
+            pageChannel = null
+            
+            // WebView'i bırak
             webView?.let { view ->
                 // WebView içeriğini temizleyelim
                 view.stopLoading()
@@ -878,7 +891,7 @@ class PanoFonksiyonActivity : AppCompatActivity(), FormDialogFragment.FormDialog
                     parent.removeView(view)
                 }
                 
-                // Havuza geri verelim
+                // Havuza bildir - kontrol ekranı WebView'i yeniden kullanılmaz, yok edilir
                 webViewPool.releaseWebView(view)
                 webView = null
             }
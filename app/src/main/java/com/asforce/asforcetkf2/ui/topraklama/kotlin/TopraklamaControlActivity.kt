@@ -27,12 +27,18 @@ import android.widget.LinearLayout
 import android.widget.Toast
 import androidx.appcompat.app.AlertDialog
 import androidx.appcompat.app.AppCompatActivity
+import androidx.lifecycle.lifecycleScope
 import com.asforce.asforcetkf2.R
 import com.asforce.asforcetkf2.util.DataHolder
 import com.asforce.asforcetkf2.util.SimpleTextWatcher
-import com.asforce.asforcetkf2.util.WebViewPool
+import com.asforce.asforcetkf2.webview.ScriptResultDecoder
+import com.asforce.asforcetkf2.webview.ScriptTimeoutException
+import com.asforce.asforcetkf2.webview.WebViewPool
+import com.asforce.asforcetkf2.webview.callScriptDecoded
+import com.asforce.asforcetkf2.webview.cancelScripts
 import com.google.android.material.textfield.TextInputEditText
 import com.google.android.material.textfield.TextInputLayout
+import kotlinx.coroutines.launch
 import java.util.HashMap
 import java.util.Random
 import java.util.regex.Pattern
@@ -580,226 +586,39 @@ class TopraklamaControlActivity : AppCompatActivity() {
         // Daha önce doldurma işlemi yapılıp yapılmadığını haber ver
         Toast.makeText(this, "Form doldurma işlemi başlatılıyor...", Toast.LENGTH_SHORT).show()
 
-        // Form doldurma işlemi başlatılıyor
-        
-        // Form alanlarını kontrol et ve doldurulabilir satırları bul
-        val findFillableRowsScript = """
-        (function() {
-        try {
-        console.log('Analyzing form fields...');
-        var tagNameInputs = document.querySelectorAll('input[name^="TagName"]');
-        console.log('Total TagName fields found: ' + tagNameInputs.length);
-        
-        // Önce tüm MeasuredValue alanlarını kontrol edelim
-        var allMeasuredValueInputs = document.querySelectorAll('input[name^="MeasuredValue"]');
-        console.log('Total MeasuredValue fields found: ' + allMeasuredValueInputs.length);
-        
-        // Yük sayfadaki tüm input alanlarını da kontrol edelim
-        var allInputs = document.querySelectorAll('input');
-        console.log('Total input fields on page: ' + allInputs.length);
-        
-        // Input alanlarının adlarını kontrol edelim
-        var inputNames = [];
-        for(var i = 0; i < Math.min(allInputs.length, 20); i++) {
-        inputNames.push(allInputs[i].name);
-        }
-        console.log('Sample input names: ' + inputNames.join(', '));
-        
-        var fillableRows = [];
-        
-        for(var i = 0; i < tagNameInputs.length; i++) {
-        var tagInput = tagNameInputs[i];
-        var indexMatch = tagInput.name.match(/\d+$/);
-        
-        if(indexMatch) {
-        var rowIndex = indexMatch[0];
-        var measureInput = document.querySelector('input[name="MeasuredValue' + rowIndex + '"]');
-        
-        // Kontrol amaçlı log ekleyelim
-        console.log('Row ' + rowIndex + ', MeasuredValue input exists: ' + (measureInput ? 'yes' : 'no'));
-        
-        // Her iki alanın değerlerini kontrol et
-        var tagValue = tagInput.value;
-            var measureValue = measureInput ? measureInput.value : '';
-                
-                console.log('Row ' + rowIndex + ': TagName="' + tagValue + '", MeasuredValue="' + measureValue + '"');
-                
-                // Değiştirilmiş mantık: Her satır için her zaman fillableRows listesine ekle
-                // Bu şekilde tüm satırları görebiliriz
-                var fillableFields = {
-                rowIndex: rowIndex,
-                fillTagName: (!tagValue || tagValue === '' || tagValue === '---'),
-                // "0" değerini de boş olarak kabul et
-                fillMeasuredValue: (!measureValue || measureValue === '' || measureValue === '---' || measureValue === '0')
-                };
-                            
-                            console.log('Processing row ' + rowIndex + ': Tag=' + fillableFields.fillTagName + ', Measure=' + fillableFields.fillMeasuredValue);
-                            fillableRows.push(fillableFields);
-                        }
-                    }
-                    
-                    console.log('Total fillable rows found: ' + fillableRows.length);
-                    return JSON.stringify(fillableRows);
-                } catch(e) {
-                    console.error('Error in findFillableRowsScript:', e);
-                    return JSON.stringify({error: e.toString()});
+        // Boş satırlar betik paketindeki grounding.fillRows ile tek çağrıda bulunup doldurulur
+        // Etiket ve aralık JSON argümanı olarak gider - tırnak içeren etiketler betiği bozmaz
+        val view = webView ?: return
+        lifecycleScope.launch {
+            try {
+                val fillResult = view.callScriptDecoded("grounding.fillRows", tagName, minValue, maxValue) {
+                    ScriptResultDecoder.readFlatObject(it)
                 }
-            })();
-        """.trimIndent()
 
-        webView?.evaluateJavascript(findFillableRowsScript) { result ->
-            
-            if (result != null && result != "null" && result != "\"\"" && !result.contains("error")) {
-                try {
-                    // Remove quotes from the JSON string result
-                    val cleanResult = result.replace("^\"|\"$".toRegex(), "")
-
-                    // Form alanlarını doldur, seçici olarak uygun alanları doldur
-                    val fillFormFieldsScript = """
-                        (function() {
-                            try {
-                                console.log('Starting to fill form fields');
-                                var rows = JSON.parse('$cleanResult');
-                                console.log('Rows to fill: ' + rows.length);
-                                var filledTagCount = 0;
-                                var filledValueCount = 0;
-                                
-                                // Önce sayım ekleyelim
-                                var measureValueInputCount = document.querySelectorAll('input[name^="MeasuredValue"]').length;
-                                console.log('MeasuredValue input count (before filling): ' + measureValueInputCount);
-                                
-                                // Örnek olarak birkaç input alanının adını kontrol edelim
-                                var allInputs = document.querySelectorAll('input');
-                                var inputNames = [];
-                                for(var i = 0; i < Math.min(allInputs.length, 30); i++) {
-                                    if(allInputs[i].name) {
-                                        inputNames.push(allInputs[i].name);
-                                    }
-                                }
-                                console.log('Input names sample: ' + inputNames.join(', '));
-                                
-                                for(var i = 0; i < rows.length; i++) {
-                                    var row = rows[i];
-                                    var rowIndex = row.rowIndex;
-                                    
-                                    // Eğer TagName alanı doldurulabilir ise
-                                    if(row.fillTagName) {
-                                        var tagInput = document.querySelector('input[name="TagName' + rowIndex + '"]');
-                                        if(tagInput) {
-                                            console.log('Setting TagName' + rowIndex + ' to "$tagName"');
-                                            tagInput.value = '$tagName';
-                                            tagInput.dispatchEvent(new Event('input', { bubbles: true }));
-                                            tagInput.dispatchEvent(new Event('change', { bubbles: true }));
-                                            filledTagCount++;
-                                        }
-                                    }
-                                    
-                                    // MeasuredValue alanını doldur (sadece boşsa)
-                                    // Önce bilinen adı dene
-                                    var valueInput = document.querySelector('input[name="MeasuredValue' + rowIndex + '"]');
-                                    
-                                    // Eğer bulunamadıysa alternatif yazımları dene
-                                    if(!valueInput) {
-                                        valueInput = document.querySelector('input[name="measuredValue' + rowIndex + '"]'); // küçük harf versiyonu
-                                    }
-                                    if(!valueInput) {
-                                        valueInput = document.querySelector('input[name="measured_value' + rowIndex + '"]'); // alt çizgi versiyonu
-                                    }
-                                    
-                                    // Düzenlenebilir text alanını da dene
-                                    if(!valueInput) {
-                                        valueInput = document.querySelector('[name="MeasuredValue' + rowIndex + '"]');
-                                    }
-                                    
-                                    // Gerçek ID'ye göre bulmayı dene
-                                    if(!valueInput) {
-                                        // TagName'in yanındaki sütunda olabilir
-                                        var tagElement = document.querySelector('input[name="TagName' + rowIndex + '"]');
-                                        if(tagElement && tagElement.parentElement && tagElement.parentElement.nextElementSibling) {
-                                            var nextCell = tagElement.parentElement.nextElementSibling;
-                                            valueInput = nextCell.querySelector('input');
-                                            
-                                            if(valueInput) {
-                                                console.log('Found MeasuredValue by DOM traversal, name=' + valueInput.name);
-                                            }
-                                        }
-                                    }
-                                    
-                                    // Sadece boş olan MeasuredValue alanlarını doldur
-                                    if(valueInput && row.fillMeasuredValue) {
-                                        var currentValue = valueInput.value;
-                                        // Eğer değer boşsa veya 0 ise doldur
-                                        if(!currentValue || currentValue === '' || currentValue === '---' || currentValue === '0') {
-                                            var randomValue = Math.random() * ($maxValue - $minValue) + $minValue;
-                                            randomValue = Math.round(randomValue * 100) / 100;
-                                            var formattedValue = randomValue.toFixed(2);
-                                            console.log('Setting MeasuredValue' + rowIndex + ' to ' + formattedValue + ' (input name: ' + valueInput.name + ')');
-                                            
-                                            valueInput.value = formattedValue;
-                                            valueInput.dispatchEvent(new Event('input', { bubbles: true }));
-                                            valueInput.dispatchEvent(new Event('change', { bubbles: true }));
-                                            filledValueCount++;
-                                        } else {
-                                            console.log('Skipping MeasuredValue' + rowIndex + ' because it already has value: ' + currentValue);
-                                        }
-                                    } else if(valueInput) {
-                                        console.log('Skipping MeasuredValue' + rowIndex + ' as per fillable property');
-                                    } else {
-                                        console.log('Could not find MeasuredValue input for row ' + rowIndex);
-                                    }
-                                }
-                                
-                                return JSON.stringify({
-                                    status: 'success',
-                                    filledTagCount: filledTagCount,
-                                    filledValueCount: filledValueCount
-                                });
-                            } catch(e) {
-                                console.error('Error in fillFormFieldsScript:', e);
-                                return JSON.stringify({error: e.toString()});
-                            }
-                        })();
-                    """.trimIndent()
-
-                    webView?.evaluateJavascript(fillFormFieldsScript) { result ->
-                                    
-                        try {
-                            // Temizlenmiş sonuç al
-                            val cleanFillResult = result.trim().replace("^\"|\"$".toRegex(), "").replace("\\\"", "\"").replace("\\\\", "\\")
-                            
-                            // JSON olarak işle
-                            val jsonResult = org.json.JSONObject(cleanFillResult)
-                            
-                            // Hata durumunu kontrol et
-                            if (jsonResult.has("error")) {
-                                val errorMessage = jsonResult.optString("error", "Bilinmeyen hata")
-                                    Toast.makeText(this, "Form doldurma hatası: $errorMessage", Toast.LENGTH_SHORT).show()
-                                return@evaluateJavascript
-                            }
-                            
-                            // Başarılı durum için özet bilgileri al
-                            val filledTagCount = jsonResult.optInt("filledTagCount", 0)
-                            val filledValueCount = jsonResult.optInt("filledValueCount", 0)
-                            
-                            // Sonucu bildir
-                            val successMessage = if (filledTagCount > 0 || filledValueCount > 0) {
-                                "Form başarıyla dolduruldu: $filledTagCount etiket, $filledValueCount ölçüm değeri"
-                            } else {
-                                "Doldurulacak form alanı bulunamadı"
-                            }
-                            
-                            Toast.makeText(this, successMessage, Toast.LENGTH_SHORT).show()
-                        } catch (e: Exception) {
-                            Toast.makeText(this, "Form dolduruldu, ancak sonuç işlenemedi", Toast.LENGTH_SHORT).show()
-                        }
-                    }
-                } catch (e: Exception) {
-                    // Error handling
-                    Toast.makeText(this, "Form doldurma hatası: ${e.message}", Toast.LENGTH_SHORT).show()
+                // Hata durumunu kontrol et
+                if (fillResult.containsKey("error")) {
+                    val errorMessage = fillResult["error"]?.toString() ?: "Bilinmeyen hata"
+                    Toast.makeText(this@TopraklamaControlActivity, "Form doldurma hatası: $errorMessage", Toast.LENGTH_SHORT).show()
+                    return@launch
                 }
-            } else {
-                // No empty rows found or error occurred
-                Toast.makeText(this, "Doldurulacak boş satır bulunamadı", Toast.LENGTH_SHORT).show()
+
+                // Başarılı durum için özet bilgileri al
+                val filledTagCount = (fillResult["filledTagCount"] as? Number)?.toInt() ?: 0
+                val filledValueCount = (fillResult["filledValueCount"] as? Number)?.toInt() ?: 0
+
+                // Sonucu bildir
+                val successMessage = if (filledTagCount > 0 || filledValueCount > 0) {
+                    "Form başarıyla dolduruldu: $filledTagCount etiket, $filledValueCount ölçüm değeri"
+                } else {
+                    "Doldurulacak form alanı bulunamadı"
+                }
+
+                Toast.makeText(this@TopraklamaControlActivity, successMessage, Toast.LENGTH_SHORT).show()
+            } catch (e: IllegalStateException) {
+                Toast.makeText(this@TopraklamaControlActivity, "Form dolduruldu, ancak sonuç işlenemedi", Toast.LENGTH_SHORT).show()
+            } catch (e: ScriptTimeoutException) {
+                // Sayfa yanıt vermedi - kullanıcı tekrar deneyebilir
+                Toast.makeText(this@TopraklamaControlActivity, "Sayfa yanıt vermiyor, lütfen tekrar deneyin", Toast.LENGTH_SHORT).show()
             }
         }
     }
@@ -854,18 +673,12 @@ class TopraklamaControlActivity : AppCompatActivity() {
             
             try {
                 // Temizlenmiş sonuç al
-                val cleanResult = result.trim().replace("^\"|\"$".toRegex(), "").replace("\\\"", "\"").replace("\\\\", "\\")
-                
-                // JSON olarak işle
-                val jsonResult = org.json.JSONObject(cleanResult)
+                val jsonResult = ScriptResultDecoder.decode(result) { ScriptResultDecoder.readFlatObject(it) }
                 
                 // Hata durumunu kontrol et
-                if (jsonResult.has("error")) {
-                    val errorMessage = jsonResult.optString("error", "Bilinmeyen hata")
-                } else {
+                if (!jsonResult.containsKey("error")) {
                     // "Yok" değeri bulundu mu kontrol et
-                    val yokFound = jsonResult.optBoolean("yokFound", false)
-                    val tpStatusCount = jsonResult.optInt("tpStatusCount", 0)
+                    val yokFound = jsonResult["yokFound"] == true
                     
                     if (yokFound) {
                         // "Yok" değeri bulundu, DataHolder'a kaydet
@@ -976,14 +789,11 @@ class TopraklamaControlActivity : AppCompatActivity() {
             
             try {
                 // Temizlenmiş sonuç al
-                val cleanResult = result.trim().replace("^\"|\"$".toRegex(), "").replace("\\\"", "\"").replace("\\\\", "\\")
-                
-                // JSON olarak işle
-                val jsonResult = org.json.JSONObject(cleanResult)
-                val status = jsonResult.optString("status", "unknown")
+                val jsonResult = ScriptResultDecoder.decode(result) { ScriptResultDecoder.readFlatObject(it) }
+                val status = jsonResult["status"]?.toString() ?: "unknown"
                 
                 if (status == "success") {
-                    val method = jsonResult.optString("method", "unknown")
+                    val method = jsonResult["method"]?.toString() ?: "unknown"
                     val message = if (method == "button_click") {
                         "Değişiklikler kaydedildi"
                     } else {
@@ -991,7 +801,7 @@ class TopraklamaControlActivity : AppCompatActivity() {
                     }
                     Toast.makeText(this, message, Toast.LENGTH_SHORT).show()
                 } else {
-                    val errorMessage = jsonResult.optString("message", "Bilinmeyen hata")
+                    val errorMessage = jsonResult["message"]?.toString() ?: "Bilinmeyen hata"
                     Toast.makeText(this, "Kaydetme başarısız: $errorMessage", Toast.LENGTH_SHORT).show()
                 }
             } catch (e: Exception) {
@@ -1239,9 +1049,9 @@ class TopraklamaControlActivity : AppCompatActivity() {
         """.trimIndent()
 
         webView?.evaluateJavascript(script) { value ->
-            if (value != null && value != "null" && value != "\"\"") {
-                DataHolder.measuredLocation0 = value.replace("^\"|\"$".toRegex(), "")
-            } else {
+            val location = ScriptResultDecoder.decodeString(value)
+            if (!location.isNullOrEmpty()) {
+                DataHolder.measuredLocation0 = location
             }
         }
     }
@@ -1316,6 +1126,9 @@ class TopraklamaControlActivity : AppCompatActivity() {
         try {
             // WebView'i temizle (havuza geri vermek yerine doğrudan temizle)
             webView?.let { view ->
+                // Bekleyen betikleri iptal et
+                view.cancelScripts()
+                
                 // WebView içeriğini temizleyelim
                 view.stopLoading()
                 view.loadUrl("about:blank")
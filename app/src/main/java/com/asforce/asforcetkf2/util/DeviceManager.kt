@@ -22,14 +22,20 @@ import androidx.recyclerview.widget.RecyclerView
 import com.asforce.asforcetkf2.R
 import com.asforce.asforcetkf2.adapter.DeviceAdapter
 import com.asforce.asforcetkf2.model.device.DeviceItem
+import com.asforce.asforcetkf2.webview.JsResultReader
+import com.asforce.asforcetkf2.webview.ScriptResultDecoder
+import com.asforce.asforcetkf2.webview.callScript
+import com.asforce.asforcetkf2.webview.evalDecoded
 import com.google.android.material.appbar.MaterialToolbar
 import com.google.android.material.chip.Chip
 import com.google.android.material.dialog.MaterialAlertDialogBuilder
 import com.google.android.material.floatingactionbutton.FloatingActionButton
 import com.google.android.material.progressindicator.CircularProgressIndicator
 import com.google.android.material.textfield.TextInputEditText
-import org.json.JSONArray
-import org.json.JSONException
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.launch
 import timber.log.Timber
 import java.util.ArrayList
 import java.util.HashSet
@@ -39,7 +45,9 @@ import java.util.HashSet
  */
 class DeviceManager(
     private val context: Context,
-    private val webView: WebView
+    private val webView: WebView,
+    // Diyalog işlemleri bu kapsamda çalışır; aktivite kapanınca iptal edilir
+    private val scope: CoroutineScope
 ) {
     private val TAG = "DeviceManager"
     private val prefs: SharedPreferences = context.getSharedPreferences("DeviceFavorites", Context.MODE_PRIVATE)
@@ -87,39 +95,24 @@ class DeviceManager(
             })()
         """.trimIndent()
 
-        webView.evaluateJavascript(jsCode) { result ->
+        scope.launch {
             try {
+                // Sonuç doğrudan cihaz listesine okunur; büyük listeler arka planda çözülür
+                val devices = webView.evalDecoded(jsCode, name = "device-list") { reader -> readDevices(reader) }
+
                 // Yükleme göstergesini gizle
                 progressIndicator?.visibility = View.GONE
                 
-                // Log verisi
-                Timber.d("Alınan cihaz verisi: $result")
-
-                // Hata kontrolü
-                if (result.startsWith("ERROR:")) {
-                    throw Exception(result.substring(6))
-                }
-
-                // Veriyi temizle
-                val cleaned = result
-                    .replace("^\"|\"$".toRegex(), "") // Tırnak işaretlerini kaldır
-                    .replace("\\\"", "\"")     // Kaçış karakterlerini düzelt
-                    .replace("\\n", "")        // Satır sonlarını kaldır
-                    .trim()
+                Timber.d("Alınan cihaz sayısı: ${devices.size}")
 
-                // Boş veri kontrolü
-                if (cleaned.isEmpty() || cleaned == "null") {
-                    emptyStateView?.visibility = View.VISIBLE
-                    throw Exception("Boş veri döndü")
-                }
-
-                // JSON'a dönüştür
-                val devices = JSONArray(cleaned)
                 // Modern diyalogu güncelle
                 updateDeviceDialog(devices)
 
+            } catch (e: CancellationException) {
+                throw e
             } catch (e: Exception) {
                 Timber.e(e, "Hata: %s", e.message)
+                progressIndicator?.visibility = View.GONE
                 Toast.makeText(
                     context,
                     "Cihaz listesi alınamadı: ${e.message}",
@@ -132,6 +125,43 @@ class DeviceManager(
         }
     }
 
+    /**
+     * Read the device array returned by the page script - çift kayıtlar atlanır
+     */
+    private fun readDevices(reader: JsResultReader): MutableList<DeviceItem> {
+        when (reader.peek()) {
+            JsResultReader.Token.TEXT -> {
+                val text = reader.nextText()
+                throw Exception(if (text.startsWith("ERROR:")) text.substring(6) else "Beklenmeyen veri: $text")
+            }
+            JsResultReader.Token.BEGIN_ARRAY -> Unit
+            else -> throw Exception("Boş veri döndü")
+        }
+
+        val deviceList = ArrayList<DeviceItem>()
+        val deviceIds = HashSet<String>() // Çift kayıtları filtrelemek için
+        reader.beginArray()
+        while (reader.hasNext()) {
+            var id: String? = null
+            var name = ""
+            reader.beginObject()
+            while (reader.hasNext()) {
+                when (reader.nextName()) {
+                    "id" -> id = reader.nextString()
+                    "name" -> name = reader.nextString()
+                    else -> reader.skipValue()
+                }
+            }
+            reader.endObject()
+
+            if (id != null && deviceIds.add(id)) {
+                deviceList.add(DeviceItem(id, name, false, isDeviceFavorite(id)))
+            }
+        }
+        reader.endArray()
+        return deviceList
+    }
+
     /**
      * Modern cihaz seçim dialogunu gösterir
      */
@@ -249,25 +279,8 @@ class DeviceManager(
     /**
      * Cihaz diyalogunu cihaz listesi ile güncelle
      */
-    private fun updateDeviceDialog(devices: JSONArray) {
+    private fun updateDeviceDialog(deviceList: MutableList<DeviceItem>) {
         try {
-            // Cihaz listesini hazırla
-            val deviceList = ArrayList<DeviceItem>()
-            val deviceIds = HashSet<String>() // Çift kayıtları filtrelemek için
-
-            for (i in 0 until devices.length()) {
-                val obj = devices.getJSONObject(i)
-                val id = obj.getString("id")
-                val name = obj.getString("name")
-                val isFavorite = isDeviceFavorite(id)
-
-                if (!deviceIds.contains(id)) {
-                    val device = DeviceItem(id, name, false, isFavorite)
-                    deviceList.add(device)
-                    deviceIds.add(id)
-                }
-            }
-            
             // RecyclerView'ı bul ve adaptörü ayarla
             dialog?.findViewById<RecyclerView>(R.id.deviceRecyclerView)?.let { recyclerView ->
                 deviceAdapter = DeviceAdapter(context, deviceList)
@@ -287,8 +300,8 @@ class DeviceManager(
                 }
             }
 
-        } catch (e: JSONException) {
-            Timber.e(e, "JSON ayrıştırma hatası: %s", e.message)
+        } catch (e: Exception) {
+            Timber.e(e, "Cihaz listesi gösterilemedi: %s", e.message)
             Toast.makeText(context, "Cihaz verisi okunamadı", Toast.LENGTH_SHORT).show()
             
             // Boş durum göster
@@ -298,51 +311,23 @@ class DeviceManager(
 
     /**
      * Seçilen cihazları WebView formuna gönderir
+     * Kimlikler sayfadan okunduğu için betik metnine eklenmez; paketteki betiğe JSON argümanı olarak gider
      */
     private fun submitSelectedDevices(deviceIds: List<String>, selectAll: Boolean) {
-        val js = StringBuilder()
-        js.append("(function() {")
-        // Modal DOM'da olduğundan emin olmak için küçük bir gecikme
-        js.append("    setTimeout(function() {")
-        js.append("        var form = document.getElementById('AddDeviceForm');")
-        js.append("        if (form) {")
-        // Önce tüm checkbox'ları temizle
-        js.append("            var checkboxes = form.querySelectorAll('input[name=\"DeviceIds[]\"]');")
-        js.append("            checkboxes.forEach(function(cb) { cb.checked = false; });")
-
-        // Her cihaz ID'si için checkbox'ları işaretle - aynı cihazdan sadece bir tane seçmek için düzeltildi
-        for (id in deviceIds) {
-            js.append(
-                """
-                var cbs = form.querySelectorAll('input[value="$id"]');
-                if (cbs.length > 0) {
-                    // Her cihaz ID'si için sadece bir checkbox seç
-                    cbs[0].checked = true;
-                    console.log('Selected first checkbox for device ' + '$id');
+        scope.launch {
+            try {
+                // Modal DOM'da olduğundan emin olmak için küçük bir gecikme
+                delay(300)
+                val status = ScriptResultDecoder.decodeString(webView.callScript("equipment.submitDevices", deviceIds))
+                if (status == "form-not-found") {
+                    Timber.w("AddDeviceForm not found")
+                    Toast.makeText(context, "Form bulunamadı!", Toast.LENGTH_SHORT).show()
                 }
-                """.trimIndent()
-            )
-        }
-
-        // Formu gönder butonuna tıklayarak
-        js.append("            var submitButton = form.querySelector('button[type=\"submit\"]');")
-        js.append("            if (submitButton) {")
-        js.append("                submitButton.click();")
-        js.append("                console.log('Submit button clicked');")
-        js.append("            } else {")
-        js.append("                form.submit();")
-        js.append("                console.log('Form submitted');")
-        js.append("            }")
-        js.append("        } else {")
-        js.append("            console.log('AddDeviceForm not found');")
-        js.append("        }")
-        js.append("    }, 300);")
-        js.append("    return true;")
-        js.append("})();");
-
-        webView.evaluateJavascript(js.toString()) { result ->
-            if ("false" == result) {
-                Toast.makeText(context, "Form bulunamadı!", Toast.LENGTH_SHORT).show()
+            } catch (e: CancellationException) {
+                throw e
+            } catch (e: Exception) {
+                Timber.e(e, "Cihazlar forma gönderilemedi: %s", e.message)
+                Toast.makeText(context, "Cihazlar gönderilemedi", Toast.LENGTH_SHORT).show()
             }
         }
     }
@@ -0,0 +1,87 @@
+package com.asforce.asforcetkf2.util
+
+import java.util.concurrent.atomic.AtomicLongArray
+
+/**
+ * Fixed-bucket latency histogram - kilitsiz, her thread'den kaydedilebilir
+ * Kova sınırları mikrosaniye cinsindendir; son kova üst sınırı aşan tüm ölçümleri toplar
+ */
+class LatencyHistogram(
+    private val boundsMicros: LongArray = DEFAULT_BOUNDS_MICROS
+) {
+
+    private val counts = AtomicLongArray(boundsMicros.size + 1)
+    private val totals = AtomicLongArray(2) // [0] = toplam süre (µs), [1] = en büyük ölçüm (µs)
+
+    fun recordNanos(nanos: Long) {
+        val micros = nanos / 1_000
+        var bucket = boundsMicros.size
+        for (i in boundsMicros.indices) {
+            if (micros < boundsMicros[i]) {
+                bucket = i
+                break
+            }
+        }
+        counts.incrementAndGet(bucket)
+        totals.addAndGet(0, micros)
+        while (true) {
+            val max = totals.get(1)
+            if (micros <= max || totals.compareAndSet(1, max, micros)) break
+        }
+    }
+
+    val count: Long
+        get() {
+            var total = 0L
+            for (i in 0 until counts.length()) total += counts.get(i)
+            return total
+        }
+
+    /**
+     * Approximate percentile from bucket upper bounds (µs)
+     */
+    fun percentileMicros(percentile: Double): Long {
+        val total = count
+        if (total == 0L) return 0L
+        val target = Math.ceil(total * percentile / 100.0).toLong().coerceAtLeast(1L)
+        var seen = 0L
+        for (i in 0 until counts.length()) {
+            seen += counts.get(i)
+            if (seen >= target) {
+                return if (i < boundsMicros.size) boundsMicros[i] else totals.get(1)
+            }
+        }
+        return totals.get(1)
+    }
+
+    /**
+     * Bucket counts keyed by label, e.g. "<1ms" -> 12
+     */
+    fun snapshot(): Map<String, Any> {
+        val result = LinkedHashMap<String, Any>()
+        for (i in 0 until counts.length()) {
+            val label = if (i < boundsMicros.size) "<${formatMicros(boundsMicros[i])}" else ">=${formatMicros(boundsMicros.last())}"
+            result[label] = counts.get(i)
+        }
+        val total = count
+        result["count"] = total
+        result["mean_us"] = if (total == 0L) 0L else totals.get(0) / total
+        result["p50_us"] = percentileMicros(50.0)
+        result["p95_us"] = percentileMicros(95.0)
+        result["max_us"] = totals.get(1)
+        return result
+    }
+
+    fun reset() {
+        for (i in 0 until counts.length()) counts.set(i, 0)
+        totals.set(0, 0)
+        totals.set(1, 0)
+    }
+
+    private fun formatMicros(micros: Long): String =
+        if (micros >= 1_000) "${micros / 1_000}ms" else "${micros}us"
+
+    companion object {
+        val DEFAULT_BOUNDS_MICROS = longArrayOf(250, 1_000, 4_000, 16_000, 64_000, 256_000)
+    }
+}
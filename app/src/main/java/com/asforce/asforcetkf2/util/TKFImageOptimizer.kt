@@ -2,6 +2,7 @@ package com.asforce.asforcetkf2.util
 
 import android.content.Context
 import android.webkit.WebView
+import com.asforce.asforcetkf2.webview.DocumentStartScriptRegistry
 import timber.log.Timber
 
 /**
@@ -356,7 +357,102 @@ class TKFImageOptimizer(
      * WebView içindeki görüntüleri önbellek ile optimize eder
      */
     fun setupImageCache() {
+        // Betik bu WebView'de belge başına kurulur - fetch yaması sayfa isteklerinden önce devreye girer
+        DocumentStartScriptRegistry.enable(webView, DocumentStartScriptRegistry.IMAGE_CACHE) { result ->
+            Timber.d("Image cache setup result: $result")
+            imageOptimizationStats["cache_enabled"] = true
+        }
+    }
+    
+    /**
+     * Yüksek kaliteli görüntüleri sıkıştır
+     * Büyük görüntüleri ve fotoları bellek tasarrufu için optimize eder
+     */
+    fun compressHighQualityImages() {
         val script = """
+            (function() {
+                // Sayfa yüklenme durumunu kontrol et
+                if (document.readyState !== 'complete') {
+                    console.log('TKF: Page not fully loaded, delaying image compression');
+                    return 'Page loading, compression deferred';
+                }
+                
+                var largeImages = [];
+                var compressedCount = 0;
+                
+                // Büyük görüntüleri bul
+                var images = document.querySelectorAll('img:not([data-tkf-compressed])');
+                
+                for (var i = 0; i < images.length; i++) {
+                    var img = images[i];
+                    
+                    // Görüntünün doğal boyutlarını kontrol et
+                    if (img.complete && img.naturalWidth > 0) {
+                        // Büyük görüntüleri sıkıştır (800x600'den büyükler)
+                        if (img.naturalWidth > 800 || img.naturalHeight > 600) {
+                            largeImages.push(img);
+                        }
+                    }
+                }
+                
+                // Asenkron sıkıştırma - browser'da donma olmasın diye
+                function compressNext(index) {
+                    if (index >= largeImages.length) {
+                        console.log('TKF: Compression complete. Compressed ' + compressedCount + ' of ' + largeImages.length + ' large images');
+                        return;
+                    }
+                    
+                    var img = largeImages[index];
+                    
+                    // TKF_compressImage fonksiyonu setupImageCache ile enjekte edildi
+                    if (window.TKF_compressImage) {
+                        try {
+                            var originalSrc = img.src;
+                            var compressedSrc = window.TKF_compressImage(img);
+                            
+                            // Sıkıştırılmış görüntüyü ayarla
+                            img.src = compressedSrc;
+                            img.setAttribute('data-tkf-compressed', 'true');
+                            img.setAttribute('data-tkf-original-src', originalSrc);
+                            compressedCount++;
+                        } catch (e) {
+                            console.error('TKF: Error compressing image:', e);
+                        }
+                    }
+                    
+                    // Sonraki görüntüyü işle (100ms gecikme ile tarayıcıyı bloklamayı önle)
+                    setTimeout(function() {
+                        compressNext(index + 1);
+                    }, 100);
+                }
+                
+                // Sıkıştırma işlemine başla
+                if (largeImages.length > 0) {
+                    compressNext(0);
+                }
+                
+                return 'Found ' + largeImages.length + ' large images to compress';
+            })();
+        """.trimIndent()
+        
+        webView.evaluateJavascript(script) { result ->
+            Timber.d("Image compression started: $result")
+            imageOptimizationStats["compression_initiated"] = true
+        }
+    }
+    
+    /**
+     * Optimizasyon istatistiklerini al
+     */
+    fun getOptimizationStats(): Map<String, Any> {
+        return imageOptimizationStats
+    }
+    
+    companion object {
+        /**
+         * In-page image cache and compression helper installed at document start
+         */
+        internal val IMAGE_CACHE_SCRIPT = """
             (function() {
                 if (window.TKF_IMAGE_CACHE) return 'Image cache already setup';
                 
@@ -496,94 +592,5 @@ class TKFImageOptimizer(
                 return 'TKF Image Cache activated';
             })();
         """.trimIndent()
-        
-        webView.evaluateJavascript(script) { result ->
-            Timber.d("Image cache setup result: $result")
-            imageOptimizationStats["cache_enabled"] = true
-        }
-    }
-    
-    /**
-     * Yüksek kaliteli görüntüleri sıkıştır
-     * Büyük görüntüleri ve fotoları bellek tasarrufu için optimize eder
-     */
-    fun compressHighQualityImages() {
-        val script = """
-            (function() {
-                // Sayfa yüklenme durumunu kontrol et
-                if (document.readyState !== 'complete') {
-                    console.log('TKF: Page not fully loaded, delaying image compression');
-                    return 'Page loading, compression deferred';
-                }
-                
-                var largeImages = [];
-                var compressedCount = 0;
-                
-                // Büyük görüntüleri bul
-                var images = document.querySelectorAll('img:not([data-tkf-compressed])');
-                
-                for (var i = 0; i < images.length; i++) {
-                    var img = images[i];
-                    
-                    // Görüntünün doğal boyutlarını kontrol et
-                    if (img.complete && img.naturalWidth > 0) {
-                        // Büyük görüntüleri sıkıştır (800x600'den büyükler)
-                        if (img.naturalWidth > 800 || img.naturalHeight > 600) {
-                            largeImages.push(img);
-                        }
-                    }
-                }
-                
-                // Asenkron sıkıştırma - browser'da donma olmasın diye
-                function compressNext(index) {
-                    if (index >= largeImages.length) {
-                        console.log('TKF: Compression complete. Compressed ' + compressedCount + ' of ' + largeImages.length + ' large images');
-                        return;
-                    }
-                    
-                    var img = largeImages[index];
-                    
-                    // TKF_compressImage fonksiyonu setupImageCache ile enjekte edildi
-                    if (window.TKF_compressImage) {
-                        try {
-                            var originalSrc = img.src;
-                            var compressedSrc = window.TKF_compressImage(img);
-                            
-                            // Sıkıştırılmış görüntüyü ayarla
-                            img.src = compressedSrc;
-                            img.setAttribute('data-tkf-compressed', 'true');
-                            img.setAttribute('data-tkf-original-src', originalSrc);
-                            compressedCount++;
-                        } catch (e) {
-                            console.error('TKF: Error compressing image:', e);
-                        }
-                    }
-                    
-                    // Sonraki görüntüyü işle (100ms gecikme ile tarayıcıyı bloklamayı önle)
-                    setTimeout(function() {
-                        compressNext(index + 1);
-                    }, 100);
-                }
-                
-                // Sıkıştırma işlemine başla
-                if (largeImages.length > 0) {
-                    compressNext(0);
-                }
-                
-                return 'Found ' + largeImages.length + ' large images to compress';
-            })();
-        """.trimIndent()
-        
-        webView.evaluateJavascript(script) { result ->
-            Timber.d("Image compression started: $result")
-            imageOptimizationStats["compression_initiated"] = true
-        }
-    }
-    
-    /**
-     * Optimizasyon istatistiklerini al
-     */
-    fun getOptimizationStats(): Map<String, Any> {
-        return imageOptimizationStats
     }
-}
\ No newline at end of file
+}
@@ -503,6 +503,15 @@ class TKFPerformanceManager private constructor(context: Context) {
         }
     }
     
+    /**
+     * Renderer süreci kaybını kaydet - çökme veya sistemin belleği geri alması
+     */
+    fun recordRendererGone(didCrash: Boolean) {
+        val key = if (didCrash) "renderer_crash_count" else "renderer_reclaim_count"
+        metrics.merge(key, 1L, Long::plus)
+        metrics["renderer_last_gone_time"] = System.currentTimeMillis()
+    }
+    
     /**
      * Performans istatistiklerini al
      */
@@ -0,0 +1,165 @@
+package com.asforce.asforcetkf2.util
+
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.isActive
+import kotlinx.coroutines.launch
+import timber.log.Timber
+
+/**
+ * Central LRU scheduler that decides which tabs keep a live WebView
+ * Sekmeler son erişim zamanına göre sıralanır; canlı WebView bütçesini aşan en eski sekmeler
+ * tamamen bırakılır (durum diske kaydedilir), bütçe içindeki boşta sekmeler uykuya alınır.
+ * Bellek baskısı geldiğinde bütçe ve boşta kalma süresi geçici olarak daraltılır.
+ */
+class TabHibernationScheduler(
+    private val host: Host,
+    private val scope: CoroutineScope,
+    var liveWebViewBudget: Int = DEFAULT_LIVE_BUDGET,
+    var idleHibernateMs: Long = DEFAULT_IDLE_HIBERNATE_MS,
+    private val intervalMs: Long = DEFAULT_INTERVAL_MS,
+    private val clock: () -> Long = System::currentTimeMillis
+) {
+
+    /**
+     * Callbacks into the activity that owns the WebViews - hepsi main thread'de çağrılır
+     */
+    interface Host {
+        fun snapshotTabs(): List<TabState>
+        fun hibernateTab(tabId: String)
+        fun discardTab(tabId: String)
+    }
+
+    data class TabState(
+        val id: String,
+        val lastAccessTime: Long,
+        val isActive: Boolean,
+        val isHibernated: Boolean,
+        val hasLiveWebView: Boolean
+    )
+
+    enum class Pressure { NONE, MODERATE, LOW, CRITICAL }
+
+    data class Plan(
+        val hibernate: List<String>,
+        val discard: List<String>
+    ) {
+        val isEmpty: Boolean
+            get() = hibernate.isEmpty() && discard.isEmpty()
+    }
+
+    private var job: Job? = null
+    private var pressure = Pressure.NONE
+    private var pressureUntil = 0L
+
+    fun start() {
+        if (job?.isActive == true) return
+        job = scope.launch {
+            while (isActive) {
+                delay(intervalMs)
+                runOnce()
+            }
+        }
+    }
+
+    fun stop() {
+        job?.cancel()
+        job = null
+    }
+
+    /**
+     * Re-evaluate soon, e.g. after the active tab changed or a tab was opened
+     */
+    fun requestRun() {
+        scope.launch { runOnce() }
+    }
+
+    /**
+     * Tighten the budget for a while and evaluate immediately
+     */
+    fun onMemoryPressure(level: Pressure) {
+        if (level == Pressure.NONE) return
+        val now = clock()
+        if (now >= pressureUntil || level > pressure) {
+            pressure = level
+        }
+        pressureUntil = now + PRESSURE_HOLD_MS
+        runOnce()
+    }
+
+    fun runOnce(): Plan {
+        val now = clock()
+        if (now >= pressureUntil) {
+            pressure = Pressure.NONE
+        }
+
+        val plan = try {
+            plan(host.snapshotTabs(), liveWebViewBudget, idleHibernateMs, now, pressure)
+        } catch (e: Exception) {
+            Timber.e(e, "Hibernation plan failed")
+            return Plan(emptyList(), emptyList())
+        }
+
+        plan.discard.forEach { tabId ->
+            try {
+                host.discardTab(tabId)
+            } catch (e: Exception) {
+                Timber.e(e, "Error discarding tab $tabId")
+            }
+        }
+        plan.hibernate.forEach { tabId ->
+            try {
+                host.hibernateTab(tabId)
+            } catch (e: Exception) {
+                Timber.e(e, "Error hibernating tab $tabId")
+            }
+        }
+        if (!plan.isEmpty) {
+            Timber.d("Hibernation: ${plan.hibernate.size} hibernated, ${plan.discard.size} discarded (pressure=$pressure)")
+        }
+        return plan
+    }
+
+    companion object {
+        const val DEFAULT_LIVE_BUDGET = 4
+        // Tab.shouldHibernate ile aynı eşik - 10 dakika
+        const val DEFAULT_IDLE_HIBERNATE_MS = 10 * 60 * 1000L
+        const val DEFAULT_INTERVAL_MS = 30_000L
+        private const val PRESSURE_HOLD_MS = 2 * 60 * 1000L
+
+        /**
+         * Pure planning step: which tabs to hibernate and which WebViews to release
+         */
+        fun plan(
+            tabs: List<TabState>,
+            liveBudget: Int,
+            idleHibernateMs: Long,
+            now: Long,
+            pressure: Pressure = Pressure.NONE
+        ): Plan {
+            val budget = when (pressure) {
+                Pressure.NONE, Pressure.MODERATE -> liveBudget
+                Pressure.LOW -> maxOf(1, liveBudget / 2)
+                Pressure.CRITICAL -> 1
+            }.coerceAtLeast(1)
+            // Baskı altında boşta bekleme süresi beklenmez
+            val idleThreshold = if (pressure == Pressure.NONE) idleHibernateMs else 0L
+
+            val live = tabs.filter { it.hasLiveWebView }
+            val activeCount = live.count { it.isActive }
+            val inactiveLive = live
+                .filter { !it.isActive }
+                .sortedByDescending { it.lastAccessTime }
+
+            val keepSlots = maxOf(0, budget - activeCount)
+            val kept = inactiveLive.take(keepSlots)
+            val discard = inactiveLive.drop(keepSlots).map { it.id }
+            val hibernate = kept
+                .filter { !it.isHibernated && now - it.lastAccessTime >= idleThreshold }
+                .map { it.id }
+
+            return Plan(hibernate, discard)
+        }
+    }
+}
@@ -8,15 +8,18 @@ import androidx.lifecycle.asLiveData
 import androidx.lifecycle.viewModelScope
 import com.asforce.asforcetkf2.data.BrowserDatabase
 import com.asforce.asforcetkf2.data.BrowserRepository
+import com.asforce.asforcetkf2.data.ResourceRollup
+import com.asforce.asforcetkf2.data.ResourceSampleRepository
+import com.asforce.asforcetkf2.data.TabChangeSet
 import com.asforce.asforcetkf2.model.Tab
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.delay
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.StateFlow
-import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.flow.flowOn
+import kotlinx.coroutines.flow.onEach
 import kotlinx.coroutines.launch
 import timber.log.Timber
-import java.util.Collections
 
 /**
  * ViewModel for managing browser tabs
@@ -25,7 +28,13 @@ import java.util.Collections
 class TabViewModel(application: Application) : AndroidViewModel(application) {
     
     private val repository: BrowserRepository
-    val allTabs: LiveData<List<Tab>>
+    private val resourceSamples: ResourceSampleRepository
+    
+    private val _allTabs = MutableLiveData<List<Tab>>()
+    val allTabs: LiveData<List<Tab>> = _allTabs
+    
+    // Sekme listesindeki değişiklikler - UI yalnızca bu farkları uygular
+    val tabChanges: LiveData<TabChangeSet>
     
     private val _activeTab = MutableLiveData<Tab>()
     val activeTab: LiveData<Tab> = _activeTab
@@ -33,48 +42,32 @@ class TabViewModel(application: Application) : AndroidViewModel(application) {
     private val _resourceMonitoringEnabled = MutableStateFlow(true)
     val resourceMonitoringEnabled: StateFlow<Boolean> = _resourceMonitoringEnabled
     
-    // Son tab güncelleme zamanı ve son işlem zamanı - aşırı işlemlerden kaçınmak için
-    private var lastTabUpdateTime = 0L
+    // Son işlem zamanı - aşırı işlemlerden kaçınmak için
     private var lastOperationTime = 0L
     private val UPDATE_THROTTLE_MS = 250L // Güncellemeler arası minimum süre
     
     init {
         val tabDao = BrowserDatabase.getDatabase(application).tabDao()
         repository = BrowserRepository(tabDao)
+        resourceSamples = ResourceSampleRepository(
+            BrowserDatabase.getDatabase(application).resourceSampleDao()
+        )
         
-        // Performans optimizasyonu: tab listesini ve active tab'i verimli şekilde takip et
-        allTabs = repository.allTabs.map { tabs ->
-            val currentTime = System.currentTimeMillis()
-            // Throttle - çok sık güncellemelerden kaçın
-            if (currentTime - lastTabUpdateTime < UPDATE_THROTTLE_MS && tabs.size > 3) {
-                // Sadece active tab değişmesi durumunda güncelle
-                val activeTabChanged = tabs.find { it.isActive }?.id != _activeTab.value?.id
-                if (!activeTabChanged) {
-                    return@map tabs
-                }
-            }
-            
-            lastTabUpdateTime = currentTime
-            
-            // Sort tabs by position - optimizasyon: sadece gerekli olduğunda sırala
-            if (tabs.size > 1) {
-                Collections.sort(tabs) { tab1, tab2 ->
-                    // indexOf performans sorunu - doğrudan position değerlerini karşılaştır
-                    val position1 = tab1.position
-                    val position2 = tab2.position
-                    position1.compareTo(position2)
+        // Fark hesaplama arka planda, LiveData ataması main thread'de - allTabs ve tabChanges aynı anda güncellenir
+        tabChanges = repository.tabChanges
+            .flowOn(Dispatchers.Default)
+            .onEach { changes ->
+                _allTabs.value = changes.tabs
+                
+                // Aktif sekme yalnızca kimliği değiştiğinde yayınlanır
+                if (changes.activeTabChanged || changes.isInitial) {
+                    val activeTab = changes.tabs.find { it.id == changes.activeTabId }
+                    if (activeTab != null && _activeTab.value?.id != activeTab.id) {
+                        _activeTab.value = activeTab
+                    }
                 }
             }
-            
-            // Find active tab
-            val activeTab = tabs.find { it.isActive }
-            // Mevcut active tab'den farklıysa değiştir
-            if (activeTab != null && _activeTab.value?.id != activeTab.id) {
-                _activeTab.postValue(activeTab)
-            }
-            
-            tabs
-        }.asLiveData(Dispatchers.Default) // IO thread'de işle
+            .asLiveData()
     }
     
     /**
@@ -90,9 +83,6 @@ class TabViewModel(application: Application) : AndroidViewModel(application) {
                 val tabs = allTabs.value ?: emptyList()
                 val position = tabs.size
                 
-                // Önce tüm sekmeleri pasif yap
-                repository.deactivateAllTabs()
-                
                 val newTab = Tab(
                     id = newTabId,
                     url = url,
@@ -101,8 +91,8 @@ class TabViewModel(application: Application) : AndroidViewModel(application) {
                     lastAccessTime = System.currentTimeMillis()
                 )
                 
-                // Yeni sekmeyi veritabanına ekle
-                repository.addTab(newTab, position)
+                // Ekleme ve diğer sekmelerin pasifleştirilmesi tek transaction - liste bir kez yayınlanır
+                repository.addActiveTab(newTab, position)
                 
                 // Active tab olarak güncelle
                 _activeTab.postValue(newTab)
@@ -124,6 +114,7 @@ class TabViewModel(application: Application) : AndroidViewModel(application) {
             try {
                 // Delete the tab
                 repository.deleteTab(tab)
+                resourceSamples.deleteForTab(tab.id)
                 
                 // If it was the active tab, activate the next available tab
                 if (tab.isActive) {
@@ -153,16 +144,12 @@ class TabViewModel(application: Application) : AndroidViewModel(application) {
                 // Update tab state
                 val updatedTab = tab.copy(
                     isActive = true,
+                    isHibernated = false,
                     lastAccessTime = System.currentTimeMillis()
                 )
                 
-                // If hibernated, wake it up
-                if (tab.isHibernated) {
-                    repository.wakeUpTab(tab.id)
-                }
-                
-                // Set as active
-                repository.setActiveTab(tab.id)
+                // Set as active - uyandırma, pasifleştirme ve erişim zamanı tek yazma işleminde
+                repository.setActiveTab(tab.id, updatedTab.lastAccessTime)
                 
                 // Update active tab in UI
                 _activeTab.postValue(updatedTab)
@@ -257,9 +244,8 @@ class TabViewModel(application: Application) : AndroidViewModel(application) {
     fun updateTabPositions(tabs: List<Tab>) {
         viewModelScope.launch(Dispatchers.IO) {
             try {
-                tabs.forEachIndexed { index, tab ->
-                    repository.updateTabPosition(tab.id, index)
-                }
+                // Tek transaction - sürükleyip bırakma başına tek liste yayını
+                repository.updateTabPositions(tabs.map { it.id })
                 
                 Timber.d("Updated tab positions")
             } catch (e: Exception) {
@@ -276,29 +262,39 @@ class TabViewModel(application: Application) : AndroidViewModel(application) {
     }
     
     /**
-     * Update resource metrics for a tab
+     * Record resource metrics for a tab
+     * Ölçümler resource_samples tablosuna toplu yazılır; sekme satırı ve sekme listesi yayını etkilenmez
      */
     fun updateTabResources(tabId: String, cpuUsage: Float, memoryUsage: Long) {
-        val tabs = allTabs.value ?: return
-        val tab = tabs.find { it.id == tabId } ?: return
-        
-        val updatedTab = tab.copy(
-            cpuUsage = cpuUsage,
-            memoryUsage = memoryUsage
-        )
+        // Bellekteki Tab nesnesini güncelle - yalnızca çalışma zamanı alanları
+        allTabs.value?.find { it.id == tabId }?.let { tab ->
+            tab.cpuUsage = cpuUsage
+            tab.memoryUsage = memoryUsage
+        }
         
-        // Update in background to avoid excessive writes
-        viewModelScope.launch(Dispatchers.IO) {
-            try {
-                val position = tabs.indexOf(tab)
-                repository.updateTabInBackground(updatedTab, position)
-                
-                if (tab.isActive) {
-                    _activeTab.postValue(updatedTab)
-                }
-            } catch (e: Exception) {
-                Timber.e(e, "Error updating tab resources")
-            }
+        resourceSamples.record(tabId, cpuUsage, memoryUsage)
+    }
+    
+    /**
+     * Average and peak resource usage per tab over the last windowMs
+     */
+    suspend fun getResourceRollups(windowMs: Long = RESOURCE_ROLLUP_WINDOW_MS): List<ResourceRollup> {
+        return try {
+            resourceSamples.getRollups(windowMs)
+        } catch (e: Exception) {
+            Timber.e(e, "Error reading resource rollups")
+            emptyList()
         }
     }
+    
+    /**
+     * Write buffered resource samples, e.g. when the activity goes to background
+     */
+    fun flushResourceSamples() {
+        resourceSamples.flushInBackground()
+    }
+    
+    companion object {
+        const val RESOURCE_ROLLUP_WINDOW_MS = 5 * 60 * 1000L // 5 dakika
+    }
 }
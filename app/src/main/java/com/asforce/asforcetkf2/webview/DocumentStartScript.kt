@@ -0,0 +1,77 @@
+package com.asforce.asforcetkf2.webview
+
+import java.net.URI
+
+/**
+ * A script that runs in matching documents before any page script
+ * Kaynak, kimlik ve sürüm korumasıyla sarılır: aynı belgede aynı veya daha yeni sürüm çalıştıysa
+ * tekrar çalışmaz, böylece belge başı enjeksiyon ile yükleme sonrası yedek enjeksiyon çakışmaz.
+ */
+class DocumentStartScript(
+    val id: String,
+    val version: Int,
+    val source: String,
+    // WebViewCompat.addDocumentStartJavaScript kuralları: "*" veya "https://host", "https://*.alanadi"
+    val originRules: Set<String> = ALL_ORIGINS
+) {
+
+    val wrappedSource: String by lazy {
+        """
+        (function() {
+            var registry = window.$REGISTRY_GLOBAL = window.$REGISTRY_GLOBAL || {};
+            if (registry['$id'] >= $version) return;
+            registry['$id'] = $version;
+            $source
+        })();
+        """.trimIndent()
+    }
+
+    fun matches(url: String?): Boolean = originRules.any { matchesOrigin(it, url) }
+
+    override fun toString(): String = "$id@v$version"
+
+    companion object {
+        val ALL_ORIGINS = setOf("*")
+
+        // Belgede çalışan betiklerin kimlik -> sürüm tablosu
+        const val REGISTRY_GLOBAL = "__tkfScripts"
+
+        private val DEFAULT_PORTS = mapOf("http" to 80, "https" to 443)
+
+        /**
+         * Same semantics as the WebView origin rules - yalnızca yedek enjeksiyonda kullanılır
+         */
+        fun matchesOrigin(rule: String, url: String?): Boolean {
+            if (rule == "*") return true
+            if (url.isNullOrEmpty()) return false
+
+            val target = try {
+                URI(url)
+            } catch (e: Exception) {
+                return false
+            }
+            val ruleUri = try {
+                URI(rule.replace("://*.", "://wildcard."))
+            } catch (e: Exception) {
+                return false
+            }
+
+            val scheme = target.scheme?.lowercase() ?: return false
+            if (scheme != ruleUri.scheme?.lowercase()) return false
+
+            val host = target.host?.lowercase() ?: return false
+            val ruleHost = ruleUri.host?.lowercase() ?: return false
+            val hostMatches = if (rule.contains("://*.")) {
+                host.endsWith(ruleHost.removePrefix("wildcard"))
+            } else {
+                host == ruleHost
+            }
+            if (!hostMatches) return false
+
+            val defaultPort = DEFAULT_PORTS[scheme] ?: -1
+            val port = if (target.port == -1) defaultPort else target.port
+            val rulePort = if (ruleUri.port == -1) defaultPort else ruleUri.port
+            return port == rulePort
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.asforce.asforcetkf2.webview
+
+import android.webkit.WebView
+import androidx.webkit.ScriptHandler
+import androidx.webkit.WebViewCompat
+import androidx.webkit.WebViewFeature
+import com.asforce.asforcetkf2.util.TKFImageOptimizer
+import com.veritabani.appcompatactivity23.download.WebViewDownloadHelper
+import org.json.JSONObject
+import timber.log.Timber
+import java.io.IOException
+import java.util.WeakHashMap
+
+/**
+ * Central registry of scripts injected at document start
+ * Varsayılan betikler her sekme WebView'ine bir kez kurulur ve sonraki tüm yüklemelerde sayfa
+ * betiklerinden önce çalışır; yükleme sonrası evaluateJavascript gidiş-dönüşlerine gerek kalmaz.
+ * WebView sürümü DOCUMENT_START_SCRIPT desteklemiyorsa aynı betikler onPageFinished'da enjekte edilir.
+ * Tüm çağrılar main thread'de yapılmalıdır.
+ */
+object DocumentStartScriptRegistry {
+
+    private val SZUTEST_ORIGINS = setOf(
+        "https://szutest.com.tr",
+        "https://*.szutest.com.tr",
+        "http://szutest.com.tr",
+        "http://*.szutest.com.tr"
+    )
+
+    /**
+     * Scripts installed on every tab WebView
+     */
+    val PAGE_CHANNEL = DocumentStartScript("page-channel", 2, PageChannel.PAGE_CHANNEL_SCRIPT)
+    val PAGE_BASICS = DocumentStartScript("page-basics", 1, TKFWebViewClient.PAGE_BASICS_SCRIPT)
+    val SZUTEST_AUTH_PAGE = DocumentStartScript("szutest-auth-page", 1, TKFWebViewClient.SZUTEST_AUTH_PAGE_SCRIPT, SZUTEST_ORIGINS)
+    val INPUT_TRACKING = DocumentStartScript("input-tracking", 2, TabWebView.INPUT_TRACKING_SCRIPT)
+    // Sayfa betiklerinden önce kurulur ki yükleme sırasında başlatılan zamanlayıcılar da dondurulabilsin
+    val TIMER_SHIM = DocumentStartScript("timer-shim", 1, TabSuspender.INSTALL_SCRIPT)
+    // İndirme butonları yalnızca szutest sayfalarında yakalanır; diğer sitelerde tıklamalara dokunulmaz
+    val DOWNLOAD_HANDLER = DocumentStartScript("download-handler", 2, WebViewDownloadHelper.DOWNLOAD_HANDLER_SCRIPT, SZUTEST_ORIGINS)
+
+    /**
+     * Scripts a component turns on for a single WebView with [enable]
+     */
+    val FORM_MANAGER = DocumentStartScript("form-manager", 1, TKFFormManager.FORM_MANAGER_SCRIPT)
+    val SESSION_MONITOR = DocumentStartScript("session-monitor", 1, TKFSessionManager.SESSION_MONITOR_SCRIPT)
+    val IMAGE_CACHE = DocumentStartScript("image-cache", 1, TKFImageOptimizer.IMAGE_CACHE_SCRIPT)
+    val SZUTEST_OPTIMIZER = DocumentStartScript("szutest-optimizer", 1, TKFWebViewOptimizer.SZUTEST_SCRIPT, SZUTEST_ORIGINS)
+
+    private val defaults = LinkedHashMap<String, DocumentStartScript>()
+
+    // WebView başına kurulu betikler; handler null ise yedek (yükleme sonrası) modda çalışır
+    private val installed = WeakHashMap<WebView, LinkedHashMap<String, Installed>>()
+
+    private class Installed(val script: DocumentStartScript, val handler: ScriptHandler?)
+
+    val isDocumentStartSupported: Boolean by lazy {
+        try {
+            WebViewFeature.isFeatureSupported(WebViewFeature.DOCUMENT_START_SCRIPT)
+        } catch (e: Exception) {
+            false
+        }
+    }
+
+    init {
+        // Kanal desteklenmiyorsa sayfa betikleri @JavascriptInterface köprülerine düşer
+        if (PageChannel.isSupported) {
+            register(PAGE_CHANNEL)
+        }
+        listOf(PAGE_BASICS, SZUTEST_AUTH_PAGE, INPUT_TRACKING, TIMER_SHIM, DOWNLOAD_HANDLER).forEach { register(it) }
+    }
+
+    /**
+     * Add a script to every tab WebView; a newer version replaces the old one on the next [installDefaults]
+     */
+    fun register(script: DocumentStartScript) {
+        val existing = defaults[script.id]
+        if (existing == null || existing.version < script.version) {
+            defaults[script.id] = script
+        }
+    }
+
+    /**
+     * Install the default scripts - idempotent, sayfa yüklenmeden önce çağrılmalıdır
+     */
+    fun installDefaults(webView: WebView) {
+        registerBundle(webView)
+        defaults.values.forEach { install(webView, it) }
+    }
+
+    // Betik paketi asset'ten okunduğu için Context gerekir; ilk kurulumda kaydedilir
+    private fun registerBundle(webView: WebView) {
+        if (defaults.containsKey(ScriptBundle.ID)) return
+        try {
+            register(ScriptBundle.script(webView.context))
+        } catch (e: IOException) {
+            // Çağrılar paketi gerektiğinde belgeye kendisi yüklemeyi dener
+            Timber.e(e, "Script bundle ${ScriptBundle.ASSET_PATH} could not be loaded")
+        }
+    }
+
+    /**
+     * Turn a script on for one WebView and run it in the document that is already loaded
+     * Mevcut belgeye tek seferlik enjeksiyon yapılır; sonraki yüklemeler betiği belge başında alır
+     */
+    fun enable(webView: WebView, script: DocumentStartScript, onInjected: ((String?) -> Unit)? = null) {
+        install(webView, script)
+        if (script.matches(webView.url)) {
+            webView.evaluateJavascript(script.wrappedSource) { result -> onInjected?.invoke(result) }
+        } else {
+            onInjected?.invoke(null)
+        }
+    }
+
+    /**
+     * Drop scripts enabled by components so a pooled WebView starts clean for its next tab
+     */
+    fun resetToDefaults(webView: WebView) {
+        val scripts = installed[webView] ?: return
+        val iterator = scripts.values.iterator()
+        while (iterator.hasNext()) {
+            val entry = iterator.next()
+            if (defaults[entry.script.id] !== entry.script) {
+                removeHandler(entry)
+                iterator.remove()
+            }
+        }
+    }
+
+    /**
+     * Fallback when document-start injection is unavailable - onPageFinished'dan çağrılır
+     */
+    fun injectAfterLoad(webView: WebView, url: String?) {
+        val scripts = installed[webView] ?: return
+        scripts.values
+            .filter { it.handler == null && it.script.matches(url) }
+            .forEach { webView.evaluateJavascript(it.script.wrappedSource, null) }
+    }
+
+    fun isInstalledAtDocumentStart(webView: WebView, script: DocumentStartScript): Boolean {
+        val entry = installed[webView]?.get(script.id) ?: return false
+        return entry.handler != null && entry.script.version >= script.version
+    }
+
+    /**
+     * Scripts that apply to the page currently shown in this WebView
+     */
+    fun activeScripts(webView: WebView): List<DocumentStartScript> {
+        val url = webView.url
+        return installed[webView]?.values
+            ?.map { it.script }
+            ?.filter { it.matches(url) }
+            ?: emptyList()
+    }
+
+    /**
+     * Ask the page which scripts actually ran (id -> version)
+     */
+    fun queryPageScripts(webView: WebView, callback: (Map<String, Int>) -> Unit) {
+        webView.evaluateJavascript("JSON.stringify(window.${DocumentStartScript.REGISTRY_GLOBAL} || {})") { result ->
+            val scripts = HashMap<String, Int>()
+            try {
+                // evaluateJavascript sonucu JSON string olarak tırnaklı gelir
+                val json = JSONObject(JSONObject("{\"v\":$result}").getString("v"))
+                json.keys().forEach { key -> scripts[key] = json.optInt(key) }
+            } catch (e: Exception) {
+                Timber.w(e, "Page script report could not be parsed")
+            }
+            callback(scripts)
+        }
+    }
+
+    private fun install(webView: WebView, script: DocumentStartScript) {
+        val scripts = installed.getOrPut(webView) { LinkedHashMap() }
+        val existing = scripts[script.id]
+        if (existing != null && existing.script.version >= script.version) return
+        existing?.let { removeHandler(it) }
+
+        val handler = if (isDocumentStartSupported) {
+            try {
+                WebViewCompat.addDocumentStartJavaScript(webView, script.wrappedSource, script.originRules)
+            } catch (e: Exception) {
+                Timber.w(e, "Document-start script $script could not be added, falling back to post-load injection")
+                null
+            }
+        } else {
+            null
+        }
+        scripts[script.id] = Installed(script, handler)
+    }
+
+    private fun removeHandler(entry: Installed) {
+        try {
+            entry.handler?.remove()
+        } catch (e: Exception) {
+            Timber.w(e, "Document-start script ${entry.script} could not be removed")
+        }
+    }
+}
@@ -0,0 +1,359 @@
+package com.asforce.asforcetkf2.webview
+
+/**
+ * Streaming reader over an evaluateJavascript result
+ * Betik JSON.stringify sonucu döndürdüğünde WebView bunu bir kez daha JSON dizesi olarak kodlar
+ * ("[{\"id\":\"1\"}]"). Okuyucu dış tırnak kaçışlarını karakter karakter çözer ve iç JSON'u aynı
+ * geçişte ayrıştırır; ara String kopyası oluşmaz. API android.util.JsonReader ile aynı düzendedir.
+ * JSON olmayan dize sonuçları ("NO_RESULTS", "ERROR: ...") [Token.TEXT] olarak okunur.
+ * Örnek thread-safe değildir.
+ */
+class JsResultReader(result: String?) {
+
+    enum class Token {
+        BEGIN_ARRAY, END_ARRAY, BEGIN_OBJECT, END_OBJECT, NAME, STRING, NUMBER, BOOLEAN, NULL, TEXT, END_DOCUMENT
+    }
+
+    private val source: String = result ?: "null"
+    private val end: Int
+    private var pos: Int
+
+    // Sonuç bir JS dizesi ise içeriği dış kaçışlar çözülerek okunur
+    private val quoted: Boolean
+
+    // Bir karakterlik ileri bakış; -2 = boş
+    private var lookahead = NONE
+
+    private var stack = IntArray(16)
+    private var stackSize = 0
+    private var peeked: Token? = null
+
+    // Dize ve sayı değerleri için yeniden kullanılan tampon
+    private val buffer = StringBuilder()
+
+    init {
+        var start = 0
+        var last = source.length
+        while (start < last && source[start].isWhitespace()) start++
+        while (last > start && source[last - 1].isWhitespace()) last--
+        quoted = last - start >= 2 && source[start] == '"' && source[last - 1] == '"'
+        pos = if (quoted) start + 1 else start
+        end = if (quoted) last - 1 else last
+        push(SCOPE_EMPTY_DOCUMENT)
+    }
+
+    fun peek(): Token {
+        peeked?.let { return it }
+        return doPeek().also { peeked = it }
+    }
+
+    fun hasNext(): Boolean {
+        val token = peek()
+        return token != Token.END_ARRAY && token != Token.END_OBJECT && token != Token.END_DOCUMENT
+    }
+
+    fun beginArray() {
+        expect(Token.BEGIN_ARRAY)
+        push(SCOPE_EMPTY_ARRAY)
+    }
+
+    fun endArray() {
+        expect(Token.END_ARRAY)
+        stackSize--
+    }
+
+    fun beginObject() {
+        expect(Token.BEGIN_OBJECT)
+        push(SCOPE_EMPTY_OBJECT)
+    }
+
+    fun endObject() {
+        expect(Token.END_OBJECT)
+        stackSize--
+    }
+
+    fun nextName(): String {
+        expect(Token.NAME)
+        val name = readString()
+        stack[stackSize - 1] = SCOPE_DANGLING_NAME
+        return name
+    }
+
+    /**
+     * String value; sayılar ve mantıksal değerler de metin olarak döner
+     */
+    fun nextString(): String = when (peek()) {
+        Token.STRING -> {
+            peeked = null
+            readString()
+        }
+        Token.NUMBER, Token.BOOLEAN -> {
+            peeked = null
+            readLiteral()
+        }
+        else -> throw syntaxError("Expected a string but was ${peek()}")
+    }
+
+    fun nextInt(): Int = nextLong().toInt()
+
+    fun nextLong(): Long {
+        val text = numberText()
+        return text.toLongOrNull() ?: parseDouble(text).toLong()
+    }
+
+    fun nextDouble(): Double = parseDouble(numberText())
+
+    fun nextBoolean(): Boolean {
+        expect(Token.BOOLEAN)
+        return readLiteral() == "true"
+    }
+
+    fun nextNull() {
+        expect(Token.NULL)
+        readLiteral()
+    }
+
+    /**
+     * Whole result as plain text - JSON olmayan dize sonuçları için
+     */
+    fun nextText(): String {
+        expect(Token.TEXT)
+        return readRemaining()
+    }
+
+    private fun readRemaining(): String {
+        buffer.setLength(0)
+        while (true) {
+            val c = read()
+            if (c == EOF) break
+            buffer.append(c.toChar())
+        }
+        return buffer.toString()
+    }
+
+    /**
+     * Skip the next value including nested arrays and objects
+     */
+    fun skipValue() {
+        var depth = 0
+        do {
+            when (peek()) {
+                Token.BEGIN_ARRAY -> { beginArray(); depth++ }
+                Token.BEGIN_OBJECT -> { beginObject(); depth++ }
+                Token.END_ARRAY -> { endArray(); depth-- }
+                Token.END_OBJECT -> { endObject(); depth-- }
+                Token.NAME -> { nextName(); continue }
+                Token.STRING -> { peeked = null; skipString() }
+                Token.NUMBER, Token.BOOLEAN, Token.NULL -> { peeked = null; readLiteral() }
+                Token.TEXT -> nextText()
+                Token.END_DOCUMENT -> throw syntaxError("Unexpected end of result")
+            }
+        } while (depth > 0)
+    }
+
+    // ---- Kaynak: dış dize kaçışlarını çözerek iç JSON karakterlerini verir ----
+
+    private fun read(): Int {
+        if (lookahead != NONE) {
+            val c = lookahead
+            lookahead = NONE
+            return c
+        }
+        if (pos >= end) return EOF
+        val c = source[pos++]
+        if (!quoted || c != '\\') return c.code
+        if (pos >= end) throw syntaxError("Unterminated escape")
+        return when (val escaped = source[pos++]) {
+            'n' -> '\n'.code
+            't' -> '\t'.code
+            'r' -> '\r'.code
+            'b' -> '\b'.code
+            'f' -> '\u000C'.code
+            'u' -> {
+                if (pos + 4 > end) throw syntaxError("Unterminated escape")
+                val code = source.substring(pos, pos + 4).toInt(16)
+                pos += 4
+                code
+            }
+            else -> escaped.code // \" \\ \/
+        }
+    }
+
+    private fun peekChar(): Int {
+        if (lookahead == NONE) lookahead = read()
+        return lookahead
+    }
+
+    private fun nextNonWhitespace(): Int {
+        while (true) {
+            val c = read()
+            if (c != ' '.code && c != '\n'.code && c != '\t'.code && c != '\r'.code) return c
+        }
+    }
+
+    // ---- Ayrıştırıcı ----
+
+    private fun doPeek(): Token {
+        when (stack[stackSize - 1]) {
+            SCOPE_EMPTY_DOCUMENT -> {
+                stack[stackSize - 1] = SCOPE_NONEMPTY_DOCUMENT
+                if (quoted) {
+                    // Dize sonucu yalnızca nesne veya dizi ise JSON olarak okunur
+                    val c = nextNonWhitespace()
+                    lookahead = c
+                    if (c != '['.code && c != '{'.code) return Token.TEXT
+                }
+            }
+            SCOPE_NONEMPTY_DOCUMENT -> {
+                if (nextNonWhitespace() != EOF) throw syntaxError("Trailing data after result")
+                return Token.END_DOCUMENT
+            }
+            SCOPE_EMPTY_ARRAY -> stack[stackSize - 1] = SCOPE_NONEMPTY_ARRAY
+            SCOPE_NONEMPTY_ARRAY -> when (nextNonWhitespace()) {
+                ']'.code -> return Token.END_ARRAY
+                ','.code -> Unit
+                else -> throw syntaxError("Unterminated array")
+            }
+            SCOPE_EMPTY_OBJECT, SCOPE_NONEMPTY_OBJECT -> {
+                val first = stack[stackSize - 1] == SCOPE_EMPTY_OBJECT
+                var c = nextNonWhitespace()
+                if (c == '}'.code) return Token.END_OBJECT
+                if (!first) {
+                    if (c != ','.code) throw syntaxError("Unterminated object")
+                    c = nextNonWhitespace()
+                }
+                if (c != '"'.code) throw syntaxError("Expected a name")
+                stack[stackSize - 1] = SCOPE_NONEMPTY_OBJECT
+                return Token.NAME
+            }
+            SCOPE_DANGLING_NAME -> {
+                if (nextNonWhitespace() != ':'.code) throw syntaxError("Expected ':'")
+                stack[stackSize - 1] = SCOPE_NONEMPTY_OBJECT
+            }
+        }
+
+        return when (val c = nextNonWhitespace()) {
+            '['.code -> Token.BEGIN_ARRAY
+            '{'.code -> Token.BEGIN_OBJECT
+            ']'.code -> if (stack[stackSize - 1] == SCOPE_NONEMPTY_ARRAY) Token.END_ARRAY else throw syntaxError("Unexpected ']'")
+            '"'.code -> Token.STRING
+            't'.code, 'f'.code -> { lookahead = c; Token.BOOLEAN }
+            'n'.code -> { lookahead = c; Token.NULL }
+            EOF -> Token.END_DOCUMENT
+            else -> {
+                if (c == '-'.code || c in '0'.code..'9'.code) {
+                    lookahead = c
+                    Token.NUMBER
+                } else {
+                    throw syntaxError("Unexpected character '${c.toChar()}'")
+                }
+            }
+        }
+    }
+
+    /**
+     * Read a string body after its opening quote, decoding the inner JSON escapes
+     */
+    private fun readString(): String {
+        buffer.setLength(0)
+        while (true) {
+            val c = read()
+            when (c) {
+                EOF -> throw syntaxError("Unterminated string")
+                '"'.code -> return buffer.toString()
+                '\\'.code -> buffer.append(readInnerEscape())
+                else -> buffer.append(c.toChar())
+            }
+        }
+    }
+
+    private fun skipString() {
+        while (true) {
+            when (read()) {
+                EOF -> throw syntaxError("Unterminated string")
+                '"'.code -> return
+                '\\'.code -> readInnerEscape()
+            }
+        }
+    }
+
+    private fun readInnerEscape(): Char = when (val c = read()) {
+        'n'.code -> '\n'
+        't'.code -> '\t'
+        'r'.code -> '\r'
+        'b'.code -> '\b'
+        'f'.code -> '\u000C'
+        'u'.code -> {
+            var code = 0
+            repeat(4) {
+                val digit = Character.digit(read(), 16)
+                if (digit < 0) throw syntaxError("Malformed unicode escape")
+                code = (code shl 4) or digit
+            }
+            code.toChar()
+        }
+        EOF -> throw syntaxError("Unterminated escape")
+        else -> c.toChar()
+    }
+
+    // Sayı, true/false/null - ayırıcıya kadar okunur
+    private fun readLiteral(): String {
+        buffer.setLength(0)
+        while (true) {
+            val c = peekChar()
+            if (c == EOF || c == ','.code || c == ']'.code || c == '}'.code || c == ':'.code ||
+                c == ' '.code || c == '\n'.code || c == '\t'.code || c == '\r'.code
+            ) {
+                return buffer.toString()
+            }
+            buffer.append(read().toChar())
+        }
+    }
+
+    // Tırnaklı sayılar da kabul edilir ("12")
+    private fun numberText(): String {
+        val token = peek()
+        if (token != Token.NUMBER && token != Token.STRING) throw syntaxError("Expected a number but was $token")
+        return nextString()
+    }
+
+    private fun parseDouble(text: String): Double =
+        text.toDoubleOrNull() ?: throw syntaxError("Malformed number '$text'")
+
+    private fun expect(token: Token) {
+        val actual = peek()
+        if (actual != token) throw syntaxError("Expected $token but was $actual")
+        peeked = null
+    }
+
+    private fun push(scope: Int) {
+        if (stackSize == stack.size) stack = stack.copyOf(stackSize * 2)
+        stack[stackSize++] = scope
+    }
+
+    private fun syntaxError(message: String) = IllegalStateException("$message at offset $pos")
+
+    companion object {
+        /**
+         * Decode a result holding a JS string without parsing its content
+         * İçerik JSON olsa bile metin olarak döner; null sonuç null, dize olmayan sonuç olduğu gibi döner
+         */
+        fun unquote(result: String?): String? {
+            val reader = JsResultReader(result)
+            if (reader.quoted) return reader.readRemaining()
+            val text = result?.trim()
+            return if (text.isNullOrEmpty() || text == "null") null else text
+        }
+
+        private const val EOF = -1
+        private const val NONE = -2
+
+        private const val SCOPE_EMPTY_DOCUMENT = 0
+        private const val SCOPE_NONEMPTY_DOCUMENT = 1
+        private const val SCOPE_EMPTY_ARRAY = 2
+        private const val SCOPE_NONEMPTY_ARRAY = 3
+        private const val SCOPE_EMPTY_OBJECT = 4
+        private const val SCOPE_NONEMPTY_OBJECT = 5
+        private const val SCOPE_DANGLING_NAME = 6
+    }
+}
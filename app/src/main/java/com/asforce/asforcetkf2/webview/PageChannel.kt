@@ -0,0 +1,347 @@
+package com.asforce.asforcetkf2.webview
+
+import android.net.Uri
+import android.os.Handler
+import android.os.Looper
+import android.webkit.WebView
+import androidx.webkit.WebMessageCompat
+import androidx.webkit.WebMessagePortCompat
+import androidx.webkit.WebViewCompat
+import androidx.webkit.WebViewFeature
+import org.json.JSONArray
+import org.json.JSONObject
+import timber.log.Timber
+
+/**
+ * Bidirectional message channel between Kotlin and the page over a WebMessagePort
+ * evaluateJavascript dönüş dizeleri ve @JavascriptInterface köprüleri yerine kullanılır: sayfa
+ * odak, giriş değişikliği ve DOM hazır olaylarını kendisi iter, Kotlin istek kimlikli çağrılar yapar.
+ * Her belge için [onDocumentStarted] ile eski kanal kapatılır, [connect] ile yenisi bir kez kurulur.
+ * Port yalnızca onPageFinished'ın bildirdiği sayfanın origin'ine gönderilir. Tüm çağrılar main thread'de yapılmalıdır.
+ */
+class PageChannel(private val webView: WebView) {
+
+    /**
+     * Typed events pushed by the page
+     */
+    sealed class PageEvent {
+        data class DomReady(val url: String, val formCount: Int, val inputCount: Int) : PageEvent()
+        data class InputFocused(
+            val key: String,
+            val value: String,
+            val tagName: String,
+            val inputType: String = "text",
+            val editable: Boolean = true
+        ) : PageEvent() {
+            // Sayısal klavye gerektiren alan tipleri
+            val isNumeric: Boolean
+                get() = inputType == "number" || inputType == "tel"
+        }
+        data class InputChanged(val key: String, val value: String) : PageEvent()
+        data class DownloadRequested(val url: String) : PageEvent()
+        data class Custom(val name: String, val payload: Any?) : PageEvent()
+
+        companion object {
+            fun from(name: String, payload: Any?): PageEvent {
+                val json = payload as? JSONObject
+                return when {
+                    json == null -> Custom(name, payload)
+                    name == "domReady" -> DomReady(json.optString("url"), json.optInt("forms"), json.optInt("inputs"))
+                    name == "focus" -> InputFocused(
+                        json.optString("key"),
+                        json.optString("value"),
+                        json.optString("tag"),
+                        json.optString("type", "text"),
+                        json.optBoolean("editable", true)
+                    )
+                    name == "input" -> InputChanged(json.optString("key"), json.optString("value"))
+                    name == "download" -> DownloadRequested(json.optString("url"))
+                    else -> Custom(name, payload)
+                }
+            }
+        }
+    }
+
+    var onEvent: ((PageEvent) -> Unit)? = null
+
+    private val mainHandler = Handler(Looper.getMainLooper())
+    private val requestHandlers = LinkedHashMap<String, (Any?) -> Any?>()
+    private var port: WebMessagePortCompat? = null
+    private var core: PageChannelCore? = null
+
+    val isConnected: Boolean
+        get() = core?.isOpen == true
+
+    /**
+     * Drop the channel of the previous document - onPageStarted'dan çağrılır
+     */
+    fun onDocumentStarted() {
+        close("Document replaced")
+    }
+
+    /**
+     * Open the channel to the document loaded from [url] - onPageFinished'dan çağrılır
+     * Sayfadaki betik (PAGE_CHANNEL_SCRIPT) el sıkışmayı alınca biriktirdiği olayları gönderir. Betik belge
+     * başına yalnızca ilk el sıkışmayı kabul ettiğinden aynı belge için ikinci kez bağlanılmaz.
+     * Port yalnızca [url]'nin origin'ine gönderilir: bu arada başka bir sayfa yüklendiyse ona ulaşmaz.
+     */
+    fun connect(url: String?) {
+        if (!isSupported || isConnected) return
+        close("Document replaced")
+
+        // Yalnızca http(s) sayfalarının belirli bir origin'i vardır; diğerleri köprülerle çalışmaya devam eder
+        val targetOrigin = url?.let { originOf(it) } ?: return
+
+        try {
+            val ports = WebViewCompat.createWebMessageChannel(webView)
+            val local = ports[0]
+            val channelCore = PageChannelCore(
+                sendFrame = { frame -> local.postMessage(WebMessageCompat(encode(frame))) },
+                scheduleFlush = { flush -> mainHandler.post(flush) }
+            )
+            channelCore.onEvent = { name, payload -> dispatch(name, payload) }
+            requestHandlers.forEach { (name, handler) -> channelCore.handle(name, handler) }
+
+            local.setWebMessageCallback(mainHandler, object : WebMessagePortCompat.WebMessageCallbackCompat() {
+                override fun onMessage(port: WebMessagePortCompat, message: WebMessageCompat?) {
+                    val data = message?.data ?: return
+                    val frame = decode(data) ?: return
+                    channelCore.onFrame(frame)
+                }
+            })
+
+            WebViewCompat.postWebMessage(webView, WebMessageCompat(HANDSHAKE, arrayOf(ports[1])), targetOrigin)
+            port = local
+            core = channelCore
+        } catch (e: Exception) {
+            Timber.w(e, "Page channel could not be opened")
+        }
+    }
+
+    fun close(reason: String = "Channel closed") {
+        core?.close(reason)
+        core = null
+        try {
+            port?.close()
+        } catch (e: Exception) {
+            // Port zaten kapalı
+        }
+        port = null
+    }
+
+    /**
+     * Send an event to handlers registered in the page with TKFChannel.handle(name, fn)
+     */
+    fun emit(name: String, payload: Any? = null) {
+        core?.emit(name, payload)
+    }
+
+    /**
+     * Call a page handler and wait for its result; aynı anda bekleyen istek sayısı sınırlıdır
+     */
+    suspend fun call(name: String, payload: Any? = null, timeoutMs: Long = PageChannelCore.DEFAULT_TIMEOUT_MS): Any? {
+        val channelCore = core ?: throw PageChannelException("Page channel not connected")
+        return channelCore.call(name, payload, timeoutMs)
+    }
+
+    /**
+     * Answer TKFChannel.request(name, payload) calls from the page
+     */
+    fun handle(name: String, handler: (Any?) -> Any?) {
+        requestHandlers[name] = handler
+        core?.handle(name, handler)
+    }
+
+    fun getStats(): Map<String, Any> {
+        val channelCore = core
+        return mapOf(
+            "connected" to (channelCore?.isOpen == true),
+            "frames_sent" to (channelCore?.framesSent ?: 0L),
+            "frames_received" to (channelCore?.framesReceived ?: 0L),
+            "messages_received" to (channelCore?.messagesReceived ?: 0L)
+        )
+    }
+
+    private fun dispatch(name: String, payload: Any?) {
+        onEvent?.invoke(PageEvent.from(name, payload))
+    }
+
+    companion object {
+        private const val HANDSHAKE = "tkf-channel"
+
+        // scheme://host[:port] - kullanıcı bilgisi, yol ve sorgu origin'e dahil değildir
+        private fun originOf(url: String): Uri? {
+            val uri = Uri.parse(url)
+            val scheme = uri.scheme?.lowercase() ?: return null
+            val host = uri.host?.lowercase() ?: return null
+            if (scheme != "http" && scheme != "https") return null
+            val port = if (uri.port != -1) ":${uri.port}" else ""
+            return Uri.parse("$scheme://$host$port")
+        }
+
+        val isSupported: Boolean by lazy {
+            try {
+                WebViewFeature.isFeatureSupported(WebViewFeature.CREATE_WEB_MESSAGE_CHANNEL) &&
+                    WebViewFeature.isFeatureSupported(WebViewFeature.POST_WEB_MESSAGE) &&
+                    WebViewFeature.isFeatureSupported(WebViewFeature.WEB_MESSAGE_PORT_POST_MESSAGE) &&
+                    WebViewFeature.isFeatureSupported(WebViewFeature.WEB_MESSAGE_PORT_SET_MESSAGE_CALLBACK) &&
+                    WebViewFeature.isFeatureSupported(WebViewFeature.WEB_MESSAGE_PORT_CLOSE)
+            } catch (e: Exception) {
+                false
+            }
+        }
+
+        internal fun encode(frame: List<PageMessage>): String {
+            val array = JSONArray()
+            frame.forEach { message ->
+                val json = JSONObject().put("t", message.type.wire)
+                if (message.id != 0) json.put("id", message.id)
+                if (message.name.isNotEmpty()) json.put("n", message.name)
+                if (message.payload != null) json.put("p", message.payload)
+                if (message.error != null) json.put("e", message.error)
+                array.put(json)
+            }
+            return array.toString()
+        }
+
+        internal fun decode(data: String): List<PageMessage>? = try {
+            val array = JSONArray(data)
+            (0 until array.length()).mapNotNull { index ->
+                val json = array.optJSONObject(index) ?: return@mapNotNull null
+                val type = PageMessage.Type.fromWire(json.optString("t")) ?: return@mapNotNull null
+                PageMessage(
+                    type = type,
+                    id = json.optInt("id"),
+                    name = json.optString("n"),
+                    payload = json.opt("p")?.takeUnless { it == JSONObject.NULL },
+                    error = if (json.has("e") && !json.isNull("e")) json.optString("e") else null
+                )
+            }
+        } catch (e: Exception) {
+            Timber.w(e, "Malformed page channel frame")
+            null
+        }
+
+        /**
+         * Page side of the channel, installed at document start in the top frame
+         * Olaylar mikro görevde tek çerçevede toplanır; Kotlin onayı gelmeden yeni çerçeve gönderilmez,
+         * bu sürede aynı anahtarlı olaylar (ör. aynı alanın giriş değeri) birleştirilir. Kuyruk sınırı
+         * aşılırsa en eski olay düşürülür; istek ve yanıtlar düşürülmez.
+         */
+        internal const val PAGE_CHANNEL_SCRIPT = """
+            (function() {
+                if (window.top !== window || window.TKFChannel) return;
+                var MAX_BATCH = 64, MAX_QUEUE = 256;
+                var queue = [], port = null, waitingAck = false, scheduled = false;
+                var nextId = 1, pending = {}, handlers = {};
+
+                var flush = function() {
+                    scheduled = false;
+                    if (!port || waitingAck || queue.length === 0) return;
+                    var batch = queue.splice(0, MAX_BATCH);
+                    for (var i = 0; i < batch.length; i++) delete batch[i].k;
+                    waitingAck = true;
+                    port.postMessage(JSON.stringify(batch));
+                };
+                var schedule = function() {
+                    if (scheduled) return;
+                    scheduled = true;
+                    Promise.resolve().then(flush);
+                };
+                var enqueue = function(message, coalesceKey) {
+                    if (coalesceKey) {
+                        for (var i = queue.length - 1; i >= 0; i--) {
+                            if (queue[i].k === coalesceKey) { queue.splice(i, 1); break; }
+                        }
+                        message.k = coalesceKey;
+                    }
+                    queue.push(message);
+                    if (queue.length > MAX_QUEUE) {
+                        for (var j = 0; j < queue.length; j++) {
+                            if (queue[j].t === 'evt') { queue.splice(j, 1); break; }
+                        }
+                    }
+                    schedule();
+                };
+                var respond = function(id, run) {
+                    Promise.resolve().then(run).then(function(result) {
+                        enqueue({ t: 'res', id: id, p: result === undefined ? null : result });
+                    }, function(error) {
+                        enqueue({ t: 'res', id: id, e: String(error && error.message || error) });
+                    });
+                };
+                var receive = function(event) {
+                    var batch;
+                    try { batch = JSON.parse(event.data); } catch (e) { return; }
+                    for (var i = 0; i < batch.length; i++) {
+                        var m = batch[i];
+                        if (m.t === 'ack') {
+                            waitingAck = false;
+                            schedule();
+                        } else if (m.t === 'res') {
+                            var call = pending[m.id];
+                            if (!call) continue;
+                            delete pending[m.id];
+                            if (m.e) call.reject(new Error(m.e)); else call.resolve(m.p);
+                        } else if (m.t === 'req') {
+                            (function(m) {
+                                var handler = handlers[m.n];
+                                respond(m.id, function() {
+                                    if (!handler) throw new Error('No handler for ' + m.n);
+                                    return handler(m.p);
+                                });
+                            })(m);
+                        } else if (m.t === 'evt' && handlers[m.n]) {
+                            try { handlers[m.n](m.p); } catch (e) {}
+                        }
+                    }
+                };
+
+                window.addEventListener('message', function(event) {
+                    // Yalnızca Kotlin'in postWebMessage el sıkışması kabul edilir (source null); bir iframe veya
+                    // başka bir pencere aynı veriyle port gönderip kanalı ele geçiremez
+                    if (event.data !== 'tkf-channel' || event.source !== null || !event.ports || !event.ports[0]) return;
+                    event.stopImmediatePropagation();
+                    // Belge başına tek kanal - sonraki el sıkışmalar yok sayılır
+                    if (port) {
+                        event.ports[0].close();
+                        return;
+                    }
+                    port = event.ports[0];
+                    port.onmessage = receive;
+                    waitingAck = false;
+                    window.TKFChannel.connected = true;
+                    schedule();
+                }, true);
+
+                window.TKFChannel = {
+                    connected: false,
+                    emit: function(name, payload, coalesceKey) {
+                        enqueue({ t: 'evt', n: name, p: payload === undefined ? null : payload }, coalesceKey);
+                    },
+                    request: function(name, payload) {
+                        return new Promise(function(resolve, reject) {
+                            var id = nextId++;
+                            pending[id] = { resolve: resolve, reject: reject };
+                            enqueue({ t: 'req', id: id, n: name, p: payload === undefined ? null : payload });
+                        });
+                    },
+                    handle: function(name, fn) { handlers[name] = fn; }
+                };
+
+                var domReady = function() {
+                    window.TKFChannel.emit('domReady', {
+                        url: location.href,
+                        forms: document.forms.length,
+                        inputs: document.querySelectorAll('input, textarea').length
+                    });
+                };
+                if (document.readyState === 'loading') {
+                    document.addEventListener('DOMContentLoaded', domReady);
+                } else {
+                    domReady();
+                }
+            })();
+        """
+    }
+}
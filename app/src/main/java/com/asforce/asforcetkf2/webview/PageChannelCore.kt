@@ -0,0 +1,191 @@
+package com.asforce.asforcetkf2.webview
+
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.sync.Semaphore
+import kotlinx.coroutines.sync.withPermit
+import kotlinx.coroutines.withTimeout
+import timber.log.Timber
+
+/**
+ * One message on the page channel
+ */
+data class PageMessage(
+    val type: Type,
+    val id: Int = 0,
+    val name: String = "",
+    val payload: Any? = null,
+    val error: String? = null
+) {
+    enum class Type(val wire: String) {
+        EVENT("evt"),
+        REQUEST("req"),
+        RESPONSE("res"),
+        ACK("ack");
+
+        companion object {
+            fun fromWire(wire: String): Type? = values().firstOrNull { it.wire == wire }
+        }
+    }
+}
+
+class PageChannelException(message: String) : Exception(message)
+
+/**
+ * Transport-independent half of the page channel: request ids, batching and back-pressure
+ * Giden mesajlar bir sonraki döngü turunda tek çerçevede toplanır. Sayfa, gönderdiği çerçeve
+ * onaylanmadan yenisini göndermez (onay bir sonraki çerçeveye eklenir); Kotlin tarafında ise
+ * yanıt bekleyen istek sayısı sınırlıdır, fazlası yer açılana kadar askıda bekler.
+ * Tüm çağrılar aynı thread'den (main) yapılmalıdır.
+ */
+class PageChannelCore(
+    private val sendFrame: (List<PageMessage>) -> Unit,
+    private val scheduleFlush: (() -> Unit) -> Unit,
+    private val maxBatch: Int = DEFAULT_MAX_BATCH,
+    maxInFlightRequests: Int = DEFAULT_MAX_IN_FLIGHT
+) {
+
+    var onEvent: ((String, Any?) -> Unit)? = null
+
+    private val requestHandlers = HashMap<String, (Any?) -> Any?>()
+    private val outgoing = ArrayDeque<PageMessage>()
+    private val pending = HashMap<Int, CompletableDeferred<Any?>>()
+    private val inFlight = Semaphore(maxInFlightRequests)
+    private var nextId = 1
+    private var flushScheduled = false
+    private var pendingAcks = 0
+
+    var isOpen = true
+        private set
+
+    var framesSent = 0L
+        private set
+    var framesReceived = 0L
+        private set
+    var messagesReceived = 0L
+        private set
+
+    fun emit(name: String, payload: Any? = null) {
+        enqueue(PageMessage(PageMessage.Type.EVENT, name = name, payload = payload))
+    }
+
+    /**
+     * Answer requests the page sends with TKFChannel.request(name, payload)
+     */
+    fun handle(name: String, handler: (Any?) -> Any?) {
+        requestHandlers[name] = handler
+    }
+
+    /**
+     * Call a handler the page registered with TKFChannel.handle(name, fn)
+     */
+    suspend fun call(name: String, payload: Any? = null, timeoutMs: Long = DEFAULT_TIMEOUT_MS): Any? =
+        inFlight.withPermit {
+            if (!isOpen) throw PageChannelException("Channel closed")
+            val id = nextId++
+            val response = CompletableDeferred<Any?>()
+            pending[id] = response
+            enqueue(PageMessage(PageMessage.Type.REQUEST, id = id, name = name, payload = payload))
+            try {
+                withTimeout(timeoutMs) { response.await() }
+            } finally {
+                pending.remove(id)
+            }
+        }
+
+    /**
+     * Dispatch one frame received from the page
+     */
+    fun onFrame(messages: List<PageMessage>) {
+        if (!isOpen) return
+        framesReceived++
+        messagesReceived += messages.size
+
+        for (message in messages) {
+            when (message.type) {
+                PageMessage.Type.RESPONSE -> pending.remove(message.id)?.let { response ->
+                    if (message.error == null) {
+                        response.complete(message.payload)
+                    } else {
+                        response.completeExceptionally(PageChannelException(message.error))
+                    }
+                }
+                PageMessage.Type.REQUEST -> enqueue(answer(message))
+                PageMessage.Type.EVENT -> try {
+                    onEvent?.invoke(message.name, message.payload)
+                } catch (e: Exception) {
+                    Timber.e(e, "Page event ${message.name} failed")
+                }
+                // Kotlin'den sayfaya giden çerçeveler pencerelenmez
+                PageMessage.Type.ACK -> Unit
+            }
+        }
+
+        // Sayfa bir sonraki çerçevesini bu onayı aldıktan sonra gönderir
+        pendingAcks++
+        schedule()
+    }
+
+    fun close(reason: String = "Channel closed") {
+        if (!isOpen) return
+        isOpen = false
+        outgoing.clear()
+        val waiting = pending.values.toList()
+        pending.clear()
+        waiting.forEach { it.completeExceptionally(PageChannelException(reason)) }
+    }
+
+    /**
+     * Send everything queued, in frames of at most [maxBatch] messages
+     */
+    fun flush() {
+        flushScheduled = false
+        if (!isOpen) return
+
+        while (outgoing.isNotEmpty() || pendingAcks > 0) {
+            val frame = ArrayList<PageMessage>(minOf(maxBatch, outgoing.size + 1))
+            if (pendingAcks > 0) {
+                frame.add(PageMessage(PageMessage.Type.ACK, id = pendingAcks))
+                pendingAcks = 0
+            }
+            while (frame.size < maxBatch && outgoing.isNotEmpty()) {
+                frame.add(outgoing.removeFirst())
+            }
+            try {
+                sendFrame(frame)
+                framesSent++
+            } catch (e: Exception) {
+                Timber.e(e, "Page channel frame could not be sent")
+                close("Send failed: ${e.message}")
+                return
+            }
+        }
+    }
+
+    private fun answer(request: PageMessage): PageMessage {
+        val handler = requestHandlers[request.name]
+            ?: return PageMessage(PageMessage.Type.RESPONSE, id = request.id, error = "No handler for ${request.name}")
+        return try {
+            PageMessage(PageMessage.Type.RESPONSE, id = request.id, payload = handler(request.payload))
+        } catch (e: Exception) {
+            PageMessage(PageMessage.Type.RESPONSE, id = request.id, error = e.message ?: e.javaClass.simpleName)
+        }
+    }
+
+    private fun enqueue(message: PageMessage) {
+        if (!isOpen) return
+        outgoing.addLast(message)
+        schedule()
+    }
+
+    private fun schedule() {
+        if (flushScheduled) return
+        flushScheduled = true
+        scheduleFlush { flush() }
+    }
+
+    companion object {
+        const val DEFAULT_MAX_BATCH = 64
+        const val DEFAULT_MAX_IN_FLIGHT = 16
+        const val DEFAULT_TIMEOUT_MS = 3_000L
+    }
+}
@@ -0,0 +1,114 @@
+package com.asforce.asforcetkf2.webview
+
+import android.content.Context
+import java.util.Locale
+
+/**
+ * Prebuilt page script bundle and the calls into it
+ * src/main/scripts altındaki betikler derleme sırasında küçültülüp tek asset olarak paketlenir
+ * (bkz. buildSrc BundleScriptsTask) ve her belgeye bir kez yüklenir. İşlevler adlarıyla,
+ * argümanlar JSON olarak gönderilerek çağrılır: betik gövdesi her çağrıda yeniden oluşturulup
+ * derlenmez, kullanıcı değerleri betik metnine eklenmediği için tırnak ve kaçış sorunu oluşmaz.
+ */
+object ScriptBundle {
+
+    const val ID = "script-bundle"
+    const val ASSET_PATH = "scripts/tkf-bundle.js"
+
+    // Paket her uygulama sürümüyle birlikte değişir; belge içi tekrar koruması için sabit sürüm yeterli
+    private const val VERSION = 1
+
+    // Paket belgede yoksa çağrı ifadesi bu işareti döndürür
+    internal const val MISSING_MARKER = "tkf:bundle-missing"
+    private const val MISSING_RESULT = "\"$MISSING_MARKER\""
+
+    @Volatile
+    private var script: DocumentStartScript? = null
+
+    /**
+     * Bundle as a document-start script - asset ilk çağrıda okunur ve saklanır
+     * @throws java.io.IOException asset okunamazsa
+     */
+    fun script(context: Context): DocumentStartScript = script ?: synchronized(this) {
+        script ?: DocumentStartScript(ID, VERSION, load(context)).also { script = it }
+    }
+
+    private fun load(context: Context): String =
+        context.applicationContext.assets.open(ASSET_PATH).bufferedReader(Charsets.UTF_8).use { it.readText() }
+
+    /**
+     * Expression calling bundle function [name] with [args] encoded as JSON
+     * Desteklenen argümanlar: null, String, Char, Boolean, Number, Map, Iterable, Array
+     */
+    fun invocation(name: String, args: List<Any?>): String {
+        val builder = StringBuilder(64 + name.length)
+        builder.append("window.TKFScripts?TKFScripts.call(")
+        encode(name, builder)
+        builder.append(',')
+        encode(args, builder)
+        builder.append("):\"").append(MISSING_MARKER).append('"')
+        return builder.toString()
+    }
+
+    fun isMissing(result: String?): Boolean = result == MISSING_RESULT
+
+    internal fun encode(value: Any?, out: StringBuilder) {
+        when (value) {
+            null -> out.append("null")
+            is String -> quote(value, out)
+            is Char -> quote(value.toString(), out)
+            is Boolean -> out.append(value)
+            is Double -> encodeNumber(value, value.isFinite(), out)
+            is Float -> encodeNumber(value, value.isFinite(), out)
+            is Number -> out.append(value)
+            is Map<*, *> -> {
+                out.append('{')
+                var first = true
+                for ((key, item) in value) {
+                    if (!first) out.append(',')
+                    first = false
+                    quote(key.toString(), out)
+                    out.append(':')
+                    encode(item, out)
+                }
+                out.append('}')
+            }
+            is Iterable<*> -> encodeAll(value.iterator(), out)
+            is Array<*> -> encodeAll(value.iterator(), out)
+            else -> quote(value.toString(), out)
+        }
+    }
+
+    private fun encodeAll(items: Iterator<*>, out: StringBuilder) {
+        out.append('[')
+        var first = true
+        for (item in items) {
+            if (!first) out.append(',')
+            first = false
+            encode(item, out)
+        }
+        out.append(']')
+    }
+
+    // NaN ve sonsuz JSON'da yoktur - null gönderilir
+    private fun encodeNumber(value: Number, finite: Boolean, out: StringBuilder) {
+        if (finite) out.append(value) else out.append("null")
+    }
+
+    private fun quote(value: String, out: StringBuilder) {
+        out.append('"')
+        for (c in value) {
+            when {
+                c == '"' -> out.append("\\\"")
+                c == '\\' -> out.append("\\\\")
+                c == '\n' -> out.append("\\n")
+                c == '\r' -> out.append("\\r")
+                c == '\t' -> out.append("\\t")
+                // Kontrol karakterleri ve eski motorlarda dize içinde satır sonu sayılan U+2028/U+2029
+                c < ' ' || c == '\u2028' || c == '\u2029' -> out.append(String.format(Locale.ROOT, "\\u%04x", c.code))
+                else -> out.append(c)
+            }
+        }
+        out.append('"')
+    }
+}
@@ -0,0 +1,173 @@
+package com.asforce.asforcetkf2.webview
+
+import com.asforce.asforcetkf2.util.LatencyHistogram
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Deferred
+import kotlinx.coroutines.NonCancellable
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.TimeoutCancellationException
+import kotlinx.coroutines.async
+import kotlinx.coroutines.cancel
+import kotlinx.coroutines.isActive
+import kotlinx.coroutines.job
+import kotlinx.coroutines.suspendCancellableCoroutine
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
+import kotlinx.coroutines.withContext
+import kotlinx.coroutines.withTimeout
+import kotlinx.coroutines.withTimeoutOrNull
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicLong
+import kotlin.coroutines.resume
+
+class ScriptTimeoutException(val name: String, val timeoutMs: Long) :
+    Exception("Script '$name' did not answer within $timeoutMs ms")
+
+/**
+ * Round-trip latency per script name, shared by every executor
+ */
+class ScriptLatencyStats {
+
+    private val histograms = ConcurrentHashMap<String, LatencyHistogram>()
+    private val timeouts = ConcurrentHashMap<String, AtomicLong>()
+
+    fun record(name: String, nanos: Long) {
+        histograms.computeIfAbsent(name) { LatencyHistogram() }.recordNanos(nanos)
+    }
+
+    fun recordTimeout(name: String) {
+        timeouts.computeIfAbsent(name) { AtomicLong() }.incrementAndGet()
+    }
+
+    fun histogram(name: String): LatencyHistogram? = histograms[name]
+
+    fun timeoutCount(name: String): Long = timeouts[name]?.get() ?: 0L
+
+    fun snapshot(): Map<String, Map<String, Any>> {
+        val result = sortedMapOf<String, Map<String, Any>>()
+        (histograms.keys + timeouts.keys).forEach { name ->
+            val entry = LinkedHashMap<String, Any>()
+            histograms[name]?.let { entry.putAll(it.snapshot()) }
+            entry["timeouts"] = timeoutCount(name)
+            result[name] = entry
+        }
+        return result
+    }
+
+    companion object {
+        val shared = ScriptLatencyStats()
+    }
+}
+
+/**
+ * Serial, cancellable evaluateJavascript queue for one WebView
+ * Betikler sırayla ve tek tek çalışır; aynı betik zaten kuyrukta ya da çalışıyorsa yeni çağrı ona
+ * bağlanır. Yanıt vermeyen sayfa kuyruğu kilitlemesin diye her çalıştırmanın kendi zaman aşımı
+ * vardır. Bir betiği bekleyen son çağıran vazgeçtiğinde (zaman aşımı veya iptal) iş de iptal edilir;
+ * kuyruktaki betik sayfada hiç çalışmaz. [close] bekleyen tüm işleri iptal eder - sekme kapanırken çağrılır.
+ */
+class ScriptExecutor(
+    // WebView.evaluateJavascript - [dispatcher] üzerinde çağrılır
+    private val evaluate: (String, (String?) -> Unit) -> Unit,
+    private val dispatcher: CoroutineDispatcher,
+    private val stats: ScriptLatencyStats = ScriptLatencyStats.shared,
+    private val clock: () -> Long = System::nanoTime
+) {
+
+    private val scope = CoroutineScope(SupervisorJob() + dispatcher)
+    private val queue = Mutex()
+
+    // Betik metni -> çalışan iş; yalnızca [dispatcher] üzerinde değiştirilir
+    private val inFlight = HashMap<String, Pending>()
+
+    // Bir iş ve onu bekleyen çağrı sayısı - yalnızca [dispatcher] üzerinde değiştirilir
+    private class Pending(val job: Deferred<String?>) {
+        var waiters = 0
+    }
+
+    var coalescedCount = 0L
+        private set
+
+    val isClosed: Boolean
+        get() = !scope.isActive
+
+    /**
+     * Run [script] after the scripts queued before it and return the raw evaluateJavascript result
+     * Zaman aşımı kuyrukta bekleme süresini de kapsar; zaman aşımları yalnızca burada, çağrı başına bir kez sayılır
+     */
+    suspend fun eval(script: String, name: String = DEFAULT_NAME, timeoutMs: Long = DEFAULT_TIMEOUT_MS): String? {
+        val pending = withContext(dispatcher) { join(script, name, timeoutMs) }
+        return try {
+            withTimeout(timeoutMs) { pending.job.await() }
+        } catch (e: TimeoutCancellationException) {
+            stats.recordTimeout(name)
+            throw ScriptTimeoutException(name, timeoutMs)
+        } catch (e: ScriptTimeoutException) {
+            // Betiğin kendi zaman aşımı, çağıranınkinden önce doldu
+            stats.recordTimeout(name)
+            throw e
+        } finally {
+            withContext(NonCancellable + dispatcher) { leave(script, pending) }
+        }
+    }
+
+    fun close() {
+        scope.cancel(CancellationException("Script executor closed"))
+    }
+
+    private fun join(script: String, name: String, timeoutMs: Long): Pending {
+        if (isClosed) throw CancellationException("Script executor closed")
+        inFlight[script]?.let { existing ->
+            coalescedCount++
+            existing.waiters++
+            return existing
+        }
+
+        val job = scope.async {
+            try {
+                queue.withLock { run(script, name, timeoutMs) }
+            } finally {
+                if (inFlight[script]?.job === coroutineContext.job) inFlight.remove(script)
+            }
+        }
+        val pending = Pending(job)
+        pending.waiters++
+        // İş kuyrukta beklerken yapılan aynı çağrılar bu işe bağlanır
+        if (job.isActive) inFlight[script] = pending
+        return pending
+    }
+
+    // Bekleyen kalmadıysa iş iptal edilir - çağıranın vazgeçtiği betik kuyruktan sonra sayfaya gönderilmez
+    private fun leave(script: String, pending: Pending) {
+        pending.waiters--
+        if (pending.waiters > 0 || !pending.job.isActive) return
+        // Sonraki aynı çağrılar iptal edilmiş işe bağlanmasın
+        if (inFlight[script] === pending) inFlight.remove(script)
+        pending.job.cancel()
+    }
+
+    private suspend fun run(script: String, name: String, timeoutMs: Long): String? {
+        val start = clock()
+        val result = withTimeoutOrNull(timeoutMs) {
+            suspendCancellableCoroutine<Result<String?>> { continuation ->
+                evaluate(script) { value ->
+                    // Zaman aşımından sonra gelen yanıt yok sayılır
+                    if (continuation.isActive) continuation.resume(Result.success(value))
+                }
+            }
+        }
+        if (result == null) {
+            // Sayılmaz - bekleyen çağrılar bu hatayı alınca eval içinde sayar
+            throw ScriptTimeoutException(name, timeoutMs)
+        }
+        stats.record(name, clock() - start)
+        return result.getOrNull()
+    }
+
+    companion object {
+        const val DEFAULT_NAME = "anonymous"
+        const val DEFAULT_TIMEOUT_MS = 5_000L
+    }
+}
@@ -0,0 +1,70 @@
+package com.asforce.asforcetkf2.webview
+
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.withContext
+
+/**
+ * Single entry point for turning evaluateJavascript results into Kotlin objects
+ * Sonuç [JsResultReader] ile tek geçişte okunur. Büyük sonuçlar (ör. yüzlerce cihazlık liste)
+ * [decodeAsync] ile arka planda çözülür; küçük sonuçlarda thread geçişi ayrıştırmadan pahalı
+ * olduğundan çağıran thread'de kalınır.
+ */
+object ScriptResultDecoder {
+
+    // Bu boyutun altındaki sonuçlar çağıran thread'de çözülür
+    const val BACKGROUND_THRESHOLD_CHARS = 4_096
+
+    fun <T> decode(result: String?, read: (JsResultReader) -> T): T = read(JsResultReader(result))
+
+    suspend fun <T> decodeAsync(result: String?, read: (JsResultReader) -> T): T =
+        if (result == null || result.length < BACKGROUND_THRESHOLD_CHARS) {
+            decode(result, read)
+        } else {
+            withContext(Dispatchers.Default) { decode(result, read) }
+        }
+
+    /**
+     * Decode a result holding a JS string - null sonuç null döner
+     */
+    fun decodeString(result: String?): String? = JsResultReader.unquote(result)
+
+    /**
+     * Read a string array; dizi değilse (ör. "NO_RESULTS") boş liste döner
+     */
+    fun readStringList(reader: JsResultReader): List<String> {
+        if (reader.peek() != JsResultReader.Token.BEGIN_ARRAY) return emptyList()
+        val values = ArrayList<String>()
+        reader.beginArray()
+        while (reader.hasNext()) {
+            if (reader.peek() == JsResultReader.Token.NULL) {
+                reader.nextNull()
+            } else {
+                values.add(reader.nextString())
+            }
+        }
+        reader.endArray()
+        return values
+    }
+
+    /**
+     * Read the top-level fields of an object; iç içe değerler atlanır
+     * Değerler String, Long, Double, Boolean veya null olur. Nesne değilse boş harita döner.
+     */
+    fun readFlatObject(reader: JsResultReader): Map<String, Any?> {
+        if (reader.peek() != JsResultReader.Token.BEGIN_OBJECT) return emptyMap()
+        val fields = LinkedHashMap<String, Any?>()
+        reader.beginObject()
+        while (reader.hasNext()) {
+            val name = reader.nextName()
+            fields[name] = when (reader.peek()) {
+                JsResultReader.Token.STRING -> reader.nextString()
+                JsResultReader.Token.BOOLEAN -> reader.nextBoolean()
+                JsResultReader.Token.NULL -> reader.nextNull().let { null }
+                JsResultReader.Token.NUMBER -> reader.nextString().let { it.toLongOrNull() ?: it.toDouble() }
+                else -> reader.skipValue().let { null }
+            }
+        }
+        reader.endObject()
+        return fields
+    }
+}
@@ -12,6 +12,108 @@ class TKFSessionManager(private val webView: WebView) {
 
     companion object {
         private const val SESSION_COOKIE_CHECK_INTERVAL = 5 * 60 * 1000L // 5 dakika
+        
+        /**
+         * Session keep-alive monitor installed at document start
+         */
+        internal val SESSION_MONITOR_SCRIPT = """
+                (function() {
+                    // Daha önce enjekte edilmişse çalıştırma
+                    if (window.TKF_SESSION_MANAGER) return 'Already initialized';
+                    
+                    // Session manager objesini oluştur
+                    window.TKF_SESSION_MANAGER = {
+                        version: '1.0',
+                        lastCheck: Date.now(),
+                        sessionTimeout: 30 * 60 * 1000, // 30 dakika
+                        checkInterval: ${SESSION_COOKIE_CHECK_INTERVAL},
+                        isMonitoring: false,
+                        
+                        // Oturum durumunu kontrol et
+                        checkSession: function() {
+                            console.log('TKF: Session check at ' + new Date());
+                            this.lastCheck = Date.now();
+                            
+                            // Oturum bilgilerini kontrol et
+                            var cookies = document.cookie;
+                            var hasSessionCookie = cookies.indexOf('ASP.NET_SessionId') !== -1 || 
+                                                 cookies.indexOf('session') !== -1 ||
+                                                 cookies.indexOf('auth') !== -1;
+                                                 
+                            // Oturum çerezi yoksa uyarı gönder
+                            if (!hasSessionCookie) {
+                                console.warn('TKF: No session cookie found!');
+                                
+                                // Native koda oturum sorununu bildir
+                                if (window.TKFBridge) {
+                                    window.TKFBridge.onSessionExpired();
+                                }
+                            }
+                            
+                            // Szutest için özel oturum koruması
+                            if (window.location.href.indexOf('szutest') !== -1) {
+                                try {
+                                    // Keep-alive isteği
+                                    var xhr = new XMLHttpRequest();
+                                    xhr.open('GET', '/EXT/PKControl/KeepAlive', true);
+                                    xhr.withCredentials = true;
+                                    xhr.send();
+                                    console.log('TKF: Sent keep-alive request');
+                                } catch(e) {
+                                    console.error('TKF: Keep-alive error:', e);
+                                }
+                            }
+                            
+                            return hasSessionCookie;
+                        },
+                        
+                        // Oturum izlemeyi başlat
+                        startMonitoring: function() {
+                            if (this.isMonitoring) return false;
+                            
+                            var self = this;
+                            this.isMonitoring = true;
+                            
+                            // İlk kontrolü yap
+                            this.checkSession();
+                            
+                            // Düzenli kontrol için interval oluştur
+                            this.intervalId = setInterval(function() {
+                                self.checkSession();
+                            }, this.checkInterval);
+                            
+                            // Form gönderimlerini yakala
+                            document.addEventListener('submit', function(e) {
+                                var form = e.target;
+                                // Form gönderim zamanını kaydet
+                                try {
+                                    localStorage.setItem('TKF_LAST_FORM_SUBMIT', Date.now());
+                                    console.log('TKF: Form submit detected');
+                                } catch(e) {}
+                            });
+                            
+                            console.log('TKF: Session monitoring started');
+                            return true;
+                        },
+                        
+                        // Oturum izlemeyi durdur
+                        stopMonitoring: function() {
+                            if (!this.isMonitoring) return false;
+                            
+                            clearInterval(this.intervalId);
+                            this.isMonitoring = false;
+                            
+                            console.log('TKF: Session monitoring stopped');
+                            return true;
+                        }
+                    };
+                    
+                    // Otomatik başlat
+                    window.TKF_SESSION_MANAGER.startMonitoring();
+                    
+                    return 'TKF Session Manager initialized';
+                })();
+            """.trimIndent()
     }
 
     private var isSessionMonitoringActive = false
@@ -39,106 +141,8 @@ class TKFSessionManager(private val webView: WebView) {
      * Oturumu koru ve gerektiğinde yenile
      */
     private fun injectSessionMonitoringScript() {
-        val script = """
-            (function() {
-                // Daha önce enjekte edilmişse çalıştırma
-                if (window.TKF_SESSION_MANAGER) return 'Already initialized';
-                
-                // Session manager objesini oluştur
-                window.TKF_SESSION_MANAGER = {
-                    version: '1.0',
-                    lastCheck: Date.now(),
-                    sessionTimeout: 30 * 60 * 1000, // 30 dakika
-                    checkInterval: ${SESSION_COOKIE_CHECK_INTERVAL},
-                    isMonitoring: false,
-                    
-                    // Oturum durumunu kontrol et
-                    checkSession: function() {
-                        console.log('TKF: Session check at ' + new Date());
-                        this.lastCheck = Date.now();
-                        
-                        // Oturum bilgilerini kontrol et
-                        var cookies = document.cookie;
-                        var hasSessionCookie = cookies.indexOf('ASP.NET_SessionId') !== -1 || 
-                                             cookies.indexOf('session') !== -1 ||
-                                             cookies.indexOf('auth') !== -1;
-                                             
-                        // Oturum çerezi yoksa uyarı gönder
-                        if (!hasSessionCookie) {
-                            console.warn('TKF: No session cookie found!');
-                            
-                            // Native koda oturum sorununu bildir
-                            if (window.TKFBridge) {
-                                window.TKFBridge.onSessionExpired();
-                            }
-                        }
-                        
-                        // Szutest için özel oturum koruması
-                        if (window.location.href.indexOf('szutest') !== -1) {
-                            try {
-                                // Keep-alive isteği
-                                var xhr = new XMLHttpRequest();
-                                xhr.open('GET', '/EXT/PKControl/KeepAlive', true);
-                                xhr.withCredentials = true;
-                                xhr.send();
-                                console.log('TKF: Sent keep-alive request');
-                            } catch(e) {
-                                console.error('TKF: Keep-alive error:', e);
-                            }
-                        }
-                        
-                        return hasSessionCookie;
-                    },
-                    
-                    // Oturum izlemeyi başlat
-                    startMonitoring: function() {
-                        if (this.isMonitoring) return false;
-                        
-                        var self = this;
-                        this.isMonitoring = true;
-                        
-                        // İlk kontrolü yap
-                        this.checkSession();
-                        
-                        // Düzenli kontrol için interval oluştur
-                        this.intervalId = setInterval(function() {
-                            self.checkSession();
-                        }, this.checkInterval);
-                        
-                        // Form gönderimlerini yakala
-                        document.addEventListener('submit', function(e) {
-                            var form = e.target;
-                            // Form gönderim zamanını kaydet
-                            try {
-                                localStorage.setItem('TKF_LAST_FORM_SUBMIT', Date.now());
-                                console.log('TKF: Form submit detected');
-                            } catch(e) {}
-                        });
-                        
-                        console.log('TKF: Session monitoring started');
-                        return true;
-                    },
-                    
-                    // Oturum izlemeyi durdur
-                    stopMonitoring: function() {
-                        if (!this.isMonitoring) return false;
-                        
-                        clearInterval(this.intervalId);
-                        this.isMonitoring = false;
-                        
-                        console.log('TKF: Session monitoring stopped');
-                        return true;
-                    }
-                };
-                
-                // Otomatik başlat
-                window.TKF_SESSION_MANAGER.startMonitoring();
-                
-                return 'TKF Session Manager initialized';
-            })();
-        """.trimIndent()
-        
-        webView.evaluateJavascript(script) { result ->
+        // Betik bu WebView'de belge başına kurulur - her yüklemede sayfa betiklerinden önce başlar
+        DocumentStartScriptRegistry.enable(webView, DocumentStartScriptRegistry.SESSION_MONITOR) { result ->
             Timber.d("Session monitoring script result: $result")
         }
     }
@@ -4,6 +4,7 @@ import android.content.Context
 import android.graphics.Bitmap
 import android.net.Uri
 import android.net.http.SslError
+import android.webkit.RenderProcessGoneDetail
 import android.webkit.SslErrorHandler
 import android.webkit.WebResourceError
 import android.webkit.WebResourceRequest
@@ -21,16 +22,14 @@ class TKFWebViewClient(
     private val onPageStarted: (String, String) -> Unit,
     private val onPageFinished: (String, String, Bitmap?) -> Unit,
     private val onReceivedError: (Int, String, String) -> Unit,
-    private val onReceivedSslError: (SslError) -> Boolean
+    private val onReceivedSslError: (SslError) -> Boolean,
+    private val onRenderProcessGone: (String, Boolean) -> Unit = { _, _ -> }
 ) : WebViewClient() {
     
     // İstek sayacı ve son istek zamanı - aşırı güncellemeleri önlemek için
     private var requestCounter = 0
     private var lastRequestTime = 0L
     
-    // Son script enjeksiyon zamanı - çift enjeksiyon önleme
-    private var lastScriptInjectionTime = 0L
-    
     override fun onPageStarted(view: WebView, url: String, favicon: Bitmap?) {
         super.onPageStarted(view, url, favicon)
         // Page started loading: $url
@@ -48,57 +47,8 @@ class TKFWebViewClient(
         val cookieManager = android.webkit.CookieManager.getInstance()
         cookieManager.flush()
         
-        // Ağır form script enjeksiyonunu sadece oturum sayfalarında yap
-        if (isLoginPage(url)) {
-            // Özel oturum sayfaları için bildirim gönderelim
-            if (url.contains("szutest.com.tr", ignoreCase = true)) {
-                // Form script'i yerine basit bir cookie ayarlayalım
-                val simpleScript = "document.cookie = 'TKF_AUTH_PAGE=1; path=/; max-age=3600';"
-                view.evaluateJavascript(simpleScript, null)
-                // Set auth page cookie for: $url
-            }
-        } else {
-            // Login sayfası değil, basit bir form check enjekte edelim
-            try {
-                val formScript = """
-                    (function() {
-                        // Daha önce monitor edilmişse tekrar yapma
-                        if (window._tkfFormMonitor) return;
-                        window._tkfFormMonitor = true;
-                        
-                        // Sayfa form içeriyor mu kontrol et
-                        var forms = document.querySelectorAll('form');
-                        if (forms.length > 0) {
-                            console.log("TKF-DEBUG: Form found with action: " + forms[0].action);
-                        }
-                        return "Basic form check complete";
-                    })();
-                """
-                
-                // Form script'ini enjekte et - performans odaklı
-                view.evaluateJavascript(formScript) { result ->
-                    // Form script injection result: $result
-                }
-            } catch (e: Exception) {
-                // Error injecting basic form script: ${e.message}
-            }
-        }
-        
-        // JavaScript minimalist form hendlerı ekle - sadece oturumun açık kalması için gerekli
-        val currentTime = System.currentTimeMillis()
-        if (currentTime - lastScriptInjectionTime > 2000) { // Süreyi uzattık
-            lastScriptInjectionTime = currentTime
-            
-            // Sadece ana thread için önemli bir boğulluk varsa scriptleri geciktirme
-            val startTime = System.currentTimeMillis()
-            val minimalistScript = "if(!window._tkfBasic){window._tkfBasic=true;}"            
-            view.evaluateJavascript(minimalistScript) { result ->
-                val endTime = System.currentTimeMillis()
-                if (endTime - startTime > 50) { // 50ms'den uzun sürerse log kaydet
-                    // Script injection took ${endTime - startTime}ms
-                }
-            }
-        }
+        // Form izleme ve oturum sayfası betikleri belge başında kuruludur; desteklenmiyorsa burada enjekte edilir
+        DocumentStartScriptRegistry.injectAfterLoad(view, url)
         
         onPageFinished(tab.id, url, null)
     }
@@ -126,6 +76,15 @@ class TKFWebViewClient(
         }
     }
     
+    /**
+     * Renderer crashed or was reclaimed by the OS - bu WebView artık kullanılamaz
+     * true döndürülür ki uygulama çökmesin; sahibi WebView'i yok edip sekmeyi kayıtlı durumdan yeniden kurar
+     */
+    override fun onRenderProcessGone(view: WebView, detail: RenderProcessGoneDetail): Boolean {
+        onRenderProcessGone(tab.id, detail.didCrash())
+        return true
+    }
+    
     /**
      * Login sayfası olup olmadığını URL içeriğine göre kontrol et
      */
@@ -219,4 +178,32 @@ class TKFWebViewClient(
         // Varsayılan davranış
         return false
     }
+
+    companion object {
+        /**
+         * Runs on every page - hafif form kontrolü, oturum sayfalarında atlanır
+         */
+        internal const val PAGE_BASICS_SCRIPT = """
+            window._tkfBasic = true;
+            (function() {
+                if (/login|signin|auth|account/i.test(location.href) || location.hostname.indexOf('szutest.com.tr') !== -1) return;
+                var check = function() {
+                    var forms = document.querySelectorAll('form');
+                    if (forms.length > 0) {
+                        console.log("TKF-DEBUG: Form found with action: " + forms[0].action);
+                    }
+                };
+                if (document.readyState === 'loading') {
+                    document.addEventListener('DOMContentLoaded', check);
+                } else {
+                    check();
+                }
+            })();
+        """
+
+        /**
+         * Marks szutest pages as auth pages for the session handling on the server
+         */
+        internal const val SZUTEST_AUTH_PAGE_SCRIPT = "document.cookie = 'TKF_AUTH_PAGE=1; path=/; max-age=3600';"
+    }
 }
\ No newline at end of file
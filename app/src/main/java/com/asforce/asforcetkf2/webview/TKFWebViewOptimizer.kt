@@ -28,180 +28,185 @@ class TKFWebViewOptimizer(webView: WebView) : WebViewOptimizer(webView) {
                 sharedOptimizer ?: TKFWebViewOptimizer(webView).also { sharedOptimizer = it }
             }
         }
-    }
-    
-    // WebViewOptimizer'dan miras alındığı için buradaki metotlar kaldırıldı
-    
-    // Ana optimizasyon metodları WebViewOptimizer'dan miras alındı
-    // Burada sadece Szutest.com.tr için özel ek optimizasyonlar yer alacak
-    
-    /**
-     * Szutest.com.tr için özel optimizasyon
-     * Form ve oturum işlevlerini optimize eder
-     */
-    fun optimizeForSzutest(webView: WebView) {
-        // Tam sayfa yüklenmesini zorla
-        webView.evaluateJavascript("""
-            (function() {
-                // Sayfa yükleme durumunu kontrol et
-                if (document.readyState !== 'complete') {
-                    console.log('TKF: Forcing complete page load');
-                    // DOM yüklendiğinde tekrar dene
-                    window.addEventListener('DOMContentLoaded', function() {
-                        setTimeout(function() {
-                            // MutationObserver hatası için koruma ekle
-                            try {
-                                if (document.body) {
-                                    console.log('TKF: Re-triggering load event');
-                                    // Sayfa yüklenme olayını manuel olarak tetikle
-                                    var loadEvent = new Event('load');
-                                    window.dispatchEvent(loadEvent);
+        
+        /**
+         * Szutest page fixes installed at document start
+         */
+        internal val SZUTEST_SCRIPT = """
+                (function() {
+                    // Sayfa yükleme durumunu kontrol et - belge başında (loading) çalışırken sayfanın kendi load olayı beklenir
+                    if (document.readyState === 'interactive') {
+                        console.log('TKF: Forcing complete page load');
+                        // DOM yüklendiğinde tekrar dene
+                        window.addEventListener('DOMContentLoaded', function() {
+                            setTimeout(function() {
+                                // MutationObserver hatası için koruma ekle
+                                try {
+                                    if (document.body) {
+                                        console.log('TKF: Re-triggering load event');
+                                        // Sayfa yüklenme olayını manuel olarak tetikle
+                                        var loadEvent = new Event('load');
+                                        window.dispatchEvent(loadEvent);
+                                    }
+                                } catch(e) {
+                                    console.error('TKF: Error forcing load:', e);
                                 }
-                            } catch(e) {
-                                console.error('TKF: Error forcing load:', e);
-                            }
-                        }, 500);
-                    });
-                }
-                
-                // MutationObserver hatasını düzelt
-                if (window.TKF_SZUTEST_OPTIMIZED) return "Already optimized";
-                window.TKF_SZUTEST_OPTIMIZED = true;
-                
-                // Orijinal MutationObserver'ı düzeltilmiş versiyonla değiştir
-                try {
-                    var originalMutationObserver = window.MutationObserver;
-                    window.MutationObserver = function(callback) {
-                        var observer = new originalMutationObserver(callback);
-                        var originalObserve = observer.observe;
-                        
-                        // observe metodunu güvenli hale getir
-                        observer.observe = function(target, options) {
-                            // target bir Node mu kontrol et
-                            if (target && target.nodeType) {
-                                originalObserve.call(this, target, options);
-                            } else {
-                                console.warn('TKF: Prevented MutationObserver error - invalid target:', target);
-                            }
-                        };
-                        
-                        return observer;
-                    };
-                    console.log('TKF: MutationObserver patched');
-                } catch(e) {
-                    console.error('TKF: Error patching MutationObserver:', e);
-                }
-                
-                // Form alanları için otomatik doldurma
-                function enhanceForms() {
-                    var forms = document.querySelectorAll('form');
-                    console.log('TKF: Szutest forms found: ' + forms.length);
+                            }, 500);
+                        });
+                    }
+                    
+                    // MutationObserver hatasını düzelt
+                    if (window.TKF_SZUTEST_OPTIMIZED) return "Already optimized";
+                    window.TKF_SZUTEST_OPTIMIZED = true;
                     
-                    forms.forEach(function(form) {
-                        // Form submit olayını takip et
-                        form.addEventListener('submit', function(e) {
-                            // Form verilerini topla (şifre alanları hariç)
-                            var formData = {};
-                            var inputs = form.querySelectorAll('input:not([type="password"])');
-                            inputs.forEach(function(input) {
-                                if (input.name && input.value) {
-                                    formData[input.name] = input.value;
+                    // Orijinal MutationObserver'ı düzeltilmiş versiyonla değiştir
+                    try {
+                        var originalMutationObserver = window.MutationObserver;
+                        window.MutationObserver = function(callback) {
+                            var observer = new originalMutationObserver(callback);
+                            var originalObserve = observer.observe;
+                            
+                            // observe metodunu güvenli hale getir
+                            observer.observe = function(target, options) {
+                                // target bir Node mu kontrol et
+                                if (target && target.nodeType) {
+                                    originalObserve.call(this, target, options);
+                                } else {
+                                    console.warn('TKF: Prevented MutationObserver error - invalid target:', target);
                                 }
-                            });
+                            };
                             
-                            // Form verilerini sakla
-                            try {
-                                localStorage.setItem('TKF_SZUTEST_FORM_' + (form.id || form.action), JSON.stringify(formData));
-                            } catch(e) {}
-                        });
+                            return observer;
+                        };
+                        console.log('TKF: MutationObserver patched');
+                    } catch(e) {
+                        console.error('TKF: Error patching MutationObserver:', e);
+                    }
+                    
+                    // Form alanları için otomatik doldurma
+                    function enhanceForms() {
+                        var forms = document.querySelectorAll('form');
+                        console.log('TKF: Szutest forms found: ' + forms.length);
                         
-                        // Kaydedilmiş verileri geri yükle
-                        try {
-                            var savedData = localStorage.getItem('TKF_SZUTEST_FORM_' + (form.id || form.action));
-                            if (savedData) {
-                                var formData = JSON.parse(savedData);
-                                
-                                // Form alanlarını doldur
-                                Object.keys(formData).forEach(function(key) {
-                                    var input = form.querySelector('[name="' + key + '"]');
-                                    if (input && !input.value) {
-                                        input.value = formData[key];
-                                        
-                                        // Input olayını tetikle
-                                        var event = new Event('input', { bubbles: true });
-                                        input.dispatchEvent(event);
+                        forms.forEach(function(form) {
+                            // Form submit olayını takip et
+                            form.addEventListener('submit', function(e) {
+                                // Form verilerini topla (şifre alanları hariç)
+                                var formData = {};
+                                var inputs = form.querySelectorAll('input:not([type="password"])');
+                                inputs.forEach(function(input) {
+                                    if (input.name && input.value) {
+                                        formData[input.name] = input.value;
                                     }
                                 });
-                            }
-                        } catch(e) {}
-                    });
-                }
-                
-                // Oturum koruma ve sayfa tamamlama kontrolü
-                function setupSessionKeeper() {
-                    // Her 5 dakikada bir oturum yenileme
-                    setInterval(function() {
-                        // Oturum doğrulama için basit bir istek
-                        try {
-                            fetch('/EXT/PKControl/KeepAlive', {
-                                method: 'GET',
-                                credentials: 'include'
+                                
+                                // Form verilerini sakla
+                                try {
+                                    localStorage.setItem('TKF_SZUTEST_FORM_' + (form.id || form.action), JSON.stringify(formData));
+                                } catch(e) {}
                             });
-                        } catch(e) {}
-                    }, 5 * 60 * 1000);
-                    
-                    // Eksik içerik kontrolü ve tamamlama
-                    setTimeout(function() {
-                        // Sayfadaki eksik içerikleri kontrol et
-                        var tables = document.querySelectorAll('table');
-                        var forms = document.querySelectorAll('form');
-                        
-                        if ((tables.length === 0 && forms.length > 0) || 
-                            document.body.innerHTML.includes("Yükleniyor...") ||
-                            document.body.innerHTML.includes("Loading...")) {
                             
-                            console.log('TKF: Detected incomplete page - forcing reload');
+                            // Kaydedilmiş verileri geri yükle
                             try {
-                                // Sayfa yeniden yükleme veya AJAX yenileme yap
-                                if (typeof $ !== 'undefined' && $.ajax) {
-                                    // jQuery varsa AJAX ile içeriği yenile
-                                    $.ajax({
-                                        url: window.location.href,
-                                        type: 'GET',
-                                        success: function(data) {
-                                            // İçeriği seçici olarak güncelle
-                                            var content = $(data).find('#main-content');
-                                            if (content.length) {
-                                                $('#main-content').html(content.html());
-                                            }
+                                var savedData = localStorage.getItem('TKF_SZUTEST_FORM_' + (form.id || form.action));
+                                if (savedData) {
+                                    var formData = JSON.parse(savedData);
+                                    
+                                    // Form alanlarını doldur
+                                    Object.keys(formData).forEach(function(key) {
+                                        var input = form.querySelector('[name="' + key + '"]');
+                                        if (input && !input.value) {
+                                            input.value = formData[key];
+                                            
+                                            // Input olayını tetikle
+                                            var event = new Event('input', { bubbles: true });
+                                            input.dispatchEvent(event);
                                         }
                                     });
-                                } else {
-                                    // AJAX yoksa event tetikle
-                                    var loadCompleteEvent = new CustomEvent('tkf_force_complete');
-                                    window.dispatchEvent(loadCompleteEvent);
                                 }
-                            } catch(e) {
-                                console.error('TKF: Error completing page:', e);
+                            } catch(e) {}
+                        });
+                    }
+                    
+                    // Oturum koruma ve sayfa tamamlama kontrolü
+                    function setupSessionKeeper() {
+                        // Her 5 dakikada bir oturum yenileme
+                        setInterval(function() {
+                            // Oturum doğrulama için basit bir istek
+                            try {
+                                fetch('/EXT/PKControl/KeepAlive', {
+                                    method: 'GET',
+                                    credentials: 'include'
+                                });
+                            } catch(e) {}
+                        }, 5 * 60 * 1000);
+                        
+                        // Eksik içerik kontrolü ve tamamlama
+                        setTimeout(function() {
+                            // Sayfadaki eksik içerikleri kontrol et
+                            var tables = document.querySelectorAll('table');
+                            var forms = document.querySelectorAll('form');
+                            
+                            if ((tables.length === 0 && forms.length > 0) || 
+                                document.body.innerHTML.includes("Yükleniyor...") ||
+                                document.body.innerHTML.includes("Loading...")) {
+                                
+                                console.log('TKF: Detected incomplete page - forcing reload');
+                                try {
+                                    // Sayfa yeniden yükleme veya AJAX yenileme yap
+                                    if (typeof $ !== 'undefined' && $.ajax) {
+                                        // jQuery varsa AJAX ile içeriği yenile
+                                        $.ajax({
+                                            url: window.location.href,
+                                            type: 'GET',
+                                            success: function(data) {
+                                                // İçeriği seçici olarak güncelle
+                                                var content = $(data).find('#main-content');
+                                                if (content.length) {
+                                                    $('#main-content').html(content.html());
+                                                }
+                                            }
+                                        });
+                                    } else {
+                                        // AJAX yoksa event tetikle
+                                        var loadCompleteEvent = new CustomEvent('tkf_force_complete');
+                                        window.dispatchEvent(loadCompleteEvent);
+                                    }
+                                } catch(e) {
+                                    console.error('TKF: Error completing page:', e);
+                                }
                             }
-                        }
-                    }, 3000); // 3 saniye sonra kontrol et
-                }
-                
-                // DOM hazır olduğunda çalıştır
-                if (document.readyState === 'complete') {
-                    enhanceForms();
-                    setupSessionKeeper();
-                } else {
-                    document.addEventListener('DOMContentLoaded', function() {
+                        }, 3000); // 3 saniye sonra kontrol et
+                    }
+                    
+                    // DOM hazır olduğunda çalıştır
+                    if (document.readyState === 'complete') {
                         enhanceForms();
                         setupSessionKeeper();
-                    });
-                }
-                
-                return "Szutest optimization applied with MutationObserver fix";
-            })();
-        """.trimIndent(), null)
+                    } else {
+                        document.addEventListener('DOMContentLoaded', function() {
+                            enhanceForms();
+                            setupSessionKeeper();
+                        });
+                    }
+                    
+                    return "Szutest optimization applied with MutationObserver fix";
+                })();
+            """.trimIndent()
+    }
+    
+    // WebViewOptimizer'dan miras alındığı için buradaki metotlar kaldırıldı
+    
+    // Ana optimizasyon metodları WebViewOptimizer'dan miras alındı
+    // Burada sadece Szutest.com.tr için özel ek optimizasyonlar yer alacak
+    
+    /**
+     * Szutest.com.tr için özel optimizasyon
+     * Form ve oturum işlevlerini optimize eder
+     */
+    fun optimizeForSzutest(webView: WebView) {
+        // Betik bu WebView'de szutest kökenleri için belge başına kurulur - MutationObserver yaması sayfa betiklerinden önce uygulanır
+        DocumentStartScriptRegistry.enable(webView, DocumentStartScriptRegistry.SZUTEST_OPTIMIZER)
         
         // Ek olarak, WebView'a tam sayfa yüklenme garantisi için bir kontrol ekle
         // 5 saniye sonra hala sayfa yüklenmediyse sayfa yenileme işlemi yap
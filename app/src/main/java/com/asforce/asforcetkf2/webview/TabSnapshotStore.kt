@@ -0,0 +1,201 @@
+package com.asforce.asforcetkf2.webview
+
+import android.content.Context
+import android.os.Build
+import android.os.Bundle
+import android.os.Parcel
+import android.util.AtomicFile
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.withContext
+import timber.log.Timber
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.File
+import java.io.IOException
+import java.util.zip.DeflaterOutputStream
+import java.util.zip.InflaterInputStream
+
+/**
+ * Saved WebView state of a single tab
+ */
+class TabSnapshot(
+    val tabId: String,
+    val url: String,
+    val scrollX: Int,
+    val scrollY: Int,
+    val savedAt: Long,
+    // WebView.saveState bundle'ının Parcel baytları
+    val state: ByteArray
+) {
+    fun toBundle(): Bundle? {
+        val parcel = Parcel.obtain()
+        return try {
+            parcel.unmarshall(state, 0, state.size)
+            parcel.setDataPosition(0)
+            parcel.readBundle(TabSnapshot::class.java.classLoader)
+        } catch (e: Exception) {
+            Timber.w(e, "Snapshot bundle could not be read for tab $tabId")
+            null
+        } finally {
+            parcel.recycle()
+        }
+    }
+}
+
+/**
+ * On-disk store for per-tab WebView state so tabs survive process death without a network reload
+ * Her sekme için filesDir/tab_snapshots altında sıkıştırılmış tek bir dosya tutulur; yazma ve
+ * okuma işlemleri IO thread'inde yapılır, yalnızca saveState çağrısı main thread'dedir
+ */
+class TabSnapshotStore(context: Context) {
+
+    private val directory = File(context.applicationContext.filesDir, DIRECTORY_NAME)
+    private val scope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
+
+    /**
+     * Capture the state of a WebView - main thread üzerinde çağrılmalıdır
+     */
+    fun capture(tabId: String, webView: TabWebView): TabSnapshot? {
+        val url = webView.url ?: return null
+        val bundle = Bundle()
+        if (webView.saveState(bundle) == null) {
+            return null
+        }
+
+        val parcel = Parcel.obtain()
+        return try {
+            parcel.writeBundle(bundle)
+            TabSnapshot(
+                tabId = tabId,
+                url = url,
+                scrollX = webView.scrollX,
+                scrollY = webView.scrollY,
+                savedAt = System.currentTimeMillis(),
+                state = parcel.marshall()
+            )
+        } catch (e: Exception) {
+            Timber.w(e, "WebView state could not be captured for tab $tabId")
+            null
+        } finally {
+            parcel.recycle()
+        }
+    }
+
+    /**
+     * Write a snapshot off the main thread
+     */
+    fun saveAsync(snapshot: TabSnapshot) {
+        scope.launch {
+            try {
+                write(snapshot)
+            } catch (e: IOException) {
+                Timber.e(e, "Error writing snapshot for tab ${snapshot.tabId}")
+            }
+        }
+    }
+
+    /**
+     * Load a snapshot on IO and deliver it on the main thread
+     */
+    fun loadAsync(tabId: String, onLoaded: (TabSnapshot?) -> Unit) {
+        scope.launch {
+            val snapshot = load(tabId)
+            withContext(Dispatchers.Main) {
+                onLoaded(snapshot)
+            }
+        }
+    }
+
+    fun load(tabId: String): TabSnapshot? {
+        val file = fileFor(tabId)
+        if (!file.baseFile.exists()) {
+            return null
+        }
+        return try {
+            file.openRead().use { raw ->
+                DataInputStream(InflaterInputStream(raw.buffered())).use { input ->
+                    if (input.readInt() != MAGIC || input.readByte().toInt() != VERSION) {
+                        return null
+                    }
+                    // Parcel biçimi platform sürümüne bağlı - farklı sürümde kaydedilmişse yoksay
+                    if (input.readInt() != Build.VERSION.SDK_INT) {
+                        return null
+                    }
+                    val savedAt = input.readLong()
+                    val url = input.readUTF()
+                    val scrollX = input.readInt()
+                    val scrollY = input.readInt()
+                    val state = ByteArray(input.readInt())
+                    input.readFully(state)
+                    TabSnapshot(tabId, url, scrollX, scrollY, savedAt, state)
+                }
+            }
+        } catch (e: Exception) {
+            Timber.w(e, "Discarding unreadable snapshot for tab $tabId")
+            file.delete()
+            null
+        }
+    }
+
+    fun delete(tabId: String) {
+        scope.launch {
+            fileFor(tabId).delete()
+        }
+    }
+
+    /**
+     * Remove snapshots of tabs that no longer exist
+     */
+    fun retainOnly(tabIds: Set<String>) {
+        scope.launch {
+            directory.listFiles()?.forEach { file ->
+                val tabId = file.name.removeSuffix(FILE_SUFFIX)
+                if (file.name.endsWith(FILE_SUFFIX) && tabId !in tabIds) {
+                    file.delete()
+                }
+            }
+        }
+    }
+
+    @Throws(IOException::class)
+    private fun write(snapshot: TabSnapshot) {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw IOException("Snapshot directory could not be created")
+        }
+        val file = fileFor(snapshot.tabId)
+        val raw = file.startWrite()
+        try {
+            val deflater = DeflaterOutputStream(raw)
+            val output = DataOutputStream(deflater)
+            output.writeInt(MAGIC)
+            output.writeByte(VERSION)
+            output.writeInt(Build.VERSION.SDK_INT)
+            output.writeLong(snapshot.savedAt)
+            output.writeUTF(snapshot.url)
+            output.writeInt(snapshot.scrollX)
+            output.writeInt(snapshot.scrollY)
+            output.writeInt(snapshot.state.size)
+            output.write(snapshot.state)
+            output.flush()
+            deflater.finish()
+            file.finishWrite(raw)
+        } catch (e: IOException) {
+            file.failWrite(raw)
+            throw e
+        }
+    }
+
+    private fun fileFor(tabId: String): AtomicFile =
+        AtomicFile(File(directory, tabId.replace(UNSAFE_FILE_CHARS, "_") + FILE_SUFFIX))
+
+    companion object {
+        private const val DIRECTORY_NAME = "tab_snapshots"
+        private const val FILE_SUFFIX = ".snap"
+        private const val MAGIC = 0x544B4654 // "TKFT"
+        private const val VERSION = 1
+        private val UNSAFE_FILE_CHARS = Regex("[^A-Za-z0-9_-]")
+    }
+}
@@ -0,0 +1,133 @@
+package com.asforce.asforcetkf2.webview
+
+import timber.log.Timber
+
+/**
+ * Per-tab suspend/resume that never touches the process-wide WebView.pauseTimers
+ * pauseTimers/resumeTimers tüm WebView'lerin JavaScript zamanlayıcılarını etkiler; burada yalnızca
+ * ilgili sekme durdurulur: görünüm onPause ile duraklatılır, belgenin zamanlayıcıları enjekte edilen
+ * betikle dondurulur ve renderer önceliği bırakılır.
+ */
+class TabSuspender(private val target: Target) {
+
+    /**
+     * Operations on a single WebView - hepsi main thread'de çağrılır
+     */
+    interface Target {
+        // WebView.onPause / onResume - yalnızca bu görünümün animasyon ve medya işlemleri
+        fun pauseView()
+        fun resumeView()
+        fun evaluateScript(script: String)
+        fun setForeground(foreground: Boolean)
+    }
+
+    var isSuspended = false
+        private set
+
+    /**
+     * Called when a document finished loading; sekme askıdayken yeni belge yüklendiyse hemen dondurulur
+     * @param shimAtDocumentStart betik belge başında kurulduysa (bkz. DocumentStartScriptRegistry.TIMER_SHIM)
+     * yükleme sonrası kurulum yapılmaz; desteklemeyen WebView'lerde ancak bu noktadan sonraki zamanlayıcılar yakalanır
+     */
+    fun onDocumentReady(shimAtDocumentStart: Boolean) {
+        when {
+            isSuspended -> target.evaluateScript(FREEZE_SCRIPT)
+            !shimAtDocumentStart -> target.evaluateScript(INSTALL_SCRIPT)
+        }
+    }
+
+    fun suspend() {
+        if (isSuspended) return
+        isSuspended = true
+        try {
+            target.evaluateScript(FREEZE_SCRIPT)
+            target.pauseView()
+            target.setForeground(false)
+        } catch (e: Exception) {
+            Timber.w(e, "Tab could not be suspended")
+        }
+    }
+
+    fun resume() {
+        if (!isSuspended) return
+        isSuspended = false
+        try {
+            target.resumeView()
+            target.evaluateScript(THAW_SCRIPT)
+        } catch (e: Exception) {
+            Timber.w(e, "Tab could not be resumed")
+        }
+    }
+
+    companion object {
+        /**
+         * Wraps setTimeout/setInterval/requestAnimationFrame of this document only
+         * Donukken gelen setTimeout ve rAF çağrıları kuyruğa alınır, setInterval tikleri birleştirilir;
+         * çözülünce her biri bir kez çalıştırılır. Sayfanın oynattığı medya duraklatılır ve geri başlatılır.
+         */
+        internal const val INSTALL_SCRIPT = """
+            (function() {
+                if (window.__tkfSuspend) return;
+                var s = window.__tkfSuspend = { frozen: false, queue: [], ticks: {}, media: [] };
+                var run = function(fn, args) {
+                    try { fn.apply(window, args); } catch (e) { setTimeout(function() { throw e; }, 0); }
+                };
+                var origTimeout = window.setTimeout;
+                var origInterval = window.setInterval;
+                var origRaf = window.requestAnimationFrame;
+                window.setTimeout = function(fn, delay) {
+                    if (typeof fn !== 'function') return origTimeout.apply(window, arguments);
+                    var args = Array.prototype.slice.call(arguments, 2);
+                    return origTimeout.call(window, function() {
+                        if (s.frozen) s.queue.push(function() { run(fn, args); });
+                        else run(fn, args);
+                    }, delay);
+                };
+                window.setInterval = function(fn, delay) {
+                    if (typeof fn !== 'function') return origInterval.apply(window, arguments);
+                    var args = Array.prototype.slice.call(arguments, 2);
+                    var id = origInterval.call(window, function() {
+                        if (s.frozen) s.ticks[id] = function() { run(fn, args); };
+                        else run(fn, args);
+                    }, delay);
+                    return id;
+                };
+                var origClearInterval = window.clearInterval;
+                window.clearInterval = function(id) {
+                    delete s.ticks[id];
+                    return origClearInterval.call(window, id);
+                };
+                if (origRaf) {
+                    window.requestAnimationFrame = function(fn) {
+                        return origRaf.call(window, function(ts) {
+                            if (s.frozen) s.queue.push(function() { window.requestAnimationFrame(fn); });
+                            else run(fn, [ts]);
+                        });
+                    };
+                }
+                s.freeze = function() {
+                    if (s.frozen) return;
+                    s.frozen = true;
+                    var media = document.querySelectorAll('video, audio');
+                    for (var i = 0; i < media.length; i++) {
+                        if (!media[i].paused) { media[i].pause(); s.media.push(media[i]); }
+                    }
+                };
+                s.thaw = function() {
+                    if (!s.frozen) return;
+                    s.frozen = false;
+                    var queue = s.queue; s.queue = [];
+                    var ticks = s.ticks; s.ticks = {};
+                    for (var i = 0; i < queue.length; i++) queue[i]();
+                    for (var id in ticks) ticks[id]();
+                    var media = s.media; s.media = [];
+                    for (var j = 0; j < media.length; j++) { try { media[j].play(); } catch (e) {} }
+                };
+            })();
+        """
+
+        internal const val FREEZE_SCRIPT = INSTALL_SCRIPT + "window.__tkfSuspend.freeze();"
+
+        internal const val THAW_SCRIPT = "window.__tkfSuspend && window.__tkfSuspend.thaw();"
+    }
+}
@@ -18,6 +18,7 @@ import android.webkit.JsResult
 import android.webkit.ValueCallback
 import android.webkit.WebSettings
 import android.webkit.WebView
+import android.webkit.WebViewClient
 import timber.log.Timber
 import com.asforce.asforcetkf2.suggestion.SuggestionManager
 import com.asforce.asforcetkf2.suggestion.WebViewSuggestionInterface
@@ -48,8 +49,38 @@ class TabWebView @JvmOverloads constructor(
     var onJsConfirm: ((String, String, JsResult) -> Boolean)? = null
     var onFileChooser: ((ValueCallback<Array<Uri>>) -> Boolean)? = null
     var onLongPress: ((String, String) -> Unit)? = null
+    // (tabId, didCrash) - renderer çöktüğünde veya sistem tarafından sonlandırıldığında
+    var onRenderProcessGone: ((String, Boolean) -> Unit)? = null
+    
+    // Sekme durumunun diske kaydedildiği depo - null ise anlık görüntü alınmaz
+    var snapshotStore: TabSnapshotStore? = null
+    
+    // Geri yüklenen sayfa yüklendiğinde uygulanacak kaydırma konumu
+    private var pendingScrollX = 0
+    private var pendingScrollY = 0
+    private var hasPendingScroll = false
+    
+    // Sekmeye özel askıya alma - süreç genelindeki pauseTimers yerine
+    private val suspender = TabSuspender(object : TabSuspender.Target {
+        override fun pauseView() = onPause()
+        override fun resumeView() = onResume()
+        override fun evaluateScript(script: String) = evaluateJavascript(script, null)
+        override fun setForeground(foreground: Boolean) = this@TabWebView.setForeground(foreground)
+    })
+    
+    val isSuspended: Boolean
+        get() = suspender.isSuspended
+    
+    // Sayfayla mesaj kanalı - her belge yüklendiğinde yeniden bağlanır
+    val pageChannel = PageChannel(this)
+    
+    // Kanal üzerinden gelen ve sekme dışında işlenen olaylar (ör. indirme)
+    var onPageEvent: ((PageChannel.PageEvent) -> Unit)? = null
+    
+    private var suggestionInterface: WebViewSuggestionInterface? = null
     
     init {
+        pageChannel.onEvent = { event -> handlePageEvent(event) }
         setupWebView()
         // Optimizer'i başlat
         optimizer = WebViewOptimizer(this)
@@ -274,31 +305,7 @@ class TabWebView @JvmOverloads constructor(
                         v.requestFocus()
                     }
                 }
-                android.view.MotionEvent.ACTION_UP -> {
-                    // Input alanına tıklandığında JavaScript ile kontrol et
-                    // Tıklanan alan bir form alanı ise, klavyeyi nazikçe göster
-                    evaluateJavascript("""
-                    (function() {
-                        try {
-                            // Dokunma noktasındaki elementi bul
-                            var x = ${event.x};
-                            var y = ${event.y};
-                            var element = document.elementFromPoint(x, y);
-                            
-                            // Eğer dokunulan yer bir giriş alanı ise
-                            if (element && (element.tagName === 'INPUT' || element.tagName === 'TEXTAREA')) {
-                                // Olay işlendi sinyali gönder
-                                return 'INPUT_TOUCHED';
-                            }
-                            return 'NOT_INPUT';
-                        } catch(e) {
-                            return 'ERROR: ' + e.message;
-                        }
-                    })();
-                    """.trimIndent()) { result ->
-                        // İşlem gerekmiyor - JavaScript zaten TKF fonksiyonlarını çağıracak
-                    }
-                }
+                // ACTION_UP'ta betik çalıştırılmaz - odaklanan alan INPUT_TRACKING_SCRIPT'in focusin olayıyla bildirilir
             }
             
             // Olayı normal işle (WebView'in standart dokunma işlemlerini engelleme)
@@ -354,10 +361,19 @@ class TabWebView @JvmOverloads constructor(
     
     /**
      * Inject input tracking script for suggestions
+     * Belge başında kuruluysa sayfa zaten izleniyordur, gidiş-dönüş yapılmaz
      */
     fun injectInputTracking() {
-        // Input takip scriptleri...
+        val script = DocumentStartScriptRegistry.INPUT_TRACKING
+        if (!DocumentStartScriptRegistry.isInstalledAtDocumentStart(this, script)) {
+            evaluateJavascript(script.wrappedSource, null)
+        }
     }
+    
+    /**
+     * Scripts active in the page shown by this tab
+     */
+    fun getActiveScripts(): List<DocumentStartScript> = DocumentStartScriptRegistry.activeScripts(this)
 
     /**
      * Enhanced keyboard input detection and handling
@@ -385,58 +401,15 @@ class TabWebView @JvmOverloads constructor(
      */
     fun setSuggestionManager(suggestionManager: SuggestionManager) {
         // Add JavaScript interface for suggestions
-        val suggestionInterface = WebViewSuggestionInterface(suggestionManager, this)
+        // Kanal bağlanana kadar ve kanal desteklenmeyen sürümlerde sayfa bu köprüyü kullanır
+        val suggestionInterface = WebViewSuggestionInterface(suggestionManager, this) { event -> handlePageEvent(event) }
+        this.suggestionInterface = suggestionInterface
         addJavascriptInterface(suggestionInterface, "SuggestionHandler")
         
         // Immediate injection for faster response
         injectFormHandlers()
         injectInputTracking()
         
-        // Inject input tracking scripts immediately and when page loads
-        evaluateJavascript("""   
-        (function() {
-            // SuggestionHandler initialization status
-            window.TKF = window.TKF || {};
-            window.TKF.suggestionHandlerInitialized = true;
-            
-            // Track all existing inputs immediately
-            var inputs = document.querySelectorAll('input, textarea');
-            for (var i = 0; i < inputs.length; i++) {
-                var input = inputs[i];
-                if (!input.getAttribute('data-tkf-tracked')) {
-                    // Generate or get key for this input
-                    var key = input.getAttribute('data-tkf-key');
-                    if (!key) {
-                        key = (input.name || input.id || input.placeholder || 'input_' + Math.random().toString(36).substr(2, 9));
-                        key = key.replace(/[^a-zA-Z0-9_]/g, '_');
-                        input.setAttribute('data-tkf-key', key);
-                    }
-                    
-                    // Track focus events
-                    input.addEventListener('focus', function(e) {
-                        var key = this.getAttribute('data-tkf-key');
-                        if (key && window.SuggestionHandler) {
-                            window.SuggestionHandler.onInputFocused(key);
-                        }
-                    });
-                    
-                    // Track input changes
-                    input.addEventListener('input', function(e) {
-                        var key = this.getAttribute('data-tkf-key');
-                        if (key && window.SuggestionHandler) {
-                            window.SuggestionHandler.onInputChanged(key, this.value || '');
-                        }
-                    });
-                    
-                    // Mark as tracked
-                    input.setAttribute('data-tkf-tracked', 'true');
-                }
-            }
-            
-            return "Suggestion tracking initialized for " + inputs.length + " inputs";
-        })();
-        """, null)
-        
         // Activate suggestion manager when interaction happens
         evaluateJavascript("""   
         (function() {
@@ -474,9 +447,15 @@ class TabWebView @JvmOverloads constructor(
         webViewClient = TKFWebViewClient(
             tab = tab,
             onPageStarted = { tabId, url ->
+                pageChannel.onDocumentStarted()
                 onPageStarted?.invoke(tabId, url)
             },
             onPageFinished = { tabId, url, favicon ->
+                applyPendingScroll()
+                suspender.onDocumentReady(
+                    DocumentStartScriptRegistry.isInstalledAtDocumentStart(this, DocumentStartScriptRegistry.TIMER_SHIM)
+                )
+                pageChannel.connect(url)
                 onPageFinished?.invoke(tabId, url, favicon)
             },
             onReceivedError = { errorCode, description, failingUrl ->
@@ -484,6 +463,9 @@ class TabWebView @JvmOverloads constructor(
             },
             onReceivedSslError = { error ->
                 onReceivedSslError?.invoke(error) ?: false
+            },
+            onRenderProcessGone = { tabId, didCrash ->
+                onRenderProcessGone?.invoke(tabId, didCrash)
             }
         )
         
@@ -507,12 +489,67 @@ class TabWebView @JvmOverloads constructor(
             }
         )
         
+        // Belge başı betikleri ilk yüklemeden önce kur - sayfalar hazır enjekte edilmiş gelir
+        DocumentStartScriptRegistry.installDefaults(this)
+        
+        // Kayıtlı durum varsa ağdan yeniden yüklemek yerine geri yükle
+        val store = snapshotStore
+        if (store == null) {
+            loadTabUrl(tab)
+            return
+        }
+        store.loadAsync(tab.id) { snapshot ->
+            // Bu arada WebView başka bir sekmeye bağlandıysa veya temizlendiyse yoksay
+            if (this.tab?.id != tab.id) return@loadAsync
+            if (snapshot == null || !restoreSnapshot(snapshot)) {
+                loadTabUrl(tab)
+            }
+        }
+    }
+    
+    private fun loadTabUrl(tab: Tab) {
         // Load the URL
         if (tab.url.isNotEmpty()) {
             loadUrl(tab.url)
         }
     }
     
+    /**
+     * Restore history and scroll position from a saved snapshot
+     * @return false if the state could not be applied
+     */
+    private fun restoreSnapshot(snapshot: TabSnapshot): Boolean {
+        val bundle = snapshot.toBundle() ?: return false
+        return try {
+            if (restoreState(bundle) == null) {
+                return false
+            }
+            pendingScrollX = snapshot.scrollX
+            pendingScrollY = snapshot.scrollY
+            hasPendingScroll = snapshot.scrollX != 0 || snapshot.scrollY != 0
+            Timber.d("Restored tab ${snapshot.tabId} from snapshot")
+            true
+        } catch (e: Exception) {
+            Timber.w(e, "Snapshot restore failed for tab ${snapshot.tabId}")
+            false
+        }
+    }
+    
+    private fun applyPendingScroll() {
+        if (!hasPendingScroll) return
+        hasPendingScroll = false
+        scrollTo(pendingScrollX, pendingScrollY)
+    }
+    
+    /**
+     * Save this WebView's state to disk - main thread'de yakalanır, IO'da yazılır
+     */
+    fun persistSnapshot() {
+        val store = snapshotStore ?: return
+        val tabId = tab?.id ?: return
+        store.capture(tabId, this)?.let { store.saveAsync(it) }
+    }
+    
     /**
      * Fix toast message visibility issues
      */
@@ -531,10 +568,13 @@ class TabWebView @JvmOverloads constructor(
      * Hibernate this WebView to save resources
      */
     fun hibernate() {
-        // Stop loading, clear focus, pause timers
+        // Uyku öncesi durumu kaydet - süreç ölse bile sekme ağdan yüklenmeden geri gelir
+        persistSnapshot()
+        
+        // Stop loading, clear focus - yalnızca bu sekmenin zamanlayıcıları dondurulur, diğer sekmeler çalışmaya devam eder
         stopLoading()
         clearFocus()
-        pauseTimers()
+        suspender.suspend()
         
         // Make it invisible to reduce rendering
         visibility = View.INVISIBLE
@@ -550,8 +590,8 @@ class TabWebView @JvmOverloads constructor(
      * Wake up a hibernated WebView
      */
     fun wakeUp() {
-        // Resume timers, restore visibility
-        resumeTimers()
+        // Bu sekmenin zamanlayıcılarını çöz, görünürlüğü geri getir
+        suspender.resume()
         visibility = View.VISIBLE
         
         // Donanım hızlandırma etkinleştir
@@ -566,12 +606,81 @@ class TabWebView @JvmOverloads constructor(
         applyWebViewConfig()
     }
     
+    /**
+     * Renderer priority vote for this tab
+     * Ön plandaki sekme görünürken IMPORTANT tutar; arka plan sekmeleri WAIVED olur ki
+     * sistem bellek gerektiğinde önce onları geri alsın
+     */
+    fun setForeground(foreground: Boolean) {
+        try {
+            if (foreground) {
+                setRendererPriorityPolicy(RENDERER_PRIORITY_IMPORTANT, true)
+            } else {
+                setRendererPriorityPolicy(RENDERER_PRIORITY_WAIVED, false)
+            }
+        } catch (e: Exception) {
+            Timber.w(e, "Renderer priority could not be set")
+        }
+    }
+    
+    /**
+     * Reset this WebView so the pool can hand it to another tab
+     * Önbellek (clearCache) korunur - paylaşımlı HTTP önbelleğini silmek bir sonraki sekmeyi yavaşlatır
+     * @param idleClient havuzun istemcisi - renderer çökmesini boştaki WebView için de karşılar
+     */
+    fun resetForReuse(idleClient: WebViewClient) {
+        try { stopLoading() } catch (e: Exception) {}
+        
+        // Öneri köprüsü SuggestionManager üzerinden eski activity'yi tutar - havuzda beklerken bırakılır.
+        // Köprü bir sonraki yüklemede kalkar; about:blank'ten önce kaldırılır ki boş sayfa da erişemesin
+        suggestionInterface = null
+        try { removeJavascriptInterface("SuggestionHandler") } catch (e: Exception) {}
+        
+        // Sayfayı boşalt ve geçmişi sil
+        loadUrl("about:blank")
+        clearHistory()
+        clearMatches()
+        scrollTo(0, 0)
+        
+        // Önceki sekmenin istemcilerini ve dinleyicilerini bırak
+        webViewClient = idleClient
+        webChromeClient = null
+        setOnTouchListener(null)
+        setOnClickListener(null)
+        tab = null
+        snapshotStore = null
+        hasPendingScroll = false
+        onPageStarted = null
+        onPageFinished = null
+        onProgressChanged = null
+        onReceivedTitle = null
+        onReceivedError = null
+        onReceivedSslError = null
+        onJsAlert = null
+        onJsConfirm = null
+        onFileChooser = null
+        onLongPress = null
+        onRenderProcessGone = null
+        onPageEvent = null
+        pageChannel.close()
+        
+        // Görünüm durumunu varsayılana döndür
+        visibility = View.VISIBLE
+        alpha = 1f
+        setLayerType(View.LAYER_TYPE_HARDWARE, null)
+        settings.blockNetworkImage = false
+        DocumentStartScriptRegistry.resetToDefaults(this)
+        suspender.resume()
+        onResume()
+    }
+    
     /**
      * Clean up resources when this WebView is no longer needed
      */
     fun cleanup() {
         // Tüm yükleme ve işlemleri durdur
         try { stopLoading() } catch (e: Exception) {}
+        cancelScripts()
         
         try { settings.javaScriptEnabled = false } catch (e: Exception) {}
         
@@ -582,9 +691,8 @@ class TabWebView @JvmOverloads constructor(
         try { clearSslPreferences() } catch (e: Exception) {}
         try { clearMatches() } catch (e: Exception) {}
         
-        // Tüm görüntüleme işlemlerini durdur
+        // Tüm görüntüleme işlemlerini durdur - pauseTimers süreç genelidir, diğer sekmeleri dondurmasın diye çağrılmaz
         try { onPause() } catch (e: Exception) {}
-        try { pauseTimers() } catch (e: Exception) {}
         
         // Bellek sızıntılarını önlemek için referansları temizle
         tag = null
@@ -599,5 +707,90 @@ class TabWebView @JvmOverloads constructor(
         onJsConfirm = null
         onFileChooser = null
         onLongPress = null
+        onRenderProcessGone = null
+        onPageEvent = null
+        pageChannel.close()
+        suggestionInterface = null
+        snapshotStore = null
+    }
+    
+    /**
+     * Events pushed by the page - öneri olayları burada işlenir, diğerleri dinleyiciye iletilir
+     */
+    private fun handlePageEvent(event: PageChannel.PageEvent) {
+        when (event) {
+            is PageChannel.PageEvent.InputFocused -> if (event.editable) {
+                suggestionInterface?.onInputFocusedWithValue(event.key, event.value)
+            }
+            is PageChannel.PageEvent.InputChanged -> suggestionInterface?.onInputChanged(event.key, event.value)
+            else -> Unit
+        }
+        onPageEvent?.invoke(event)
+    }
+    
+    companion object {
+        /**
+         * Suggestion tracking for inputs and textareas, including ones added after load
+         * Olay yetkilendirmesi kullanılır; belge başında çalıştığı için henüz var olmayan alanlar da izlenir
+         */
+        internal const val INPUT_TRACKING_SCRIPT = """
+            (function() {
+                // SuggestionHandler initialization status
+                window.TKF = window.TKF || {};
+                window.TKF.suggestionHandlerInitialized = true;
+                
+                var isInput = function(element) {
+                    return element && (element.tagName === 'INPUT' || element.tagName === 'TEXTAREA');
+                };
+                
+                // Generate or get key for this input
+                var keyFor = function(input) {
+                    var key = input.getAttribute('data-tkf-key');
+                    if (!key) {
+                        key = (input.name || input.id || input.placeholder || 'input_' + Math.random().toString(36).substr(2, 9));
+                        key = key.replace(/[^a-zA-Z0-9_]/g, '_');
+                        input.setAttribute('data-tkf-key', key);
+                    }
+                    input.setAttribute('data-tkf-tracked', 'true');
+                    return key;
+                };
+                
+                // Kanal bağlıysa olaylar toplu iletilir, değilse SuggestionHandler köprüsü kullanılır
+                var channel = function() {
+                    return window.TKFChannel && window.TKFChannel.connected ? window.TKFChannel : null;
+                };
+                
+                // Track focus events - dokunulan alan burada bildirilir, dokunma başına betik çalıştırılmaz
+                document.addEventListener('focusin', function(e) {
+                    if (!isInput(e.target)) return;
+                    var key = keyFor(e.target);
+                    var editable = !e.target.disabled && !e.target.readOnly;
+                    if (channel()) {
+                        channel().emit('focus', {
+                            key: key,
+                            value: e.target.value || '',
+                            tag: e.target.tagName,
+                            type: (e.target.type || 'text').toLowerCase(),
+                            editable: editable
+                        });
+                    } else if (editable && window.SuggestionHandler) {
+                        // Kanal henüz bağlı değil (sayfa yükleniyor) veya desteklenmiyor - klavye yine açılır
+                        window.SuggestionHandler.onInputFocusedInPage(key, e.target.value || '',
+                            e.target.tagName, (e.target.type || 'text').toLowerCase());
+                    }
+                }, true);
+                
+                // Track input changes - aynı alanın bekleyen değeri yenisiyle birleştirilir
+                document.addEventListener('input', function(e) {
+                    if (!isInput(e.target)) return;
+                    var key = keyFor(e.target);
+                    if (channel()) {
+                        channel().emit('input', { key: key, value: e.target.value || '' }, 'input:' + key);
+                    } else if (window.SuggestionHandler) {
+                        window.SuggestionHandler.onInputChanged(key, e.target.value || '');
+                    }
+                }, true);
+            })();
+        """
     }
-} 
\ No newline at end of file
+}
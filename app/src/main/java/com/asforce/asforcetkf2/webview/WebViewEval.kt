@@ -0,0 +1,86 @@
+package com.asforce.asforcetkf2.webview
+
+import android.webkit.WebView
+import kotlinx.coroutines.Dispatchers
+import java.lang.ref.WeakReference
+import java.util.WeakHashMap
+
+// Coroutine API over evaluateJavascript - her WebView kendi sıralı kuyruğunu kullanır (bkz. ScriptExecutor)
+// Kuyruk ilk çağrıda oluşturulur, WebView havuza dönerken veya yok edilirken cancelScripts ile kapatılır
+private val executors = WeakHashMap<WebView, ScriptExecutor>()
+
+private fun WebView.scriptExecutor(): ScriptExecutor = synchronized(executors) {
+    executors[this]?.takeUnless { it.isClosed } ?: run {
+        // Değer anahtarı güçlü tutarsa WeakHashMap girdisi hiç silinmez; WebView zayıf referansla tutulur
+        val webView = WeakReference(this)
+        ScriptExecutor(
+            evaluate = { script, callback ->
+                webView.get()?.evaluateJavascript(script) { callback(it) } ?: callback(null)
+            },
+            dispatcher = Dispatchers.Main.immediate
+        ).also { executors[this] = it }
+    }
+}
+
+/**
+ * Evaluate [script] in this WebView and return the raw JSON result
+ * @throws ScriptTimeoutException sayfa [timeoutMs] içinde yanıt vermezse
+ */
+suspend fun WebView.eval(
+    script: String,
+    timeoutMs: Long = ScriptExecutor.DEFAULT_TIMEOUT_MS,
+    name: String = ScriptExecutor.DEFAULT_NAME
+): String? = scriptExecutor().eval(script, name, timeoutMs)
+
+/**
+ * Same as [eval] for scripts returning a string - JSON tırnak ve kaçışları çözülmüş olarak döner
+ */
+suspend fun WebView.evalString(
+    script: String,
+    timeoutMs: Long = ScriptExecutor.DEFAULT_TIMEOUT_MS,
+    name: String = ScriptExecutor.DEFAULT_NAME
+): String? = ScriptResultDecoder.decodeString(eval(script, timeoutMs, name))
+
+/**
+ * Evaluate [script] and read its result straight into Kotlin objects - büyük sonuçlar arka planda çözülür
+ */
+suspend fun <T> WebView.evalDecoded(
+    script: String,
+    timeoutMs: Long = ScriptExecutor.DEFAULT_TIMEOUT_MS,
+    name: String = ScriptExecutor.DEFAULT_NAME,
+    read: (JsResultReader) -> T
+): T = ScriptResultDecoder.decodeAsync(eval(script, timeoutMs, name), read)
+
+/**
+ * Call function [name] of the page script bundle with JSON-encoded [args] and return the raw result
+ * Paket belgede yoksa (belge başı enjeksiyonu desteklenmiyor veya sekme dışı bir WebView) bir kez
+ * yüklenir ve çağrı tekrarlanır; aynı belgedeki sonraki çağrılar yalnızca birkaç baytlık ifade gönderir.
+ */
+suspend fun WebView.callScript(
+    name: String,
+    vararg args: Any?,
+    timeoutMs: Long = ScriptExecutor.DEFAULT_TIMEOUT_MS
+): String? {
+    val invocation = ScriptBundle.invocation(name, args.asList())
+    val result = eval(invocation, timeoutMs, name)
+    if (!ScriptBundle.isMissing(result)) return result
+    eval(ScriptBundle.script(context).wrappedSource, timeoutMs, ScriptBundle.ID)
+    return eval(invocation, timeoutMs, name)
+}
+
+/**
+ * Same as [callScript], reading the result straight into Kotlin objects
+ */
+suspend fun <T> WebView.callScriptDecoded(
+    name: String,
+    vararg args: Any?,
+    timeoutMs: Long = ScriptExecutor.DEFAULT_TIMEOUT_MS,
+    read: (JsResultReader) -> T
+): T = ScriptResultDecoder.decodeAsync(callScript(name, *args, timeoutMs = timeoutMs), read)
+
+/**
+ * Cancel queued and running scripts of this WebView - bekleyen çağrılar iptal edilir
+ */
+fun WebView.cancelScripts() {
+    synchronized(executors) { executors.remove(this) }?.close()
+}
@@ -142,8 +142,8 @@ open class WebViewOptimizer(webView: WebView) {
             // JavaScript'i etkinleştir
             webView.settings.javaScriptEnabled = true
             
-            // Süreölçerleri devam ettir
-            webView.resumeTimers()
+            // Bu görünümü devam ettir - resumeTimers süreç geneli olduğundan kullanılmaz
+            webView.onResume()
             
             // Görünürlük ayarla
             webView.visibility = View.VISIBLE
@@ -205,10 +205,10 @@ open class WebViewOptimizer(webView: WebView) {
             // Minimum önbellek ayarları - sadece lokalden yükle
             webView.settings.cacheMode = WebSettings.LOAD_CACHE_ONLY
             
-            // Yüklemeyi durdur ve süreölçerleri duraklat - ancak oturum verilerini koru
+            // Yüklemeyi durdur ve yalnızca bu görünümü duraklat - pauseTimers ön plandaki sekmeyi de dondurur
             if (webView.isShown && !tab.isHibernated) {
                 webView.stopLoading()
-                webView.pauseTimers()
+                webView.onPause()
             }
             
             // Görünürlük azalt
@@ -1,657 +1,487 @@
 package com.asforce.asforcetkf2.webview
 
+import android.annotation.SuppressLint
+import android.app.ActivityManager
+import android.content.ComponentCallbacks2
 import android.content.Context
-import android.graphics.Color
-import android.os.Build
+import android.content.MutableContextWrapper
+import android.content.res.Configuration
+import android.os.Handler
+import android.os.Looper
+import android.os.SystemClock
+import android.view.ViewGroup
+import android.webkit.RenderProcessGoneDetail
 import android.webkit.WebSettings
-import android.webkit.WebStorage
 import android.webkit.WebView
-import android.view.View
+import android.webkit.WebViewClient
+import com.asforce.asforcetkf2.util.LatencyHistogram
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.withContext
+import kotlinx.coroutines.withTimeoutOrNull
+import timber.log.Timber
+import java.util.Collections
+import java.util.WeakHashMap
 import java.util.concurrent.ConcurrentHashMap
-import java.util.Queue
-import java.util.LinkedList
+import java.util.concurrent.ConcurrentLinkedDeque
+import java.util.concurrent.atomic.AtomicBoolean
 import java.util.concurrent.atomic.AtomicInteger
-import timber.log.Timber
 
 /**
- * WebView nesneleri için havuz yönetimi - ültre optimize edilmiş versiyon 2.0
- * Bellek kullanımını optimize etmek için WebView'leri yeniden kullanır,
- * gereksiz WebView oluşturmayı önler ve adaptif havuz boyutlama sağlar.
- * Thread-safe implementasyon ile bellek sızıntılarını önler.
+ * Uygulamanın tek WebView havuzu - tarayıcı sekmeleri ve kontrol ekranları yedekleri aynı havuzdan alır
+ * - Kontrol ekranlarına verilen WebView'ler havuza geri dönmez, iadede yok edilir
+ * - Yedek TabWebView'ler ana thread boştayken (IdleHandler) önceden oluşturulur
+ * - İade edilen WebView'ler clearCache(true) çağrılmadan sıfırlanır; HTTP önbelleği paylaşımlıdır
+ * - Havuz boyutu cihazın bellek sınıfına ve onTrimMemory seviyelerine göre ayarlanır
+ * - Her alım süresi bir gecikme histogramına kaydedilir
+ * - Boştaki ve yedek WebView'ler, renderer çökmesinde kendini havuzdan atan bir istemciyle bekler
+ *
+ * WebView'ler MutableContextWrapper ile oluşturulur; alımda temel context aktiviteye,
+ * iadede uygulama context'ine çevrilir, böylece havuz aktivite sızdırmaz.
+ * Tüm WebView işlemleri ana thread'de yapılır; diğer thread'lerden gelen çağrılar ana thread'e aktarılır.
+ * Havuz yapıları kilitsizdir: WebView inşası ve sıfırlama hiçbir kilit tutulmadan yapılır,
+ * istatistik ve iade çağrıları bu işlemlerin arkasında beklemez.
  */
-class WebViewPool(private val context: Context) {
-    
-    // Thread-safe veri yapıları kullan
-    private val idleWebViews: Queue<WebView> = LinkedList<WebView>()
-    private val activeWebViews = ConcurrentHashMap<String, WebView>()
-    private val webViewReferences = ConcurrentHashMap<String, WebView>()
-    
-    // CPU ve bellek durumuna göre adaptif havuz boyutlama
-    private var maxPoolSize = calculateOptimalPoolSize() 
-    
-    // WebView oluşturma ve yeniden kullanım istatistikleri
-    private val creationCount = AtomicInteger(0)
-    private val reuseCount = AtomicInteger(0)
-    private val destroyCount = AtomicInteger(0)
-    
-    // Performans için ek veriler
-    private var lastMemoryTrimTime = 0L
-    private val MEMORY_TRIM_INTERVAL = 60000L // 1 dakika
-    
+class WebViewPool private constructor(context: Context) {
+
+    private val appContext = context.applicationContext
+    private val mainHandler = Handler(Looper.getMainLooper())
+
+    private val idleWebViews = ConcurrentLinkedDeque<TabWebView>()
+    // ConcurrentLinkedDeque.size O(n) - boyut ayrıca tutulur ve bekleyen alımlara yayınlanır
+    private val idleCount = MutableStateFlow(0)
+    private val idleSize = AtomicInteger(0)
+
+    // Kontrol ekranlarına verilen WebView'ler - yalnızca ana thread'de erişilir.
+    // Bu ekranlar activity'yi tutan JS arayüzleri ekler, önbellek/dosya erişimi ve render önceliği gibi
+    // ayarları (bazılarını yansıma ile) değiştirir; sıfırlanamadıkları için bir tarayıcı sekmesine verilmezler
+    private val controlScreenWebViews = Collections.newSetFromMap(WeakHashMap<WebView, Boolean>())
+
+    // Sekme kimliğine göre rezervasyonlar - aynı sekme için yalnızca bir WebView oluşturulur
+    private val reservations = ConcurrentHashMap<String, CompletableDeferred<TabWebView>>()
+
+    // Bellek sınıfına göre boşta tutulabilecek en fazla WebView ve hedef yedek sayısı
+    private val memoryClassMaxIdle = maxIdleForMemoryClass(
+        (appContext.getSystemService(Context.ACTIVITY_SERVICE) as? ActivityManager)?.memoryClass ?: 128
+    )
+    @Volatile
+    private var maxIdle = memoryClassMaxIdle
+    @Volatile
+    private var spareTarget = minOf(1, memoryClassMaxIdle)
+    private val warmupScheduled = AtomicBoolean(false)
+
+    private val created = AtomicInteger(0)
+    private val reused = AtomicInteger(0)
+    private val released = AtomicInteger(0)
+    private val destroyed = AtomicInteger(0)
+    private val acquireLatency = LatencyHistogram()
+    private val createLatency = LatencyHistogram()
+
+    private val trimCallbacks = object : ComponentCallbacks2 {
+        override fun onTrimMemory(level: Int) {
+            this@WebViewPool.onTrimMemory(level)
+        }
+
+        override fun onConfigurationChanged(newConfig: Configuration) {}
+
+        @Deprecated("Deprecated in Java")
+        override fun onLowMemory() {
+            onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE)
+        }
+    }
+
+    // Tüm WebView'ler aynı renderer'ı paylaşır; çökmede boştakiler de onRenderProcessGone alır.
+    // Varsayılan istemci false döner ve sistem uygulamayı sonlandırır - burada WebView atılıp true dönülür
+    private val idleClient = object : WebViewClient() {
+        override fun onRenderProcessGone(view: WebView, detail: RenderProcessGoneDetail): Boolean {
+            if (idleWebViews.removeFirstOccurrence(view)) {
+                updateIdleSize(-1)
+                Timber.w("Renderer of an idle WebView is gone (crash=${detail.didCrash()}), discarding")
+                discard(view)
+                scheduleWarmup()
+            } else {
+                // Alınmış ama sahibi henüz istemcisini kurmamış - WebView sahibinde kalır, yalnızca süreç korunur
+                Timber.w("Renderer of a leased WebView is gone before its client was set")
+            }
+            return true
+        }
+    }
+
+    init {
+        appContext.registerComponentCallbacks(trimCallbacks)
+    }
+
     /**
-     * Belirtilen sekme ID'si için WebView al - Thread-safe ve geliştirilmiş versiyon
-     * Havuzdan akıllı bir şekilde WebView seçer veya yeni oluşturur
+     * Acquire a TabWebView bound to the given (activity) context - ana thread
      */
-    @Synchronized
-    fun getWebView(tabId: String): WebView {
-        // İstatistik için zamanı kaydet
-        val startTime = System.currentTimeMillis()
-        
-        try {
-            // 1. Önce zaten aktif olanı kontrol et
-            activeWebViews[tabId]?.let { existingView ->
-                Timber.d("Returning existing active WebView for tab $tabId")
-                return existingView
-            }
-            
-            // 2. Referansları kontrol et - düzenli olarak temizlenmemiş
-            webViewReferences[tabId]?.let { referencedView ->
-                Timber.d("Reusing referenced WebView for tab $tabId")
-                activeWebViews[tabId] = referencedView
-                return referencedView
-            }
-            
-            // 3. Atıl WebView havuzundan al
-            synchronized(idleWebViews) {
-                if (idleWebViews.isNotEmpty()) {
-                    val webView = idleWebViews.poll()
-                    if (webView != null) {
-                        Timber.d("Reusing WebView from pool for tab $tabId")
-                        
-                        // WebView'ı yeniden kullanım için hazırla
-                        prepareWebViewForReuse(webView)
-                        
-                        // Aktif havuzlara ekle ve referans tut
-                        activeWebViews[tabId] = webView
-                        webViewReferences[tabId] = webView
-                        
-                        // İstatistik güncelle
-                        reuseCount.incrementAndGet()
-                        
-                        return webView
-                    }
-                }
-            }
-            
-            // 4. Havuzda uygun WebView yoksa yeni oluştur
-            Timber.d("Creating new WebView for tab $tabId")
-            val webView = createOptimizedWebView()
-            
-            // Her iki havuza da ekle
-            activeWebViews[tabId] = webView
-            webViewReferences[tabId] = webView
-            
-            // İstatistik güncelle
-            creationCount.incrementAndGet()
-            
-            // Bellek trim kontrolü - 1 dakikada bir yap
-            checkAndTrimMemory()
-            
-            return webView
-        } finally {
-            // Performans logging
-            val duration = System.currentTimeMillis() - startTime
-            if (duration > 50) { // 50ms üzerindeki süreleri log'la
-                Timber.d("WebView acquisition for tab $tabId took $duration ms")
-            }
+    fun acquireTabWebView(hostContext: Context): TabWebView {
+        checkMainThread()
+        val start = SystemClock.elapsedRealtimeNanos()
+
+        val pooled = pollIdle()
+        val webView = if (pooled != null) {
+            reused.incrementAndGet()
+            pooled
+        } else {
+            createWebView()
         }
+        (webView.context as? MutableContextWrapper)?.baseContext = hostContext
+        detachFromParent(webView)
+
+        acquireLatency.recordNanos(SystemClock.elapsedRealtimeNanos() - start)
+
+        // Kullanıcı etkin - yedeği bir sonraki boşta anında yenile
+        scheduleWarmup()
+        return webView
     }
-    
+
     /**
-     * WebView havuzuna önceden WebView'lar yükle - optimizasyon için
-     * İlk açılışta yapılırsa performans artışı sağlar
+     * Suspending acquire: waits briefly for a spare being warmed instead of constructing on the spot
+     * Yedek SPARE_WAIT_MS içinde hazır olmazsa WebView doğrudan oluşturulur
      */
-    @Synchronized
-    fun preloadWebViews(count: Int) {
-        val targetCount = Math.min(count, maxPoolSize)
-        val currentCount = idleWebViews.size
-        
-        if (currentCount >= targetCount) return
-        
-        Timber.d("Preloading ${targetCount - currentCount} WebViews into pool")
-        
-        try {
-            for (i in 0 until (targetCount - currentCount)) {
-                val webView = createOptimizedWebView(true) // lightweight mode
-                synchronized(idleWebViews) {
-                    idleWebViews.add(webView)
-                }
-                creationCount.incrementAndGet()
-            }
-        } catch (e: Exception) {
-            Timber.e(e, "Error during WebView preloading")
+    suspend fun acquire(hostContext: Context): TabWebView = withContext(Dispatchers.Main.immediate) {
+        if (idleSize.get() == 0 && spareTarget > 0) {
+            scheduleWarmup()
+            // Ana thread boşa çıktığında IdleHandler yedeği oluşturur ve bu bekleme sona erer
+            withTimeoutOrNull(SPARE_WAIT_MS) { idleCount.first { it > 0 } }
         }
+        acquireTabWebView(hostContext)
     }
-    
+
     /**
-     * Havuzu belirtilen boyuta küçült
-     * Düşük bellek durumlarında çağrılır
+     * Acquire the WebView reserved for a tab - eşzamanlı çağrılar aynı örneği bekler
+     * @return null if the reservation was released while the WebView was being prepared
      */
-    @Synchronized
-    fun trimToSize(size: Int) {
-        synchronized(idleWebViews) {
-            while (idleWebViews.size > size) {
-                val webView = idleWebViews.poll()
-                webView?.let {
-                    try {
-                        it.destroy()
-                        destroyCount.incrementAndGet()
-                    } catch (e: Exception) {
-                        Timber.e(e, "Error destroying WebView during trim")
-                    }
-                }
-            }
+    suspend fun acquireForTab(tabId: String, hostContext: Context): TabWebView? {
+        var owner = false
+        val slot = reservations.computeIfAbsent(tabId) {
+            owner = true
+            CompletableDeferred()
         }
-        
-        // Maksimum havuz boyutunu güncelle
-        if (size < maxPoolSize) {
-            maxPoolSize = size
-            Timber.d("WebView pool size reduced to $maxPoolSize")
+        if (owner) {
+            // Rezervasyon sahibi inşayı kilit dışında yapar
+            val webView = try {
+                acquire(hostContext)
+            } catch (e: Throwable) {
+                reservations.remove(tabId, slot)
+                slot.completeExceptionally(e)
+                throw e
+            }
+            slot.complete(webView)
+            if (reservations[tabId] !== slot) {
+                // Beklerken sekme kapatıldı
+                release(webView)
+                return null
+            }
+            return webView
         }
-        
-        // GC öner
-        System.gc()
+        val webView = slot.await()
+        return if (reservations[tabId] === slot) webView else null
     }
-    
+
     /**
-     * Bellek trim işlemini kontrol et ve gerekirse yap
+     * Release the WebView reserved for a tab; cancels a pending acquire
+     * @return false if the tab had no reservation
      */
-    private fun checkAndTrimMemory() {
-        val currentTime = System.currentTimeMillis()
-        if (currentTime - lastMemoryTrimTime > MEMORY_TRIM_INTERVAL) {
-            lastMemoryTrimTime = currentTime
-            
-            // Bellek trim fonksiyonunu çağır
-            performMemoryTrim()
+    fun releaseForTab(tabId: String, delayedCleanup: Boolean = false): Boolean {
+        val slot = reservations.remove(tabId) ?: return false
+        // Tamamlanmamış rezervasyonu sahibi fark edip iade eder
+        if (!slot.isCompleted) return true
+        val webView = slot.completedOrNull() ?: return true
+        if (delayedCleanup) {
+            mainHandler.post { release(webView) }
+        } else {
+            release(webView)
         }
+        return true
     }
-    
+
     /**
-     * Düşük bellek durumlarında çağrılan açil bellek temizliği
+     * Return a TabWebView to the pool; destroyed if the pool is full - ana thread
      */
-    fun emergencyCleanup() {
-        Timber.w("Performing emergency WebView pool cleanup")
-        
-        // Tüm boşta WebView'ları temizle
-        synchronized(idleWebViews) {
-            for (webView in idleWebViews) {
-                try {
-                    webView.destroy()
-                    destroyCount.incrementAndGet()
-                } catch (e: Exception) {
-                    Timber.e("Failed to destroy WebView in emergency cleanup: ${e.message}")
-                }
-            }
-            idleWebViews.clear()
+    fun release(webView: WebView) {
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            mainHandler.post { release(webView) }
+            return
+        }
+        reservations.entries.removeIf { entry -> entry.value.completedOrNull() === webView }
+        webView.cancelScripts()
+        detachFromParent(webView)
+        released.incrementAndGet()
+
+        if (webView !is TabWebView || controlScreenWebViews.remove(webView)) {
+            destroy(webView)
+            return
         }
-        
-        // Maksimum havuz boyutunu düşür
-        maxPoolSize = Math.max(1, maxPoolSize / 2)
-        Timber.d("Reduced max pool size to $maxPoolSize due to memory pressure")
-        
-        // Depolama ve önbellekleri temizle
+
         try {
-            WebStorage.getInstance().deleteAllData()
-            // WebView önbelleğini temizle - API'ye uygun şekilde
-            WebView(context).clearCache(true)
+            webView.resetForReuse(idleClient)
+            (webView.context as? MutableContextWrapper)?.baseContext = appContext
         } catch (e: Exception) {
-            Timber.e("Failed to clear WebView caches: ${e.message}")
+            Timber.e(e, "WebView could not be reset, destroying")
+            destroy(webView)
+            return
+        }
+
+        if (!offerIdle(webView)) {
+            destroy(webView)
         }
-        
-        // GC'yi zorunlu olarak çağır
-        System.gc()
     }
-    
+
     /**
-     * Belirtilen sekme ID'si için WebView al
-     * Önce aktif sekmelerden, sonra atıl havuzundan, yoksa yeni oluştur
+     * Destroy a WebView that must never be reused, e.g. after its renderer died
      */
-    private fun performMemoryTrim() {
-        // Kullanılmayan WebView referanslarını temizle
-        val activeIds = activeWebViews.keys.toSet()
-        val idsToRemove = mutableListOf<String>()
-        
-        webViewReferences.keys.forEach { tabId ->
-            if (!activeIds.contains(tabId)) {
-                idsToRemove.add(tabId)
-            }
-        }
-        
-        // Gereksiz referansları kaldır
-        idsToRemove.forEach { tabId ->
-            webViewReferences.remove(tabId)
-        }
-        
-        if (idsToRemove.isNotEmpty()) {
-            Timber.d("Cleaned up ${idsToRemove.size} unused WebView references")
-        }
-        
-        // Atıl havuz boyutunu kontrol et ve gerekirse küçült
-        val currentPoolSize = idleWebViews.size
-        val optimalSize = calculateOptimalPoolSize()
-        
-        if (currentPoolSize > optimalSize) {
-            trimToSize(optimalSize)
+    fun discard(webView: WebView) {
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            mainHandler.post { discard(webView) }
+            return
         }
+        reservations.entries.removeIf { entry -> entry.value.completedOrNull() === webView }
+        controlScreenWebViews.remove(webView)
+        webView.cancelScripts()
+        detachFromParent(webView)
+        destroy(webView)
     }
-    
+
     /**
-     * Yeniden kullanım için WebView temizliği - Geliştirilmiş versiyon
-     * Daha derin temizlik ve optimizasyon sağlar
+     * Pre-create spare WebViews when the main thread is idle
      */
-    private fun prepareWebViewForReuse(webView: WebView) {
-        try {
-            // 1. Önce JavaScript ile DOM ve bellek temizliği
-            webView.evaluateJavascript("""
-                (function() {
+    fun scheduleWarmup() {
+        if (spareTarget <= 0 || !warmupScheduled.compareAndSet(false, true)) return
+        mainHandler.post {
+            Looper.myQueue().addIdleHandler {
+                if (idleSize.get() < spareTarget) {
                     try {
-                        // Tüm zamanlayıcıları temizle
-                        var highestTimeoutId = setTimeout(function(){}, 0);
-                        for (var i = 0; i < highestTimeoutId; i++) {
-                            clearTimeout(i);
-                            clearInterval(i);
-                        }
-                        
-                        // Tüm global değişkenleri temizle
-                        for (var prop in window) {
-                            if (window.hasOwnProperty(prop) && prop.indexOf('webkit') === -1 
-                                && typeof window[prop] !== 'function') {
-                                try {
-                                    delete window[prop];
-                                } catch(e) {}
-                            }
-                        }
-                        
-                        // LocalStorage ve SessionStorage temizleme
-                        if (window.localStorage) {
-                            try { localStorage.clear(); } catch(e) {}
-                        }
-                        if (window.sessionStorage) {
-                            try { sessionStorage.clear(); } catch(e) {}
-                        }
-                        
-                        // Document içeriğini temizle
-                        if (document.body) document.body.innerHTML = '';
-                        
-                        return "CLEANUP_COMPLETE";
-                    } catch(e) {
-                        return "CLEANUP_ERROR: " + e.message;
+                        val webView = createWebView()
+                        if (!offerIdle(webView)) destroy(webView)
+                    } catch (e: Exception) {
+                        Timber.e(e, "Warm WebView could not be created")
+                        warmupScheduled.set(false)
+                        return@addIdleHandler false
                     }
-                })();
-            """.trimIndent()) { result ->
-                // JavaScript temizlik sonucu
-                if (result != "\"CLEANUP_COMPLETE\"") {
-                    Timber.d("WebView JS cleanup result: $result")
                 }
+                // Her boşta turda en fazla bir WebView - ana thread'i uzun süre meşgul etme
+                val keep = idleSize.get() < spareTarget
+                if (!keep) warmupScheduled.set(false)
+                keep
+            }
+        }
+    }
+
+    fun onTrimMemory(level: Int) {
+        when {
+            level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND ||
+                level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW ||
+                level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL -> {
+                spareTarget = 0
+                maxIdle = 0
+                trimToSize(0)
             }
-            
-            // 2. WebView'ı temizle - temel işlemler
-            webView.stopLoading()
-            webView.clearHistory()
-            webView.clearCache(true)
-            webView.clearFormData()
-            webView.clearSslPreferences()
-            webView.clearDisappearingChildren()
-            
-            // 3. Ayarları varsayılana döndür - performans odaklı
-            webView.settings.apply {
-                javaScriptEnabled = true
-                useWideViewPort = true
-                loadWithOverviewMode = true
-                domStorageEnabled = true
-                databaseEnabled = true
-                cacheMode = WebSettings.LOAD_DEFAULT
-                blockNetworkImage = true // Önce sayfa yüklensin, sonra görseller
-                setRenderPriority(WebSettings.RenderPriority.HIGH)
-                mediaPlaybackRequiresUserGesture = true
-                allowContentAccess = true
-                allowFileAccess = false  // Güvenlik için false
+            level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN ||
+                level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE -> {
+                spareTarget = 0
+                maxIdle = minOf(1, memoryClassMaxIdle)
+                trimToSize(maxIdle)
             }
-            
-            // 4. Görünürlük ve katman optimizasyonu
-            webView.visibility = View.INVISIBLE // İlk yükleme sırasında görünmez
-            webView.setBackgroundColor(Color.TRANSPARENT) // Saydam arka plan
-            webView.alpha = 0.99f // Alpha restart trick
-            webView.setLayerType(View.LAYER_TYPE_HARDWARE, null) // Hızlı render
-            
-            // 5. Boş sayfa yükle
-            webView.loadUrl("about:blank")
-            
-            // 6. Bir süre sonra görünür yap
-            webView.postDelayed({
-                webView.visibility = View.VISIBLE
-            }, 100)
-            
-        } catch (e: Exception) {
-            Timber.e(e, "Error preparing WebView for reuse")
         }
     }
-    
+
+    /**
+     * Restore the memory-class sizing after pressure, e.g. when the browser is resumed
+     */
+    fun restoreCapacity() {
+        maxIdle = memoryClassMaxIdle
+        spareTarget = minOf(1, memoryClassMaxIdle)
+        scheduleWarmup()
+    }
+
     /**
-     * Sekme kapandığında WebView'ı havuza iade et - Geliştirilmiş versiyon
-     * @param delayedCleanup Eğer true ise, temizleme işlemi biraz geciktirilir
+     * Destroy idle WebViews beyond the given count
      */
-    @Synchronized
-    fun releaseWebView(tabId: String, delayedCleanup: Boolean = false) {
-        val webView = activeWebViews.remove(tabId)
-        if (webView == null) {
-            Timber.d("No active WebView found for tab $tabId")
+    fun trimToSize(size: Int) {
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            mainHandler.post { trimToSize(size) }
             return
         }
-        
-        // Asenkron temizlik - UI thread'ini bloklamamak için
-        if (delayedCleanup) {
-            webView.post {
-                performReleaseCleanup(tabId, webView)
-            }
-        } else {
-            performReleaseCleanup(tabId, webView)
+        while (idleSize.get() > size) {
+            val webView = idleWebViews.pollLast() ?: break
+            updateIdleSize(-1)
+            destroy(webView)
         }
     }
-    
+
+    fun clearPool() = trimToSize(0)
+
+    fun emergencyCleanup() {
+        Timber.w("Performing emergency WebView pool cleanup")
+        onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE)
+    }
+
+    // ---- Kontrol ekranları ve TKFBrowserOptimizer için eski API ----
+
     /**
-     * WebView temizleme işlemlerini gerçekleştir
+     * Plain WebView for the control screens, bound to the application context
+     * Hazır bir yedek varsa o kullanılır, ancak WebView havuza geri dönmez: [releaseWebView] onu yok eder
      */
-    private fun performReleaseCleanup(tabId: String, webView: WebView) {
-        try {
-            // WebView'ı temizle
-            webView.stopLoading()
-            
-            // DOM ve JavaScript temizliği
-            webView.evaluateJavascript("""
-                (function() {
-                    try {
-                        // Kill all timers
-                        var highestId = setTimeout(() => {}, 0);
-                        for (let i = 0; i < highestId; i++) {
-                            clearTimeout(i); 
-                            clearInterval(i);
-                        }
-                        
-                        // Clear memory intensive resources
-                        if (document.body) document.body.innerHTML = '';
-                        
-                        // Clear storages
-                        try { localStorage.clear(); } catch(e) {}
-                        try { sessionStorage.clear(); } catch(e) {}
-                        
-                        return "RELEASE_CLEANUP_COMPLETE";
-                    } catch(e) {
-                        return "RELEASE_CLEANUP_ERROR: " + e.message;
-                    }
-                })();
-            """.trimIndent()) { result ->
-                Timber.d("Tab $tabId JS cleanup: $result")
-                
-                // Boş sayfa yükle
-                webView.loadUrl("about:blank")
-                
-                // Referans havuzundan kaldır
-                webViewReferences.remove(tabId)
-                
-                // Havuza ekle veya yok et
-                synchronized(idleWebViews) {
-                    if (idleWebViews.size < maxPoolSize) {
-                        Timber.d("Returning WebView to pool for tab $tabId")
-                        idleWebViews.add(webView)
-                    } else {
-                        Timber.d("Destroying WebView for tab $tabId (pool full)")
-                        webView.destroy()
-                        destroyCount.incrementAndGet()
-                    }
-                }
-            }
-        } catch (e: Exception) {
-            Timber.e(e, "Error during WebView release cleanup")
-            try {
-                webView.destroy()
-                destroyCount.incrementAndGet()
-            } catch (e2: Exception) {
-                Timber.e(e2, "Failed to destroy WebView during error recovery")
-            }
-        }
+    fun acquireWebView(): WebView {
+        val webView = acquireTabWebView(appContext)
+        controlScreenWebViews.add(webView)
+        configureControlScreenSettings(webView.settings)
+        return webView
+    }
+
+    /**
+     * Release a control screen WebView - yok edilir, JS arayüzleri ve ayarları başka bir sekmeye geçmez
+     */
+    fun releaseWebView(webView: WebView?) {
+        webView?.let { release(it) }
     }
-    
+
     /**
-     * Ultra optimize edilmiş WebView oluştur
-     * @param lightweight Daha hafif bir WebView oluşturmak için true
+     * WebView leased for a tab id - aynı kimlik için aynı örnek döner
      */
-    private fun createOptimizedWebView(lightweight: Boolean = false): WebView {
-        val startTime = System.currentTimeMillis()
-        
-        Timber.d("Creating ${if (lightweight) "lightweight" else "standard"} WebView")
-        
-        // Bellek durumunu kontrol et ve buna göre optimizasyonu ayarla
-        val runtime = Runtime.getRuntime()
-        val usedMemoryPercent = (runtime.totalMemory() - runtime.freeMemory()) * 100 / runtime.maxMemory()
-        val isLowMemory = usedMemoryPercent > 70 // %70 üzerinde kullanım olduğunda düşük bellek modu
-        
-        // Eğer bellek az ise, lightweight mod zorunlu olmalı
-        val forceLightweight = isLowMemory || lightweight
-        
-        // Çok düşük bellek durumunda temizlik yap
-        if (usedMemoryPercent > 85) {
-            Timber.w("Memory pressure detected (${usedMemoryPercent.toInt()}%), cleaning WebView caches")
-            try {
-                WebStorage.getInstance().deleteAllData()
-                // WebView önbelleğini temizle - API'ye uygun şekilde
-                WebView(context).clearCache(true)
-            } catch (e: Exception) {
-                Timber.e("Failed to clear WebView caches: ${e.message}")
-            }
-            // GC tetikle
-            System.gc()
+    fun getWebView(tabId: String): WebView {
+        var owner = false
+        val slot = reservations.computeIfAbsent(tabId) {
+            owner = true
+            CompletableDeferred()
         }
-        
-        return WebView(context).apply {
-            // WebView optimize edici ayarlar - Çok düşük bellek kullanımı için
-            setLayerType(if (forceLightweight) View.LAYER_TYPE_SOFTWARE else View.LAYER_TYPE_HARDWARE, null)
-            setBackgroundColor(Color.TRANSPARENT) // Saydam arka plan, daha az bellek
-            isVerticalScrollBarEnabled = false // Kaydırma çubuklarını devre dışı bırak
-            isHorizontalScrollBarEnabled = false
-            overScrollMode = View.OVER_SCROLL_NEVER // Fazla kaydırma efektini kapat
-            
-            // Boyut ve görünürlük optimizasyonu
-            minimumHeight = 1
-            minimumWidth = 1
-            alpha = 0.99f // Alpha optimizasyonu - rendering motorunu yeniler
-            
-            // Çizim devre dışı - sadece gerektiğinde çizim yap
-            setWillNotDraw(forceLightweight) // Hafif modda çizim işlemlerini atla
-            
-            // Önce boş sayfa yükle - daha hızlı başlangıç
-            loadUrl("about:blank")
-            
-            settings.apply {
-                // 1. Temel performans ayarları - bellek durumuna göre adapte et
-                setRenderPriority(WebSettings.RenderPriority.HIGH)
-                cacheMode = when {
-                    usedMemoryPercent > 80 -> WebSettings.LOAD_CACHE_ONLY // Çok düşük bellek
-                    forceLightweight -> WebSettings.LOAD_CACHE_ELSE_NETWORK // Düşük bellek
-                    else -> WebSettings.LOAD_DEFAULT // Normal bellek
-                }
-                
-                // JavaScript'i önce devre dışı bırak, sadece gerektiğinde etkinleştir
-                javaScriptEnabled = !forceLightweight
-                
-                // 2. Görüntü optimizasyonu - bellek durumuna göre
-                blockNetworkImage = true // Önce sayfa yüklensin, sonra görseller
-                loadsImagesAutomatically = !forceLightweight // Hafif modda görselleri yükleme
-                useWideViewPort = !forceLightweight // Hafif modda geniş viewport yok
-                loadWithOverviewMode = !forceLightweight // Hafif modda overview mod yok
-                
-                // 3. Bellek optimizasyonu - düşük bellek durumunda agresif
-                domStorageEnabled = !forceLightweight // Çok düşük bellekte DOM storage yok
-                databaseEnabled = !forceLightweight // Çok düşük bellekte database yok
-                // AppCache artık kullanımdan kaldırıldı
-                setGeolocationEnabled(false) // Konum devre dışı
-                
-                // 4. Güvenlik ayarları
-                allowFileAccess = false
-                allowFileAccessFromFileURLs = false
-                allowUniversalAccessFromFileURLs = false
-                allowContentAccess = !forceLightweight
-                
-                // 5. Ek optimizasyonlar - minimal özellikler
-                mediaPlaybackRequiresUserGesture = true
-                saveFormData = false
-                savePassword = false
-                
-                // 6. Kullanıcı deneyimi - minimal
-                textZoom = 100
-                setSupportZoom(!forceLightweight)
-                builtInZoomControls = !forceLightweight
-                displayZoomControls = false
-                
-                // 7. Http/Https güvenliği
-                mixedContentMode = WebSettings.MIXED_CONTENT_COMPATIBILITY_MODE
-                
-                // 8. User Agent - daha kısa
-                if (!forceLightweight) {
-                    userAgentString = userAgentString.replace("; wv", "") + " AsforceTKF2/2.0"
-                }
-                
-                // 9. Düşük bellek modunda ek optimizasyonlar
-                if (forceLightweight && Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
-                    try {
-                        setForceDark(WebSettings.FORCE_DARK_OFF)
-                    } catch (e: Exception) {
-                        Timber.e("Error setting force dark: ${e.message}")
-                    }
-                }
-            }
-            
-            // Boş sayfa yükle
-            loadUrl("about:blank")
-            
-            // Oluşturma sonrası optimizasyon - bellek durumuna göre geciktirme
-            if (!forceLightweight) {
-                // 100ms gecikme ile hardware hızlandırma etkinleştir
-                postDelayed({
-                    setLayerType(View.LAYER_TYPE_HARDWARE, null)
-                    
-                    // JavaScript etkinleştir
-                    settings.javaScriptEnabled = true
-                    
-                    // Boş DOM oluştur - daha iyi performans
-                    evaluateJavascript("""
-                        (function() {
-                            document.open();
-                            document.write('<html><head><meta name="viewport" content="width=device-width, initial-scale=1.0"></head><body></body></html>');
-                            document.close();
-                            return "DOM_INITIALIZED";
-                        })();
-                    """.trimIndent(), null)
-                }, 100)
-            }
-        }.also {
-            // Oluşturma süresini ölç ve logla
-            val duration = System.currentTimeMillis() - startTime
-            Timber.d("WebView creation took $duration ms (mode: ${if (forceLightweight) "lightweight" else "standard"})")
+        if (owner) {
+            val webView = acquireTabWebView(appContext)
+            slot.complete(webView)
+            return webView
         }
+        // Ana thread'de sahibi senkron tamamladığından rezervasyon hazırdır
+        return slot.completedOrNull() ?: acquireTabWebView(appContext)
     }
-    
+
+    fun releaseWebView(tabId: String, delayedCleanup: Boolean = false) {
+        releaseForTab(tabId, delayedCleanup)
+    }
+
+    fun preloadWebViews(count: Int) {
+        spareTarget = count.coerceIn(0, maxIdle)
+        scheduleWarmup()
+    }
+
+    fun getActiveWebViewCount(): Int = reservations.size
+
+    fun getIdleWebViewCount(): Int = idleSize.get()
+
     /**
-     * En uygun havuz boyutunu hesapla
-     * Cihazın bellek durumuna göre bir havuz boyutu belirler
+     * Pool statistics including acquire-latency histogram
      */
-    private fun calculateOptimalPoolSize(): Int {
-        val runtime = Runtime.getRuntime()
-        val maxMemory = runtime.maxMemory() / (1024 * 1024) // MB cinsinden
-        
-        // Adaptif havuz boyutu
-        return when {
-            maxMemory >= 512 -> 4 // 512MB üzerinde 4 WebView
-            maxMemory >= 256 -> 3 // 256MB - 512MB arası 3 WebView
-            maxMemory >= 128 -> 2 // 128MB - 256MB arası 2 WebView
-            else -> 1 // Düşük bellek durumunda sadece 1 WebView
-        }
+    fun getPoolStats(): Map<String, Any> = linkedMapOf(
+        "idle_count" to getIdleWebViewCount(),
+        "reserved_tabs" to getActiveWebViewCount(),
+        "max_idle" to maxIdle,
+        "spare_target" to spareTarget,
+        "created" to created.get(),
+        "reused" to reused.get(),
+        "released" to released.get(),
+        "destroyed" to destroyed.get(),
+        "acquire_latency" to acquireLatency.snapshot(),
+        "create_latency" to createLatency.snapshot()
+    )
+
+    private fun createWebView(): TabWebView {
+        val start = SystemClock.elapsedRealtimeNanos()
+        val webView = TabWebView(MutableContextWrapper(appContext))
+        webView.webViewClient = idleClient
+        createLatency.recordNanos(SystemClock.elapsedRealtimeNanos() - start)
+        created.incrementAndGet()
+        return webView
     }
-    
+
+    @OptIn(ExperimentalCoroutinesApi::class)
+    private fun CompletableDeferred<TabWebView>.completedOrNull(): TabWebView? =
+        if (isCompleted && getCompletionExceptionOrNull() == null) getCompleted() else null
+
+    private fun pollIdle(): TabWebView? {
+        val webView = idleWebViews.pollFirst() ?: return null
+        updateIdleSize(-1)
+        return webView
+    }
+
     /**
-     * Havuzdaki tüm WebView'ları temizle
-     * Uygulama kapatılırken veya düşük bellek durumlarında çağrılmalı
+     * Add to the idle deque if there is room - kapasite CAS ile ayrılır, deque'ye kilitsiz eklenir
      */
-    @Synchronized
-    fun clearPool() {
-        Timber.d("Clearing WebView pool")
-        
-        // Tüm atıl WebView'ları temizle
-        synchronized(idleWebViews) {
-            var count = 0
-            while (idleWebViews.isNotEmpty()) {
-                val webView = idleWebViews.poll()
-                try {
-                    webView?.destroy()
-                    count++
-                    destroyCount.incrementAndGet()
-                } catch (e: Exception) {
-                    Timber.e(e, "Error destroying WebView during pool clear")
-                }
-            }
-            Timber.d("Destroyed $count idle WebViews")
+    private fun offerIdle(webView: TabWebView): Boolean {
+        while (true) {
+            val current = idleSize.get()
+            if (current >= maxIdle) return false
+            if (idleSize.compareAndSet(current, current + 1)) break
         }
-        
-        // Referansları temizle
-        webViewReferences.clear()
-        
-        // İstatistikleri güncelle
-        val stats = getPoolStats()
-        Timber.d("WebView pool stats after clear: $stats")
-        
-        // WebStorage temizle
+        idleWebViews.addLast(webView)
+        idleCount.value = idleSize.get()
+        return true
+    }
+
+    private fun updateIdleSize(delta: Int) {
+        idleCount.value = idleSize.addAndGet(delta)
+    }
+
+    private fun destroy(webView: WebView) {
         try {
-            WebStorage.getInstance().deleteAllData()
+            if (webView is TabWebView) {
+                webView.cleanup()
+            }
+            webView.destroy()
         } catch (e: Exception) {
-            Timber.e(e, "Error clearing WebStorage")
+            Timber.e(e, "Error destroying WebView")
         }
-        
-        // GC tetikle
-        System.gc()
+        destroyed.incrementAndGet()
     }
-    
-    /**
-     * Aktif WebView sayısını al
-     */
-    @Synchronized
-    fun getActiveWebViewCount(): Int {
-        return activeWebViews.size
+
+    private fun detachFromParent(webView: WebView) {
+        (webView.parent as? ViewGroup)?.removeView(webView)
     }
-    
-    /**
-     * Atıl WebView sayısını al
-     */
-    @Synchronized
-    fun getIdleWebViewCount(): Int {
-        synchronized(idleWebViews) {
-            return idleWebViews.size
-        }
+
+    private fun checkMainThread() {
+        check(Looper.myLooper() == Looper.getMainLooper()) { "WebViewPool must be used on the main thread" }
     }
-    
-    /**
-     * Havuz istatistiklerini al
-     */
-    @Synchronized
-    fun getPoolStats(): Map<String, Any> {
-        return mapOf(
-            "active_count" to activeWebViews.size,
-            "idle_count" to idleWebViews.size,
-            "reference_count" to webViewReferences.size,
-            "max_pool_size" to maxPoolSize,
-            "created" to creationCount.get(),
-            "reused" to reuseCount.get(),
-            "destroyed" to destroyCount.get(),
-            "memory_mb" to (Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory()) / (1024 * 1024)
-        )
+
+    @SuppressLint("SetJavaScriptEnabled")
+    private fun configureControlScreenSettings(settings: WebSettings) {
+        settings.javaScriptEnabled = true
+        settings.domStorageEnabled = true
+        settings.builtInZoomControls = true
+        settings.displayZoomControls = false
+        settings.setSupportZoom(true)
+        settings.loadWithOverviewMode = true
+        settings.useWideViewPort = true
+        settings.layoutAlgorithm = WebSettings.LayoutAlgorithm.NORMAL
+        settings.textZoom = 100
+        settings.defaultTextEncodingName = "UTF-8"
+        settings.allowContentAccess = true
+        settings.allowFileAccess = true
+        settings.databaseEnabled = true
+        settings.loadsImagesAutomatically = true
+        settings.blockNetworkImage = false
+        settings.offscreenPreRaster = true
+        settings.setGeolocationEnabled(false)
+        settings.mediaPlaybackRequiresUserGesture = true
+    }
+
+    companion object {
+        @Volatile
+        private var INSTANCE: WebViewPool? = null
+
+        fun getInstance(context: Context): WebViewPool {
+            return INSTANCE ?: synchronized(this) {
+                INSTANCE ?: WebViewPool(context).also { INSTANCE = it }
+            }
+        }
+
+        private const val SPARE_WAIT_MS = 250L
+
+        internal fun maxIdleForMemoryClass(memoryClassMb: Int): Int = when {
+            memoryClassMb >= 512 -> 3
+            memoryClassMb >= 256 -> 2
+            else -> 1
+        }
     }
 }
@@ -0,0 +1,264 @@
+// Sayfadaki tüm açılır listelerde arama - ComboboxSearchHelper tarafından çağrılır
+(function() {
+    // Büyük/küçük harf ve Türkçe karakter farklarını yok sayan karşılaştırma metni
+    var replacements = {
+        'ğ': 'g', 'Ğ': 'g',
+        'ü': 'u', 'Ü': 'u',
+        'ş': 's', 'Ş': 's',
+        'ı': 'i', 'I': 'i',
+        'i': 'i', 'İ': 'i',
+        'ö': 'o', 'Ö': 'o',
+        'ç': 'c', 'Ç': 'c'
+    };
+    var normalizeText = function(text) {
+        if (!text) return '';
+        var normalizedText = text.toLowerCase();
+        for (var original in replacements) {
+            normalizedText = normalizedText.split(original).join(replacements[original]);
+        }
+        // Kalan aksan işaretlerini kaldır
+        return normalizedText.normalize('NFD').replace(/[\u0300-\u036f]/g, '');
+    };
+
+    var pressEscape = function() {
+        document.dispatchEvent(new KeyboardEvent('keydown', {
+            key: 'Escape',
+            code: 'Escape',
+            keyCode: 27,
+            which: 27,
+            bubbles: true
+        }));
+    };
+
+    // Seçimden sonra açık kalan listeyi kapat: odaktan çıkar, dışarı tıkla, Escape gönder
+    var closeAfterSelect = function(element, delay, extra) {
+        setTimeout(function() {
+            try {
+                if (element) element.blur();
+                document.body.click();
+                pressEscape();
+                if (extra) extra();
+            } catch (e) {
+                console.error('Error closing dropdown:', e);
+            }
+        }, delay);
+    };
+
+    var hasJQuery = function() {
+        return typeof $ !== 'undefined';
+    };
+
+    // Seçenekler içinde arama metnini bulur; exactFirst ise önce tam eşleşme denenir
+    var findOption = function(options, searchText, exactFirst) {
+        for (var j = 0; j < options.length; j++) {
+            var optionText = options[j].text || options[j].innerHTML || '';
+            var normalizedOptionText = normalizeText(optionText);
+            if (exactFirst && normalizedOptionText === searchText) {
+                return { index: j, text: optionText, matchType: 'exact' };
+            }
+            if (normalizedOptionText.indexOf(searchText) >= 0) {
+                return { index: j, text: optionText };
+            }
+        }
+        return null;
+    };
+
+    var selectIndex = function(select, index) {
+        select.selectedIndex = index;
+        select.dispatchEvent(new Event('change', { bubbles: true }));
+    };
+
+    TKFScripts.define('combobox.search', function(searchText) {
+        var result = {
+            found: false,
+            totalComboboxes: 0,
+            searchedComboboxes: 0,
+            matchedComboboxes: 0,
+            details: []
+        };
+
+        var record = function(comboboxName, match) {
+            var detail = { comboboxName: comboboxName, matchedItem: match.text, originalIndex: match.index };
+            if (match.matchType) detail.matchType = match.matchType;
+            result.details.push(detail);
+            result.matchedComboboxes++;
+        };
+
+        try {
+            var selectElements = document.querySelectorAll('select');
+            var bootstrapSelects = document.querySelectorAll('.bootstrap-select .dropdown-toggle');
+            var select2Elements = document.querySelectorAll('.select2-selection');
+            var customDropdowns = document.querySelectorAll('[role="combobox"], [role="listbox"], .dropdown-toggle');
+
+            result.totalComboboxes = selectElements.length + bootstrapSelects.length + select2Elements.length + customDropdowns.length;
+            if (result.totalComboboxes === 0) return result;
+
+            // Standart select elemanları
+            for (var i = 0; i < selectElements.length; i++) {
+                var select = selectElements[i];
+                if (select.disabled || !select.offsetParent) continue;
+                result.searchedComboboxes++;
+
+                var match = findOption(select.options, searchText, true);
+                if (!match) continue;
+                record(select.name || select.id || ('combobox_' + i), match);
+                try {
+                    selectIndex(select, match.index);
+                    if (hasJQuery() && $('.selectpicker').length > 0) {
+                        $(select).selectpicker('refresh');
+                    }
+                    select.scrollIntoView({ behavior: 'smooth', block: 'center' });
+                    closeAfterSelect(select, 200);
+                } catch (e) {
+                    console.error('Error selecting option:', e);
+                }
+            }
+
+            // Bootstrap select
+            for (var b = 0; b < bootstrapSelects.length; b++) {
+                var dropdownToggle = bootstrapSelects[b];
+                var container = dropdownToggle.closest('.bootstrap-select');
+                if (!container || !container.offsetParent) continue;
+                result.searchedComboboxes++;
+
+                // Bootstrap-select'in yönettiği gizli select
+                var selectId = container.getAttribute('data-id') || container.getAttribute('id');
+                var bootstrapSelect = selectId ? document.getElementById(selectId) :
+                    container.querySelector('select') || container.previousElementSibling;
+                if (!bootstrapSelect) continue;
+
+                var bootstrapMatch = findOption(bootstrapSelect.options, searchText, false);
+                if (!bootstrapMatch) continue;
+                record(bootstrapSelect.name || bootstrapSelect.id || ('bootstrap_select_' + b), bootstrapMatch);
+                try {
+                    selectIndex(bootstrapSelect, bootstrapMatch.index);
+                    if (hasJQuery()) {
+                        $(bootstrapSelect).selectpicker('val', bootstrapSelect.options[bootstrapMatch.index].value);
+                        $(bootstrapSelect).selectpicker('refresh');
+                        closeAfterSelect(bootstrapSelect, 300, function() {
+                            $('.dropdown-toggle').dropdown('hide');
+                        });
+                    }
+                    dropdownToggle.scrollIntoView({ behavior: 'smooth', block: 'center' });
+                } catch (e) {
+                    console.error('Error selecting Bootstrap option:', e);
+                }
+            }
+
+            // Select2
+            for (var s = 0; s < select2Elements.length; s++) {
+                var select2Container = select2Elements[s].closest('.select2-container');
+                if (!select2Container || !select2Container.offsetParent) continue;
+                result.searchedComboboxes++;
+
+                // Asıl select farklı yollarla aranır
+                var select2Id = select2Container.getAttribute('data-select2-id');
+                var containerId = select2Container.getAttribute('id') ? select2Container.getAttribute('id').replace('select2-', '') : null;
+                var originalSelect = null;
+                if (select2Id) {
+                    originalSelect = document.querySelector('select[data-select2-id="' + select2Id + '"]');
+                }
+                if (!originalSelect && containerId) {
+                    originalSelect = document.getElementById(containerId);
+                }
+                if (!originalSelect) {
+                    originalSelect = select2Container.previousElementSibling;
+                    if (originalSelect && originalSelect.tagName !== 'SELECT') originalSelect = null;
+                }
+                if (!originalSelect) continue;
+
+                var select2Match = findOption(originalSelect.options, searchText, false);
+                if (!select2Match) continue;
+                record(originalSelect.name || originalSelect.id || ('select2_' + s), select2Match);
+                try {
+                    selectIndex(originalSelect, select2Match.index);
+                    if (hasJQuery()) {
+                        $(originalSelect).trigger('change.select2');
+                        (function(target) {
+                            closeAfterSelect(null, 300, function() {
+                                $(target).select2('close');
+                            });
+                        })(originalSelect);
+                    }
+                    select2Container.scrollIntoView({ behavior: 'smooth', block: 'center' });
+                } catch (e) {
+                    console.error('Error selecting Select2 option:', e);
+                }
+            }
+
+            // Özel açılır listeler
+            for (var c = 0; c < customDropdowns.length; c++) {
+                var dropdown = customDropdowns[c];
+                if (!dropdown.offsetParent) continue;
+                result.searchedComboboxes++;
+
+                var itemsContainer = dropdown.nextElementSibling || dropdown.querySelector('.dropdown-menu');
+                if (dropdown.id) {
+                    var ariaContainer = document.querySelector('[aria-labelledby="' + dropdown.id + '"]');
+                    if (ariaContainer) itemsContainer = ariaContainer;
+                }
+                if (!itemsContainer) continue;
+
+                var items = itemsContainer.querySelectorAll('.dropdown-item, li, [role="option"], option, .dropdown-option');
+                for (var k = 0; k < items.length; k++) {
+                    var itemText = items[k].textContent || '';
+                    if (normalizeText(itemText).indexOf(searchText) < 0) continue;
+
+                    record(dropdown.getAttribute('aria-label') || dropdown.getAttribute('title') ||
+                        dropdown.textContent || ('custom_dropdown_' + c), { index: k, text: itemText });
+                    try {
+                        dropdown.click();
+                        (function(item, owner) {
+                            // Liste açıldıktan sonra öğeye tıkla
+                            setTimeout(function() {
+                                item.click();
+                                owner.scrollIntoView({ behavior: 'smooth', block: 'center' });
+                                closeAfterSelect(null, 300, function() {
+                                    if (hasJQuery()) $('.dropdown-toggle').dropdown('hide');
+                                });
+                            }, 100);
+                        })(items[k], dropdown);
+                    } catch (e) {
+                        console.error('Error selecting custom dropdown item:', e);
+                    }
+                    break;
+                }
+            }
+
+            result.found = result.details.length > 0;
+            return result;
+        } catch (e) {
+            console.error('Error searching comboboxes:', e);
+            result.error = e.toString();
+            return result;
+        }
+    });
+
+    // Seçimden sonra açık listeleri kapatır ve seçili alanları görünür yapar
+    TKFScripts.define('combobox.closeDropdowns', function() {
+        try {
+            pressEscape();
+            document.body.click();
+            var focused = document.querySelector('select:focus');
+            if (focused) focused.blur();
+
+            setTimeout(function() {
+                if (hasJQuery()) {
+                    if ($('.selectpicker').length > 0) $('.selectpicker').selectpicker('refresh');
+                    if ($('.select2').length > 0) $('.select2').select2('close');
+                }
+                var visibleSelects = document.querySelectorAll('select:not([style*="display: none"])');
+                for (var i = 0; i < visibleSelects.length; i++) {
+                    try {
+                        visibleSelects[i].scrollIntoView({ behavior: 'smooth', block: 'center' });
+                    } catch (e) {
+                        console.error('Error enhancing select:', e);
+                    }
+                }
+            }, 300);
+            return 'ENHANCE_COMPLETED';
+        } catch (e) {
+            return 'ENHANCE_ERROR: ' + e.message;
+        }
+    });
+})();
@@ -0,0 +1,69 @@
+// Ekipman listesi - SR No alanından seri numarası araması (MainActivity)
+
+// Seri numarası filtresini doldurup Filtrele düğmesine tıklar
+TKFScripts.define('equipment.searchSerial', function(serialText) {
+    try {
+        var serialInput = document.querySelector('input#filter_serialnumber');
+        if (!serialInput) {
+            return 'Serial number input field not found';
+        }
+        serialInput.value = serialText;
+
+        var searchButton = document.querySelector('i.fa.fa-search[title="Filtrele"]');
+        if (!searchButton) {
+            return 'Search button not found';
+        }
+        searchButton.click();
+        return 'Search executed';
+    } catch (e) {
+        return 'Error: ' + e.message;
+    }
+});
+
+// Arama sonucunda gösterilen değerlerin metinleri; sonuç yoksa boş liste
+TKFScripts.define('equipment.readSearchResults', function() {
+    try {
+        var results = [];
+        var resultElements = document.querySelectorAll('div.col-sm-8 p.form-control-static');
+        for (var i = 0; i < resultElements.length; i++) {
+            var text = resultElements[i].textContent.trim();
+            if (text) {
+                results.push(text);
+            }
+        }
+        return results;
+    } catch (e) {
+        return 'ERROR: ' + e.message;
+    }
+});
+
+// Cihaz ekleme formunda verilen cihazları işaretleyip formu gönderir (DeviceManager)
+// Kimlikler seçiciye eklenmez, checkbox değerleriyle karşılaştırılır; her cihazdan yalnızca ilk checkbox seçilir
+TKFScripts.define('equipment.submitDevices', function(deviceIds) {
+    var form = document.getElementById('AddDeviceForm');
+    if (!form) {
+        return 'form-not-found';
+    }
+    var checkboxes = form.querySelectorAll('input[name="DeviceIds[]"]');
+    for (var i = 0; i < checkboxes.length; i++) {
+        checkboxes[i].checked = false;
+    }
+
+    var inputs = form.querySelectorAll('input');
+    for (var j = 0; j < deviceIds.length; j++) {
+        for (var k = 0; k < inputs.length; k++) {
+            if (inputs[k].value === deviceIds[j]) {
+                inputs[k].checked = true;
+                break;
+            }
+        }
+    }
+
+    var submitButton = form.querySelector('button[type="submit"]');
+    if (submitButton) {
+        submitButton.click();
+    } else {
+        form.submit();
+    }
+    return 'submitted';
+});
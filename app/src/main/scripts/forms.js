@@ -0,0 +1,83 @@
+// Ölçüm formları - pano ve topraklama sayfalarının toplu doldurma işlevleri
+
+// Ad öneki -> değer eşlemesindeki her öneke uyan tüm alanları doldurur
+// Örn. { CycleImpedance: '0.5', Voltage: '230' }
+TKFScripts.define('panel.fillMeasurements', function(valuesByPrefix) {
+    var filled = 0;
+    Object.keys(valuesByPrefix).forEach(function(prefix) {
+        var inputs = document.querySelectorAll('[name^="' + prefix + '"]');
+        inputs.forEach(function(input) {
+            input.value = valuesByPrefix[prefix];
+            input.dispatchEvent(new Event('input', { bubbles: true }));
+            filled++;
+        });
+    });
+    return { status: 'completed', filled: filled };
+});
+
+// Boş TagName ve MeasuredValue alanlarını doldurur; ölçüm değeri [minValue, maxValue] aralığında rastgele üretilir
+TKFScripts.define('grounding.fillRows', function(tagName, minValue, maxValue) {
+    try {
+        var isEmpty = function(value) {
+            // "0" değeri de boş kabul edilir
+            return !value || value === '---' || value === '0';
+        };
+
+        var findValueInput = function(rowIndex) {
+            // Önce bilinen adı, sonra alternatif yazımları dene
+            var names = ['MeasuredValue', 'measuredValue', 'measured_value'];
+            for (var i = 0; i < names.length; i++) {
+                var input = document.querySelector('input[name="' + names[i] + rowIndex + '"]');
+                if (input) return input;
+            }
+            var editable = document.querySelector('[name="MeasuredValue' + rowIndex + '"]');
+            if (editable) return editable;
+
+            // TagName'in yanındaki sütunda olabilir
+            var tagElement = document.querySelector('input[name="TagName' + rowIndex + '"]');
+            if (tagElement && tagElement.parentElement && tagElement.parentElement.nextElementSibling) {
+                return tagElement.parentElement.nextElementSibling.querySelector('input');
+            }
+            return null;
+        };
+
+        var fire = function(input) {
+            input.dispatchEvent(new Event('input', { bubbles: true }));
+            input.dispatchEvent(new Event('change', { bubbles: true }));
+        };
+
+        var filledTagCount = 0;
+        var filledValueCount = 0;
+        var tagInputs = document.querySelectorAll('input[name^="TagName"]');
+
+        for (var i = 0; i < tagInputs.length; i++) {
+            var tagInput = tagInputs[i];
+            var indexMatch = tagInput.name.match(/\d+$/);
+            if (!indexMatch) continue;
+            var rowIndex = indexMatch[0];
+
+            // Satırın doldurulabilir alanları değişiklik yapılmadan önce belirlenir
+            var measureInput = document.querySelector('input[name="MeasuredValue' + rowIndex + '"]');
+            var fillTagName = !tagInput.value || tagInput.value === '---';
+            var fillMeasuredValue = isEmpty(measureInput ? measureInput.value : '');
+
+            if (fillTagName) {
+                tagInput.value = tagName;
+                fire(tagInput);
+                filledTagCount++;
+            }
+
+            var valueInput = findValueInput(rowIndex);
+            if (valueInput && fillMeasuredValue && isEmpty(valueInput.value)) {
+                var randomValue = Math.round((Math.random() * (maxValue - minValue) + minValue) * 100) / 100;
+                valueInput.value = randomValue.toFixed(2);
+                fire(valueInput);
+                filledValueCount++;
+            }
+        }
+
+        return { status: 'success', filledTagCount: filledTagCount, filledValueCount: filledValueCount };
+    } catch (e) {
+        return { error: e.toString() };
+    }
+});
@@ -0,0 +1,20 @@
+// Sayfa betiği paketinin çalışma zamanı - paketin başına eklenir (bkz. BundleScriptsTask)
+// Kotlin tarafı işlevleri ScriptBundle.invocation ile çağırır: TKFScripts.call('ad', [argümanlar])
+// Argümanlar JSON olarak gelir; betik gövdeleri belge başına bir kez derlenir.
+(function() {
+    if (window.TKFScripts) return;
+    var functions = {};
+    window.TKFScripts = {
+        define: function(name, fn) {
+            functions[name] = fn;
+        },
+        has: function(name) {
+            return !!functions[name];
+        },
+        call: function(name, args) {
+            var fn = functions[name];
+            if (!fn) return { error: 'Unknown script: ' + name };
+            return fn.apply(null, args || []);
+        }
+    };
+})();
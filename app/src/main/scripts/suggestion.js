@@ -0,0 +1,132 @@
+// Öneri seçimi - seçilen metni odaktaki (veya anahtarlı) alana yazar
+TKFScripts.define('suggestion.insertText', function(text, inputKey) {
+    try {
+        // Değişkenleri tanımla
+        var activeElement = document.activeElement;
+        var keyElement = inputKey ? document.querySelector('[data-tkf-key="' + inputKey + '"]') : null;
+        var targetElement = null;
+        var debugInfo = [];
+
+        // AŞAMA 1: Hedef elementi belirle
+        if (activeElement && (activeElement.tagName === 'INPUT' || activeElement.tagName === 'TEXTAREA')) {
+            targetElement = activeElement;
+            debugInfo.push('Using active element: ' + activeElement.tagName);
+        } else if (keyElement) {
+            targetElement = keyElement;
+            debugInfo.push('Using element with data-tkf-key: ' + keyElement.tagName);
+            // Etiketlenmiş elementi aktifleştir
+            keyElement.focus();
+            keyElement.select();
+        } else {
+            // Görünür inputları ara
+            debugInfo.push('No active/keyed element, searching for visible inputs');
+            var inputs = document.querySelectorAll('input, textarea');
+            for (var i = 0; i < inputs.length; i++) {
+                var input = inputs[i];
+                if (input.offsetParent !== null && !input.disabled && !input.readOnly &&
+                    (input.type === 'text' || input.type === 'search' ||
+                     input.type === 'email' || input.type === 'number' ||
+                     input.tagName === 'TEXTAREA')) {
+                    targetElement = input;
+                    debugInfo.push('Found visible input: ' + input.tagName);
+                    // Odaklama yap
+                    input.focus();
+                    input.select();
+                    break;
+                }
+            }
+        }
+
+        if (!targetElement) {
+            return { status: 'FAILURE', message: 'No suitable input element found', debug: debugInfo };
+        }
+
+        // AŞAMA 2: Değeri ayarla
+        debugInfo.push('Original value: ' + targetElement.value);
+        targetElement.value = text;
+
+        if (targetElement.value !== text) {
+            debugInfo.push('Direct value setting failed, trying alternatives');
+
+            // YÖNTEM 2: innerHTML yaklaşımı
+            if (targetElement.innerHTML !== undefined) {
+                targetElement.innerHTML = text;
+                debugInfo.push('Set innerHTML');
+            }
+
+            // YÖNTEM 3: execCommand yaklaşımı
+            try {
+                targetElement.focus();
+                targetElement.select();
+                document.execCommand('insertText', false, text);
+                debugInfo.push('Used execCommand');
+            } catch (e) {
+                debugInfo.push('execCommand failed: ' + e.message);
+            }
+
+            // YÖNTEM 4: Değer ayarlamada daha agresif yöntem kullan
+            try {
+                Object.getOwnPropertyDescriptor(HTMLInputElement.prototype, 'value').set.call(targetElement, text);
+                debugInfo.push('Used property descriptor');
+            } catch (e) {
+                debugInfo.push('Property descriptor failed: ' + e.message);
+            }
+
+            // YÖNTEM 5: Temizle ve karakter karakter gir
+            try {
+                targetElement.value = '';
+                var chars = text.split('');
+                for (var j = 0; j < chars.length; j++) {
+                    targetElement.value += chars[j];
+                }
+                debugInfo.push('Used character-by-character input');
+            } catch (e) {
+                debugInfo.push('Character input failed: ' + e.message);
+            }
+        } else {
+            debugInfo.push('Direct value setting successful');
+        }
+
+        // AŞAMA 3: Olayları tetikle - hata olsa bile devam et
+        ['input', 'change'].forEach(function(type) {
+            try {
+                targetElement.dispatchEvent(new Event(type, { bubbles: true }));
+                debugInfo.push('Dispatched ' + type + ' event');
+            } catch (e) {
+                try {
+                    var fallbackEvent = document.createEvent('HTMLEvents');
+                    fallbackEvent.initEvent(type, true, true);
+                    targetElement.dispatchEvent(fallbackEvent);
+                    debugInfo.push('Used fallback ' + type + ' event');
+                } catch (e2) {
+                    debugInfo.push('Fallback ' + type + ' event error: ' + e2.message);
+                }
+            }
+        });
+
+        // Son kez odaklama
+        targetElement.focus();
+
+        if (targetElement.value === text) {
+            return { status: 'SUCCESS', message: 'Value set successfully', value: targetElement.value, element: targetElement.tagName, debug: debugInfo };
+        }
+        return { status: 'PARTIAL_SUCCESS', message: 'Value mismatch', current: targetElement.value, target: text, element: targetElement.tagName, debug: debugInfo };
+    } catch (e) {
+        return { status: 'ERROR', message: e.message, stack: e.stack };
+    }
+});
+
+// Odaktaki giriş alanının öneri anahtarı - yoksa oluşturulup data-tkf-key olarak saklanır; alan yoksa ''
+TKFScripts.define('suggestion.focusedInputKey', function() {
+    var activeElement = document.activeElement;
+    if (!activeElement || (activeElement.tagName !== 'INPUT' && activeElement.tagName !== 'TEXTAREA')) {
+        return '';
+    }
+    var key = activeElement.getAttribute('data-tkf-key');
+    if (!key) {
+        key = (activeElement.name || activeElement.id || activeElement.placeholder || 'input_' + Math.random().toString(36).substr(2, 9));
+        key = key.replace(/[^a-zA-Z0-9_]/g, '_');
+        activeElement.setAttribute('data-tkf-key', key);
+    }
+    return key;
+});
@@ -0,0 +1,49 @@
+package com.asforce.asforcetkf2.suggestion
+
+/**
+ * Map backed store with the same merge semantics as the Room implementation
+ */
+class InMemorySuggestionStore : SuggestionStore {
+    
+    private val data = HashMap<String, LinkedHashMap<String, SuggestionRecord>>()
+    
+    // Depodan okuma sayısı - önbelleğin yeniden yüklenip yüklenmediğini görmek için
+    var loadCount = 0
+        private set
+    
+    fun fill(inputKey: String, records: List<SuggestionRecord>) {
+        val values = data.getOrPut(inputKey) { LinkedHashMap() }
+        records.forEach { values[it.value] = it }
+    }
+    
+    fun records(inputKey: String): List<SuggestionRecord> = data[inputKey]?.values?.toList().orEmpty()
+    
+    override suspend fun getSuggestionRecords(inputKey: String): List<SuggestionRecord> {
+        loadCount++
+        return records(inputKey)
+    }
+    
+    override suspend fun recordUses(uses: List<SuggestionWriteBuffer.PendingUse>) {
+        for (use in uses) {
+            val values = data.getOrPut(use.inputKey) { LinkedHashMap() }
+            val existing = values[use.value]
+            values[use.value] = if (existing == null) {
+                SuggestionRecord(use.value, use.count, use.lastUsed)
+            } else {
+                SuggestionRecord(use.value, existing.useCount + use.count, maxOf(existing.lastUsed, use.lastUsed))
+            }
+        }
+    }
+    
+    override suspend fun deleteSuggestion(inputKey: String, value: String): Boolean {
+        return data[inputKey]?.remove(value) != null
+    }
+    
+    override suspend fun deleteAllForKey(inputKey: String) {
+        data.remove(inputKey)
+    }
+    
+    override suspend fun deleteAll() {
+        data.clear()
+    }
+}
@@ -0,0 +1,95 @@
+package com.asforce.asforcetkf2.suggestion
+
+import kotlinx.coroutines.runBlocking
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Assert.fail
+import org.junit.Test
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.io.IOException
+
+/**
+ * Round-trip and throughput checks for the binary suggestion dictionary format
+ */
+class SuggestionDictionaryFormatTest {
+    
+    @Test
+    fun roundTripKeepsKeysValuesAndStatistics() {
+        val input = mapOf(
+            "equipmentid" to listOf(
+                SuggestionRecord("TKF-123456", 12, 1_700_000_000_000L),
+                SuggestionRecord("Şalt panosu İç", 1, 0L)
+            ),
+            "location" to listOf(
+                SuggestionRecord("Kazan dairesi 🔥", 3, 1_650_000_000_000L)
+            )
+        )
+        
+        val bytes = write(input)
+        val output = LinkedHashMap<String, MutableList<SuggestionRecord>>()
+        val count = runBlocking {
+            SuggestionDictionaryFormat.read(ByteArrayInputStream(bytes), 100) { key, records ->
+                output.getOrPut(key) { mutableListOf() }.addAll(records)
+            }
+        }
+        
+        assertEquals(3, count)
+        assertEquals(input, output)
+    }
+    
+    @Test
+    fun largeBlocksAreDeliveredInBatches() {
+        val records = (0 until 2_500).map { SuggestionRecord("value $it", 1, it.toLong()) }
+        val bytes = write(mapOf("tag" to records))
+        
+        val batchSizes = mutableListOf<Int>()
+        runBlocking {
+            SuggestionDictionaryFormat.read(ByteArrayInputStream(bytes), 1_000) { _, batch -> batchSizes.add(batch.size) }
+        }
+        assertEquals(listOf(1_000, 1_000, 500), batchSizes)
+    }
+    
+    @Test
+    fun truncatedFileIsRejected() {
+        val bytes = write(mapOf("tag" to listOf(SuggestionRecord("value", 1, 1L))))
+        try {
+            runBlocking {
+                SuggestionDictionaryFormat.read(ByteArrayInputStream(bytes.copyOf(bytes.size - 3)), 10) { _, _ -> }
+            }
+            fail("Truncated file should not be accepted")
+        } catch (e: IOException) {
+            // beklenen
+        }
+    }
+    
+    @Test
+    fun fiftyThousandEntriesDecodeQuickly() {
+        // 500 anahtar x 100 değer, gerçekçi etiket/konum uzunlukları
+        val input = (0 until 500).associate { key ->
+            "field_$key" to (0 until 100).map { SuggestionRecord("TKF-LOC-$key-$it Kat ${it % 7}", it + 1, 1_700_000_000_000L + it) }
+        }
+        val bytes = write(input)
+        
+        var best = Long.MAX_VALUE
+        repeat(5) {
+            val start = System.nanoTime()
+            val count = runBlocking {
+                SuggestionDictionaryFormat.read(ByteArrayInputStream(bytes), 2_000) { _, _ -> }
+            }
+            best = minOf(best, System.nanoTime() - start)
+            assertEquals(50_000, count)
+        }
+        
+        println("50k entries: ${bytes.size / 1024} KB, decode ${best / 1_000_000} ms")
+        assertTrue("Decoding 50k entries took ${best / 1_000_000} ms", best < 500_000_000L)
+    }
+    
+    private fun write(blocks: Map<String, List<SuggestionRecord>>): ByteArray {
+        val out = ByteArrayOutputStream()
+        SuggestionDictionaryFormat.Writer(out).use { writer ->
+            blocks.forEach { (key, records) -> writer.writeBlock(key, records) }
+        }
+        return out.toByteArray()
+    }
+}
@@ -0,0 +1,54 @@
+package com.asforce.asforcetkf2.suggestion
+
+import kotlinx.coroutines.runBlocking
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+/**
+ * SuggestionEngine against an in-memory store
+ */
+class SuggestionEngineTest {
+    
+    private val limit = 50
+    
+    @Test
+    fun engineReturnsSavedValues() = runBlocking {
+        val store = InMemorySuggestionStore()
+        val engine = SuggestionEngine(store)
+        
+        engine.recordUse("MeasuredValue1", "Şalt Panosu")
+        engine.recordUse("MeasuredValue2", "Şalt Panosu")
+        engine.recordUse("MeasuredValue3", "Işık Sensörü")
+        assertEquals(2, engine.flush())
+        
+        // Satır anahtarları tek sözlükte birleşir, aynı değerin kullanımları toplanır
+        assertEquals(2, store.records("measuredvalue").first { it.value == "Şalt Panosu" }.useCount)
+        assertEquals(listOf("Işık Sensörü"), engine.query("MeasuredValue7", "IŞI", limit))
+        
+        engine.evictValue("MeasuredValue1", "Işık Sensörü")
+        assertTrue(engine.deleteValue("MeasuredValue1", "Işık Sensörü"))
+        assertEquals(listOf("Şalt Panosu"), engine.query("measuredvalue", "", limit))
+    }
+    
+    @Test
+    fun unflushedSavesAreVisibleOnColdKey() = runBlocking {
+        val store = InMemorySuggestionStore()
+        store.fill("location", listOf(SuggestionRecord("Depo", 5, 1_000L)))
+        val engine = SuggestionEngine(store)
+        
+        // Anahtar önbellekte değil: kayıtlar yalnızca tampona gider
+        engine.recordUse("Location", "Kazan dairesi", 2_000L)
+        engine.recordUse("Location", "Depo", 3_000L)
+        
+        assertEquals(listOf("Kazan dairesi"), engine.query("location", "kazan", limit))
+        
+        // Tampondaki kullanım depodaki sayıya eklenir, yazıldıktan sonra iki kez sayılmaz
+        val index = engine.getIndex("location")
+        engine.flush()
+        assertEquals(6, store.records("location").first { it.value == "Depo" }.useCount)
+        assertEquals(1, store.loadCount)
+        assertSame(index, engine.getIndex("location"))
+    }
+}
@@ -0,0 +1,103 @@
+package com.asforce.asforcetkf2.suggestion
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import kotlin.random.Random
+
+/**
+ * Matching and ordering of SuggestionIndex
+ * Süre ölçümü src/benchmark altındaki SuggestionIndexBenchmark'ta yapılır.
+ */
+class SuggestionIndexTest {
+    
+    private val queries = listOf("", "t", "tk", "tkf", "tkf-4", "pano", "ışık", "ölçüm", "12", "zzz")
+    
+    @Test
+    fun indexMatchesLinearFilter() {
+        val values = generateValues(2_000)
+        val index = SuggestionIndex().apply { addAll(values) }
+        
+        for (query in queries) {
+            val expected = linearFilter(values, query)
+            val actual = index.query(query, Int.MAX_VALUE)
+            
+            // İndeks I/ı katlaması yaptığı için eski filtrenin bulduğu her şeyi bulmalı
+            assertTrue("Missing matches for '$query'", actual.containsAll(expected))
+            // Sıralama artık kullanım puanına göre, ancak ilk sonuç her iki yöntemde aynı eşleşme grubunda olmalı
+            if (expected.isNotEmpty() && query.isNotEmpty()) {
+                assertEquals(
+                    expected.first().startsWith(query, ignoreCase = true),
+                    actual.first().startsWith(query, ignoreCase = true)
+                )
+            }
+        }
+    }
+    
+    @Test
+    fun incrementalUpdatesAreVisible() {
+        val now = 1_000_000_000L
+        val index = SuggestionIndex()
+        listOf("TKF-100", "TKF-200", "Pano 1").forEach { index.add(it, 1, now) }
+        
+        index.add("TKF-150", 1, now)
+        assertEquals(listOf("TKF-100", "TKF-150"), index.query("tkf-1", 10))
+        
+        index.remove("TKF-100")
+        assertEquals(listOf("TKF-150"), index.query("tkf-1", 10))
+        assertEquals(listOf("Pano 1"), index.query("ANO", 10))
+    }
+    
+    @Test
+    fun frequentValuesOutrankOldTypos() {
+        val day = 24L * 60 * 60 * 1000
+        val now = 400 * day
+        val index = SuggestionIndex()
+        index.add("Topraklama Hattı", 200, now - 30 * day)
+        index.add("Topraklma Hattı", 1, now - 365 * day)
+        index.add("Toplam", 3, now - day)
+        
+        // Önek grubu içinde puan sırası, alfabetik değil
+        assertEquals(
+            listOf("Topraklama Hattı", "Toplam", "Topraklma Hattı"),
+            index.query("top", 10)
+        )
+        
+        // Tam eşleşme her zaman önce gelir
+        index.recordUse("Top", now)
+        assertEquals("Top", index.query("top", 10).first())
+    }
+    
+    companion object {
+        /**
+         * The previous SuggestionManager.filterSuggestions implementation, kept as the baseline
+         */
+        fun linearFilter(suggestions: List<String>, filterText: String): List<String> {
+            if (filterText.isEmpty()) {
+                return suggestions.sortedBy { it.lowercase() }
+            }
+            return suggestions
+                .filter { it.contains(filterText, ignoreCase = true) }
+                .sortedWith(compareBy(
+                    { !it.equals(filterText, ignoreCase = true) },
+                    { !it.startsWith(filterText, ignoreCase = true) },
+                    { it.lowercase() }
+                ))
+        }
+        
+        fun generateValues(count: Int): List<String> {
+            val random = Random(42)
+            val words = listOf("Pano", "Işık", "Ölçüm", "Topraklama", "Şalter", "Kablo", "Güç", "Çıkış", "Sigorta", "Röle")
+            val values = LinkedHashSet<String>(count)
+            while (values.size < count) {
+                val value = when (random.nextInt(3)) {
+                    0 -> "TKF-" + random.nextInt(100_000)
+                    1 -> words[random.nextInt(words.size)] + " " + random.nextInt(1_000)
+                    else -> words[random.nextInt(words.size)] + " " + words[random.nextInt(words.size)] + " " + random.nextInt(100)
+                }
+                values.add(value)
+            }
+            return values.toList()
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.asforce.asforcetkf2.suggestion
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotEquals
+import org.junit.Test
+
+/**
+ * Canonical keys produced by the default key rules
+ */
+class SuggestionKeyRulesTest {
+    
+    private val rules = SuggestionKeyRules()
+    
+    @Test
+    fun rowIndexesAreRemoved() {
+        assertEquals("properties.value", rules.canonicalize("properties[4].value"))
+        assertEquals("deviceids", rules.canonicalize("deviceids[12]"))
+        assertEquals("properties_value", rules.canonicalize("properties_4__value"))
+        assertEquals("measuredvalue", rules.canonicalize("measuredvalue12"))
+        assertEquals("tagname", rules.canonicalize("tagname3"))
+        assertEquals("measuredlocation", rules.canonicalize("measuredlocation0"))
+    }
+    
+    @Test
+    fun numberedFieldsThatDifferStaySeparate() {
+        assertEquals("adres1", rules.canonicalize("adres1"))
+        assertNotEquals(rules.canonicalize("adres1"), rules.canonicalize("adres2"))
+        assertEquals("telefon_2", rules.canonicalize("telefon_2"))
+        assertEquals("mytagname3", rules.canonicalize("mytagname3"))
+        // Sadece rakamdan oluşan anahtar korunur
+        assertEquals("12", rules.canonicalize("12"))
+    }
+    
+    @Test
+    fun aliasesApplyBeforeAndAfterPatterns() {
+        val aliased = SuggestionKeyRules(aliases = mapOf("seri_no" to "serialnumber", "tagname" to "etiket"))
+        assertEquals("serialnumber", aliased.canonicalize("seri_no"))
+        assertEquals("etiket", aliased.canonicalize("tagname7"))
+        assertNotEquals(SuggestionKeyRules().signature, aliased.signature)
+    }
+}
@@ -0,0 +1,70 @@
+package com.asforce.asforcetkf2.util
+
+import com.asforce.asforcetkf2.util.TabHibernationScheduler.Pressure
+import com.asforce.asforcetkf2.util.TabHibernationScheduler.TabState
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class TabHibernationSchedulerTest {
+
+    private val minute = 60_000L
+    private val now = 100 * minute
+
+    private fun tab(id: String, idleMinutes: Long, active: Boolean = false, hibernated: Boolean = false, live: Boolean = true) =
+        TabState(id, now - idleMinutes * minute, active, hibernated, live)
+
+    @Test
+    fun discardsLeastRecentlyUsedBeyondBudget() {
+        val tabs = listOf(
+            tab("active", 0, active = true),
+            tab("a", 1),
+            tab("b", 2),
+            tab("c", 3),
+            tab("d", 4)
+        )
+
+        val plan = TabHibernationScheduler.plan(tabs, liveBudget = 3, idleHibernateMs = 10 * minute, now = now)
+
+        assertEquals(listOf("c", "d"), plan.discard)
+        assertTrue(plan.hibernate.isEmpty())
+    }
+
+    @Test
+    fun hibernatesIdleTabsWithinBudget() {
+        val tabs = listOf(
+            tab("active", 0, active = true),
+            tab("fresh", 1),
+            tab("idle", 15),
+            tab("asleep", 20, hibernated = true),
+            tab("gone", 30, live = false)
+        )
+
+        val plan = TabHibernationScheduler.plan(tabs, liveBudget = 4, idleHibernateMs = 10 * minute, now = now)
+
+        assertEquals(listOf("idle"), plan.hibernate)
+        assertTrue(plan.discard.isEmpty())
+    }
+
+    @Test
+    fun memoryPressureTightensBudget() {
+        val tabs = listOf(
+            tab("active", 0, active = true),
+            tab("a", 1),
+            tab("b", 2),
+            tab("c", 3)
+        )
+
+        val moderate = TabHibernationScheduler.plan(tabs, 4, 10 * minute, now, Pressure.MODERATE)
+        assertEquals(listOf("a", "b", "c"), moderate.hibernate)
+        assertTrue(moderate.discard.isEmpty())
+
+        val low = TabHibernationScheduler.plan(tabs, 4, 10 * minute, now, Pressure.LOW)
+        assertEquals(listOf("a"), low.hibernate)
+        assertEquals(listOf("b", "c"), low.discard)
+
+        val critical = TabHibernationScheduler.plan(tabs, 4, 10 * minute, now, Pressure.CRITICAL)
+        assertTrue(critical.hibernate.isEmpty())
+        assertEquals(listOf("a", "b", "c"), critical.discard)
+    }
+}
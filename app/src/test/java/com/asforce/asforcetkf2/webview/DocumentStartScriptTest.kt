@@ -0,0 +1,41 @@
+package com.asforce.asforcetkf2.webview
+
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class DocumentStartScriptTest {
+
+    @Test
+    fun wildcardRuleMatchesSubdomainsOnly() {
+        val rule = "https://*.szutest.com.tr"
+
+        assertTrue(DocumentStartScript.matchesOrigin(rule, "https://app.szutest.com.tr/EXT/PKControl/EquipmentList"))
+        assertTrue(DocumentStartScript.matchesOrigin(rule, "https://a.b.szutest.com.tr/"))
+        assertFalse(DocumentStartScript.matchesOrigin(rule, "https://szutest.com.tr/"))
+        assertFalse(DocumentStartScript.matchesOrigin(rule, "https://evilszutest.com.tr/"))
+        assertFalse(DocumentStartScript.matchesOrigin(rule, "http://app.szutest.com.tr/"))
+    }
+
+    @Test
+    fun exactRuleComparesSchemeHostAndPort() {
+        val rule = "https://szutest.com.tr"
+
+        assertTrue(DocumentStartScript.matchesOrigin(rule, "https://szutest.com.tr/login"))
+        assertTrue(DocumentStartScript.matchesOrigin(rule, "https://SZUTEST.com.tr:443/"))
+        assertFalse(DocumentStartScript.matchesOrigin(rule, "https://szutest.com.tr:8443/"))
+        assertFalse(DocumentStartScript.matchesOrigin(rule, "about:blank"))
+        assertFalse(DocumentStartScript.matchesOrigin(rule, null))
+        assertTrue(DocumentStartScript.matchesOrigin("*", "about:blank"))
+    }
+
+    @Test
+    fun wrappedSourceIsGuardedByIdAndVersion() {
+        val script = DocumentStartScript("form-manager", 3, "window.x = 1;")
+
+        val wrapped = script.wrappedSource
+        assertTrue(wrapped.contains("if (registry['form-manager'] >= 3) return;"))
+        assertTrue(wrapped.contains("registry['form-manager'] = 3;"))
+        assertTrue(wrapped.indexOf("window.x = 1;") > wrapped.indexOf("registry['form-manager'] = 3;"))
+    }
+}
@@ -0,0 +1,171 @@
+package com.asforce.asforcetkf2.webview
+
+import org.json.JSONArray
+import org.json.JSONObject
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Assert.fail
+import org.junit.Test
+
+/**
+ * Reader against results encoded the way WebView returns them
+ * [webViewQuote], evaluateJavascript'in dize sonucu kodlamasını taklit eder ('<' dahil \u kaçışları).
+ */
+class JsResultReaderTest {
+
+    @Test
+    fun readsDoubleEncodedJsonInOnePass() {
+        val inner = """[{"id":"12","name":"Pano \"A\" <1>\\2","extra":{"x":[1,2]}},{"id":"13","name":"Işık\nHattı"}]"""
+        val reader = JsResultReader(webViewQuote(inner))
+
+        val devices = ArrayList<Pair<String, String>>()
+        reader.beginArray()
+        while (reader.hasNext()) {
+            var id = ""
+            var name = ""
+            reader.beginObject()
+            while (reader.hasNext()) {
+                when (reader.nextName()) {
+                    "id" -> id = reader.nextString()
+                    "name" -> name = reader.nextString()
+                    else -> reader.skipValue()
+                }
+            }
+            reader.endObject()
+            devices.add(id to name)
+        }
+        reader.endArray()
+
+        assertEquals(listOf("12" to "Pano \"A\" <1>\\2", "13" to "Işık\nHattı"), devices)
+        assertEquals(JsResultReader.Token.END_DOCUMENT, reader.peek())
+    }
+
+    @Test
+    fun readsFlatObjectsAndDirectValues() {
+        val quoted = webViewQuote("""{"status":"success","filledTagCount":3,"ratio":0.5,"done":true,"skip":[{}],"none":null}""")
+        assertEquals(
+            mapOf("status" to "success", "filledTagCount" to 3L, "ratio" to 0.5, "done" to true, "skip" to null, "none" to null),
+            ScriptResultDecoder.decode(quoted) { ScriptResultDecoder.readFlatObject(it) }
+        )
+
+        // Betik nesne döndürdüyse sonuç tırnaksız gelir
+        assertEquals(
+            mapOf("yokFound" to false, "tpStatusCount" to 7L),
+            ScriptResultDecoder.decode("""{"yokFound":false,"tpStatusCount":7}""") { ScriptResultDecoder.readFlatObject(it) }
+        )
+    }
+
+    @Test
+    fun plainStringResultsAreText() {
+        val reader = JsResultReader(webViewQuote("ERROR: x is \"undefined\""))
+        assertEquals(JsResultReader.Token.TEXT, reader.peek())
+        assertEquals("ERROR: x is \"undefined\"", reader.nextText())
+        assertEquals(JsResultReader.Token.END_DOCUMENT, reader.peek())
+
+        assertEquals(emptyList<String>(), ScriptResultDecoder.decode(webViewQuote("NO_RESULTS")) { ScriptResultDecoder.readStringList(it) })
+        assertEquals(listOf("4711", "4712"), ScriptResultDecoder.decode(webViewQuote("""["4711","4712"]""")) { ScriptResultDecoder.readStringList(it) })
+
+        assertEquals("[1,\"a\"]", ScriptResultDecoder.decodeString(webViewQuote("[1,\"a\"]")))
+        assertEquals("", ScriptResultDecoder.decodeString("\"\""))
+        assertNull(ScriptResultDecoder.decodeString("null"))
+        assertNull(ScriptResultDecoder.decodeString(null))
+    }
+
+    @Test
+    fun malformedResultsFail() {
+        listOf("""[{"id":"1"""", """{"a" 1}""", """[1 2]""", """{"a":1}x""").forEach { inner ->
+            try {
+                ScriptResultDecoder.decode(webViewQuote(inner)) { reader -> reader.skipValue(); reader.peek() }
+                fail("Expected failure for $inner")
+            } catch (e: IllegalStateException) {
+                // beklenen
+            }
+        }
+    }
+
+    @Test
+    fun readerMatchesPreviousDecoding() {
+        for (size in listOf(10, 500, 2_000)) {
+            val result = deviceListResult(size)
+            assertEquals(previousDecode(result), readerDecode(result))
+        }
+    }
+
+    companion object {
+        data class Device(val id: String, val name: String)
+
+        /**
+         * Previous DeviceManager.fetchDeviceList decoding, kept as the baseline
+         */
+        fun previousDecode(result: String): List<Device> {
+            val cleaned = result
+                .replace("^\"|\"$".toRegex(), "")
+                .replace("\\\"", "\"")
+                .replace("\\n", "")
+                .trim()
+            val devices = JSONArray(cleaned)
+            val list = ArrayList<Device>(devices.length())
+            val ids = HashSet<String>()
+            for (i in 0 until devices.length()) {
+                val obj = devices.getJSONObject(i)
+                val id = obj.getString("id")
+                if (ids.add(id)) list.add(Device(id, obj.getString("name")))
+            }
+            return list
+        }
+
+        fun readerDecode(result: String): List<Device> = ScriptResultDecoder.decode(result) { reader ->
+            val list = ArrayList<Device>()
+            val ids = HashSet<String>()
+            reader.beginArray()
+            while (reader.hasNext()) {
+                var id = ""
+                var name = ""
+                reader.beginObject()
+                while (reader.hasNext()) {
+                    when (reader.nextName()) {
+                        "id" -> id = reader.nextString()
+                        "name" -> name = reader.nextString()
+                        else -> reader.skipValue()
+                    }
+                }
+                reader.endObject()
+                if (ids.add(id)) list.add(Device(id, name))
+            }
+            reader.endArray()
+            list
+        }
+
+        /**
+         * Device list as evaluateJavascript returns JSON.stringify output
+         */
+        fun deviceListResult(size: Int): String {
+            val inner = JSONArray()
+            for (i in 0 until size) {
+                // Son kayıt ilk kaydın kimliğini tekrarlar - çift kayıt filtresi de denenir
+                val id = 10_000 + i % (size - 1).coerceAtLeast(1)
+                inner.put(JSONObject().put("id", id.toString()).put("name", "Topraklama Ölçer TK-$i (Seri ${i * 7})"))
+            }
+            return webViewQuote(inner.toString())
+        }
+
+        /**
+         * JS string literal as evaluateJavascript returns it
+         */
+        fun webViewQuote(value: String): String {
+            val builder = StringBuilder(value.length + 16).append('"')
+            for (c in value) {
+                when {
+                    c == '"' -> builder.append("\\\"")
+                    c == '\\' -> builder.append("\\\\")
+                    c == '\n' -> builder.append("\\n")
+                    c == '\r' -> builder.append("\\r")
+                    c == '\t' -> builder.append("\\t")
+                    c == '<' || c < ' ' -> builder.append(String.format("\\u%04X", c.code))
+                    else -> builder.append(c)
+                }
+            }
+            return builder.append('"').toString()
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.asforce.asforcetkf2.webview
+
+import kotlinx.coroutines.async
+import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.supervisorScope
+import kotlinx.coroutines.yield
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Assert.fail
+import org.junit.Test
+
+/**
+ * Page channel core against a scripted page
+ * Gönderilen çerçeveler listede toplanır, flush elle tetiklenir; böylece gruplama ve onay sırası
+ * deterministik olarak doğrulanır.
+ */
+class PageChannelCoreTest {
+
+    private val frames = mutableListOf<List<PageMessage>>()
+    private var scheduled: (() -> Unit)? = null
+
+    private fun core(maxBatch: Int = 64, maxInFlight: Int = 16) = PageChannelCore(
+        sendFrame = { frames.add(it) },
+        scheduleFlush = { scheduled = it },
+        maxBatch = maxBatch,
+        maxInFlightRequests = maxInFlight
+    )
+
+    private fun runScheduled() {
+        val flush = scheduled
+        scheduled = null
+        flush?.invoke()
+    }
+
+    @Test
+    fun eventsAreBatchedIntoFramesOfMaxBatch() {
+        val channel = core(maxBatch = 4)
+        repeat(10) { channel.emit("tick", it) }
+        runScheduled()
+
+        assertEquals(listOf(4, 4, 2), frames.map { it.size })
+        assertEquals(3L, channel.framesSent)
+    }
+
+    @Test
+    fun incomingFrameIsAckedOnceAndAnsweredInTheSameFrame() {
+        val channel = core()
+        val events = mutableListOf<String>()
+        channel.onEvent = { name, _ -> events.add(name) }
+        channel.handle("sum") { payload -> (payload as List<*>).sumOf { it as Int } }
+
+        channel.onFrame(
+            listOf(
+                PageMessage(PageMessage.Type.EVENT, name = "focus"),
+                PageMessage(PageMessage.Type.REQUEST, id = 7, name = "sum", payload = listOf(1, 2, 3)),
+                PageMessage(PageMessage.Type.REQUEST, id = 8, name = "missing")
+            )
+        )
+        runScheduled()
+
+        assertEquals(listOf("focus"), events)
+        assertEquals(1, frames.size)
+        val frame = frames.single()
+        assertEquals(PageMessage.Type.ACK, frame[0].type)
+        assertEquals(PageMessage(PageMessage.Type.RESPONSE, id = 7, payload = 6), frame[1])
+        assertEquals(8, frame[2].id)
+        assertTrue(frame[2].error!!.contains("missing"))
+    }
+
+    @Test
+    fun callResolvesFromResponseAndLimitsRequestsInFlight() = runBlocking<Unit> {
+        supervisorScope {
+            val channel = core(maxInFlight = 1)
+            val first = async { channel.call("a") }
+            val second = async { channel.call("b") }
+            yield()
+            runScheduled()
+
+            // İkinci istek ilkinin yanıtını bekler
+            assertEquals(listOf("a"), frames.flatten().map { it.name })
+
+            channel.onFrame(listOf(PageMessage(PageMessage.Type.RESPONSE, id = 1, payload = "ok")))
+            assertEquals("ok", first.await())
+            yield()
+            runScheduled()
+            assertEquals(listOf("a", "b"), frames.flatten().filter { it.type == PageMessage.Type.REQUEST }.map { it.name })
+
+            channel.onFrame(listOf(PageMessage(PageMessage.Type.RESPONSE, id = 2, error = "boom")))
+            try {
+                second.await()
+                fail("Error response should fail the call")
+            } catch (e: PageChannelException) {
+                assertEquals("boom", e.message)
+            }
+        }
+    }
+
+    @Test
+    fun closeFailsPendingCallsAndDropsQueuedMessages() = runBlocking<Unit> {
+        supervisorScope {
+            val channel = core()
+            val call = async { channel.call("slow") }
+            yield()
+            channel.emit("late")
+            channel.close("Document replaced")
+            runScheduled()
+
+            try {
+                call.await()
+                fail("Pending call should fail on close")
+            } catch (e: PageChannelException) {
+                assertEquals("Document replaced", e.message)
+            }
+            assertTrue(frames.isEmpty())
+            assertFalse(channel.isOpen)
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.asforce.asforcetkf2.webview
+
+import org.json.JSONArray
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+/**
+ * Invocation expressions sent to the page script bundle
+ */
+class ScriptBundleTest {
+
+    @Test
+    fun encodesArgumentsAsJson() {
+        assertEquals(
+            "window.TKFScripts?TKFScripts.call(\"grounding.fillRows\",[\"TK-1\",0.5,2,true,null]):\"tkf:bundle-missing\"",
+            ScriptBundle.invocation("grounding.fillRows", listOf("TK-1", 0.5f, 2, true, null))
+        )
+        assertEquals(
+            "window.TKFScripts?TKFScripts.call(\"panel.fillMeasurements\",[{\"Voltage\":\"230\",\"Findings\":[\"a\",\"b\"]}]):\"tkf:bundle-missing\"",
+            ScriptBundle.invocation("panel.fillMeasurements", listOf(linkedMapOf("Voltage" to "230", "Findings" to arrayOf("a", "b"))))
+        )
+    }
+
+    @Test
+    fun userTextCannotBreakOutOfTheArgument() {
+        val values = listOf(
+            "Pano 'A' \"B\"",
+            "');alert(1);('",
+            "satır\nsonu\t\\",
+            "ayraç\u2028\u2029\u0001",
+            "Işık Ölçer ğüşçö"
+        )
+        for (value in values) {
+            val builder = StringBuilder()
+            ScriptBundle.encode(listOf(value), builder)
+            val encoded = builder.toString()
+
+            // JSON olarak geri okunabilir ve değer aynen korunur
+            assertEquals(value, JSONArray(encoded).getString(0))
+            // Ham satır sonu karakteri betik metnine girmez
+            assertFalse(encoded.any { it == '\n' || it == '\r' || it == '\u2028' || it == '\u2029' || it < ' ' })
+        }
+    }
+
+    @Test
+    fun nonFiniteNumbersBecomeNull() {
+        val builder = StringBuilder()
+        ScriptBundle.encode(listOf(Double.NaN, Float.POSITIVE_INFINITY, 1.25), builder)
+        assertEquals("[null,null,1.25]", builder.toString())
+    }
+
+    @Test
+    fun recognizesMissingBundleResult() {
+        assertTrue(ScriptBundle.isMissing("\"tkf:bundle-missing\""))
+        assertFalse(ScriptBundle.isMissing("{\"status\":\"completed\"}"))
+        assertFalse(ScriptBundle.isMissing(null))
+    }
+}
@@ -0,0 +1,162 @@
+package com.asforce.asforcetkf2.webview
+
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.async
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.supervisorScope
+import kotlinx.coroutines.yield
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Assert.fail
+import org.junit.Test
+import kotlin.coroutines.ContinuationInterceptor
+import kotlin.coroutines.coroutineContext
+
+/**
+ * Executor against a scripted page
+ * Sahte sayfa betikleri kaydeder ve yanıtı test kendisi verir; yanıt verilmeyen betik askıda kalan
+ * sayfayı taklit eder.
+ */
+class ScriptExecutorTest {
+
+    private val evaluated = mutableListOf<String>()
+    private val callbacks = mutableListOf<(String?) -> Unit>()
+    private val stats = ScriptLatencyStats()
+
+    private suspend fun executor() = ScriptExecutor(
+        evaluate = { script, callback ->
+            evaluated.add(script)
+            callbacks.add(callback)
+        },
+        dispatcher = coroutineContext[ContinuationInterceptor] as CoroutineDispatcher,
+        stats = stats
+    )
+
+    private suspend fun settle() = repeat(5) { yield() }
+
+    @Test
+    fun scriptsRunOneAtATimeInOrder() = runBlocking<Unit> {
+        val scripts = executor()
+        val first = async { scripts.eval("a()", name = "a") }
+        val second = async { scripts.eval("b()", name = "b") }
+        settle()
+
+        // İkinci betik ilkinin yanıtını bekler
+        assertEquals(listOf("a()"), evaluated)
+        callbacks[0]("1")
+        settle()
+        assertEquals(listOf("a()", "b()"), evaluated)
+        callbacks[1]("2")
+
+        assertEquals("1", first.await())
+        assertEquals("2", second.await())
+        assertEquals(1L, stats.histogram("a")!!.count)
+        assertEquals(1L, stats.histogram("b")!!.count)
+    }
+
+    @Test
+    fun identicalScriptsInFlightAreCoalesced() = runBlocking<Unit> {
+        val scripts = executor()
+        val calls = (1..3).map { async { scripts.eval("same()") } }
+        settle()
+
+        assertEquals(1, evaluated.size)
+        callbacks[0]("\"ok\"")
+        calls.forEach { assertEquals("\"ok\"", it.await()) }
+        assertEquals(2L, scripts.coalescedCount)
+    }
+
+    @Test
+    fun hungPageTimesOutWithoutBlockingTheQueue() = runBlocking<Unit> {
+        supervisorScope {
+            val scripts = executor()
+            val hung = async { scripts.eval("hang()", name = "hang", timeoutMs = 50) }
+            val next = async { scripts.eval("next()", name = "next", timeoutMs = 1_000) }
+
+            try {
+                hung.await()
+                fail("Unanswered script should time out")
+            } catch (e: ScriptTimeoutException) {
+                assertEquals("hang", e.name)
+            }
+            // Kuyruk, askıdaki betiğin kendi zaman aşımıyla serbest kalır
+            delay(100)
+            assertEquals(listOf("hang()", "next()"), evaluated)
+
+            // Askıdaki betiğin geç yanıtı yok sayılır
+            callbacks[0]("late")
+            callbacks[1]("fine")
+            assertEquals("fine", next.await())
+            assertEquals(1L, stats.timeoutCount("hang"))
+        }
+    }
+
+    @Test
+    fun scriptWhoseCallerTimedOutIsNeverEvaluated() = runBlocking<Unit> {
+        supervisorScope {
+            val scripts = executor()
+            val slow = async { scripts.eval("slow()", name = "slow", timeoutMs = 1_000) }
+            val fill = async { scripts.eval("fill()", name = "fill", timeoutMs = 50) }
+
+            try {
+                fill.await()
+                fail("Queued script should time out for its caller")
+            } catch (e: ScriptTimeoutException) {
+                assertEquals("fill", e.name)
+            }
+            // Önceki betik bittiğinde vazgeçilen betik sayfaya gönderilmez
+            callbacks[0]("done")
+            assertEquals("done", slow.await())
+            settle()
+            assertEquals(listOf("slow()"), evaluated)
+            assertEquals(1L, stats.timeoutCount("fill"))
+        }
+    }
+
+    @Test
+    fun queuedScriptRunsWhileAnotherCallerStillWaits() = runBlocking<Unit> {
+        supervisorScope {
+            val scripts = executor()
+            val slow = async { scripts.eval("slow()", timeoutMs = 1_000) }
+            val impatient = async { scripts.eval("fill()", name = "fill", timeoutMs = 50) }
+            val patient = async { scripts.eval("fill()", name = "fill", timeoutMs = 1_000) }
+
+            try {
+                impatient.await()
+                fail("Impatient caller should time out")
+            } catch (e: ScriptTimeoutException) {
+                // beklenen
+            }
+            callbacks[0]("done")
+            settle()
+            assertEquals(listOf("slow()", "fill()"), evaluated)
+            callbacks[1]("filled")
+            assertEquals("filled", patient.await())
+            assertEquals("done", slow.await())
+        }
+    }
+
+    @Test
+    fun closeCancelsQueuedAndRunningScripts() = runBlocking<Unit> {
+        supervisorScope {
+            val scripts = executor()
+            val running = async { scripts.eval("a()") }
+            val queued = async { scripts.eval("b()") }
+            settle()
+            scripts.close()
+
+            listOf(running, queued).forEach { call ->
+                try {
+                    call.await()
+                    fail("Closed executor should cancel its scripts")
+                } catch (e: CancellationException) {
+                    // beklenen
+                }
+            }
+            assertEquals(listOf("a()"), evaluated)
+            assertTrue(scripts.isClosed)
+        }
+    }
+}
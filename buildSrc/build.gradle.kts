@@ -0,0 +1,12 @@
+// Derleme zamanı yardımcıları - sayfa betiği paketi (bkz. BundleScriptsTask)
+plugins {
+    `kotlin-dsl`
+}
+
+repositories {
+    mavenCentral()
+}
+
+dependencies {
+    testImplementation("junit:junit:4.13.2")
+}
@@ -0,0 +1,78 @@
+package com.asforce.asforcetkf2.build
+
+import org.gradle.api.DefaultTask
+import org.gradle.api.file.DirectoryProperty
+import org.gradle.api.provider.Property
+import org.gradle.api.tasks.CacheableTask
+import org.gradle.api.tasks.Input
+import org.gradle.api.tasks.InputDirectory
+import org.gradle.api.tasks.OutputDirectory
+import org.gradle.api.tasks.PathSensitive
+import org.gradle.api.tasks.PathSensitivity
+import org.gradle.api.tasks.TaskAction
+
+/**
+ * Builds the page script bundle asset from src/main/scripts
+ * [preludeFile] (çalışma zamanı) başa, diğer .js dosyaları ad sırasıyla arkasına eklenir; her dosya
+ * [JsMinifier] ile küçültülür. Çıktı üretilen asset dizinine [bundlePath] adıyla yazılır ve
+ * uygulamada ScriptBundle tarafından sayfa başına bir kez yüklenir.
+ */
+@CacheableTask
+abstract class BundleScriptsTask : DefaultTask() {
+
+    @get:InputDirectory
+    @get:PathSensitive(PathSensitivity.RELATIVE)
+    abstract val sourceDir: DirectoryProperty
+
+    @get:Input
+    abstract val preludeFile: Property<String>
+
+    @get:Input
+    abstract val bundlePath: Property<String>
+
+    @get:Input
+    abstract val minify: Property<Boolean>
+
+    @get:OutputDirectory
+    abstract val outputDir: DirectoryProperty
+
+    init {
+        preludeFile.convention("runtime.js")
+        bundlePath.convention("scripts/tkf-bundle.js")
+        minify.convention(true)
+    }
+
+    @TaskAction
+    fun bundle() {
+        val prelude = preludeFile.get()
+        val sources = sourceDir.get().asFile
+            .listFiles { file -> file.isFile && file.name.endsWith(".js") }
+            .orEmpty()
+            .sortedWith(compareBy({ it.name != prelude }, { it.name }))
+        if (sources.none { it.name == prelude }) {
+            throw IllegalStateException("Script bundle prelude $prelude not found in ${sourceDir.get().asFile}")
+        }
+
+        val bundle = StringBuilder()
+        for (file in sources) {
+            val text = file.readText(Charsets.UTF_8)
+            val body = if (minify.get()) {
+                try {
+                    JsMinifier.minify(text)
+                } catch (e: IllegalArgumentException) {
+                    throw IllegalStateException("${file.name}: ${e.message}", e)
+                }
+            } else {
+                text
+            }
+            // Dosyalar kendi içinde tamdır; ayraç olarak satır sonu bırakılır
+            bundle.append(body.trim()).append('\n')
+        }
+
+        val target = outputDir.get().asFile.resolve(bundlePath.get())
+        outputDir.get().asFile.deleteRecursively()
+        target.parentFile.mkdirs()
+        target.writeText(bundle.toString(), Charsets.UTF_8)
+        logger.info("Script bundle: ${sources.size} files, ${bundle.length} chars -> $target")
+    }
+}
@@ -0,0 +1,144 @@
+package com.asforce.asforcetkf2.build
+
+/**
+ * Conservative JavaScript minifier for the page script bundle
+ * Yorumları siler ve boşlukları daraltır; dize, şablon ve regex değişmezlerine dokunmaz.
+ * Satır sonları yalnızca otomatik noktalı virgül eklemeyi (ASI) etkilemeyeceği kesin olduğunda
+ * kaldırılır, bu yüzden noktalı virgülsüz yazılmış kod da bozulmaz. İsimler kısaltılmaz.
+ */
+object JsMinifier {
+
+    // Bu karakterlerden sonra gelen '/' bir regex değişmezi başlatır
+    private const val REGEX_PRECEDERS = "(,=:[!&|?{};+-*%<>~^"
+
+    private val REGEX_KEYWORDS = setOf(
+        "return", "typeof", "case", "do", "else", "in", "of", "new", "delete", "void", "throw", "instanceof", "yield", "await"
+    )
+
+    // Satır sonu bu karakterlerden sonra veya önce gelirse ASI oluşmaz
+    private const val NO_ASI_AFTER = "{([,;:=?&|*%<>!~^"
+    private const val NO_ASI_BEFORE = ")]},;.?:=&|*%<>^"
+
+    fun minify(source: String): String {
+        val out = StringBuilder(source.length)
+        // Bekleyen boşluk: 0 = yok, 1 = boşluk, 2 = satır sonu
+        var pendingSpace = 0
+        var i = 0
+
+        fun lastChar(): Char? = if (out.isEmpty()) null else out[out.length - 1]
+
+        fun lastWord(): String {
+            var start = out.length
+            while (start > 0 && isWordChar(out[start - 1])) start--
+            return out.substring(start)
+        }
+
+        fun flushSpace(next: Char) {
+            val prev = lastChar()
+            if (pendingSpace != 0 && prev != null) {
+                val keepNewline = pendingSpace == 2 && prev !in NO_ASI_AFTER && next !in NO_ASI_BEFORE
+                when {
+                    keepNewline -> out.append('\n')
+                    needsSpace(prev, next) -> out.append(' ')
+                }
+            }
+            pendingSpace = 0
+        }
+
+        while (i < source.length) {
+            val c = source[i]
+            when {
+                c == '\n' || c == '\r' -> {
+                    pendingSpace = 2
+                    i++
+                }
+                c.isWhitespace() -> {
+                    if (pendingSpace == 0) pendingSpace = 1
+                    i++
+                }
+                c == '/' && i + 1 < source.length && source[i + 1] == '/' -> {
+                    while (i < source.length && source[i] != '\n' && source[i] != '\r') i++
+                }
+                c == '/' && i + 1 < source.length && source[i + 1] == '*' -> {
+                    val close = source.indexOf("*/", i + 2)
+                    if (close < 0) throw IllegalArgumentException("Unterminated comment at offset $i")
+                    val comment = source.substring(i, close + 2)
+                    pendingSpace = maxOf(pendingSpace, if (comment.contains('\n')) 2 else 1)
+                    i = close + 2
+                }
+                c == '\'' || c == '"' || c == '`' -> {
+                    flushSpace(c)
+                    i = copyQuoted(source, i, out)
+                }
+                c == '/' && startsRegex(lastChar(), lastWord()) -> {
+                    flushSpace(c)
+                    i = copyRegex(source, i, out)
+                }
+                else -> {
+                    flushSpace(c)
+                    out.append(c)
+                    i++
+                }
+            }
+        }
+        return out.toString()
+    }
+
+    private fun isWordChar(c: Char): Boolean = c.isLetterOrDigit() || c == '_' || c == '$' || c.code > 127
+
+    private fun needsSpace(prev: Char, next: Char): Boolean =
+        (isWordChar(prev) && isWordChar(next)) ||
+            // a + +b, a - -b
+            (prev == next && (prev == '+' || prev == '-')) ||
+            // 1 .toString()
+            (prev.isDigit() && next == '.')
+
+    private fun startsRegex(prev: Char?, word: String): Boolean =
+        prev == null || prev in REGEX_PRECEDERS || (word.isNotEmpty() && word in REGEX_KEYWORDS)
+
+    private fun copyQuoted(source: String, start: Int, out: StringBuilder): Int {
+        val quote = source[start]
+        var i = start + 1
+        out.append(quote)
+        while (i < source.length) {
+            val c = source[i]
+            out.append(c)
+            i++
+            when {
+                c == '\\' && i < source.length -> {
+                    out.append(source[i])
+                    i++
+                }
+                c == quote -> return i
+                c == '\n' && quote != '`' -> throw IllegalArgumentException("Unterminated string at offset $start")
+            }
+        }
+        throw IllegalArgumentException("Unterminated string at offset $start")
+    }
+
+    private fun copyRegex(source: String, start: Int, out: StringBuilder): Int {
+        var i = start + 1
+        var inClass = false
+        out.append('/')
+        while (i < source.length) {
+            val c = source[i]
+            out.append(c)
+            i++
+            when {
+                c == '\\' && i < source.length -> {
+                    out.append(source[i])
+                    i++
+                }
+                c == '[' -> inClass = true
+                c == ']' -> inClass = false
+                c == '/' && !inClass -> {
+                    // Bayraklar (g, i, m ...)
+                    while (i < source.length && source[i].isLetter()) out.append(source[i++])
+                    return i
+                }
+                c == '\n' -> throw IllegalArgumentException("Unterminated regex at offset $start")
+            }
+        }
+        throw IllegalArgumentException("Unterminated regex at offset $start")
+    }
+}
@@ -0,0 +1,58 @@
+package com.asforce.asforcetkf2.build
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class JsMinifierTest {
+
+    @Test
+    fun stripsCommentsAndCollapsesWhitespace() {
+        val source = """
+            // Baş yorum
+            TKFScripts.define('a.b', function(text, key) {
+                /* blok
+                   yorum */
+                var value = text + ' // yorum değil';
+                return { value: value, key: key };
+            });
+        """.trimIndent()
+
+        assertEquals(
+            "TKFScripts.define('a.b',function(text,key){var value=text+' // yorum değil';return{value:value,key:key};});",
+            JsMinifier.minify(source)
+        )
+    }
+
+    @Test
+    fun keepsLiteralsIntact() {
+        val source = """
+            var a = "x  /* y */  z", b = `t  ${'$'}{a}  // u`;
+            var re = /[\u0300-\u036f]/g, half = a.length / 2 / 1;
+            if (/\d+$/.test(b)) { return typeof /x/ }
+        """.trimIndent()
+
+        assertEquals(
+            "var a=\"x  /* y */  z\",b=`t  ${'$'}{a}  // u`;var re=/[\\u0300-\\u036f]/g,half=a.length/2/1;if(/\\d+$/.test(b)){return typeof/x/}",
+            JsMinifier.minify(source)
+        )
+    }
+
+    @Test
+    fun keepsNewlinesWhereAsiDependsOnThem() {
+        val source = """
+            var a = 1
+            var b = a
+            ++b
+            return
+            b
+        """.trimIndent()
+
+        val minified = JsMinifier.minify(source)
+        assertEquals("var a=1\nvar b=a\n++b\nreturn\nb", minified)
+
+        // '+' sonrasında satır sonu korunur (a++ ile b birleşmesin), virgül ve parantezlerde kaldırılır
+        assertEquals("var c=a+\nb,d=[1,2]", JsMinifier.minify("var c = a +\n  b,\n  d = [\n 1,\n 2\n]"))
+        assertTrue(JsMinifier.minify("a - -b").contains("- -"))
+    }
+}
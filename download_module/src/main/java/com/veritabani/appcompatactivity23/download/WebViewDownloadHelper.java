@@ -2,6 +2,7 @@ package com.veritabani.appcompatactivity23.download;
 
 import android.content.Context;
 import android.util.Log;
+import android.webkit.RenderProcessGoneDetail;
 import android.webkit.URLUtil;
 import android.webkit.WebView;
 import android.webkit.WebViewClient;
@@ -14,8 +15,39 @@ import android.webkit.JavascriptInterface;
  */
 public class WebViewDownloadHelper {
     private static final String TAG = "WebViewDownloadHelper";
+
+    /**
+     * Captures clicks on download buttons and hands the URL to the host's page channel
+     * (a "download" event) or, when it is not connected, to NativeDownloader.
+     * Yalnızca gerçek indirme işaretleri eşleşir: title="İndir" olan butonlar ve
+     * {@code isDownloadUrl} ile aynı biçimdeki bağlantılar. Sınıf adı ya da metin
+     * ("İndirim" gibi) eşleştirilmez; sıradan gezinme bağlantıları indirmeye çevrilmez.
+     * Olay yetkilendirmesi kullanır; belge başında enjekte edilse bile sonradan eklenen butonları yakalar.
+     */
+    public static final String DOWNLOAD_HANDLER_SCRIPT = "(function() {\n" +
+            "    var isDownloadUrl = function(url) {\n" +
+            "        return url.indexOf('/EXT/PKControl/DownloadFile') !== -1 ||\n" +
+            "            url.indexOf('/DownloadFile') !== -1 ||\n" +
+            "            (url.indexOf('download') !== -1 && url.indexOf('id=') !== -1);\n" +
+            "    };\n" +
+            "    document.addEventListener('click', function(e) {\n" +
+            "        var link = e.target && e.target.closest ? e.target.closest('a, button') : null;\n" +
+            "        if (!link) return;\n" +
+            "        var url = link.href || link.getAttribute('data-url') || link.getAttribute('href');\n" +
+            "        if (!url) return;\n" +
+            "        if (link.getAttribute('title') !== 'İndir' && !isDownloadUrl(url)) return;\n" +
+            "        var channel = window.TKFChannel && window.TKFChannel.connected ? window.TKFChannel : null;\n" +
+            "        if (!channel && !window.NativeDownloader) return;\n" +
+            "        e.preventDefault();\n" +
+            "        e.stopPropagation();\n" +
+            "        if (channel) channel.emit('download', { url: url });\n" +
+            "        else window.NativeDownloader.handleDownloadUrl(url);\n" +
+            "    }, true);\n" +
+            "})();";
+
     private final DownloadManager downloadManager;
     private Context context;
+    private boolean externalScriptInjection = false;
     
     public WebViewDownloadHelper(Context context) {
         this.context = context.getApplicationContext();
@@ -155,14 +187,7 @@ public class WebViewDownloadHelper {
             @JavascriptInterface
             public void handleDownloadUrl(String url) {
                 Log.d(TAG, "JS download URL: " + url);
-                if (isDownloadUrl(url)) {
-                    handleSpecialDownloadUrl(url);
-                } else {
-                    // Normal indirme
-                    String fileName = downloadManager.extractFilenameFromUrl(url);
-                    String userAgent = webView.getSettings().getUserAgentString();
-                    downloadManager.downloadFile(url, fileName, null, userAgent, null);
-                }
+                WebViewDownloadHelper.this.handleDownloadUrl(webView, url);
             }
         }, "NativeDownloader");
         
@@ -174,31 +199,28 @@ public class WebViewDownloadHelper {
      * İndirme butonlarını yakalamak için JavaScript enjekte eder
      */
     private void injectDownloadButtonHandler(WebView webView) {
-        String js = "javascript:(function() {\n" +
-                "    console.log('Injecting download button handler');\n" +
-                "    var downloadLinks = document.querySelectorAll('a[title=\"İndir\"], a.btn-success, a:contains(\"İndir\"), button:contains(\"İndir\")');\n" +
-                "    console.log('Found download buttons: ' + downloadLinks.length);\n" +
-                "    for (var i = 0; i < downloadLinks.length; i++) {\n" +
-                "        var link = downloadLinks[i];\n" +
-                "        if (!link.hasAttribute('data-download-handled')) {\n" +
-                "            link.setAttribute('data-download-handled', 'true');\n" +
-                "            var originalOnClick = link.onclick;\n" +
-                "            link.onclick = function(e) {\n" +
-                "                e.preventDefault();\n" +
-                "                var url = this.href || this.getAttribute('data-url') || this.getAttribute('href');\n" +
-                "                if (url) {\n" +
-                "                    window.NativeDownloader.handleDownloadUrl(url);\n" +
-                "                    return false;\n" +
-                "                }\n" +
-                "                if (originalOnClick) {\n" +
-                "                    return originalOnClick.call(this, e);\n" +
-                "                }\n" +
-                "            };\n" +
-                "        }\n" +
-                "    }\n" +
-                "})();";
-
-        webView.evaluateJavascript(js, null);
+        if (externalScriptInjection) {
+            return;
+        }
+        webView.evaluateJavascript("if (!window._tkfDownloadHandler) { window._tkfDownloadHandler = true; "
+                + DOWNLOAD_HANDLER_SCRIPT + " }", null);
+    }
+    
+    /**
+     * Handles a download URL reported by the page.
+     *
+     * @param webView The WebView the request came from
+     * @param url The URL to download
+     */
+    public void handleDownloadUrl(WebView webView, String url) {
+        if (isDownloadUrl(url)) {
+            handleSpecialDownloadUrl(url);
+        } else {
+            // Normal indirme
+            String fileName = downloadManager.extractFilenameFromUrl(url);
+            String userAgent = webView.getSettings().getUserAgentString();
+            downloadManager.downloadFile(url, fileName, null, userAgent, null);
+        }
     }
     
     /**
@@ -393,6 +415,14 @@ public class WebViewDownloadHelper {
                 injectDownloadButtonHandler(view);
             }
             
+            @Override
+            public boolean onRenderProcessGone(WebView view, RenderProcessGoneDetail detail) {
+                if (originalClient != null) {
+                    return originalClient.onRenderProcessGone(view, detail);
+                }
+                return super.onRenderProcessGone(view, detail);
+            }
+            
             @Override
             public boolean shouldOverrideUrlLoading(WebView view, String url) {
                 Log.d(TAG, "shouldOverrideUrlLoading: " + url);
@@ -425,6 +455,16 @@ public class WebViewDownloadHelper {
         });
     }
     
+    /**
+     * Set when the host app injects {@link #DOWNLOAD_HANDLER_SCRIPT} itself (e.g. at document start),
+     * so the helper skips its own post-load injection.
+     *
+     * @param enabled true if the host injects the script
+     */
+    public void setExternalScriptInjection(boolean enabled) {
+        this.externalScriptInjection = enabled;
+    }
+    
     /**
      * Returns the DownloadManager instance.
      *